@@ -39,6 +39,8 @@ jmh {
     profilers.add("stack")
     profilers.add("gc")
 
+    resultFormat.set("JSON") // Machine-readable results to compare runs for performance regressions
+
     includeTests.set(false) // Do not include tests by default
 }
 
@@ -22,112 +22,82 @@
 
 package org.opendc.compute.carbon
 
-import org.opendc.simulator.compute.power.CarbonFragment
+import org.opendc.simulator.compute.power.CarbonTimeline
+import org.opendc.trace.TableBatch
 import org.opendc.trace.Trace
 import org.opendc.trace.conv.CARBON_INTENSITY_TIMESTAMP
 import org.opendc.trace.conv.CARBON_INTENSITY_VALUE
 import org.opendc.trace.conv.TABLE_CARBON_INTENSITIES
 import java.io.File
-import java.lang.ref.SoftReference
-import java.time.Instant
 import java.util.concurrent.ConcurrentHashMap
 
 /**
- * A helper class for loading compute workload traces into memory.
+ * A helper class for loading carbon intensity traces into memory.
  *
- * @param baseDir The directory containing the traces.
+ * The loaded timelines are cached by the canonical path of the trace, so that all power sources that use the same
+ * trace share a single [CarbonTimeline].
  */
 public class CarbonTraceLoader {
     /**
-     * The cache of workloads.
+     * The cache of carbon timelines.
      */
-    private val cache = ConcurrentHashMap<String, SoftReference<List<CarbonFragment>>>()
-
-    private val builder = CarbonFragmentNewBuilder()
+    private val cache = ConcurrentHashMap<String, CarbonTimeline>()
 
     /**
-     * Read the metadata into a workload.
+     * Read the carbon intensities of the trace into a timeline.
      */
-    private fun parseCarbon(trace: Trace): List<CarbonFragment> {
-        val reader = checkNotNull(trace.getTable(TABLE_CARBON_INTENSITIES)).newReader()
-
-        val startTimeCol = reader.resolve(CARBON_INTENSITY_TIMESTAMP)
-        val carbonIntensityCol = reader.resolve(CARBON_INTENSITY_VALUE)
-
-        try {
-            while (reader.nextRow()) {
-                val startTime = reader.getInstant(startTimeCol)!!
-                val carbonIntensity = reader.getDouble(carbonIntensityCol)
-
-                builder.add(startTime, carbonIntensity)
+    private fun parseCarbon(trace: Trace): CarbonTimeline {
+        val reader =
+            checkNotNull(trace.getTable(TABLE_CARBON_INTENSITIES))
+                .newReader(listOf(CARBON_INTENSITY_TIMESTAMP, CARBON_INTENSITY_VALUE))
+
+        reader.use {
+            val batch = TableBatch(BATCH_SIZE)
+            val timestampVector = batch.instants(reader.resolve(CARBON_INTENSITY_TIMESTAMP))
+            val intensityVector = batch.doubles(reader.resolve(CARBON_INTENSITY_VALUE))
+
+            var timestamps = LongArray(BATCH_SIZE)
+            var intensities = DoubleArray(BATCH_SIZE)
+            var size = 0
+
+            while (reader.nextBatch(batch)) {
+                val count = batch.size
+                if (size + count > timestamps.size) {
+                    val capacity = maxOf(size + count, timestamps.size * 2)
+                    timestamps = timestamps.copyOf(capacity)
+                    intensities = intensities.copyOf(capacity)
+                }
+
+                timestampVector.values.copyInto(timestamps, size, 0, count)
+                intensityVector.values.copyInto(intensities, size, 0, count)
+                size += count
             }
 
-            // Make sure the virtual machines are ordered by start time
-            builder.fixReportTimes()
+            require(size > 0) { "The carbon trace is empty" }
 
-            return builder.fragments
-        } catch (e: Exception) {
-            e.printStackTrace()
-            throw e
-        } finally {
-            reader.close()
+            // The timeline orders the samples by their timestamp
+            return CarbonTimeline.of(timestamps, intensities, size)
         }
     }
 
     /**
-     * Load the trace with the specified [name] and [format].
+     * Load the carbon trace at the specified [pathToFile].
      */
-    public fun get(pathToFile: File): List<CarbonFragment> {
-        val trace = Trace.open(pathToFile, "carbon")
-
-        return parseCarbon(trace)
+    public fun get(pathToFile: File): CarbonTimeline {
+        return cache.computeIfAbsent(pathToFile.canonicalPath) { parseCarbon(Trace.open(pathToFile, "carbon")) }
     }
 
     /**
-     * Clear the workload cache.
+     * Clear the timeline cache.
      */
     public fun reset() {
         cache.clear()
     }
 
-    /**
-     * A builder for a VM trace.
-     */
-    private class CarbonFragmentNewBuilder {
-        /**
-         * The total load of the trace.
-         */
-        public val fragments: MutableList<CarbonFragment> = mutableListOf()
-
+    private companion object {
         /**
-         * Add a fragment to the trace.
-         *
-         * @param startTime Timestamp at which the fragment starts (in epoch millis).
-         * @param carbonIntensity The carbon intensity during this fragment
+         * The number of rows to read from the trace at once.
          */
-        fun add(
-            startTime: Instant,
-            carbonIntensity: Double,
-        ) {
-            fragments.add(
-                CarbonFragment(
-                    startTime.toEpochMilli(),
-                    Long.MAX_VALUE,
-                    carbonIntensity,
-                ),
-            )
-        }
-
-        fun fixReportTimes() {
-            fragments.sortBy { it.startTime }
-
-            // For each report, set the end time to the start time of the next report
-            for (i in 0..fragments.size - 2) {
-                fragments[i].endTime = fragments[i + 1].startTime
-            }
-
-            // Set the start time of each report to the minimum value
-            fragments[0].startTime = Long.MIN_VALUE
-        }
+        const val BATCH_SIZE = 4096
     }
 }
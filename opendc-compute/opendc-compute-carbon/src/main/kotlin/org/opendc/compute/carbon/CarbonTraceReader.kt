@@ -24,28 +24,35 @@
 
 package org.opendc.compute.carbon
 
-import org.opendc.simulator.compute.power.CarbonFragment
+import org.opendc.simulator.compute.power.CarbonTimeline
 import java.io.File
 import javax.management.InvalidAttributeValueException
 
 /**
- * Construct a workload from a trace.
+ * The loader shared by all users of carbon traces in the process.
  */
-public fun getCarbonFragments(pathToFile: String?): List<CarbonFragment>? {
+private val loader = CarbonTraceLoader()
+
+/**
+ * Construct a carbon intensity timeline from a trace.
+ */
+public fun getCarbonTimeline(pathToFile: String?): CarbonTimeline? {
     if (pathToFile == null) {
         return null
     }
 
-    return getCarbonFragments(File(pathToFile))
+    return getCarbonTimeline(File(pathToFile))
 }
 
 /**
- * Construct a workload from a trace.
+ * Construct a carbon intensity timeline from a trace.
+ *
+ * Timelines are loaded once per trace and shared by all callers.
  */
-public fun getCarbonFragments(file: File): List<CarbonFragment> {
+public fun getCarbonTimeline(file: File): CarbonTimeline {
     if (!file.exists()) {
         throw InvalidAttributeValueException("The carbon trace cannot be found")
     }
 
-    return CarbonTraceLoader().get(file)
+    return loader.get(file)
 }
@@ -32,10 +32,12 @@ public abstract class HostFault(
     private val service: ComputeService,
 ) {
     /**
-     * Apply the fault to the specified [victims].
+     * Start the fault on the specified [victims].
      */
-    public abstract suspend fun apply(
-        victims: List<SimHost>,
-        faultDuration: Long,
-    )
+    public abstract fun fail(victims: List<SimHost>)
+
+    /**
+     * Recover the specified [victims], which were previously passed to [fail], from the fault.
+     */
+    public abstract fun recover(victims: List<SimHost>)
 }
@@ -22,7 +22,6 @@
 
 package org.opendc.compute.failure.hostfault
 
-import kotlinx.coroutines.delay
 import org.opendc.compute.simulator.host.SimHost
 import org.opendc.compute.simulator.service.ComputeService
 
@@ -32,12 +31,12 @@ import org.opendc.compute.simulator.service.ComputeService
 public class StartStopHostFault(
     private val service: ComputeService,
 ) : HostFault(service) {
-    override suspend fun apply(
-        victims: List<SimHost>,
-        faultDuration: Long,
-    ) {
-        val client: ComputeService.ComputeClient = service.newClient()
+    /**
+     * The client used to reschedule the tasks of failed hosts.
+     */
+    private val client: ComputeService.ComputeClient by lazy { service.newClient() }
 
+    override fun fail(victims: List<SimHost>) {
         for (host in victims) {
             val guests = host.getGuests()
 
@@ -49,9 +48,9 @@ public class StartStopHostFault(
                 client.rescheduleTask(task, snapshot)
             }
         }
+    }
 
-        delay(faultDuration)
-
+    override fun recover(victims: List<SimHost>) {
         for (host in victims) {
             host.recover()
         }
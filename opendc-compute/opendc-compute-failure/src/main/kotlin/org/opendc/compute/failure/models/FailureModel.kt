@@ -22,21 +22,34 @@
 
 package org.opendc.compute.failure.models
 
-import kotlinx.coroutines.CoroutineScope
-import kotlinx.coroutines.Job
-import kotlinx.coroutines.cancel
-import kotlinx.coroutines.launch
+import mu.KotlinLogging
+import org.opendc.common.Dispatcher
+import org.opendc.common.DispatcherHandle
+import org.opendc.common.DispatcherProvider
 import org.opendc.compute.failure.hostfault.HostFault
 import org.opendc.compute.failure.hostfault.StartStopHostFault
 import org.opendc.compute.failure.victimselector.StochasticVictimSelector
 import org.opendc.compute.simulator.host.SimHost
 import org.opendc.compute.simulator.service.ComputeService
 import java.time.InstantSource
+import java.util.IdentityHashMap
 import java.util.random.RandomGenerator
+import kotlin.coroutines.ContinuationInterceptor
 import kotlin.coroutines.CoroutineContext
 
 /**
  * Factory interface for constructing [FailureModel] for modeling failures of compute service hosts.
+ *
+ * A failure model injects the failures of its [FailureSchedule] using timers of the simulation dispatcher. Each
+ * failure starts after the interval that precedes it and recovers after its duration, independently of the other
+ * failures, so outages of consecutive failures may overlap.
+ *
+ * A host is hit by at most one outage at a time: a failure that selects a host which is already down (including a host
+ * that recovers at the moment the failure starts) is absorbed by the ongoing outage and does not extend it. Hence, a
+ * repeating schedule cannot keep a host down for longer than the duration of a single failure. The number of absorbed
+ * host failures is available through [absorbedFailures].
+ *
+ * @param context The coroutine context of the simulation, which must be backed by a simulation dispatcher.
  */
 public abstract class FailureModel(
     context: CoroutineContext,
@@ -44,42 +57,170 @@ public abstract class FailureModel(
     protected val service: ComputeService,
     protected val random: RandomGenerator,
 ) : AutoCloseable {
-    protected val scope: CoroutineScope = CoroutineScope(context + Job())
+    /**
+     * The logger instance of this failure model.
+     */
+    private val logger = KotlinLogging.logger {}
+
+    /**
+     * The dispatcher on which the failures are scheduled.
+     */
+    private val dispatcher: Dispatcher =
+        requireNotNull((context[ContinuationInterceptor] as? DispatcherProvider)?.dispatcher) {
+            "A failure model requires a coroutine context that is backed by a simulation dispatcher"
+        }
 
     // TODO: could at some point be extended to different types of faults
     protected val fault: HostFault = StartStopHostFault(service)
 
+    protected val hosts: Set<SimHost> = service.hosts.map { it as SimHost }.toSet()
+
     // TODO: could at some point be extended to different types of victim selectors
-    protected val victimSelector: StochasticVictimSelector = StochasticVictimSelector(random)
+    protected val victimSelector: StochasticVictimSelector = StochasticVictimSelector(random, hosts.toList())
 
-    protected val hosts: Set<SimHost> = service.hosts.map { it as SimHost }.toSet()
+    /**
+     * The schedule of failures to inject. It is obtained once the model is started.
+     */
+    private var schedule: FailureSchedule? = null
 
     /**
-     * The [Job] that awaits the nearest fault in the system.
+     * The position of the next failure in the schedule.
      */
-    private var job: Job? = null
+    private var position = 0
+
+    /**
+     * The timer that awaits the next failure in the system.
+     */
+    private var nextFailure: DispatcherHandle? = null
+
+    /**
+     * The timers that await the recovery of the active failures.
+     */
+    private val recoveries = HashSet<DispatcherHandle>()
+
+    /**
+     * The moment at which the last outage of each failed host ends.
+     */
+    private val outageEnds = IdentityHashMap<SimHost, Long>()
+
+    private var isStarted = false
+    private var isClosed = false
+
+    /**
+     * The number of host failures that were absorbed by an ongoing outage of the host.
+     */
+    public var absorbedFailures: Long = 0
+        private set
 
     /**
      * Start the fault injection into the system.
      */
     public fun start() {
-        if (job != null) {
+        if (isStarted) {
+            return
+        }
+
+        isStarted = true
+        schedule = createSchedule()
+        scheduleNext()
+    }
+
+    /**
+     * Compute the [FailureSchedule] to inject into the system. This method is invoked once when the model is started.
+     */
+    protected abstract fun createSchedule(): FailureSchedule
+
+    /**
+     * Schedule a timer for the next failure in the schedule.
+     */
+    private fun scheduleNext() {
+        val schedule = schedule ?: return
+
+        if (position >= schedule.size) {
+            if (!schedule.repeat || schedule.size == 0) {
+                nextFailure = null
+                return
+            }
+            position = 0
+        }
+
+        val n = position++
+        val interval = schedule.intervalAt(n)
+
+        // Handle long overflow
+        if (clock.millis() + interval < 0) {
+            nextFailure = null
             return
         }
 
-        job =
-            scope.launch {
-                runInjector()
-                job = null
+        nextFailure =
+            dispatcher.scheduleCancellable(interval) {
+                inject(schedule.intensityAt(n), schedule.durationAt(n))
+                scheduleNext()
             }
     }
 
-    public abstract suspend fun runInjector()
+    /**
+     * Inject a failure with the specified [intensity] that lasts for [duration] milliseconds.
+     */
+    private fun inject(
+        intensity: Double,
+        duration: Long,
+    ) {
+        if (isClosed) {
+            return
+        }
+
+        val now = clock.millis()
+        val end = now + duration
+        val victims =
+            victimSelector.select(intensity).filter { host ->
+                val current = outageEnds[host]
+                if (current != null && current >= now) {
+                    // The host is still down, so the failure is absorbed by the ongoing outage
+                    absorbedFailures++
+                    logger.debug { "Failure of host ${host.getName()} at $now absorbed by outage until $current" }
+                    false
+                } else {
+                    outageEnds[host] = end
+                    true
+                }
+            }
+
+        if (victims.isEmpty()) {
+            return
+        }
+
+        fault.fail(victims)
+
+        lateinit var handle: DispatcherHandle
+        handle =
+            dispatcher.scheduleCancellable(duration) {
+                recoveries.remove(handle)
+                fault.recover(victims)
+            }
+        recoveries.add(handle)
+    }
 
     /**
      * Stop the fault injector.
      */
     public override fun close() {
-        scope.cancel()
+        if (isClosed) {
+            return
+        }
+
+        isClosed = true
+        if (absorbedFailures > 0) {
+            logger.info { "$absorbedFailures host failures were absorbed by ongoing outages" }
+        }
+
+        nextFailure?.cancel()
+        nextFailure = null
+
+        for (handle in recoveries) {
+            handle.cancel()
+        }
+        recoveries.clear()
     }
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.compute.failure.models
+
+/**
+ * A precomputed, immutable sequence of failures that is injected by a [FailureModel].
+ *
+ * The failures are stored in primitive arrays, so a schedule can be shared by all models that use the same trace.
+ *
+ * @param intervals The time between the start of each failure and the start of the previous failure in ms.
+ * @param durations The duration of each failure in ms.
+ * @param intensities The ratio of hosts affected by each failure.
+ * @param offset The index of the first failure of the schedule.
+ * @param repeat A flag to indicate that the schedule restarts after the last failure.
+ */
+public class FailureSchedule(
+    private val intervals: LongArray,
+    private val durations: LongArray,
+    private val intensities: DoubleArray,
+    private val offset: Int = 0,
+    repeat: Boolean = false,
+) {
+    init {
+        require(intervals.size == durations.size && intervals.size == intensities.size) { "Arrays must have equal length" }
+        require(offset == 0 || offset in intervals.indices) { "Offset out of bounds" }
+    }
+
+    /**
+     * The number of failures in a single pass over the schedule.
+     */
+    public val size: Int
+        get() = intervals.size
+
+    /**
+     * A flag to indicate that the schedule restarts after the last failure. Schedules whose failures all start at the
+     * same time are never repeated, since they would never advance the clock.
+     */
+    public val repeat: Boolean = repeat && intervals.any { it > 0 }
+
+    /**
+     * Return the interval before the [n]-th failure of the schedule in ms.
+     */
+    public fun intervalAt(n: Int): Long = intervals[index(n)]
+
+    /**
+     * Return the duration of the [n]-th failure of the schedule in ms.
+     */
+    public fun durationAt(n: Int): Long = durations[index(n)]
+
+    /**
+     * Return the intensity of the [n]-th failure of the schedule.
+     */
+    public fun intensityAt(n: Int): Double = intensities[index(n)]
+
+    /**
+     * Return a copy of this schedule that starts at the specified [offset] and possibly repeats.
+     */
+    public fun withOffset(
+        offset: Int,
+        repeat: Boolean,
+    ): FailureSchedule = FailureSchedule(intervals, durations, intensities, offset, repeat)
+
+    private fun index(n: Int): Int {
+        val index = offset + n
+        return if (index >= intervals.size) index - intervals.size else index
+    }
+}
@@ -22,7 +22,6 @@
 
 package org.opendc.compute.failure.models
 
-import kotlinx.coroutines.delay
 import org.apache.commons.math3.distribution.RealDistribution
 import org.opendc.compute.simulator.service.ComputeService
 import java.time.InstantSource
@@ -52,26 +51,15 @@ public class SampleBasedFailureModel(
     private val durationSampler: RealDistribution,
     private val nohSampler: RealDistribution,
 ) : FailureModel(context, clock, service, random) {
-    override suspend fun runInjector() {
-        while (true) {
-            val iatSample = max(0.0, iatSampler.sample())
-            val intervalDuration = (iatSample * 3.6e6).roundToLong()
+    override fun createSchedule(): FailureSchedule {
+        val iatSample = max(0.0, iatSampler.sample())
+        val intervalDuration = (iatSample * 3.6e6).roundToLong()
 
-            // Handle long overflow
-            if (clock.millis() + intervalDuration <= 0) {
-                return
-            }
+        val numberOfHosts = min(1.0, max(0.0, nohSampler.sample()))
 
-            delay(intervalDuration)
+        val durationSample = max(0.0, durationSampler.sample())
+        val faultDuration = (durationSample * 3.6e6).toLong()
 
-            val numberOfHosts = min(1.0, max(0.0, nohSampler.sample()))
-            val victims = victimSelector.select(hosts, numberOfHosts)
-
-            val durationSample = max(0.0, durationSampler.sample())
-            val faultDuration = (durationSample * 3.6e6).toLong()
-            fault.apply(victims, faultDuration)
-
-            break
-        }
+        return FailureSchedule(longArrayOf(intervalDuration), longArrayOf(faultDuration), doubleArrayOf(numberOfHosts))
     }
 }
@@ -22,8 +22,8 @@
 
 package org.opendc.compute.failure.models
 
-import kotlinx.coroutines.delay
 import org.opendc.compute.simulator.service.ComputeService
+import org.opendc.trace.TableBatch
 import org.opendc.trace.Trace
 import org.opendc.trace.conv.FAILURE_DURATION
 import org.opendc.trace.conv.FAILURE_INTENSITY
@@ -31,9 +31,9 @@ import org.opendc.trace.conv.FAILURE_INTERVAL
 import org.opendc.trace.conv.TABLE_FAILURES
 import java.io.File
 import java.time.InstantSource
+import java.util.concurrent.ConcurrentHashMap
 import java.util.random.RandomGenerator
 import kotlin.coroutines.CoroutineContext
-import kotlin.time.times
 
 /**
  * A definition of a Failure
@@ -59,6 +59,7 @@ public data class Failure(
  * A [FailureModel] based on a provided parquet file
  * The file provides a list of [Failure] objects
  *
+ * The trace is parsed once per process into a [FailureSchedule] that is shared by all models that use the trace.
  *
  * @param context
  * @param clock
@@ -71,59 +72,69 @@ public class TraceBasedFailureModel(
     clock: InstantSource,
     service: ComputeService,
     random: RandomGenerator,
-    pathToTrace: String,
-    startPoint: Double,
+    private val pathToTrace: String,
+    private val startPoint: Double,
     private val repeat: Boolean = true,
 ) : FailureModel(context, clock, service, random) {
-    private val failureList = loadTrace(pathToTrace, startPoint)
+    override fun createSchedule(): FailureSchedule {
+        val schedule = schedules.computeIfAbsent(File(pathToTrace).canonicalPath) { loadTrace(it) }
+        val startIndex: Int = (schedule.size * startPoint).toInt()
 
-    override suspend fun runInjector() {
-        do {
-            for (failure in failureList) {
-                delay(failure.failureInterval)
+        return schedule.withOffset(if (startIndex < schedule.size) startIndex else 0, repeat)
+    }
 
-                val victims = victimSelector.select(hosts, failure.failureIntensity)
+    private companion object {
+        /**
+         * The failure traces that have been loaded so far, keyed by their canonical path.
+         */
+        val schedules = ConcurrentHashMap<String, FailureSchedule>()
 
-                fault.apply(victims, failure.failureDuration)
-            }
-        } while (repeat)
-    }
+        /**
+         * The number of rows to read from the trace at once.
+         */
+        const val BATCH_SIZE = 4096
 
-    /**
-     * Load a list [Failure] objects from the provided [pathToFile]
-     *
-     * @param pathToFile
-     */
-    private fun loadTrace(
-        pathToFile: String,
-        startPoint: Double,
-    ): List<Failure> {
-        val trace = Trace.open(File(pathToFile), "failure")
+        /**
+         * Load the failures from the provided [pathToFile] into a [FailureSchedule].
+         *
+         * @param pathToFile
+         */
+        fun loadTrace(pathToFile: String): FailureSchedule {
+            val trace = Trace.open(File(pathToFile), "failure")
 
-        val reader = checkNotNull(trace.getTable(TABLE_FAILURES)).newReader()
+            val reader = checkNotNull(trace.getTable(TABLE_FAILURES)).newReader()
 
-        val failureStartTimeCol = reader.resolve(FAILURE_INTERVAL)
-        val failureDurationCol = reader.resolve(FAILURE_DURATION)
-        val failureIntensityCol = reader.resolve(FAILURE_INTENSITY)
+            reader.use {
+                val batch = TableBatch(BATCH_SIZE)
+                val failureIntervals = batch.longs(reader.resolve(FAILURE_INTERVAL))
+                val failureDurations = batch.longs(reader.resolve(FAILURE_DURATION))
+                val failureIntensities = batch.doubles(reader.resolve(FAILURE_INTENSITY))
 
-        val entries = mutableListOf<Failure>()
+                var intervals = LongArray(BATCH_SIZE)
+                var durations = LongArray(BATCH_SIZE)
+                var intensities = DoubleArray(BATCH_SIZE)
+                var size = 0
 
-        try {
-            while (reader.nextRow()) {
-                val failureStartTime = reader.getLong(failureStartTimeCol)
-                val failureDuration = reader.getLong(failureDurationCol)
-                val failureIntensity = reader.getDouble(failureIntensityCol)
+                while (reader.nextBatch(batch)) {
+                    for (row in 0 until batch.size) {
+                        // Validate the failure
+                        val failure = Failure(failureIntervals[row], failureDurations[row], failureIntensities[row])
 
-                entries.add(Failure(failureStartTime, failureDuration, failureIntensity))
-            }
+                        if (size == intervals.size) {
+                            intervals = intervals.copyOf(size * 2)
+                            durations = durations.copyOf(size * 2)
+                            intensities = intensities.copyOf(size * 2)
+                        }
+
+                        intervals[size] = failure.failureInterval
+                        durations[size] = failure.failureDuration
+                        intensities[size] = failure.failureIntensity
+                        size++
+                    }
+                }
 
-            val startIndex: Int = (entries.size * startPoint).toInt()
-            return entries.subList(startIndex, entries.size) + entries.subList(0, startIndex)
-        } catch (e: Exception) {
-            e.printStackTrace()
-            throw e
-        } finally {
-            reader.close()
+                return FailureSchedule(intervals.copyOf(size), durations.copyOf(size), intensities.copyOf(size))
+            }
         }
     }
 }
@@ -30,12 +30,39 @@ import kotlin.math.min
 
 /**
  * A [VictimSelector] that stochastically selects a set of hosts to be failed.
+ *
+ * @param random The random generator used to select the victims.
+ * @param hosts The hosts to select from when no explicit set of hosts is provided.
  */
 public class StochasticVictimSelector(
     private val random: RandomGenerator = SplittableRandom(0),
+    hosts: List<SimHost> = emptyList(),
 ) : VictimSelector {
+    /**
+     * The hosts to select from, which are permuted in place as victims are selected.
+     */
+    private val hosts: Array<SimHost> = hosts.toTypedArray()
+
+    /**
+     * Select [numberOfHosts] distinct hosts uniformly at random using a partial Fisher-Yates shuffle, which takes time
+     * proportional to the number of selected hosts.
+     */
     override fun select(numberOfHosts: Int): List<SimHost> {
-        error("select with only int cannot be used in this type of VictimSelector")
+        val hosts = hosts
+        val random = random
+        val size = hosts.size
+        val count = min(max(0, numberOfHosts), size)
+        val result = ArrayList<SimHost>(count)
+
+        for (i in 0 until count) {
+            val j = i + random.nextInt(size - i)
+            val host = hosts[j]
+            hosts[j] = hosts[i]
+            hosts[i] = host
+            result.add(host)
+        }
+
+        return result
     }
 
     override fun select(
@@ -64,7 +91,9 @@ public class StochasticVictimSelector(
     }
 
     override fun select(failureIntensity: Double): List<SimHost> {
-        error("select with only int cannot be used in this type of VictimSelector")
+        // clamp value between 0.0 and 1.0
+        val intensity = min(1.0, max(0.0, failureIntensity))
+        return select((hosts.size * intensity).toInt())
     }
 
     override fun select(
@@ -75,7 +104,7 @@ public class StochasticVictimSelector(
         val intensity = min(1.0, max(0.0, failureIntensity))
         val numberOfHosts = (hosts.size * intensity).toInt()
 
-        return hosts.asSequence().shuffled().take(numberOfHosts).toList()
+        return select(hosts, numberOfHosts)
     }
 
     override fun toString(): String = "StochasticVictimSelector"
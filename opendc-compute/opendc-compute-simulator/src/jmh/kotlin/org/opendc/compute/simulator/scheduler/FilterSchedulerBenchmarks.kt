@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.opendc.compute.simulator.scheduler
+
+import org.opendc.compute.simulator.host.SimHost
+import org.opendc.compute.simulator.service.ComputeService
+import org.opendc.compute.simulator.service.HostView
+import org.opendc.compute.simulator.service.ServiceTask
+import org.opendc.simulator.Multiplexer
+import org.opendc.simulator.SimulationDispatcher
+import org.opendc.simulator.compute.cpu.CpuPowerModels
+import org.opendc.simulator.compute.models.CpuModel
+import org.opendc.simulator.compute.models.MachineModel
+import org.opendc.simulator.compute.models.MemoryUnit
+import org.opendc.simulator.compute.workload.TraceFragment
+import org.opendc.simulator.compute.workload.TraceWorkload
+import org.opendc.simulator.engine.FlowEngine
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+import java.time.Duration
+import java.util.SplittableRandom
+import java.util.UUID
+import java.util.concurrent.TimeUnit
+
+/**
+ * Benchmarks for the selection of a host by a [FilterScheduler] over a large pool of heterogeneous hosts.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 3, timeUnit = TimeUnit.SECONDS)
+class FilterSchedulerBenchmarks {
+    @Param("100", "1000", "10000")
+    private var hostCount: Int = 0
+
+    @Param("Mem", "CoreMem", "ActiveServers", "ProvisionedCores", "Random")
+    lateinit var scheduler: ComputeSchedulerEnum
+
+    @Param("false", "true")
+    private var indexed: Boolean = false
+
+    private lateinit var computeScheduler: ComputeScheduler
+    private lateinit var tasks: Array<ServiceTask>
+    private lateinit var random: SplittableRandom
+
+    @Setup
+    fun setUp() {
+        val dispatcher = SimulationDispatcher()
+        val graph = FlowEngine.create(dispatcher).newGraph()
+        val powerMux = Multiplexer(graph)
+        val powerModel = CpuPowerModels.linear(350.0, 200.0)
+
+        random = SplittableRandom(1)
+        computeScheduler = createComputeScheduler(scheduler, SplittableRandom(1), indexed = indexed)
+
+        repeat(hostCount) {
+            val coreCount = HOST_CORES[random.nextInt(HOST_CORES.size)]
+            val model =
+                MachineModel(
+                    CpuModel(0, coreCount, 2900.0),
+                    MemoryUnit("Crucial", "MTA18ASF4G72AZ-3G2B1", 3200.0, coreCount * 8_192L),
+                )
+            val host =
+                SimHost(
+                    UUID(0, it.toLong()),
+                    "host-$it",
+                    emptyMap(),
+                    dispatcher.timeSource,
+                    graph,
+                    model,
+                    powerModel,
+                    powerMux,
+                )
+            computeScheduler.addHost(HostView(host))
+        }
+
+        // The tasks are submitted to a service that is never run, so they remain pending
+        val service = ComputeService(dispatcher, computeScheduler, Duration.ofMinutes(5), 10)
+        val client = service.newClient()
+        val workload = TraceWorkload.ofFragments(TraceFragment(5 * 60 * 1000L, 1000.0, 1))
+        tasks =
+            Array(1024) {
+                val coreCount = TASK_CORES[random.nextInt(TASK_CORES.size)]
+                val flavor = client.internFlavor(coreCount, coreCount * 4_096L, emptyMap<String, Any>())
+                client.newTask("task-$it", flavor, workload, emptyMap<String, Any>())
+            }
+    }
+
+    @Benchmark
+    fun benchmarkSelect(): HostView? {
+        return computeScheduler.select(tasks[random.nextInt(tasks.size)])
+    }
+
+    private companion object {
+        /**
+         * The core counts of the hosts in the pool.
+         */
+        val HOST_CORES = intArrayOf(8, 16, 32, 64)
+
+        /**
+         * The core counts of the tasks to select a host for.
+         */
+        val TASK_CORES = intArrayOf(1, 2, 4, 8, 16)
+    }
+}
@@ -28,9 +28,11 @@ import java.time.InstantSource;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -49,10 +51,13 @@ import org.opendc.compute.simulator.host.HostModel;
 import org.opendc.compute.simulator.host.HostState;
 import org.opendc.compute.simulator.host.SimHost;
 import org.opendc.compute.simulator.scheduler.ComputeScheduler;
+import org.opendc.compute.simulator.scheduler.QueueDiscipline;
 import org.opendc.compute.simulator.telemetry.ComputeMetricReader;
 import org.opendc.compute.simulator.telemetry.SchedulerStats;
 import org.opendc.simulator.compute.power.SimPowerSource;
 import org.opendc.simulator.compute.power.SimBattery;
+import org.opendc.simulator.compute.workload.ChainWorkload;
+import org.opendc.simulator.compute.workload.TraceWorkload;
 import org.opendc.simulator.compute.workload.Workload;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -85,6 +90,16 @@ public final class ComputeService implements AutoCloseable {
 
     private final int maxNumFailures;
 
+    /**
+     * The discipline used to order the tasks waiting in the queue.
+     */
+    private final QueueDiscipline queueDiscipline;
+
+    /**
+     * The maximum number of tasks behind a blocked head that are considered in a single scheduling cycle.
+     */
+    private final int backfillWindow;
+
     /**
      * A flag to indicate that the service is closed.
      */
@@ -115,6 +130,16 @@ public final class ComputeService implements AutoCloseable {
      */
     private final Deque<SchedulingRequest> taskQueue = new ArrayDeque<>();
 
+    /**
+     * The requests that arrived while the queue was being traversed by a scheduling cycle.
+     */
+    private final List<SchedulingRequest> deferredRequests = new ArrayList<>();
+
+    /**
+     * A flag to indicate that a scheduling cycle is traversing the queue.
+     */
+    private boolean isScheduling;
+
     /**
      * The active tasks in the system.
      */
@@ -132,6 +157,11 @@ public final class ComputeService implements AutoCloseable {
 
     private final List<ServiceFlavor> flavors = new ArrayList<>();
 
+    /**
+     * The interned flavors of this compute service, indexed by their shape.
+     */
+    private final Map<FlavorShape, ServiceFlavor> flavorByShape = new HashMap<>();
+
     /**
      * The registered images for this compute service.
      */
@@ -195,6 +225,7 @@ public final class ComputeService implements AutoCloseable {
                     hv.provisionedCores -= flavor.getCoreCount();
                     hv.instanceCount--;
                     hv.availableMemory += flavor.getMemorySize();
+                    scheduler.updateHost(hv);
                 } else {
                     LOGGER.error("Unknown host {}", host);
                 }
@@ -229,15 +260,32 @@ public final class ComputeService implements AutoCloseable {
     private int tasksActive = 0; // Number of tasks that are currently running
     private int tasksTerminated = 0; // Number of tasks that were terminated due to too much failures
     private int tasksCompleted = 0; // Number of tasks completed successfully
+    private int tasksBackfilled = 0; // Number of tasks placed while an older task was blocked
+    private long headOfLineBlockingTime = 0L; // Time the head of the queue spent blocked, in milliseconds
 
     /**
      * Construct a {@link ComputeService} instance.
      */
     public ComputeService(Dispatcher dispatcher, ComputeScheduler scheduler, Duration quantum, int maxNumFailures) {
+        this(dispatcher, scheduler, quantum, maxNumFailures, QueueDiscipline.FIFO, 0);
+    }
+
+    /**
+     * Construct a {@link ComputeService} instance.
+     */
+    public ComputeService(
+            Dispatcher dispatcher,
+            ComputeScheduler scheduler,
+            Duration quantum,
+            int maxNumFailures,
+            QueueDiscipline queueDiscipline,
+            int backfillWindow) {
         this.clock = dispatcher.getTimeSource();
         this.scheduler = scheduler;
         this.pacer = new Pacer(dispatcher, quantum.toMillis(), (time) -> doSchedule());
         this.maxNumFailures = maxNumFailures;
+        this.queueDiscipline = queueDiscipline;
+        this.backfillWindow = backfillWindow;
     }
 
     /**
@@ -377,6 +425,13 @@ public final class ComputeService implements AutoCloseable {
      * Collect the statistics about the scheduler component of this service.
      */
     public SchedulerStats getSchedulerStats() {
+        // Include the time the current head of the queue has been blocked so far
+        long blockingTime = headOfLineBlockingTime;
+        SchedulingRequest head = taskQueue.peek();
+        if (head != null && head.blockedSince != Long.MIN_VALUE) {
+            blockingTime += clock.millis() - head.blockedSince;
+        }
+
         return new SchedulerStats(
                 availableHosts.size(),
                 hostToView.size() - availableHosts.size(),
@@ -386,7 +441,9 @@ public final class ComputeService implements AutoCloseable {
                 tasksPending,
                 tasksActive,
                 tasksCompleted,
-                tasksTerminated);
+                tasksTerminated,
+                tasksBackfilled,
+                blockingTime);
     }
 
     @Override
@@ -409,7 +466,11 @@ public final class ComputeService implements AutoCloseable {
         SchedulingRequest request = new SchedulingRequest(task, now);
 
         task.launchedAt = Instant.ofEpochMilli(now);
-        taskQueue.add(request);
+        if (isScheduling) {
+            deferredRequests.add(request);
+        } else {
+            taskQueue.add(request);
+        }
         tasksPending++;
         requestSchedulingCycle();
         return request;
@@ -418,6 +479,20 @@ public final class ComputeService implements AutoCloseable {
     void delete(ServiceFlavor flavor) {
         flavorById.remove(flavor.getUid());
         flavors.remove(flavor);
+
+        if (flavor.shape != null) {
+            flavorByShape.remove(flavor.shape, flavor);
+        }
+    }
+
+    /**
+     * Release a reference to the specified interned <code>flavor</code>, removing it from the catalogue once it is no
+     * longer used by any task.
+     */
+    private void release(ServiceFlavor flavor) {
+        if (flavor.shape != null && --flavor.refCount == 0) {
+            delete(flavor);
+        }
     }
 
     void delete(ServiceImage image) {
@@ -427,8 +502,11 @@ public final class ComputeService implements AutoCloseable {
 
     void delete(ServiceTask task) {
         completedTasks.remove(task);
-        taskById.remove(task.getUid());
         tasks.remove(task);
+
+        if (taskById.remove(task.getUid()) != null) {
+            release(task.getFlavor());
+        }
     }
 
     /**
@@ -447,14 +525,39 @@ public final class ComputeService implements AutoCloseable {
      * Run a single scheduling iteration.
      */
     private void doSchedule() {
-        // reorder tasks
+        isScheduling = true;
+        try {
+            scheduleQueue();
+        } finally {
+            isScheduling = false;
+            if (!deferredRequests.isEmpty()) {
+                taskQueue.addAll(deferredRequests);
+                deferredRequests.clear();
+                requestSchedulingCycle();
+            }
+        }
+    }
+
+    /**
+     * Traverse the queue and place the tasks that can be placed according to the queue discipline.
+     */
+    private void scheduleQueue() {
+        final long now = clock.millis();
+        final boolean isFifo = queueDiscipline == QueueDiscipline.FIFO;
+
+        boolean headBlocked = false;
+        int examined = 0;
+        Set<ServiceFlavor> blockedFlavors = null;
+        List<Reservation> reservations = null;
 
-        while (!taskQueue.isEmpty()) {
-            SchedulingRequest request = taskQueue.peek();
+        final Iterator<SchedulingRequest> it = taskQueue.iterator();
+        while (it.hasNext()) {
+            SchedulingRequest request = it.next();
 
             if (request.isCancelled) {
-                taskQueue.poll();
+                it.remove();
                 tasksPending--;
+                endBlocking(request, now);
                 continue;
             }
 
@@ -463,9 +566,10 @@ public final class ComputeService implements AutoCloseable {
             if (task.getNumFailures() >= maxNumFailures) {
                 LOGGER.warn("task {} has been terminated because it failed {} times", task, task.getNumFailures());
 
-                taskQueue.poll();
+                it.remove();
                 tasksPending--;
                 tasksTerminated++;
+                endBlocking(request, now);
                 task.setState(TaskState.TERMINATED);
 
                 this.setTaskToBeRemoved(task);
@@ -473,6 +577,21 @@ public final class ComputeService implements AutoCloseable {
             }
 
             final ServiceFlavor flavor = task.getFlavor();
+
+            if (headBlocked) {
+                // Tasks behind a blocked head are only considered when the discipline allows it
+                if (isFifo || examined >= backfillWindow) {
+                    break;
+                }
+
+                // A task with the same shape as a blocked task will not fit either, so skip the rest of its sub-queue
+                if (blockedFlavors.contains(flavor)) {
+                    continue;
+                }
+
+                examined++;
+            }
+
             final HostView hv = scheduler.select(request.task);
 
             if (hv == null || !hv.getHost().canFit(task)) {
@@ -480,9 +599,10 @@ public final class ComputeService implements AutoCloseable {
 
                 if (flavor.getMemorySize() > maxMemory || flavor.getCoreCount() > maxCores) {
                     // Remove the incoming image
-                    taskQueue.poll();
+                    it.remove();
                     tasksPending--;
                     tasksTerminated++;
+                    endBlocking(request, now);
 
                     LOGGER.warn("Failed to spawn {}: does not fit", task);
 
@@ -490,16 +610,50 @@ public final class ComputeService implements AutoCloseable {
 
                     this.setTaskToBeRemoved(task);
                     continue;
-                } else {
+                }
+
+                if (!headBlocked && request.blockedSince == Long.MIN_VALUE) {
+                    request.blockedSince = now;
+                }
+
+                if (isFifo) {
                     break;
                 }
+
+                if (!headBlocked) {
+                    headBlocked = true;
+                    blockedFlavors = new HashSet<>();
+                    reservations = new ArrayList<>();
+                }
+
+                blockedFlavors.add(flavor);
+
+                if (queueDiscipline == QueueDiscipline.CONSERVATIVE_BACKFILLING
+                        || (queueDiscipline == QueueDiscipline.EASY_BACKFILLING && reservations.isEmpty())) {
+                    Reservation reservation = reserve(task, now);
+                    if (reservation == null) {
+                        // Without a reservation we cannot guarantee that backfilling does not delay the task
+                        break;
+                    }
+                    reservations.add(reservation);
+                }
+                continue;
+            }
+
+            if (headBlocked && !fitsReservations(reservations, task, hv, now)) {
+                continue;
             }
 
             SimHost host = hv.getHost();
 
             // Remove request from queue
-            taskQueue.poll();
+            it.remove();
             tasksPending--;
+            endBlocking(request, now);
+
+            if (headBlocked) {
+                tasksBackfilled++;
+            }
 
             LOGGER.info("Assigned task {} to host {}", task, host);
 
@@ -515,6 +669,9 @@ public final class ComputeService implements AutoCloseable {
                 hv.instanceCount++;
                 hv.provisionedCores += flavor.getCoreCount();
                 hv.availableMemory -= flavor.getMemorySize();
+                scheduler.updateHost(hv);
+
+                task.startedAt = now;
 
                 activeTasks.put(task, host);
             } catch (Exception cause) {
@@ -524,6 +681,160 @@ public final class ComputeService implements AutoCloseable {
         }
     }
 
+    /**
+     * Account the time the specified <code>request</code> blocked the head of the queue, if any.
+     */
+    private void endBlocking(SchedulingRequest request, long now) {
+        if (request.blockedSince != Long.MIN_VALUE) {
+            headOfLineBlockingTime += now - request.blockedSince;
+            request.blockedSince = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Compute the earliest time at which the specified <code>task</code> is expected to fit on one of the available
+     * hosts that the scheduler considers eligible for it, based on the expected completion times of the tasks running
+     * on those hosts.
+     *
+     * @return The reservation for the task or <code>null</code> if no such time can be determined.
+     */
+    private Reservation reserve(ServiceTask task, long now) {
+        final ServiceFlavor flavor = task.getFlavor();
+        Reservation best = null;
+
+        for (HostView hv : availableHosts) {
+            if (!scheduler.isEligible(hv, task)) {
+                continue;
+            }
+
+            final HostModel model = hv.getHost().getModel();
+            int freeCores = model.coreCount() - hv.provisionedCores;
+            long freeMemory = hv.availableMemory;
+            long shadowTime = now;
+
+            if (freeCores < flavor.getCoreCount() || freeMemory < flavor.getMemorySize()) {
+                List<ServiceTask> running = new ArrayList<>(hv.getHost().getInstances());
+                running.sort(Comparator.comparingLong(ComputeService::expectedEnd));
+
+                shadowTime = Long.MAX_VALUE;
+                for (ServiceTask other : running) {
+                    long end = expectedEnd(other);
+                    if (end == Long.MAX_VALUE) {
+                        break;
+                    }
+
+                    freeCores += other.getFlavor().getCoreCount();
+                    freeMemory += other.getFlavor().getMemorySize();
+
+                    if (freeCores >= flavor.getCoreCount() && freeMemory >= flavor.getMemorySize()) {
+                        shadowTime = Math.max(now, end);
+                        break;
+                    }
+                }
+            }
+
+            if (shadowTime == Long.MAX_VALUE) {
+                continue;
+            }
+
+            if (best == null
+                    || shadowTime < best.shadowTime
+                    || (shadowTime == best.shadowTime
+                            && hv.getHost().getName().compareTo(best.host.getHost().getName()) < 0)) {
+                best = new Reservation(
+                        hv,
+                        shadowTime,
+                        freeCores - flavor.getCoreCount(),
+                        freeMemory - flavor.getMemorySize());
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Determine whether placing <code>task</code> on the host of <code>hv</code> does not delay any of the
+     * <code>reservations</code>, claiming the spare capacity of a reservation if needed.
+     */
+    private static boolean fitsReservations(List<Reservation> reservations, ServiceTask task, HostView hv, long now) {
+        final ServiceFlavor flavor = task.getFlavor();
+        final long estimatedDuration = estimatedDuration(task);
+        final boolean endsInTime = estimatedDuration != Long.MAX_VALUE;
+
+        for (Reservation reservation : reservations) {
+            if (reservation.host != hv) {
+                continue;
+            }
+
+            if (endsInTime && now + estimatedDuration <= reservation.shadowTime) {
+                continue;
+            }
+
+            if (flavor.getCoreCount() > reservation.spareCores || flavor.getMemorySize() > reservation.spareMemory) {
+                return false;
+            }
+        }
+
+        // Only claim the spare capacity once the task is allowed by all reservations
+        for (Reservation reservation : reservations) {
+            if (reservation.host == hv && !(endsInTime && now + estimatedDuration <= reservation.shadowTime)) {
+                reservation.spareCores -= flavor.getCoreCount();
+                reservation.spareMemory -= flavor.getMemorySize();
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Return the time at which the specified running <code>task</code> is expected to complete.
+     */
+    private static long expectedEnd(ServiceTask task) {
+        if (task.startedAt == Long.MIN_VALUE) {
+            return Long.MAX_VALUE;
+        }
+
+        final long estimatedDuration = estimatedDuration(task);
+        if (estimatedDuration == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        return task.startedAt + estimatedDuration;
+    }
+
+    /**
+     * Return the expected run time of the workload of the specified <code>task</code>, which is estimated once and
+     * cached in the task until its workload changes.
+     */
+    private static long estimatedDuration(ServiceTask task) {
+        long estimatedDuration = task.estimatedDuration;
+        if (estimatedDuration < 0) {
+            estimatedDuration = estimateDuration(task.workload);
+            task.estimatedDuration = estimatedDuration;
+        }
+        return estimatedDuration;
+    }
+
+    /**
+     * Estimate the run time of the specified <code>workload</code> in milliseconds, or {@link Long#MAX_VALUE} if it is
+     * unknown.
+     */
+    private static long estimateDuration(Workload workload) {
+        if (workload instanceof TraceWorkload trace) {
+            return trace.getRemainingDuration();
+        } else if (workload instanceof ChainWorkload chain) {
+            long total = 0;
+            for (Workload child : chain.getWorkloads()) {
+                long duration = estimateDuration(child);
+                if (duration == Long.MAX_VALUE) {
+                    return Long.MAX_VALUE;
+                }
+                total += duration;
+            }
+            return total;
+        }
+        return Long.MAX_VALUE;
+    }
+
     /**
      * Builder class for a {@link ComputeService}.
      */
@@ -532,6 +843,8 @@ public final class ComputeService implements AutoCloseable {
         private final ComputeScheduler computeScheduler;
         private Duration quantum = Duration.ofSeconds(1);
         private int maxNumFailures = 10;
+        private QueueDiscipline queueDiscipline = QueueDiscipline.FIFO;
+        private int backfillWindow = 64;
 
         Builder(Dispatcher dispatcher, ComputeScheduler computeScheduler) {
             this.dispatcher = dispatcher;
@@ -551,11 +864,31 @@ public final class ComputeService implements AutoCloseable {
             return this;
         }
 
+        /**
+         * Set the discipline used to order the tasks waiting in the queue of the service.
+         */
+        public Builder withQueueDiscipline(QueueDiscipline queueDiscipline) {
+            this.queueDiscipline = queueDiscipline;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of tasks behind a blocked head that are considered in a single scheduling cycle.
+         */
+        public Builder withBackfillWindow(int backfillWindow) {
+            if (backfillWindow < 0) {
+                throw new IllegalArgumentException("Backfill window must be non-negative");
+            }
+            this.backfillWindow = backfillWindow;
+            return this;
+        }
+
         /**
          * Build a {@link ComputeService}.
          */
         public ComputeService build() {
-            return new ComputeService(dispatcher, computeScheduler, quantum, maxNumFailures);
+            return new ComputeService(
+                    dispatcher, computeScheduler, quantum, maxNumFailures, queueDiscipline, backfillWindow);
         }
     }
 
@@ -605,6 +938,37 @@ public final class ComputeService implements AutoCloseable {
             return flavor;
         }
 
+        /**
+         * Obtain a flavor with the specified shape from the catalogue of the service.
+         * <p>
+         * In contrast to {@link #newFlavor(String, int, long, Map)}, tasks with the same shape share a single flavor,
+         * which is removed from the catalogue once the last task that uses it is deleted.
+         *
+         * @param cpuCount The number of CPUs of the flavor.
+         * @param memorySize The amount of memory of the flavor.
+         * @param meta The metadata of the flavor.
+         */
+        @NotNull
+        public Flavor internFlavor(int cpuCount, long memorySize, @NotNull Map<String, ?> meta) {
+            checkOpen();
+
+            final ComputeService service = this.service;
+            final FlavorShape shape = new FlavorShape(cpuCount, memorySize, meta);
+
+            ServiceFlavor flavor = service.flavorByShape.get(shape);
+            if (flavor == null) {
+                UUID uid = new UUID(service.clock.millis(), service.random.nextLong());
+                flavor = new ServiceFlavor(service, uid, shape.toString(), cpuCount, memorySize, meta);
+                flavor.shape = shape;
+
+                service.flavorById.put(uid, flavor);
+                service.flavors.add(flavor);
+                service.flavorByShape.put(shape, flavor);
+            }
+
+            return flavor;
+        }
+
         @NotNull
         public List<Image> queryImages() {
             checkOpen();
@@ -653,6 +1017,10 @@ public final class ComputeService implements AutoCloseable {
 
             ServiceTask task = new ServiceTask(service, uid, name, internalFlavor, workload, meta);
 
+            if (internalFlavor.shape != null) {
+                internalFlavor.refCount++;
+            }
+
             service.taskById.put(uid, task);
             service.tasks.add(task);
 
@@ -708,9 +1076,41 @@ public final class ComputeService implements AutoCloseable {
 
         boolean isCancelled;
 
+        /**
+         * The time since which this request has been blocking the head of the queue.
+         */
+        long blockedSince = Long.MIN_VALUE;
+
         SchedulingRequest(ServiceTask task, long submitTime) {
             this.task = task;
             this.submitTime = submitTime;
         }
     }
+
+    /**
+     * A reservation of a blocked task on a host at the time it is expected to fit.
+     */
+    private static final class Reservation {
+        final HostView host;
+        final long shadowTime;
+        int spareCores;
+        long spareMemory;
+
+        Reservation(HostView host, long shadowTime, int spareCores, long spareMemory) {
+            this.host = host;
+            this.shadowTime = shadowTime;
+            this.spareCores = spareCores;
+            this.spareMemory = spareMemory;
+        }
+    }
+
+    /**
+     * The shape of an interned flavor.
+     */
+    record FlavorShape(int coreCount, long memorySize, Map<String, ?> meta) {
+        @Override
+        public String toString() {
+            return "flavor-" + coreCount + "c-" + memorySize + "m" + (meta.isEmpty() ? "" : "-" + meta);
+        }
+    }
 }
@@ -40,6 +40,16 @@ public final class ServiceFlavor implements Flavor {
     private final long memorySize;
     private final Map<String, ?> meta;
 
+    /**
+     * The shape under which this flavor is interned, or <code>null</code> if it is not interned.
+     */
+    ComputeService.FlavorShape shape;
+
+    /**
+     * The number of tasks that use this flavor, in case it is interned.
+     */
+    int refCount;
+
     ServiceFlavor(ComputeService service, UUID uid, String name, int coreCount, long memorySize, Map<String, ?> meta) {
         this.service = service;
         this.uid = uid;
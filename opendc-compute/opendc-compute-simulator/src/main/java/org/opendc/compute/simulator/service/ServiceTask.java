@@ -61,6 +61,17 @@ public class ServiceTask {
     SimHost host = null;
     private ComputeService.SchedulingRequest request = null;
 
+    /**
+     * The simulation time at which the task was last placed on a host.
+     */
+    long startedAt = Long.MIN_VALUE;
+
+    /**
+     * The expected run time of the workload of the task, or <code>-1</code> if it has not been estimated yet. The
+     * estimate is only needed by the backfilling queue disciplines, which compute it on first use.
+     */
+    long estimatedDuration = -1;
+
     private int numFailures = 0;
 
     ServiceTask(
@@ -102,6 +113,7 @@ public class ServiceTask {
 
     public void setWorkload(Workload newWorkload) {
         this.workload = newWorkload;
+        this.estimatedDuration = -1;
     }
 
     @NotNull
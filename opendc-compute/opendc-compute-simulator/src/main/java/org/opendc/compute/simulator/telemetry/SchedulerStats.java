@@ -32,6 +32,10 @@ package org.opendc.compute.simulator.telemetry;
  * @param tasksTotal The number of tasks registered with the service.
  * @param tasksPending The number of tasks that are pending to be scheduled.
  * @param tasksActive The number of tasks that are currently managed by the service and running.
+ * @param tasksCompleted The number of tasks that completed successfully.
+ * @param tasksTerminated The number of tasks that were terminated.
+ * @param tasksBackfilled The number of tasks that were placed while an older task in the queue was blocked.
+ * @param headOfLineBlockingTime The total time in milliseconds the head of the queue was blocked.
  */
 public record SchedulerStats(
         int hostsAvailable,
@@ -42,4 +46,6 @@ public record SchedulerStats(
         int tasksPending,
         int tasksActive,
         int tasksCompleted,
-        int tasksTerminated) {}
+        int tasksTerminated,
+        int tasksBackfilled,
+        long headOfLineBlockingTime) {}
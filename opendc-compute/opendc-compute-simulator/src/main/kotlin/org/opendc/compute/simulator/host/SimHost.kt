@@ -32,6 +32,7 @@ import org.opendc.compute.simulator.telemetry.GuestSystemStats
 import org.opendc.compute.simulator.telemetry.HostCpuStats
 import org.opendc.compute.simulator.telemetry.HostSystemStats
 import org.opendc.simulator.Multiplexer
+import org.opendc.simulator.compute.cpu.CpuPowerBatch
 import org.opendc.simulator.compute.cpu.CpuPowerModel
 import org.opendc.simulator.compute.machine.SimMachine
 import org.opendc.simulator.compute.models.MachineModel
@@ -52,6 +53,7 @@ import java.util.UUID
  * @param graph The Flow Graph that the Host is part of
  * @param machineModel The static model of the host
  * @param powerModel The static powerModel of the CPU TODO: can this be combined with machinemodel?
+ * @param powerBatch The batch that updates the power demand of the host, or `null` to update it directly.
  * @constructor Create empty Sim host
  */
 public class SimHost(
@@ -63,6 +65,7 @@ public class SimHost(
     private val machineModel: MachineModel,
     private val cpuPowerModel: CpuPowerModel,
     private val powerMux: Multiplexer,
+    private val powerBatch: CpuPowerBatch? = null,
 ) : AutoCloseable {
     /**
      * The event listeners registered with this host.
@@ -133,6 +136,7 @@ public class SimHost(
                 this.machineModel,
                 this.powerMux,
                 this.cpuPowerModel,
+                this.powerBatch,
             ) { cause ->
                 hostState = if (cause != null) HostState.ERROR else HostState.DOWN
             }
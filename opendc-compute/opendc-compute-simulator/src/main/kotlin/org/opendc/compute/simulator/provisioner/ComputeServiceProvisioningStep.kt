@@ -23,6 +23,7 @@
 package org.opendc.compute.simulator.provisioner
 
 import org.opendc.compute.simulator.scheduler.ComputeScheduler
+import org.opendc.compute.simulator.scheduler.QueueDiscipline
 import org.opendc.compute.simulator.service.ComputeService
 import java.time.Duration
 
@@ -32,18 +33,24 @@ import java.time.Duration
  * @param serviceDomain The domain name under which to register the compute service.
  * @param scheduler A function to construct the compute scheduler.
  * @param schedulingQuantum The scheduling quantum of the compute scheduler.
+ * @param queueDiscipline The discipline used to order the tasks waiting in the queue.
+ * @param backfillWindow The maximum number of tasks behind a blocked head considered in a scheduling cycle.
  */
 public class ComputeServiceProvisioningStep internal constructor(
     private val serviceDomain: String,
     private val scheduler: (ProvisioningContext) -> ComputeScheduler,
     private val schedulingQuantum: Duration,
     private val maxNumFailures: Int,
+    private val queueDiscipline: QueueDiscipline,
+    private val backfillWindow: Int,
 ) : ProvisioningStep {
     override fun apply(ctx: ProvisioningContext): AutoCloseable {
         val service =
             ComputeService.builder(ctx.dispatcher, scheduler(ctx))
                 .withQuantum(schedulingQuantum)
                 .withMaxNumFailures(maxNumFailures)
+                .withQueueDiscipline(queueDiscipline)
+                .withBackfillWindow(backfillWindow)
                 .build()
         ctx.registry.register(serviceDomain, ComputeService::class.java, service)
 
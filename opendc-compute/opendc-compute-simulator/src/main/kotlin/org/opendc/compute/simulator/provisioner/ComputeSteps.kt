@@ -25,6 +25,7 @@
 package org.opendc.compute.simulator.provisioner
 
 import org.opendc.compute.simulator.scheduler.ComputeScheduler
+import org.opendc.compute.simulator.scheduler.QueueDiscipline
 import org.opendc.compute.simulator.telemetry.ComputeMonitor
 import org.opendc.compute.topology.specs.ClusterSpec
 import org.opendc.compute.topology.specs.HostSpec
@@ -36,14 +37,25 @@ import java.time.Duration
  * @param serviceDomain The domain name under which to register the compute service.
  * @param scheduler A function to construct the compute scheduler.
  * @param schedulingQuantum The scheduling quantum of the compute scheduler.
+ * @param queueDiscipline The discipline used to order the tasks waiting in the queue.
+ * @param backfillWindow The maximum number of tasks behind a blocked head considered in a scheduling cycle.
  */
 public fun setupComputeService(
     serviceDomain: String,
     scheduler: (ProvisioningContext) -> ComputeScheduler,
     schedulingQuantum: Duration = Duration.ofSeconds(1),
     maxNumFailures: Int = 10,
+    queueDiscipline: QueueDiscipline = QueueDiscipline.FIFO,
+    backfillWindow: Int = 64,
 ): ProvisioningStep {
-    return ComputeServiceProvisioningStep(serviceDomain, scheduler, schedulingQuantum, maxNumFailures)
+    return ComputeServiceProvisioningStep(
+        serviceDomain,
+        scheduler,
+        schedulingQuantum,
+        maxNumFailures,
+        queueDiscipline,
+        backfillWindow,
+    )
 }
 
 /**
@@ -70,11 +82,13 @@ public fun registerComputeMonitor(
  * @param serviceDomain The domain name under which the compute service is registered.
  * @param specs A list of [HostSpec] objects describing the simulated hosts to provision.
  * @param optimize A flag to indicate that the CPU resources of the host should be merged into a single CPU resource.
+ * @param engineParallelism The number of threads used by the flow engine to update independent hosts in parallel.
  */
 public fun setupHosts(
     serviceDomain: String,
     specs: List<ClusterSpec>,
     startTime: Long = 0L,
+    engineParallelism: Int = 1,
 ): ProvisioningStep {
-    return HostsProvisioningStep(serviceDomain, specs, startTime)
+    return HostsProvisioningStep(serviceDomain, specs, startTime, engineParallelism)
 }
@@ -22,12 +22,14 @@
 
 package org.opendc.compute.simulator.provisioner
 
-import org.opendc.compute.carbon.getCarbonFragments
+import org.opendc.compute.carbon.getCarbonTimeline
 import org.opendc.compute.simulator.host.SimHost
 import org.opendc.compute.simulator.service.ComputeService
 import org.opendc.compute.topology.specs.ClusterSpec
 import org.opendc.compute.topology.specs.HostSpec
 import org.opendc.simulator.Multiplexer
+import org.opendc.simulator.compute.cpu.CpuPowerBatch
+import org.opendc.simulator.compute.cpu.TabulatedCpuPowerModel
 import org.opendc.simulator.compute.power.SimPowerSource
 import org.opendc.simulator.engine.FlowEngine
 import org.opendc.simulator.compute.power.SimBattery
@@ -38,11 +40,13 @@ import org.opendc.simulator.compute.power.SimBattery
  * @param serviceDomain The domain name under which the compute service is registered.
  * @param specs A list of [HostSpec] objects describing the simulated hosts to provision.
  * @param optimize A flag to indicate that the CPU resources of the host should be merged into a single CPU resource.
+ * @param engineParallelism The number of threads used by the flow engine to update independent hosts in parallel.
  */
 public class HostsProvisioningStep internal constructor(
     private val serviceDomain: String,
     private val clusterSpecs: List<ClusterSpec>,
     private val startTime: Long = 0L,
+    private val engineParallelism: Int = 1,
 ) : ProvisioningStep {
     override fun apply(ctx: ProvisioningContext): AutoCloseable {
         val service =
@@ -53,15 +57,24 @@ public class HostsProvisioningStep internal constructor(
         val simPowerSources = mutableListOf<SimPowerSource>()
         val simBatteries = mutableListOf<SimBattery>()
 
-        val engine = FlowEngine.create(ctx.dispatcher)
+        val engine = FlowEngine.create(ctx.dispatcher, engineParallelism)
         val graph = engine.newGraph()
 
+        // The power demand of hosts with a tabulated power model (configured through a maximum approximation error) is
+        // updated in batches per power model, which only pays off for models that are cheap to evaluate in bulk
+        val powerBatch =
+            if (clusterSpecs.any { cluster -> cluster.hostSpecs.any { it.cpuPowerModel is TabulatedCpuPowerModel } }) {
+                CpuPowerBatch(graph)
+            } else {
+                null
+            }
+
         for (cluster in clusterSpecs) {
             // Create the Power Source to which hosts are connected
-
-            val carbonFragments = getCarbonFragments("carbon_traces/carbon_2012.parquet")
+            // The carbon timeline is loaded once per trace and shared by all power sources that use it
+            val carbonTimeline = getCarbonTimeline(cluster.powerSource.carbonTracePath ?: DEFAULT_CARBON_TRACE)
             val simBattery = SimBattery(graph, cluster.battery.capacity.toDouble(), cluster.battery.chargeRate.toDouble());
-            val simPowerSource = SimPowerSource(graph, cluster.powerSource.totalPower.toDouble(), carbonFragments, startTime, simBattery, cluster.battery.policy, cluster.battery.policyThreshold.toDouble())
+            val simPowerSource = SimPowerSource(graph, cluster.powerSource.totalPower.toDouble(), carbonTimeline, startTime, simBattery, cluster.battery.policy, cluster.battery.policyThreshold.toDouble())
             simBattery.addPowerSource(simPowerSource)
 
             service.addPowerSource(simPowerSource)
@@ -69,7 +82,9 @@ public class HostsProvisioningStep internal constructor(
             service.addBattery(simBattery)
             simBatteries.add(simBattery)
 
+            // The power multiplexer aggregates the hosts of the cluster, which are otherwise simulated independently
             val powerMux = Multiplexer(graph)
+            powerMux.markShared()
             graph.addEdge(powerMux, simPowerSource)
 
             // Create hosts, they are connected to the powerMux when SimMachine is created
@@ -84,6 +99,7 @@ public class HostsProvisioningStep internal constructor(
                         hostSpec.model,
                         hostSpec.cpuPowerModel,
                         powerMux,
+                        if (hostSpec.cpuPowerModel is TabulatedCpuPowerModel) powerBatch else null,
                     )
 
                 require(simHosts.add(simHost)) { "Host with uid ${hostSpec.uid} already exists" }
@@ -104,6 +120,17 @@ public class HostsProvisioningStep internal constructor(
             for (simBattery in simBatteries){
                 simBattery.close()
             }
+
+            powerBatch?.closeNode()
+
+            engine.close()
         }
     }
+
+    private companion object {
+        /**
+         * The carbon trace used for power sources that do not specify a carbon trace.
+         */
+        const val DEFAULT_CARBON_TRACE = "carbon_traces/carbon_2012.parquet"
+    }
 }
@@ -39,6 +39,11 @@ public interface ComputeScheduler {
      */
     public fun removeHost(host: HostView)
 
+    /**
+     * Notify the scheduler that the counters of the specified [host] have changed.
+     */
+    public fun updateHost(host: HostView) {}
+
     /**
      * Select a host for the specified [task].
      *
@@ -46,4 +51,13 @@ public interface ComputeScheduler {
      * @return The host to schedule the server on or `null` if no server is available.
      */
     public fun select(task: ServiceTask): HostView?
+
+    /**
+     * Determine whether the specified [task] may be placed on [host] once the tasks running on it have released
+     * enough resources. This is used to reserve a host for a task that is blocked at the head of the queue.
+     */
+    public fun isEligible(
+        host: HostView,
+        task: ServiceTask,
+    ): Boolean = true
 }
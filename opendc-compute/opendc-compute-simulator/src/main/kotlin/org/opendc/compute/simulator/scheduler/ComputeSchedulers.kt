@@ -51,17 +51,21 @@ public fun createComputeScheduler(
     name: String,
     seeder: RandomGenerator,
     placements: Map<String, String> = emptyMap(),
+    indexed: Boolean = false,
 ): ComputeScheduler {
-    return createComputeScheduler(ComputeSchedulerEnum.valueOf(name.uppercase()), seeder, placements)
+    return createComputeScheduler(ComputeSchedulerEnum.valueOf(name.uppercase()), seeder, placements, indexed)
 }
 
 /**
  * Create a [ComputeScheduler] for the experiment.
+ *
+ * @param indexed A flag to indicate that the filter schedulers should select hosts through an index.
  */
 public fun createComputeScheduler(
     name: ComputeSchedulerEnum,
     seeder: RandomGenerator,
     placements: Map<String, String> = emptyMap(),
+    indexed: Boolean = false,
 ): ComputeScheduler {
     val cpuAllocationRatio = 1.0
     val ramAllocationRatio = 1.5
@@ -70,41 +74,49 @@ public fun createComputeScheduler(
             FilterScheduler(
                 filters = listOf(ComputeFilter(), VCpuFilter(cpuAllocationRatio), RamFilter(ramAllocationRatio)),
                 weighers = listOf(RamWeigher(multiplier = 1.0)),
+                indexed = indexed,
             )
         ComputeSchedulerEnum.MemInv ->
             FilterScheduler(
                 filters = listOf(ComputeFilter(), VCpuFilter(cpuAllocationRatio), RamFilter(ramAllocationRatio)),
                 weighers = listOf(RamWeigher(multiplier = -1.0)),
+                indexed = indexed,
             )
         ComputeSchedulerEnum.CoreMem ->
             FilterScheduler(
                 filters = listOf(ComputeFilter(), VCpuFilter(cpuAllocationRatio), RamFilter(ramAllocationRatio)),
                 weighers = listOf(CoreRamWeigher(multiplier = 1.0)),
+                indexed = indexed,
             )
         ComputeSchedulerEnum.CoreMemInv ->
             FilterScheduler(
                 filters = listOf(ComputeFilter(), VCpuFilter(cpuAllocationRatio), RamFilter(ramAllocationRatio)),
                 weighers = listOf(CoreRamWeigher(multiplier = -1.0)),
+                indexed = indexed,
             )
         ComputeSchedulerEnum.ActiveServers ->
             FilterScheduler(
                 filters = listOf(ComputeFilter(), VCpuFilter(cpuAllocationRatio), RamFilter(ramAllocationRatio)),
                 weighers = listOf(InstanceCountWeigher(multiplier = -1.0)),
+                indexed = indexed,
             )
         ComputeSchedulerEnum.ActiveServersInv ->
             FilterScheduler(
                 filters = listOf(ComputeFilter(), VCpuFilter(cpuAllocationRatio), RamFilter(ramAllocationRatio)),
                 weighers = listOf(InstanceCountWeigher(multiplier = 1.0)),
+                indexed = indexed,
             )
         ComputeSchedulerEnum.ProvisionedCores ->
             FilterScheduler(
                 filters = listOf(ComputeFilter(), VCpuFilter(cpuAllocationRatio), RamFilter(ramAllocationRatio)),
                 weighers = listOf(VCpuWeigher(cpuAllocationRatio, multiplier = 1.0)),
+                indexed = indexed,
             )
         ComputeSchedulerEnum.ProvisionedCoresInv ->
             FilterScheduler(
                 filters = listOf(ComputeFilter(), VCpuFilter(cpuAllocationRatio), RamFilter(ramAllocationRatio)),
                 weighers = listOf(VCpuWeigher(cpuAllocationRatio, multiplier = -1.0)),
+                indexed = indexed,
             )
         ComputeSchedulerEnum.Random ->
             FilterScheduler(
@@ -23,8 +23,15 @@
 package org.opendc.compute.simulator.scheduler
 
 import org.opendc.compute.simulator.scheduler.filters.HostFilter
+import org.opendc.compute.simulator.scheduler.filters.RamFilter
+import org.opendc.compute.simulator.scheduler.filters.VCpuFilter
+import org.opendc.compute.simulator.scheduler.weights.CoreRamWeigher
 import org.opendc.compute.simulator.scheduler.weights.HostWeigher
+import org.opendc.compute.simulator.scheduler.weights.InstanceCountWeigher
+import org.opendc.compute.simulator.scheduler.weights.RamWeigher
+import org.opendc.compute.simulator.scheduler.weights.VCpuWeigher
 import org.opendc.compute.simulator.service.HostView
+import org.opendc.compute.simulator.service.ServiceFlavor
 import org.opendc.compute.simulator.service.ServiceTask
 import java.util.SplittableRandom
 import java.util.random.RandomGenerator
@@ -41,33 +48,74 @@ import kotlin.math.min
  * @param weighers The list of weighers to apply when searching for an appropriate host.
  * @param subsetSize The size of the subset of best hosts from which a target is randomly chosen.
  * @param random A [RandomGenerator] instance for selecting
+ * @param indexed A flag to indicate that hosts should be selected through a [HostIndex] when the configuration
+ * allows it: a subset size of one and at most a single [RamWeigher], [CoreRamWeigher], [InstanceCountWeigher] or
+ * [VCpuWeigher]. The index selects the same host as the linear scan, but only visits a fraction of the hosts.
  */
 public class FilterScheduler(
     private val filters: List<HostFilter>,
     private val weighers: List<HostWeigher>,
     private val subsetSize: Int = 1,
     private val random: RandomGenerator = SplittableRandom(0),
+    indexed: Boolean = false,
 ) : ComputeScheduler {
     /**
      * The pool of hosts available to the scheduler.
      */
     private val hosts = mutableListOf<HostView>()
 
+    /**
+     * The filters whose results only depend on the host and the flavor of a task.
+     */
+    private val staticFilters = filters.filter { it.isFlavorStatic }
+
+    /**
+     * The filters that need to be evaluated for every task.
+     */
+    private val dynamicFilters = filters.filter { !it.isFlavorStatic }
+
+    /**
+     * The filters that still apply to a host after the tasks running on it have released their resources.
+     */
+    private val eligibilityFilters = filters.filter { !it.isCapacityBound }
+
+    /**
+     * The hosts that pass the static filters, cached per flavor.
+     */
+    private val hostsByFlavor = HashMap<ServiceFlavor, List<HostView>>()
+
+    /**
+     * The index used to select hosts, or `null` if hosts are selected by scanning all hosts.
+     */
+    private val index: HostIndex? = if (indexed) createIndex() else null
+
     init {
         require(subsetSize >= 1) { "Subset size must be one or greater" }
     }
 
     override fun addHost(host: HostView) {
         hosts.add(host)
+        hostsByFlavor.clear()
+        index?.add(host)
     }
 
     override fun removeHost(host: HostView) {
         hosts.remove(host)
+        hostsByFlavor.clear()
+        index?.remove(host)
+    }
+
+    override fun updateHost(host: HostView) {
+        index?.update(host)
     }
 
     override fun select(task: ServiceTask): HostView? {
-        val hosts = hosts
-        val filteredHosts = hosts.filter { host -> filters.all { filter -> filter.test(host, task) } }
+        val index = index
+        if (index != null) {
+            return index.select(task) { host -> filters.all { filter -> filter.test(host, task) } }
+        }
+
+        val filteredHosts = candidates(task).filter { host -> dynamicFilters.all { filter -> filter.test(host, task) } }
 
         val subset =
             if (weighers.isNotEmpty()) {
@@ -108,4 +156,75 @@ public class FilterScheduler(
             else -> subset[random.nextInt(maxSize)]
         }
     }
+
+    override fun isEligible(
+        host: HostView,
+        task: ServiceTask,
+    ): Boolean = eligibilityFilters.all { filter -> filter.test(host, task) }
+
+    /**
+     * Return the hosts that pass the static filters for the flavor of the specified [task].
+     */
+    private fun candidates(task: ServiceTask): List<HostView> {
+        if (staticFilters.isEmpty()) {
+            return hosts
+        }
+
+        val flavor = task.flavor
+        val cached = hostsByFlavor[flavor]
+        if (cached != null) {
+            return cached
+        }
+
+        // Flavors that are not interned are unique per task, so bound the size of the cache
+        if (hostsByFlavor.size >= MAX_CACHED_FLAVORS) {
+            hostsByFlavor.clear()
+        }
+
+        val result = hosts.filter { host -> staticFilters.all { filter -> filter.test(host, task) } }
+        hostsByFlavor[flavor] = result
+        return result
+    }
+
+    /**
+     * Construct a [HostIndex] for the configuration of this scheduler, or `null` if it cannot be indexed.
+     */
+    private fun createIndex(): HostIndex? {
+        if (subsetSize != 1 || weighers.size > 1) {
+            return null
+        }
+
+        val weigher = weighers.firstOrNull()
+        val weight: (HostView) -> Double =
+            when (weigher) {
+                null -> { _ -> 0.0 }
+                is RamWeigher, is CoreRamWeigher -> { host -> host.availableMemory.toDouble() }
+                is InstanceCountWeigher -> { host -> host.instanceCount.toDouble() }
+                // The allocation ratio of the weigher shifts all weights equally, so it does not affect the order
+                is VCpuWeigher -> { host -> -host.provisionedCores.toDouble() }
+                else -> return null
+            }
+
+        // A positive multiplier prefers hosts with a high weight, a negative one hosts with a low weight
+        val multiplier = weigher?.multiplier ?: 0.0
+        val signedWeight: (HostView) -> Double =
+            when {
+                multiplier > 0.0 -> weight
+                multiplier < 0.0 -> { host -> -weight(host) }
+                else -> { _ -> 0.0 }
+            }
+
+        return HostIndex(
+            filters.filterIsInstance<VCpuFilter>().firstOrNull()?.allocationRatio,
+            filters.filterIsInstance<RamFilter>().firstOrNull()?.allocationRatio,
+            signedWeight,
+        )
+    }
+
+    internal companion object {
+        /**
+         * The maximum number of flavors for which the static filter results are cached.
+         */
+        internal const val MAX_CACHED_FLAVORS = 1024
+    }
 }
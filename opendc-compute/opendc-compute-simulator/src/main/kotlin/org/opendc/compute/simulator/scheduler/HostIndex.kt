@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.compute.simulator.scheduler
+
+import org.opendc.compute.simulator.service.HostView
+import org.opendc.compute.simulator.service.ServiceTask
+
+/**
+ * An index over the hosts of a [FilterScheduler] that finds the best host for a task without visiting every host.
+ *
+ * The hosts are stored in a segment tree in the order in which they were added. Every node keeps the largest vCPU
+ * slack, the largest memory slack and the largest weight of the hosts below it. A search descends into the nodes that
+ * can still contain a host with enough capacity and a better weight than the best host found so far, and only runs
+ * the filters of the scheduler on the leaves it reaches. Since the node values are upper bounds, the search returns
+ * the same host as evaluating every filter on every host: the first host (in insertion order) with the highest weight.
+ *
+ * @param cpuAllocationRatio The vCPU allocation ratio used for pruning, or `null` to not prune on vCPUs.
+ * @param ramAllocationRatio The memory allocation ratio used for pruning, or `null` to not prune on memory.
+ * @param weight A function that computes the weight of a host. Hosts with a higher weight are preferred.
+ */
+internal class HostIndex(
+    private val cpuAllocationRatio: Double?,
+    private val ramAllocationRatio: Double?,
+    private val weight: (HostView) -> Double,
+) {
+    /**
+     * The number of leaves in the tree.
+     */
+    private var capacity = 16
+
+    /**
+     * The hosts stored at each leaf, or `null` if the leaf is empty.
+     */
+    private var hosts = arrayOfNulls<HostView>(capacity)
+
+    /**
+     * The number of leaves that have been assigned to a host (including the hosts that were removed).
+     */
+    private var size = 0
+
+    /**
+     * The position of each host in the tree.
+     */
+    private val positions = HashMap<HostView, Int>()
+
+    /**
+     * The node values of the tree, where node `1` is the root and the leaves start at [capacity].
+     */
+    private var cpuSlack = DoubleArray(2 * capacity) { Double.NEGATIVE_INFINITY }
+    private var ramSlack = DoubleArray(2 * capacity) { Double.NEGATIVE_INFINITY }
+    private var weights = DoubleArray(2 * capacity) { Double.NEGATIVE_INFINITY }
+
+    /**
+     * Add the specified [host] to the end of the index.
+     */
+    fun add(host: HostView) {
+        if (host in positions) {
+            return
+        }
+
+        if (size == capacity) {
+            rebuild(if (positions.size * 2 > capacity) capacity * 2 else capacity)
+        }
+
+        val pos = size++
+        hosts[pos] = host
+        positions[host] = pos
+        update(pos)
+    }
+
+    /**
+     * Remove the specified [host] from the index.
+     */
+    fun remove(host: HostView) {
+        val pos = positions.remove(host) ?: return
+        hosts[pos] = null
+        update(pos)
+    }
+
+    /**
+     * Update the values of the specified [host] after its counters changed.
+     */
+    fun update(host: HostView) {
+        val pos = positions[host] ?: return
+        update(pos)
+    }
+
+    /**
+     * Find the first host with the highest weight that passes the specified [test] and has enough capacity for [task].
+     */
+    fun select(
+        task: ServiceTask,
+        test: (HostView) -> Boolean,
+    ): HostView? {
+        val flavor = task.flavor
+        val search = Search(flavor.coreCount.toDouble(), flavor.memorySize.toDouble(), test)
+        search.visit(1, 0, capacity)
+        return if (search.best >= 0) hosts[search.best] else null
+    }
+
+    /**
+     * The state of a single search through the tree.
+     */
+    private inner class Search(
+        private val requiredCores: Double,
+        private val requiredMemory: Double,
+        private val test: (HostView) -> Boolean,
+    ) {
+        var best = -1
+        var bestWeight = Double.NEGATIVE_INFINITY
+
+        fun visit(
+            node: Int,
+            lo: Int,
+            hi: Int,
+        ) {
+            if (cpuSlack[node] < requiredCores || ramSlack[node] < requiredMemory) {
+                return
+            }
+
+            // Prune subtrees that cannot contain a better host; on equal weights the first host wins
+            val nodeWeight = weights[node]
+            if (best >= 0 && (nodeWeight < bestWeight || (nodeWeight == bestWeight && lo > best))) {
+                return
+            }
+
+            if (node >= capacity) {
+                val host = hosts[lo] ?: return
+                if (test(host)) {
+                    best = lo
+                    bestWeight = nodeWeight
+                }
+                return
+            }
+
+            val mid = (lo + hi) ushr 1
+            val left = 2 * node
+            val right = left + 1
+            if (weights[right] > weights[left]) {
+                visit(right, mid, hi)
+                visit(left, lo, mid)
+            } else {
+                visit(left, lo, mid)
+                visit(right, mid, hi)
+            }
+        }
+    }
+
+    /**
+     * Recompute the leaf at [pos] and propagate the change to the root.
+     */
+    private fun update(pos: Int) {
+        var node = capacity + pos
+        val host = hosts[pos]
+
+        if (host == null) {
+            cpuSlack[node] = Double.NEGATIVE_INFINITY
+            ramSlack[node] = Double.NEGATIVE_INFINITY
+            weights[node] = Double.NEGATIVE_INFINITY
+        } else {
+            val model = host.host.getModel()
+            cpuSlack[node] =
+                if (cpuAllocationRatio != null) {
+                    model.coreCount * cpuAllocationRatio - host.provisionedCores
+                } else {
+                    Double.POSITIVE_INFINITY
+                }
+            ramSlack[node] =
+                if (ramAllocationRatio != null) {
+                    val memoryCapacity = model.memoryCapacity
+                    memoryCapacity * ramAllocationRatio - (memoryCapacity - host.availableMemory)
+                } else {
+                    Double.POSITIVE_INFINITY
+                }
+            weights[node] = weight(host)
+        }
+
+        node = node shr 1
+        while (node >= 1) {
+            val left = 2 * node
+            val right = left + 1
+            cpuSlack[node] = maxOf(cpuSlack[left], cpuSlack[right])
+            ramSlack[node] = maxOf(ramSlack[left], ramSlack[right])
+            weights[node] = maxOf(weights[left], weights[right])
+            node = node shr 1
+        }
+    }
+
+    /**
+     * Rebuild the tree with the specified number of leaves, dropping the leaves of removed hosts while preserving
+     * the order of the remaining hosts.
+     */
+    private fun rebuild(newCapacity: Int) {
+        val live = hosts.copyOfRange(0, size).filterNotNull()
+
+        capacity = newCapacity
+        hosts = arrayOfNulls(capacity)
+        cpuSlack = DoubleArray(2 * capacity) { Double.NEGATIVE_INFINITY }
+        ramSlack = DoubleArray(2 * capacity) { Double.NEGATIVE_INFINITY }
+        weights = DoubleArray(2 * capacity) { Double.NEGATIVE_INFINITY }
+        positions.clear()
+        size = 0
+
+        for (host in live) {
+            val pos = size++
+            hosts[pos] = host
+            positions[host] = pos
+            update(pos)
+        }
+    }
+}
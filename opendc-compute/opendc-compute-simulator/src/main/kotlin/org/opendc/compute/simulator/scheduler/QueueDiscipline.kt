@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.compute.simulator.scheduler
+
+/**
+ * The discipline used by the compute service to order the tasks waiting in its queue.
+ */
+public enum class QueueDiscipline {
+    /**
+     * Strict first-come first-served: no task is placed while the head of the queue does not fit.
+     */
+    FIFO,
+
+    /**
+     * Serve the oldest task of every flavor within the look-ahead window, without protecting the head of the queue.
+     */
+    FLAVOR_QUEUES,
+
+    /**
+     * EASY backfilling: later tasks may be placed as long as they do not delay the reservation of the head of the
+     * queue.
+     */
+    EASY_BACKFILLING,
+
+    /**
+     * Conservative backfilling: later tasks may be placed as long as they do not delay the reservation of any
+     * blocked task in front of them.
+     */
+    CONSERVATIVE_BACKFILLING,
+}
@@ -37,4 +37,18 @@ public fun interface HostFilter {
         host: HostView,
         task: ServiceTask,
     ): Boolean
+
+    /**
+     * A flag to indicate that the result of this filter only depends on the static properties of the host and the
+     * flavor of the task, which allows the [FilterScheduler] to cache its results per flavor.
+     */
+    public val isFlavorStatic: Boolean
+        get() = false
+
+    /**
+     * A flag to indicate that this filter only rejects hosts because of the resources claimed by the tasks running on
+     * them. Such filters are ignored when reserving a host for a task, since the resources are released over time.
+     */
+    public val isCapacityBound: Boolean
+        get() = false
 }
@@ -31,6 +31,9 @@ import org.opendc.compute.simulator.service.ServiceTask
  * @param limit The maximum number of instances on the host.
  */
 public class InstanceCountFilter(private val limit: Int) : HostFilter {
+    override val isCapacityBound: Boolean
+        get() = true
+
     override fun test(
         host: HostView,
         task: ServiceTask,
@@ -30,7 +30,10 @@ import org.opendc.compute.simulator.service.ServiceTask
  *
  * @param allocationRatio Virtual RAM to physical RAM allocation ratio.
  */
-public class RamFilter(private val allocationRatio: Double) : HostFilter {
+public class RamFilter(internal val allocationRatio: Double) : HostFilter {
+    override val isCapacityBound: Boolean
+        get() = true
+
     override fun test(
         host: HostView,
         task: ServiceTask,
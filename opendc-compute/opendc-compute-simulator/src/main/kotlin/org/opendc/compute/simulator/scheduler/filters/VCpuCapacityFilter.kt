@@ -30,6 +30,9 @@ import org.opendc.compute.simulator.service.ServiceTask
  * capacity on the host.
  */
 public class VCpuCapacityFilter : HostFilter {
+    override val isFlavorStatic: Boolean
+        get() = true
+
     override fun test(
         host: HostView,
         task: ServiceTask,
@@ -30,7 +30,10 @@ import org.opendc.compute.simulator.service.ServiceTask
  *
  * @param allocationRatio Virtual CPU to physical CPU allocation ratio.
  */
-public class VCpuFilter(private val allocationRatio: Double) : HostFilter {
+public class VCpuFilter(internal val allocationRatio: Double) : HostFilter {
+    override val isCapacityBound: Boolean
+        get() = true
+
     override fun test(
         host: HostView,
         task: ServiceTask,
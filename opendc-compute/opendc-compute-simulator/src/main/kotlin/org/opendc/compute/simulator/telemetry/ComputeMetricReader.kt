@@ -72,6 +72,11 @@ public class ComputeMetricReader(
 
     private var loggCounter = 0
 
+    /**
+     * A flag to indicate that the readers can be passed to [monitor] without copying them.
+     */
+    private val readsInPlace = monitor.readsInPlace
+
     /**
      * Mapping from [SimHost] instances to [HostTableReaderImpl]
      */
@@ -115,6 +120,7 @@ public class ComputeMetricReader(
         loggCounter++
         try {
             val now = this.clock.instant()
+            val nowAbsolute = now + startTime
 
             for (host in this.service.hosts) {
                 val reader =
@@ -124,8 +130,8 @@ public class ComputeMetricReader(
                             startTime,
                         )
                     }
-                reader.record(now)
-                this.monitor.record(reader.copy())
+                reader.record(now, nowAbsolute)
+                this.monitor.record(if (readsInPlace) reader else reader.copy())
                 reader.reset()
             }
 
@@ -138,8 +144,8 @@ public class ComputeMetricReader(
                             startTime,
                         )
                     }
-                reader.record(now)
-                this.monitor.record(reader.copy())
+                reader.record(now, nowAbsolute)
+                this.monitor.record(if (readsInPlace) reader else reader.copy())
                 reader.reset()
             }
 
@@ -157,8 +163,8 @@ public class ComputeMetricReader(
                         )
                     }
 
-                reader.record(now)
-                this.monitor.record(reader.copy())
+                reader.record(now, nowAbsolute)
+                this.monitor.record(if (readsInPlace) reader else reader.copy())
                 reader.reset()
             }
 
@@ -171,13 +177,13 @@ public class ComputeMetricReader(
                         )
                     }
 
-                reader.record(now)
-                this.monitor.record(reader.copy())
+                reader.record(now, nowAbsolute)
+                this.monitor.record(if (readsInPlace) reader else reader.copy())
                 reader.reset()
             }
 
-            this.serviceTableReader.record(now)
-            monitor.record(this.serviceTableReader.copy())
+            this.serviceTableReader.record(now, nowAbsolute)
+            monitor.record(if (readsInPlace) this.serviceTableReader else this.serviceTableReader.copy())
 
             if (loggCounter >= 100) {
                 var loggString = "\n\t\t\t\t\tMetrics after ${now.toEpochMilli() / 1000 / 60 / 60} hours:\n"
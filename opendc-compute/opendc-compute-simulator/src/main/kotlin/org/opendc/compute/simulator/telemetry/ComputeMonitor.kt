@@ -32,6 +32,13 @@ import org.opendc.compute.simulator.telemetry.table.TaskTableReader
  * A monitor that tracks the metrics and events of the OpenDC Compute service.
  */
 public interface ComputeMonitor {
+    /**
+     * A flag to indicate that the monitor does not retain the readers passed to [record] after the call returns.
+     * In that case, the live readers are passed instead of a copy of the entry.
+     */
+    public val readsInPlace: Boolean
+        get() = false
+
     /**
      * Record an entry with the specified [reader].
      */
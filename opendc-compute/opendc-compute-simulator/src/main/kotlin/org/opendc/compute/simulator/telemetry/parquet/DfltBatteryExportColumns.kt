@@ -46,52 +46,52 @@ import org.opendc.trace.util.parquet.exporter.ExportColumn
  */
 public object DfltBatteryExportColumns {
     public val TIMESTAMP: ExportColumn<BatteryTableReader> =
-        ExportColumn(
+        ExportColumn.ofInstant(
             field = Types.required(INT64).named("timestamp"),
-        ) { it.timestamp.toEpochMilli() }
+        ) { it.timestamp }
 
     public val TIMESTAMP_ABS: ExportColumn<BatteryTableReader> =
-        ExportColumn(
+        ExportColumn.ofInstant(
             field = Types.required(INT64).named("timestamp_absolute"),
-        ) { it.timestampAbsolute.toEpochMilli() }
+        ) { it.timestampAbsolute }
 
     public val CPU_COUNT: ExportColumn<BatteryTableReader> =
-        ExportColumn(
+        ExportColumn.ofInt(
             field = Types.required(INT32).named("hosts_connected"),
         ) { it.hostsConnected }
 
     public val POWER_DRAW: ExportColumn<BatteryTableReader> =
-        ExportColumn(
+        ExportColumn.ofDouble(
             field = Types.required(FLOAT).named("power_draw"),
         ) { it.powerDraw }
 
     public val ENERGY_USAGE: ExportColumn<BatteryTableReader> =
-        ExportColumn(
+        ExportColumn.ofDouble(
             field = Types.required(FLOAT).named("energy_usage"),
         ) { it.energyUsage }
 
     public val CURRENT_CAPACITY: ExportColumn<BatteryTableReader> =
-        ExportColumn(
+        ExportColumn.ofDouble(
             field = Types.required(FLOAT).named("current_capacity"),
         ) { it.currentCapacity }
 
     public val POWER_DEMAND: ExportColumn<BatteryTableReader> =
-        ExportColumn(
+        ExportColumn.ofDouble(
             field = Types.required(FLOAT).named("power_demand"),
         ) { it.powerDemand }
 
     public val CHARGE_SUPPLIED: ExportColumn<BatteryTableReader> =
-        ExportColumn(
+        ExportColumn.ofDouble(
             field = Types.required(FLOAT).named("charge_supplied"),
         ) { it.chargeSupplied }
 
     public val TOTAL_CHARGE_RECEIVED: ExportColumn<BatteryTableReader> =
-        ExportColumn(
+        ExportColumn.ofDouble(
             field = Types.required(FLOAT).named("total_charge_received"),
         ) { it.totalChargeReceived }
 
     public val BATTERY_STATE: ExportColumn<BatteryTableReader> =
-        ExportColumn(
+        ExportColumn.ofInt(
             field = Types.required(INT32).named("battery_state"),
         ) { it.batteryState }
     /**
@@ -22,7 +22,6 @@
 
 package org.opendc.compute.simulator.telemetry.parquet
 
-import org.apache.parquet.io.api.Binary
 import org.apache.parquet.schema.LogicalTypeAnnotation
 import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.BINARY
 import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.FLOAT
@@ -49,130 +48,130 @@ import org.opendc.trace.util.parquet.exporter.ExportColumn
  */
 public object DfltHostExportColumns {
     public val TIMESTAMP: ExportColumn<HostTableReader> =
-        ExportColumn(
+        ExportColumn.ofInstant(
             field = Types.required(INT64).named("timestamp"),
-        ) { it.timestamp.toEpochMilli() }
+        ) { it.timestamp }
 
     public val TIMESTAMP_ABS: ExportColumn<HostTableReader> =
-        ExportColumn(
+        ExportColumn.ofInstant(
             field = Types.required(INT64).named("timestamp_absolute"),
-        ) { it.timestampAbsolute.toEpochMilli() }
+        ) { it.timestampAbsolute }
 
     public val HOST_ID: ExportColumn<HostTableReader> =
-        ExportColumn(
+        ExportColumn.ofString(
             field =
                 Types.required(BINARY)
                     .`as`(LogicalTypeAnnotation.stringType())
                     .named("host_id"),
-        ) { Binary.fromString(it.host.id) }
+        ) { it.host.id }
 
     public val HOST_NAME: ExportColumn<HostTableReader> =
-        ExportColumn(
+        ExportColumn.ofString(
             field =
                 Types.required(BINARY)
                     .`as`(LogicalTypeAnnotation.stringType())
                     .named("host_name"),
-        ) { Binary.fromString(it.host.name) }
+        ) { it.host.name }
 
     public val CPU_COUNT: ExportColumn<HostTableReader> =
-        ExportColumn(
+        ExportColumn.ofInt(
             field = Types.required(INT32).named("core_count"),
         ) { it.host.coreCount }
 
     public val MEM_CAPACITY: ExportColumn<HostTableReader> =
-        ExportColumn(
+        ExportColumn.ofLong(
             field = Types.required(INT64).named("mem_capacity"),
         ) { it.host.memCapacity }
 
     public val GUESTS_TERMINATED: ExportColumn<HostTableReader> =
-        ExportColumn(
+        ExportColumn.ofInt(
             field = Types.required(INT32).named("guests_terminated"),
         ) { it.guestsTerminated }
 
     public val GUESTS_RUNNING: ExportColumn<HostTableReader> =
-        ExportColumn(
+        ExportColumn.ofInt(
             field = Types.required(INT32).named("guests_running"),
         ) { it.guestsRunning }
 
     public val GUESTS_ERROR: ExportColumn<HostTableReader> =
-        ExportColumn(
+        ExportColumn.ofInt(
             field = Types.required(INT32).named("guests_error"),
         ) { it.guestsError }
 
     public val GUESTS_INVALID: ExportColumn<HostTableReader> =
-        ExportColumn(
+        ExportColumn.ofInt(
             field = Types.required(INT32).named("guests_invalid"),
         ) { it.guestsInvalid }
 
     public val CPU_LIMIT: ExportColumn<HostTableReader> =
-        ExportColumn(
+        ExportColumn.ofDouble(
             field = Types.required(FLOAT).named("cpu_limit"),
         ) { it.cpuLimit }
 
     public val CPU_USAGE: ExportColumn<HostTableReader> =
-        ExportColumn(
+        ExportColumn.ofDouble(
             field = Types.required(FLOAT).named("cpu_usage"),
         ) { it.cpuUsage }
 
     public val CPU_DEMAND: ExportColumn<HostTableReader> =
-        ExportColumn(
+        ExportColumn.ofDouble(
             field = Types.required(FLOAT).named("cpu_demand"),
         ) { it.cpuDemand }
 
     public val CPU_UTILIZATION: ExportColumn<HostTableReader> =
-        ExportColumn(
+        ExportColumn.ofDouble(
             field = Types.required(FLOAT).named("cpu_utilization"),
         ) { it.cpuUtilization }
 
     public val CPU_TIME_ACTIVE: ExportColumn<HostTableReader> =
-        ExportColumn(
+        ExportColumn.ofLong(
             field = Types.required(INT64).named("cpu_time_active"),
         ) { it.cpuActiveTime }
 
     public val CPU_TIME_IDLE: ExportColumn<HostTableReader> =
-        ExportColumn(
+        ExportColumn.ofLong(
             field = Types.required(INT64).named("cpu_time_idle"),
         ) { it.cpuIdleTime }
 
     public val CPU_TIME_STEAL: ExportColumn<HostTableReader> =
-        ExportColumn(
+        ExportColumn.ofLong(
             field = Types.required(INT64).named("cpu_time_steal"),
         ) { it.cpuStealTime }
 
     public val CPU_TIME_LOST: ExportColumn<HostTableReader> =
-        ExportColumn(
+        ExportColumn.ofLong(
             field = Types.required(INT64).named("cpu_time_lost"),
         ) { it.cpuLostTime }
 
     public val POWER_DRAW: ExportColumn<HostTableReader> =
-        ExportColumn(
+        ExportColumn.ofDouble(
             field = Types.required(FLOAT).named("power_draw"),
         ) { it.powerDraw }
 
     public val ENERGY_USAGE: ExportColumn<HostTableReader> =
-        ExportColumn(
+        ExportColumn.ofDouble(
             field = Types.required(FLOAT).named("energy_usage"),
         ) { it.energyUsage }
 
     public val UP_TIME: ExportColumn<HostTableReader> =
-        ExportColumn(
+        ExportColumn.ofLong(
             field = Types.required(INT64).named("uptime"),
         ) { it.uptime }
 
     public val DOWN_TIME: ExportColumn<HostTableReader> =
-        ExportColumn(
+        ExportColumn.ofLong(
             field = Types.required(INT64).named("downtime"),
         ) { it.downtime }
 
     public val BOOT_TIME: ExportColumn<HostTableReader> =
-        ExportColumn(
+        ExportColumn.ofInstant(
             field = Types.optional(INT64).named("boot_time"),
-        ) { it.bootTime?.toEpochMilli() }
+        ) { it.bootTime }
 
     public val BOOT_TIME_ABS: ExportColumn<HostTableReader> =
-        ExportColumn(
+        ExportColumn.ofInstant(
             field = Types.optional(INT64).named("boot_time_absolute"),
-        ) { it.bootTimeAbsolute?.toEpochMilli() }
+        ) { it.bootTimeAbsolute }
 
     /**
      * The columns that are always included in the output file.
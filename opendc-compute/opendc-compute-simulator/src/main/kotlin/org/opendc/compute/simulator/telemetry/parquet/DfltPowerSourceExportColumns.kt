@@ -46,42 +46,42 @@ import org.opendc.trace.util.parquet.exporter.ExportColumn
  */
 public object DfltPowerSourceExportColumns {
     public val TIMESTAMP: ExportColumn<PowerSourceTableReader> =
-        ExportColumn(
+        ExportColumn.ofInstant(
             field = Types.required(INT64).named("timestamp"),
-        ) { it.timestamp.toEpochMilli() }
+        ) { it.timestamp }
 
     public val TIMESTAMP_ABS: ExportColumn<PowerSourceTableReader> =
-        ExportColumn(
+        ExportColumn.ofInstant(
             field = Types.required(INT64).named("timestamp_absolute"),
-        ) { it.timestampAbsolute.toEpochMilli() }
+        ) { it.timestampAbsolute }
 
     public val CPU_COUNT: ExportColumn<PowerSourceTableReader> =
-        ExportColumn(
+        ExportColumn.ofInt(
             field = Types.required(INT32).named("hosts_connected"),
         ) { it.hostsConnected }
 
     public val POWER_DRAW: ExportColumn<PowerSourceTableReader> =
-        ExportColumn(
+        ExportColumn.ofDouble(
             field = Types.required(FLOAT).named("power_draw"),
         ) { it.powerDraw }
 
     public val ENERGY_USAGE: ExportColumn<PowerSourceTableReader> =
-        ExportColumn(
+        ExportColumn.ofDouble(
             field = Types.required(FLOAT).named("energy_usage"),
         ) { it.energyUsage }
 
     public val CARBON_INTENSITY: ExportColumn<PowerSourceTableReader> =
-        ExportColumn(
+        ExportColumn.ofDouble(
             field = Types.required(FLOAT).named("carbon_intensity"),
         ) { it.carbonIntensity }
 
     public val CARBON_EMISSION: ExportColumn<PowerSourceTableReader> =
-        ExportColumn(
+        ExportColumn.ofDouble(
             field = Types.required(FLOAT).named("carbon_emission"),
         ) { it.carbonEmission }
 
     public val POWER_DEMAND: ExportColumn<PowerSourceTableReader> =
-        ExportColumn(
+        ExportColumn.ofDouble(
             field = Types.required(FLOAT).named("power_demand"),
         ) { it.powerDemand }
 
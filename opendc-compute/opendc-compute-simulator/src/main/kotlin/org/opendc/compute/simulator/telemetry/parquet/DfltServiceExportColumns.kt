@@ -45,55 +45,65 @@ import org.opendc.trace.util.parquet.exporter.ExportColumn
  */
 public object DfltServiceExportColumns {
     public val TIMESTAMP: ExportColumn<ServiceTableReader> =
-        ExportColumn(
+        ExportColumn.ofInstant(
             field = Types.required(INT64).named("timestamp"),
-        ) { it.timestamp.toEpochMilli() }
+        ) { it.timestamp }
 
     public val TIMESTAMP_ABS: ExportColumn<ServiceTableReader> =
-        ExportColumn(
+        ExportColumn.ofInstant(
             field = Types.required(INT64).named("timestamp_absolute"),
-        ) { it.timestampAbsolute.toEpochMilli() }
+        ) { it.timestampAbsolute }
 
     public val HOSTS_UP: ExportColumn<ServiceTableReader> =
-        ExportColumn(
+        ExportColumn.ofInt(
             field = Types.required(INT32).named("hosts_up"),
         ) { it.hostsUp }
 
     public val TASKS_PENDING: ExportColumn<ServiceTableReader> =
-        ExportColumn(
+        ExportColumn.ofInt(
             field = Types.required(INT32).named("tasks_pending"),
         ) { it.tasksPending }
 
     public val TASKS_TOTAL: ExportColumn<ServiceTableReader> =
-        ExportColumn(
+        ExportColumn.ofInt(
             field = Types.required(INT32).named("tasks_total"),
         ) { it.tasksTotal }
 
     public val TASKS_ACTIVE: ExportColumn<ServiceTableReader> =
-        ExportColumn(
+        ExportColumn.ofInt(
             field = Types.required(INT32).named("tasks_active"),
         ) { it.tasksActive }
 
     public val TASKS_COMPLETED: ExportColumn<ServiceTableReader> =
-        ExportColumn(
+        ExportColumn.ofInt(
             field = Types.required(INT32).named("tasks_completed"),
         ) { it.tasksCompleted }
 
     public val TASKS_FAILED: ExportColumn<ServiceTableReader> =
-        ExportColumn(
+        ExportColumn.ofInt(
             field = Types.required(INT32).named("tasks_terminated"),
         ) { it.tasksTerminated }
 
     public val ATTEMPTS_SUCCESS: ExportColumn<ServiceTableReader> =
-        ExportColumn(
+        ExportColumn.ofInt(
             field = Types.required(INT32).named("attempts_success"),
         ) { it.attemptsSuccess }
 
     public val ATTEMPTS_FAILURE: ExportColumn<ServiceTableReader> =
-        ExportColumn(
+        ExportColumn.ofInt(
             field = Types.required(INT32).named("attempts_failure"),
         ) { it.attemptsFailure }
 
+    public val TASKS_BACKFILLED: ExportColumn<ServiceTableReader> =
+        ExportColumn.ofInt(
+            field = Types.required(INT32).named("tasks_backfilled"),
+        ) { it.tasksBackfilled }
+
+    public val HEAD_OF_LINE_BLOCKING_TIME: ExportColumn<ServiceTableReader> =
+        ExportColumn.ofLong(
+            field = Types.required(INT64).named("head_of_line_blocking_time"),
+        ) { it.headOfLineBlockingTime }
+
     /**
      * The columns that are always included in the output file.
      */
@@ -22,7 +22,6 @@
 
 package org.opendc.compute.simulator.telemetry.parquet
 
-import org.apache.parquet.io.api.Binary
 import org.apache.parquet.schema.LogicalTypeAnnotation
 import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.BINARY
 import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.FLOAT
@@ -49,126 +48,126 @@ import org.opendc.trace.util.parquet.exporter.ExportColumn
  */
 public object DfltTaskExportColumns {
     public val TIMESTAMP: ExportColumn<TaskTableReader> =
-        ExportColumn(
+        ExportColumn.ofInstant(
             field = Types.required(INT64).named("timestamp"),
-        ) { it.timestamp.toEpochMilli() }
+        ) { it.timestamp }
 
     public val TIMESTAMP_ABS: ExportColumn<TaskTableReader> =
-        ExportColumn(
+        ExportColumn.ofInstant(
             field = Types.required(INT64).named("timestamp_absolute"),
-        ) { it.timestampAbsolute.toEpochMilli() }
+        ) { it.timestampAbsolute }
 
     public val TASK_ID: ExportColumn<TaskTableReader> =
-        ExportColumn(
+        ExportColumn.ofString(
             field =
                 Types.required(BINARY)
                     .`as`(LogicalTypeAnnotation.stringType())
                     .named("task_id"),
-        ) { Binary.fromString(it.taskInfo.id) }
+        ) { it.taskInfo.id }
 
     public val HOST_ID: ExportColumn<TaskTableReader> =
-        ExportColumn(
+        ExportColumn.ofString(
             field =
                 Types.optional(BINARY)
                     .`as`(LogicalTypeAnnotation.stringType())
                     .named("host_id"),
-        ) { it.host?.id?.let { Binary.fromString(it) } }
+        ) { it.host?.id }
 
     public val TASK_NAME: ExportColumn<TaskTableReader> =
-        ExportColumn(
+        ExportColumn.ofString(
             field =
                 Types.required(BINARY)
                     .`as`(LogicalTypeAnnotation.stringType())
                     .named("task_name"),
-        ) { Binary.fromString(it.taskInfo.name) }
+        ) { it.taskInfo.name }
 
     public val CPU_COUNT: ExportColumn<TaskTableReader> =
-        ExportColumn(
+        ExportColumn.ofInt(
             field = Types.required(INT32).named("cpu_count"),
         ) { it.taskInfo.cpuCount }
 
     public val MEM_CAPACITY: ExportColumn<TaskTableReader> =
-        ExportColumn(
+        ExportColumn.ofLong(
             field = Types.required(INT64).named("mem_capacity"),
         ) { it.taskInfo.memCapacity }
 
     public val CPU_LIMIT: ExportColumn<TaskTableReader> =
-        ExportColumn(
+        ExportColumn.ofDouble(
             field = Types.required(FLOAT).named("cpu_limit"),
         ) { it.cpuLimit }
 
     public val CPU_USAGE: ExportColumn<TaskTableReader> =
-        ExportColumn(
+        ExportColumn.ofDouble(
             field = Types.required(FLOAT).named("cpu_usage"),
         ) { it.cpuUsage }
 
     public val CPU_DEMAND: ExportColumn<TaskTableReader> =
-        ExportColumn(
+        ExportColumn.ofDouble(
             field = Types.required(FLOAT).named("cpu_demand"),
         ) { it.cpuDemand }
 
     public val CPU_TIME_ACTIVE: ExportColumn<TaskTableReader> =
-        ExportColumn(
+        ExportColumn.ofLong(
             field = Types.required(INT64).named("cpu_time_active"),
         ) { it.cpuActiveTime }
 
     public val CPU_TIME_IDLE: ExportColumn<TaskTableReader> =
-        ExportColumn(
+        ExportColumn.ofLong(
             field = Types.required(INT64).named("cpu_time_idle"),
         ) { it.cpuIdleTime }
 
     public val CPU_TIME_STEAL: ExportColumn<TaskTableReader> =
-        ExportColumn(
+        ExportColumn.ofLong(
             field = Types.required(INT64).named("cpu_time_steal"),
         ) { it.cpuStealTime }
 
     public val CPU_TIME_LOST: ExportColumn<TaskTableReader> =
-        ExportColumn(
+        ExportColumn.ofLong(
             field = Types.required(INT64).named("cpu_time_lost"),
         ) { it.cpuLostTime }
 
     public val UP_TIME: ExportColumn<TaskTableReader> =
-        ExportColumn(
+        ExportColumn.ofLong(
             field = Types.required(INT64).named("uptime"),
         ) { it.uptime }
 
     public val DOWN_TIME: ExportColumn<TaskTableReader> =
-        ExportColumn(
+        ExportColumn.ofLong(
             field = Types.required(INT64).named("downtime"),
         ) { it.downtime }
 
     public val PROVISION_TIME: ExportColumn<TaskTableReader> =
-        ExportColumn(
+        ExportColumn.ofInstant(
             field = Types.optional(INT64).named("provision_time"),
-        ) { it.provisionTime?.toEpochMilli() }
+        ) { it.provisionTime }
 
     public val BOOT_TIME: ExportColumn<TaskTableReader> =
-        ExportColumn(
+        ExportColumn.ofInstant(
             field = Types.optional(INT64).named("boot_time"),
-        ) { it.bootTime?.toEpochMilli() }
+        ) { it.bootTime }
 
     public val CREATION_TIME: ExportColumn<TaskTableReader> =
-        ExportColumn(
+        ExportColumn.ofInstant(
             field = Types.optional(INT64).named("creation_time"),
-        ) { it.creationTime?.toEpochMilli() }
+        ) { it.creationTime }
 
     public val FINISH_TIME: ExportColumn<TaskTableReader> =
-        ExportColumn(
+        ExportColumn.ofInstant(
             field = Types.optional(INT64).named("finish_time"),
-        ) { it.finishTime?.toEpochMilli() }
+        ) { it.finishTime }
 
     public val BOOT_TIME_ABS: ExportColumn<TaskTableReader> =
-        ExportColumn(
+        ExportColumn.ofInstant(
             field = Types.optional(INT64).named("boot_time_absolute"),
-        ) { it.bootTimeAbsolute?.toEpochMilli() }
+        ) { it.bootTimeAbsolute }
 
     public val TASK_STATE: ExportColumn<TaskTableReader> =
-        ExportColumn(
+        ExportColumn.ofString(
             field =
                 Types.optional(BINARY)
                     .`as`(LogicalTypeAnnotation.stringType())
                     .named("task_state"),
-        ) { Binary.fromString(it.taskState?.name) }
+        ) { it.taskState?.name }
 
     /**
      * The columns that are always included in the output file.
@@ -22,19 +22,25 @@
 
 package org.opendc.compute.simulator.telemetry.parquet
 
+import mu.KotlinLogging
 import org.opendc.compute.simulator.telemetry.ComputeMonitor
 import org.opendc.compute.simulator.telemetry.table.BatteryTableReader
 import org.opendc.compute.simulator.telemetry.table.HostTableReader
 import org.opendc.compute.simulator.telemetry.table.PowerSourceTableReader
 import org.opendc.compute.simulator.telemetry.table.ServiceTableReader
 import org.opendc.compute.simulator.telemetry.table.TaskTableReader
+import org.opendc.trace.util.parquet.ParquetWriterConfig
 import org.opendc.trace.util.parquet.exporter.ExportColumn
 import org.opendc.trace.util.parquet.exporter.Exportable
 import org.opendc.trace.util.parquet.exporter.Exporter
 import java.io.File
+import java.time.Duration
 
 /**
  * A [ComputeMonitor] that logs the events to a Parquet file.
+ *
+ * The values of the readers are copied into the column batches of the [Exporter]s while recording,
+ * so the readers do not need to be copied for this monitor.
  */
 public class ParquetComputeMonitor(
     private val hostExporter: Exporter<HostTableReader>,
@@ -43,6 +49,8 @@ public class ParquetComputeMonitor(
     private val batteryExporter: Exporter<BatteryTableReader>,
     private val serviceExporter: Exporter<ServiceTableReader>,
 ) : ComputeMonitor, AutoCloseable {
+    override val readsInPlace: Boolean = true
+
     override fun record(reader: HostTableReader) {
         hostExporter.write(reader)
     }
@@ -63,32 +71,60 @@ public class ParquetComputeMonitor(
         serviceExporter.write(reader)
     }
 
+    /**
+     * The total time the simulation was blocked waiting for the exporters to write their batches.
+     */
+    public val blockedTime: Duration
+        get() =
+            hostExporter.blockedTime +
+                taskExporter.blockedTime +
+                powerSourceExporter.blockedTime +
+                batteryExporter.blockedTime +
+                serviceExporter.blockedTime
+
     override fun close() {
         hostExporter.close()
         taskExporter.close()
         powerSourceExporter.close()
         batteryExporter.close()
         serviceExporter.close()
+
+        val blockedTime = blockedTime
+        if (blockedTime >= BLOCKED_TIME_WARNING) {
+            logger.warn { "Simulation was blocked for ${blockedTime.toMillis()} ms writing the output files" }
+        } else {
+            logger.info { "Simulation was blocked for ${blockedTime.toMillis()} ms writing the output files" }
+        }
     }
 
     public companion object {
+        private val logger = KotlinLogging.logger {}
+
+        /**
+         * The blocked time above which the blocked time is reported as a warning.
+         */
+        private val BLOCKED_TIME_WARNING = Duration.ofSeconds(1)
+
         /**
          * Overloaded constructor with [ComputeExportConfig] as parameter.
          *
          * @param[base]         parent pathname for output file.
          * @param[partition]    child pathname for output file.
-         * @param[bufferSize]   size of the buffer used by the writer thread.
+         * @param[bufferSize]   number of rows in a batch handed to the writer thread.
+         * @param[writerConfig] configuration of the output parquet files.
          */
         public operator fun invoke(
             base: File,
             partition: String,
             bufferSize: Int,
             computeExportConfig: ComputeExportConfig,
+            writerConfig: ParquetWriterConfig = ParquetWriterConfig(),
         ): ParquetComputeMonitor =
             invoke(
                 base = base,
                 partition = partition,
                 bufferSize = bufferSize,
+                writerConfig = writerConfig,
                 hostExportColumns = computeExportConfig.hostExportColumns,
                 taskExportColumns = computeExportConfig.taskExportColumns,
                 powerSourceExportColumns = computeExportConfig.powerSourceExportColumns,
@@ -103,12 +139,14 @@ public class ParquetComputeMonitor(
          *
          * @param[base]         parent pathname for output file.
          * @param[partition]    child pathname for output file.
-         * @param[bufferSize]   size of the buffer used by the writer thread.
+         * @param[bufferSize]   number of rows in a batch handed to the writer thread.
+         * @param[writerConfig] configuration of the output parquet files.
          */
         public operator fun invoke(
             base: File,
             partition: String,
             bufferSize: Int,
+            writerConfig: ParquetWriterConfig = ParquetWriterConfig(),
             hostExportColumns: Collection<ExportColumn<HostTableReader>>? = null,
             taskExportColumns: Collection<ExportColumn<TaskTableReader>>? = null,
             powerSourceExportColumns: Collection<ExportColumn<PowerSourceTableReader>>? = null,
@@ -124,30 +162,35 @@ public class ParquetComputeMonitor(
                         outputFile = File(base, "$partition/host.parquet").also { it.parentFile.mkdirs() },
                         columns = hostExportColumns ?: Exportable.getAllLoadedColumns(),
                         bufferSize = bufferSize,
+                        config = writerConfig,
                     ),
                 taskExporter =
                     Exporter(
                         outputFile = File(base, "$partition/task.parquet").also { it.parentFile.mkdirs() },
                         columns = taskExportColumns ?: Exportable.getAllLoadedColumns(),
                         bufferSize = bufferSize,
+                        config = writerConfig,
                     ),
                 powerSourceExporter =
                     Exporter(
                         outputFile = File(base, "$partition/powerSource.parquet").also { it.parentFile.mkdirs() },
                         columns = powerSourceExportColumns ?: Exportable.getAllLoadedColumns(),
                         bufferSize = bufferSize,
+                        config = writerConfig,
                     ),
                 batteryExporter =
                     Exporter(
                         outputFile = File(base, "$partition/battery.parquet").also { it.parentFile.mkdirs() },
                         columns = batteryExportColumns ?: Exportable.getAllLoadedColumns(),
                         bufferSize = bufferSize,
+                        config = writerConfig,
                     ),
                 serviceExporter =
                     Exporter(
                         outputFile = File(base, "$partition/service.parquet").also { it.parentFile.mkdirs() },
                         columns = serviceExportColumns ?: Exportable.getAllLoadedColumns(),
                         bufferSize = bufferSize,
+                        config = writerConfig,
                     ),
             )
         }
@@ -168,11 +168,21 @@ public class HostTableReaderImpl(
      * Record the next cycle.
      */
     override fun record(now: Instant) {
+        record(now, now + startTime)
+    }
+
+    /**
+     * Record the entry at [now], sharing the absolute timestamp [nowAbsolute] between the readers of an interval.
+     */
+    internal fun record(
+        now: Instant,
+        nowAbsolute: Instant,
+    ) {
         val hostCpuStats = _host.getCpuStats()
         val hostSysStats = _host.getSystemStats()
 
         _timestamp = now
-        _timestampAbsolute = now + startTime
+        _timestampAbsolute = nowAbsolute
 
         _guestsTerminated = hostSysStats.guestsTerminated
         _guestsRunning = hostSysStats.guestsRunning
@@ -95,8 +95,18 @@ public class PowerSourceTableReaderImpl(
      * Record the next cycle.
      */
     override fun record(now: Instant) {
+        record(now, now + startTime)
+    }
+
+    /**
+     * Record the entry at [now], sharing the absolute timestamp [nowAbsolute] between the readers of an interval.
+     */
+    internal fun record(
+        now: Instant,
+        nowAbsolute: Instant,
+    ) {
         _timestamp = now
-        _timestampAbsolute = now + startTime
+        _timestampAbsolute = nowAbsolute
 
         _hostsConnected = 0
 
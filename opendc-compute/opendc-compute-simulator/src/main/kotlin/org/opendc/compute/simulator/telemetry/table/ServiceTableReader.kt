@@ -89,4 +89,14 @@ public interface ServiceTableReader : Exportable {
      * The scheduling attempts that were unsuccessful due to client error.
      */
     public val attemptsFailure: Int
+
+    /**
+     * The number of tasks that were placed while an older task in the queue was blocked.
+     */
+    public val tasksBackfilled: Int
+
+    /**
+     * The total time in milliseconds the head of the queue was blocked.
+     */
+    public val headOfLineBlockingTime: Long
 }
@@ -56,6 +56,8 @@ public class ServiceTableReaderImpl(
         _tasksTerminated = table.tasksTerminated
         _attemptsSuccess = table.attemptsSuccess
         _attemptsFailure = table.attemptsFailure
+        _tasksBackfilled = table.tasksBackfilled
+        _headOfLineBlockingTime = table.headOfLineBlockingTime
     }
 
     private var _timestamp: Instant = Instant.MIN
@@ -102,12 +104,30 @@ public class ServiceTableReaderImpl(
         get() = _attemptsFailure
     private var _attemptsFailure = 0
 
+    override val tasksBackfilled: Int
+        get() = _tasksBackfilled
+    private var _tasksBackfilled = 0
+
+    override val headOfLineBlockingTime: Long
+        get() = _headOfLineBlockingTime
+    private var _headOfLineBlockingTime = 0L
+
     /**
      * Record the next cycle.
      */
     override fun record(now: Instant) {
+        record(now, now + startTime)
+    }
+
+    /**
+     * Record the entry at [now], sharing the absolute timestamp [nowAbsolute] between the readers of an interval.
+     */
+    internal fun record(
+        now: Instant,
+        nowAbsolute: Instant,
+    ) {
         _timestamp = now
-        _timestampAbsolute = now + startTime
+        _timestampAbsolute = nowAbsolute
 
         val stats = service.getSchedulerStats()
         _hostsUp = stats.hostsAvailable
@@ -119,5 +139,7 @@ public class ServiceTableReaderImpl(
         _tasksTerminated = stats.tasksTerminated
         _attemptsSuccess = stats.attemptsSuccess.toInt()
         _attemptsFailure = stats.attemptsFailure.toInt()
+        _tasksBackfilled = stats.tasksBackfilled
+        _headOfLineBlockingTime = stats.headOfLineBlockingTime
     }
 }
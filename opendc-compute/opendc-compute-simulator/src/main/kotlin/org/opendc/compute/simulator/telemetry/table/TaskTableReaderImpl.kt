@@ -87,10 +87,14 @@ public class TaskTableReaderImpl(
         )
 
     /**
-     * The [HostInfo] of the host on which the task is hosted.
+     * The [HostInfo] of the host on which the task is hosted, or on which it last ran if it is no longer placed.
+     *
+     * The [HostInfo] is only rebuilt when the task moves to another host, so the same instance is exported for every
+     * interval that the task stays on a host. The exported values are unchanged from rebuilding it every interval.
      */
     override var host: HostInfo? = null
     private var _host: SimHost? = null
+    private var hostInfoSource: SimHost? = null
 
     private var _timestamp = Instant.MIN
     override val timestamp: Instant
@@ -170,25 +174,39 @@ public class TaskTableReaderImpl(
      * Record the next cycle.
      */
     override fun record(now: Instant) {
+        record(now, now + startTime)
+    }
+
+    /**
+     * Record the entry at [now], sharing the absolute timestamp [nowAbsolute] between the readers of an interval.
+     */
+    internal fun record(
+        now: Instant,
+        nowAbsolute: Instant,
+    ) {
         val newHost = service.lookupHost(task)
-        if (newHost != null && newHost.getUid() != _host?.getUid()) {
+        if (newHost != null) {
+            // The host is cleared on reset, so track the host that [host] describes separately
+            if (newHost !== hostInfoSource) {
+                hostInfoSource = newHost
+                host =
+                    HostInfo(
+                        newHost.getUid().toString(),
+                        newHost.getName(),
+                        "x86",
+                        newHost.getModel().coreCount,
+                        newHost.getModel().cpuCapacity,
+                        newHost.getModel().memoryCapacity,
+                    )
+            }
             _host = newHost
-            host =
-                HostInfo(
-                    newHost.getUid().toString(),
-                    newHost.getName(),
-                    "x86",
-                    newHost.getModel().coreCount,
-                    newHost.getModel().cpuCapacity,
-                    newHost.getModel().memoryCapacity,
-                )
         }
 
         val cpuStats = _host?.getCpuStats(task)
         val sysStats = _host?.getSystemStats(task)
 
         _timestamp = now
-        _timestampAbsolute = now + startTime
+        _timestampAbsolute = nowAbsolute
 
         _cpuLimit = cpuStats?.capacity ?: 0.0
         _cpuDemand = cpuStats?.demand ?: 0.0
@@ -200,6 +218,7 @@ public class TaskTableReaderImpl(
         _uptime = sysStats?.uptime?.toMillis() ?: _uptime
         _downtime = sysStats?.downtime?.toMillis() ?: _downtime
         _provisionTime = task.launchedAt
+        val previousBootTime = _bootTime
         _bootTime = sysStats?.bootTime ?: _bootTime
         _creationTime = task.createdAt
         _finishTime = task.finishedAt
@@ -207,7 +226,10 @@ public class TaskTableReaderImpl(
         _taskState = task.state
 
         if (sysStats != null) {
-            _bootTimeAbsolute = sysStats.bootTime + startTime
+            // Only derive the absolute boot time when it changes to prevent an allocation every interval
+            if (_bootTimeAbsolute == null || sysStats.bootTime != previousBootTime) {
+                _bootTimeAbsolute = sysStats.bootTime + startTime
+            }
         } else {
             _bootTimeAbsolute = null
         }
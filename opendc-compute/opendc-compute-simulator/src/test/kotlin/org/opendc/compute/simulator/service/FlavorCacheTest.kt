@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.compute.simulator.service
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotSame
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertAll
+import org.opendc.compute.simulator.host.SimHost
+import org.opendc.compute.simulator.scheduler.FilterScheduler
+import org.opendc.compute.simulator.scheduler.filters.HostFilter
+import org.opendc.simulator.Multiplexer
+import org.opendc.simulator.SimulationDispatcher
+import org.opendc.simulator.compute.cpu.CpuPowerModels
+import org.opendc.simulator.compute.models.CpuModel
+import org.opendc.simulator.compute.models.MachineModel
+import org.opendc.simulator.compute.models.MemoryUnit
+import org.opendc.simulator.compute.workload.TraceFragment
+import org.opendc.simulator.compute.workload.TraceWorkload
+import org.opendc.simulator.engine.FlowEngine
+import org.opendc.simulator.engine.FlowGraph
+import java.time.Duration
+import java.util.UUID
+
+/**
+ * Test suite for the interned flavors of the [ComputeService] and the flavor cache of the [FilterScheduler].
+ */
+class FlavorCacheTest {
+    private lateinit var dispatcher: SimulationDispatcher
+    private lateinit var graph: FlowGraph
+    private lateinit var powerMux: Multiplexer
+    private var hostId = 0L
+
+    /**
+     * The number of times that [staticFilter] has been evaluated.
+     */
+    private var evaluations = 0
+
+    /**
+     * A filter whose result only depends on the host and the flavor of a task.
+     */
+    private val staticFilter =
+        object : HostFilter {
+            override fun test(
+                host: HostView,
+                task: ServiceTask,
+            ): Boolean {
+                evaluations++
+                return true
+            }
+
+            override val isFlavorStatic: Boolean
+                get() = true
+        }
+
+    @BeforeEach
+    fun setUp() {
+        dispatcher = SimulationDispatcher()
+        graph = FlowEngine.create(dispatcher).newGraph()
+        powerMux = Multiplexer(graph)
+    }
+
+    @Test
+    fun testInternFlavor() {
+        val service = ComputeService(dispatcher, FilterScheduler(emptyList(), emptyList()), Duration.ofMinutes(5), 10)
+        val client = service.newClient()
+
+        val flavor = client.internFlavor(2, 1024, emptyMap<String, Any>())
+
+        assertAll(
+            { assertSame(flavor, client.internFlavor(2, 1024, emptyMap<String, Any>())) },
+            { assertNotSame(flavor, client.internFlavor(2, 2048, emptyMap<String, Any>())) },
+            { assertNotSame(flavor, client.internFlavor(2, 1024, mapOf("cpu-capacity" to 1000.0))) },
+            { assertNotSame(flavor, client.newFlavor("flavor", 2, 1024, emptyMap<String, Any>())) },
+            { assertEquals(1, client.queryFlavors().count { it === flavor }) },
+        )
+    }
+
+    @Test
+    fun testReleaseFlavor() {
+        val service = ComputeService(dispatcher, FilterScheduler(emptyList(), emptyList()), Duration.ofMinutes(5), 10)
+        val client = service.newClient()
+
+        val flavor = client.internFlavor(2, 1024, emptyMap<String, Any>()) as ServiceFlavor
+        val first = client.newTask("first", flavor, WORKLOAD, emptyMap<String, Any>())
+        val second = client.newTask("second", flavor, WORKLOAD, emptyMap<String, Any>())
+        assertEquals(2, flavor.refCount)
+
+        // The flavor remains in the catalogue while it is used by a task
+        first.delete()
+        first.delete()
+        assertEquals(1, flavor.refCount, "A task should only release its flavor once")
+        assertSame(flavor, client.findFlavor(flavor.uid))
+
+        second.delete()
+        assertEquals(0, flavor.refCount)
+        assertNull(client.findFlavor(flavor.uid))
+        assertNotSame(flavor, client.internFlavor(2, 1024, emptyMap<String, Any>()))
+    }
+
+    @Test
+    fun testCacheHostsByFlavor() {
+        val scheduler = FilterScheduler(listOf(staticFilter), emptyList())
+        val service = ComputeService(dispatcher, scheduler, Duration.ofMinutes(5), 10)
+        val client = service.newClient()
+        val hosts = MutableList(4) { addHost(scheduler) }
+
+        val small = newTask(client, 2)
+        val large = newTask(client, 4)
+
+        // The static filters are evaluated once per flavor and host
+        scheduler.select(small)
+        scheduler.select(small)
+        scheduler.select(newTask(client, 2))
+        assertEquals(4, evaluations)
+        scheduler.select(large)
+        assertEquals(8, evaluations)
+
+        // Adding or removing a host invalidates the cache
+        addHost(scheduler)
+        scheduler.select(small)
+        assertEquals(13, evaluations)
+
+        scheduler.removeHost(hosts.removeAt(0))
+        scheduler.select(large)
+        scheduler.select(small)
+        assertEquals(21, evaluations)
+    }
+
+    @Test
+    fun testCacheBound() {
+        val scheduler = FilterScheduler(listOf(staticFilter), emptyList())
+        val service = ComputeService(dispatcher, scheduler, Duration.ofMinutes(5), 10)
+        val client = service.newClient()
+        addHost(scheduler)
+
+        // Flavors that are not interned are unique per task
+        val tasks =
+            List(FilterScheduler.MAX_CACHED_FLAVORS + 1) {
+                val flavor = client.newFlavor("flavor-$it", 1, 1024, emptyMap<String, Any>())
+                client.newTask("task-$it", flavor, WORKLOAD, emptyMap<String, Any>())
+            }
+
+        for (task in tasks.take(FilterScheduler.MAX_CACHED_FLAVORS)) {
+            scheduler.select(task)
+        }
+        scheduler.select(tasks[0])
+        assertEquals(FilterScheduler.MAX_CACHED_FLAVORS, evaluations)
+
+        // The cache is cleared once it is full, after which the first flavor needs to be evaluated again
+        scheduler.select(tasks.last())
+        scheduler.select(tasks[0])
+        assertEquals(FilterScheduler.MAX_CACHED_FLAVORS + 2, evaluations)
+    }
+
+    /**
+     * Create a task with an interned flavor of the specified number of cores.
+     */
+    private fun newTask(
+        client: ComputeService.ComputeClient,
+        coreCount: Int,
+    ): ServiceTask {
+        val flavor = client.internFlavor(coreCount, coreCount * 1024L, emptyMap<String, Any>())
+        return client.newTask("task", flavor, WORKLOAD, emptyMap<String, Any>())
+    }
+
+    /**
+     * Add a new host to the specified [scheduler].
+     */
+    private fun addHost(scheduler: FilterScheduler): HostView {
+        val model =
+            MachineModel(
+                CpuModel(0, 8, 2900.0),
+                MemoryUnit("Crucial", "MTA18ASF4G72AZ-3G2B1", 3200.0, 65_536L),
+            )
+        val id = hostId++
+        val host =
+            SimHost(
+                UUID(0, id),
+                "host-$id",
+                emptyMap(),
+                dispatcher.timeSource,
+                graph,
+                model,
+                CpuPowerModels.linear(350.0, 200.0),
+                powerMux,
+            )
+        val hv = HostView(host)
+        scheduler.addHost(hv)
+        return hv
+    }
+
+    private companion object {
+        val WORKLOAD: TraceWorkload = TraceWorkload.ofFragments(TraceFragment(5 * 60 * 1000L, 1000.0, 1))
+    }
+}
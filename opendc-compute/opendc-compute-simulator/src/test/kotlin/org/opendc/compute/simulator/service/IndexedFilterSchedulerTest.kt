@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.opendc.compute.simulator.service
+
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+import org.opendc.compute.simulator.host.SimHost
+import org.opendc.compute.simulator.scheduler.FilterScheduler
+import org.opendc.compute.simulator.scheduler.filters.ComputeFilter
+import org.opendc.compute.simulator.scheduler.filters.HostFilter
+import org.opendc.compute.simulator.scheduler.filters.InstanceCountFilter
+import org.opendc.compute.simulator.scheduler.filters.RamFilter
+import org.opendc.compute.simulator.scheduler.filters.VCpuFilter
+import org.opendc.compute.simulator.scheduler.weights.CoreRamWeigher
+import org.opendc.compute.simulator.scheduler.weights.HostWeigher
+import org.opendc.compute.simulator.scheduler.weights.InstanceCountWeigher
+import org.opendc.compute.simulator.scheduler.weights.RamWeigher
+import org.opendc.compute.simulator.scheduler.weights.VCpuWeigher
+import org.opendc.simulator.Multiplexer
+import org.opendc.simulator.SimulationDispatcher
+import org.opendc.simulator.compute.cpu.CpuPowerModels
+import org.opendc.simulator.compute.models.CpuModel
+import org.opendc.simulator.compute.models.MachineModel
+import org.opendc.simulator.compute.models.MemoryUnit
+import org.opendc.simulator.compute.workload.TraceFragment
+import org.opendc.simulator.compute.workload.TraceWorkload
+import org.opendc.simulator.engine.FlowEngine
+import java.time.Duration
+import java.util.SplittableRandom
+import java.util.UUID
+
+/**
+ * A randomized test suite that checks that an indexed [FilterScheduler] selects the same host as the linear scan.
+ *
+ * The test lives in the service package, so that it can place and remove tasks on a [HostView] in the same way as the
+ * [ComputeService] does.
+ */
+class IndexedFilterSchedulerTest {
+    @ParameterizedTest
+    @ValueSource(longs = [0, 1, 2, 3, 4])
+    fun testSameSelection(seed: Long) {
+        val random = SplittableRandom(seed)
+
+        for (weigher in WEIGHERS) {
+            val filters = createFilters(random)
+            val linear = FilterScheduler(filters, listOfNotNull(weigher))
+            val indexed = FilterScheduler(filters, listOfNotNull(weigher), indexed = true)
+            val config = "filters=$filters, weigher=$weigher"
+
+            run(random, linear, indexed, config)
+        }
+    }
+
+    /**
+     * Select hosts for random tasks with both schedulers while placing and removing tasks and hosts.
+     */
+    private fun run(
+        random: SplittableRandom,
+        linear: FilterScheduler,
+        indexed: FilterScheduler,
+        config: String,
+    ) {
+        val dispatcher = SimulationDispatcher()
+        val graph = FlowEngine.create(dispatcher).newGraph()
+        val powerMux = Multiplexer(graph)
+        val powerModel = CpuPowerModels.linear(350.0, 200.0)
+        var hostId = 0L
+
+        fun addHost(): HostView {
+            val coreCount = HOST_CORES[random.nextInt(HOST_CORES.size)]
+            val model =
+                MachineModel(
+                    CpuModel(0, coreCount, 2900.0),
+                    MemoryUnit("Crucial", "MTA18ASF4G72AZ-3G2B1", 3200.0, coreCount * 8_192L),
+                )
+            val id = hostId++
+            val host =
+                SimHost(UUID(0, id), "host-$id", emptyMap(), dispatcher.timeSource, graph, model, powerModel, powerMux)
+            val hv = HostView(host)
+            linear.addHost(hv)
+            indexed.addHost(hv)
+            return hv
+        }
+
+        val hosts = MutableList(64) { addHost() }
+        val placements = mutableListOf<Pair<HostView, ServiceFlavor>>()
+
+        val service = ComputeService(dispatcher, linear, Duration.ofMinutes(5), 10)
+        val client = service.newClient()
+        val workload = TraceWorkload.ofFragments(TraceFragment(5 * 60 * 1000L, 1000.0, 1))
+        val tasks =
+            List(64) {
+                val coreCount = TASK_CORES[random.nextInt(TASK_CORES.size)]
+                val memorySize = coreCount * MEMORY_PER_CORE[random.nextInt(MEMORY_PER_CORE.size)]
+                val flavor = client.internFlavor(coreCount, memorySize, emptyMap<String, Any>())
+                client.newTask("task-$it", flavor, workload, emptyMap<String, Any>())
+            }
+
+        repeat(2000) { step ->
+            val task = tasks[random.nextInt(tasks.size)]
+            val expected = linear.select(task)
+            val actual = indexed.select(task)
+            assertSame(expected, actual, "Different host selected at step $step with $config")
+
+            val action = random.nextInt(10)
+            when {
+                expected != null && action < 6 -> {
+                    update(linear, indexed, expected, task.flavor, 1)
+                    placements.add(expected to task.flavor)
+                }
+                placements.isNotEmpty() && action < 9 -> {
+                    val (hv, flavor) = placements.removeAt(random.nextInt(placements.size))
+                    update(linear, indexed, hv, flavor, -1)
+                }
+                action == 9 -> {
+                    // Replace a host, which moves it to the end of the order of both schedulers
+                    val hv = hosts.removeAt(random.nextInt(hosts.size))
+                    linear.removeHost(hv)
+                    indexed.removeHost(hv)
+                    placements.removeAll { it.first == hv }
+                    hosts.add(addHost())
+                }
+            }
+        }
+    }
+
+    /**
+     * Place (for a positive [sign]) or remove a task with [flavor] on [hv] in the same way as the [ComputeService].
+     */
+    private fun update(
+        linear: FilterScheduler,
+        indexed: FilterScheduler,
+        hv: HostView,
+        flavor: ServiceFlavor,
+        sign: Int,
+    ) {
+        hv.instanceCount += sign
+        hv.provisionedCores += sign * flavor.coreCount
+        hv.availableMemory -= sign * flavor.memorySize
+        linear.updateHost(hv)
+        indexed.updateHost(hv)
+    }
+
+    /**
+     * Create a random combination of filters, including filters that the index cannot prune on.
+     */
+    private fun createFilters(random: SplittableRandom): List<HostFilter> {
+        val filters = mutableListOf<HostFilter>(ComputeFilter())
+        if (random.nextBoolean()) {
+            filters.add(VCpuFilter(ALLOCATION_RATIOS[random.nextInt(ALLOCATION_RATIOS.size)]))
+        }
+        if (random.nextBoolean()) {
+            filters.add(RamFilter(ALLOCATION_RATIOS[random.nextInt(ALLOCATION_RATIOS.size)]))
+        }
+        if (random.nextInt(4) == 0) {
+            filters.add(InstanceCountFilter(4))
+        }
+        filters.shuffle(java.util.Random(random.nextLong()))
+        return filters
+    }
+
+    private companion object {
+        /**
+         * The weighers supported by the index, where `null` denotes no weigher.
+         */
+        val WEIGHERS: List<HostWeigher?> =
+            listOf(
+                null,
+                RamWeigher(1.0),
+                RamWeigher(-1.0),
+                CoreRamWeigher(1.0),
+                CoreRamWeigher(-1.0),
+                InstanceCountWeigher(1.0),
+                InstanceCountWeigher(-1.0),
+                VCpuWeigher(16.0, 1.0),
+                VCpuWeigher(16.0, -1.0),
+            )
+
+        val ALLOCATION_RATIOS = doubleArrayOf(1.0, 1.5, 16.0)
+
+        val HOST_CORES = intArrayOf(8, 16, 32, 64)
+
+        val TASK_CORES = intArrayOf(1, 2, 4, 8, 16)
+
+        val MEMORY_PER_CORE = longArrayOf(1_024L, 4_096L, 16_384L)
+    }
+}
@@ -31,6 +31,7 @@ plugins {
 dependencies {
     api(projects.opendcCompute.opendcComputeApi)
     implementation(projects.opendcCommon)
+    implementation(libs.kotlin.logging)
     implementation(project(mapOf("path" to ":opendc-simulator:opendc-simulator-compute")))
 
     implementation(libs.jackson.module.kotlin)
@@ -24,14 +24,18 @@
 
 package org.opendc.compute.topology
 
+import mu.KotlinLogging
 import org.opendc.compute.topology.specs.BatteryJSONSpec
 import org.opendc.compute.topology.specs.ClusterJSONSpec
 import org.opendc.compute.topology.specs.ClusterSpec
 import org.opendc.compute.topology.specs.HostJSONSpec
 import org.opendc.compute.topology.specs.HostSpec
+import org.opendc.compute.topology.specs.PowerModelSpec
 import org.opendc.compute.topology.specs.PowerSourceSpec
 import org.opendc.compute.topology.specs.BatterySpec
 import org.opendc.compute.topology.specs.TopologySpec
+import org.opendc.simulator.compute.cpu.CpuPowerModel
+import org.opendc.simulator.compute.cpu.CpuPowerModels
 import org.opendc.simulator.compute.cpu.getPowerModel
 import org.opendc.simulator.compute.models.CpuModel
 import org.opendc.simulator.compute.models.MachineModel
@@ -40,6 +44,7 @@ import java.io.File
 import java.io.InputStream
 import java.util.SplittableRandom
 import java.util.UUID
+import java.util.concurrent.ConcurrentHashMap
 import java.util.random.RandomGenerator
 
 /**
@@ -123,6 +128,34 @@ private fun ClusterJSONSpec.toClusterSpec(random: RandomGenerator): ClusterSpec
     return ClusterSpec(this.name, hostSpecs, powerSourceSpec, batterySpec)
 }
 
+/**
+ * The logger instance used to report the approximation error of tabulated power models.
+ */
+private val logger = KotlinLogging.logger {}
+
+/**
+ * The power models of the hosts, which are shared between all hosts with the same [PowerModelSpec].
+ */
+private val powerModels = ConcurrentHashMap<PowerModelSpec, CpuPowerModel>()
+
+/**
+ * Helper method to convert a [PowerModelSpec] into a [CpuPowerModel].
+ */
+private fun PowerModelSpec.toPowerModel(): CpuPowerModel {
+    return powerModels.computeIfAbsent(this) { spec ->
+        val model =
+            getPowerModel(spec.modelType, spec.power.toWatts(), spec.maxPower.toWatts(), spec.idlePower.toWatts())
+        val maxError = spec.maxApproximationError ?: return@computeIfAbsent model
+
+        val table = CpuPowerModels.tabulate(model, maxError.toWatts())
+        logger.info {
+            "Approximating power model ${model.fullName} using ${table.resolution} segments " +
+                "(maximum error: ${table.maxError} W)"
+        }
+        table
+    }
+}
+
 /**
  * Helper method to convert a [HostJSONSpec] into a [HostSpec]s.
  */
@@ -149,8 +182,7 @@ private fun HostJSONSpec.toHostSpec(
             unknownMemoryUnit,
         )
 
-    val powerModel =
-        getPowerModel(powerModel.modelType, powerModel.power.toWatts(), powerModel.maxPower.toWatts(), powerModel.idlePower.toWatts())
+    val powerModel = powerModel.toPowerModel()
 
     var hostName: String
     if (name == null) {
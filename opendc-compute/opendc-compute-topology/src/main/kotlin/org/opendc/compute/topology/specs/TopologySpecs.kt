@@ -110,6 +110,12 @@ public data class MemoryJSONSpec(
     val memorySize: DataSize,
 )
 
+/**
+ * Definition of the power model of a host used for JSON input.
+ *
+ * @param maxApproximationError If set, the power model is approximated by a lookup table whose error does not exceed
+ * this value, which is cheaper to evaluate for non-linear models.
+ */
 @Serializable
 public data class PowerModelSpec(
     val modelType: String,
@@ -117,6 +123,7 @@ public data class PowerModelSpec(
     val maxPower: Power,
     val idlePower: Power,
     val carbonTracePaths: String? = null,
+    val maxApproximationError: Power? = null,
 ) {
     init {
         require(maxPower >= idlePower) { "The max power of a power model can not be less than the idle power" }
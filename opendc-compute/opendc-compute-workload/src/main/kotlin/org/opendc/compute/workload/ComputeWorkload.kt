@@ -22,6 +22,7 @@
 
 package org.opendc.compute.workload
 
+import org.opendc.compute.workload.internal.ListTaskStream
 import java.util.random.RandomGenerator
 
 /**
@@ -35,4 +36,16 @@ public interface ComputeWorkload {
         loader: ComputeWorkloadLoader,
         random: RandomGenerator,
     ): List<Task>
+
+    /**
+     * Resolve the workload into a [TaskStream] that is ordered by submission time.
+     *
+     * By default, this materializes the list of tasks returned by [resolve]. Workloads that can select their tasks
+     * based on the metadata of a trace override this method, so that the fragments of the tasks are only decoded
+     * while the stream is iterated.
+     */
+    public fun stream(
+        loader: ComputeWorkloadLoader,
+        random: RandomGenerator,
+    ): TaskStream = ListTaskStream(resolve(loader, random))
 }
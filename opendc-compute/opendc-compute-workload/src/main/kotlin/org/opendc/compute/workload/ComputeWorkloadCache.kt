@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.compute.workload
+
+import mu.KotlinLogging
+import org.opendc.compute.workload.internal.TaskIndex
+import java.io.File
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * A process-wide, size-bounded cache of parsed compute workload traces.
+ *
+ * Traces are keyed by their path, format and checkpoint parameters, such that all simulation runs in the process
+ * (e.g., the seeds of a scenario or the scenarios of an experiment) share the same parsed list of [Task]s. Concurrent
+ * requests for a trace that is being loaded wait for the single load in progress. When the estimated size of the
+ * cached traces exceeds [maxSize], the least recently used traces are evicted.
+ *
+ * @param maxSize The maximum estimated size of the cached traces in bytes.
+ */
+public class ComputeWorkloadCache(public val maxSize: Long) {
+    /**
+     * The logger for this instance.
+     */
+    private val logger = KotlinLogging.logger {}
+
+    /**
+     * The cached traces in access order.
+     */
+    private val entries = LinkedHashMap<Key, Entry>(16, 0.75f, true)
+
+    /**
+     * The estimated size of the cached traces in bytes.
+     */
+    private var currentSize = 0L
+
+    private val hits = AtomicLong()
+    private val misses = AtomicLong()
+    private val evictions = AtomicLong()
+    private val loadTimeNanos = AtomicLong()
+
+    /**
+     * Return the trace for the specified [key], loading it using [loader] if it is not cached.
+     */
+    public fun get(
+        key: Key,
+        loader: () -> List<Task>,
+    ): List<Task> {
+        val future: CompletableFuture<List<Task>>
+        val owner: Boolean
+
+        synchronized(this) {
+            val entry = entries[key]
+            if (entry != null) {
+                hits.incrementAndGet()
+                future = entry.future
+                owner = false
+            } else {
+                misses.incrementAndGet()
+                future = CompletableFuture()
+                entries[key] = Entry(future)
+                owner = true
+            }
+        }
+
+        if (owner) {
+            load(key, future, loader)
+        }
+
+        try {
+            return future.get()
+        } catch (e: ExecutionException) {
+            throw e.cause ?: e
+        }
+    }
+
+    /**
+     * Return the [TaskIndex] over the trace for the specified [key], loading the trace using [loader] if it is not
+     * cached. The index is built once and is cached together with the trace.
+     */
+    internal fun index(
+        key: Key,
+        loader: () -> List<Task>,
+    ): TaskIndex {
+        val tasks = get(key, loader)
+
+        synchronized(this) {
+            val entry = entries[key]
+            if (entry != null && entry.future.getNow(null) === tasks) {
+                return entry.index ?: TaskIndex(tasks).also { entry.index = it }
+            }
+        }
+
+        // The trace was evicted or does not fit in the cache
+        return TaskIndex(tasks)
+    }
+
+    /**
+     * Load the trace for the specified [key] and complete [future] with the result.
+     */
+    private fun load(
+        key: Key,
+        future: CompletableFuture<List<Task>>,
+        loader: () -> List<Task>,
+    ) {
+        val start = System.nanoTime()
+        val tasks =
+            try {
+                loader()
+            } catch (e: Throwable) {
+                synchronized(this) { entries.remove(key) }
+                future.completeExceptionally(e)
+                return
+            }
+
+        val duration = System.nanoTime() - start
+        loadTimeNanos.addAndGet(duration)
+
+        val size = estimateSize(tasks)
+        logger.info {
+            "Loaded trace ${key.path} (${tasks.size} tasks, ~${size / (1024 * 1024)} MiB) in ${duration / 1_000_000} ms"
+        }
+
+        synchronized(this) {
+            val entry = entries[key]
+            if (entry != null && entry.future === future) {
+                if (size > maxSize) {
+                    // The trace does not fit in the cache
+                    entries.remove(key)
+                } else {
+                    entry.size = size
+                    currentSize += size
+                    evict()
+                }
+            }
+        }
+
+        future.complete(tasks)
+    }
+
+    /**
+     * Evict the least recently used traces until the cache fits within its bounds.
+     */
+    private fun evict() {
+        val it = entries.values.iterator()
+        while (currentSize > maxSize && it.hasNext()) {
+            val entry = it.next()
+
+            // Do not evict traces that are still being loaded
+            if (!entry.future.isDone && entry.size == 0L) {
+                continue
+            }
+
+            it.remove()
+            currentSize -= entry.size
+            evictions.incrementAndGet()
+        }
+    }
+
+    /**
+     * Remove all traces from the cache.
+     */
+    @Synchronized
+    public fun clear() {
+        entries.clear()
+        currentSize = 0
+    }
+
+    /**
+     * Return a snapshot of the statistics of this cache.
+     */
+    public fun getStats(): Stats {
+        val (count, size) = synchronized(this) { entries.size to currentSize }
+        return Stats(hits.get(), misses.get(), evictions.get(), loadTimeNanos.get() / 1_000_000, count, size)
+    }
+
+    /**
+     * The key of a trace in the cache.
+     *
+     * @property path The canonical path to the trace.
+     * @property format The format of the trace.
+     * @property checkpointInterval The checkpoint interval of the workloads in the trace.
+     * @property checkpointDuration The checkpoint duration of the workloads in the trace.
+     * @property checkpointIntervalScaling The checkpoint interval scaling of the workloads in the trace.
+     */
+    public data class Key(
+        val path: String,
+        val format: String,
+        val checkpointInterval: Long,
+        val checkpointDuration: Long,
+        val checkpointIntervalScaling: Double,
+    ) {
+        public constructor(
+            file: File,
+            format: String,
+            checkpointInterval: Long,
+            checkpointDuration: Long,
+            checkpointIntervalScaling: Double,
+        ) : this(file.canonicalPath, format, checkpointInterval, checkpointDuration, checkpointIntervalScaling)
+    }
+
+    /**
+     * Statistics of a [ComputeWorkloadCache].
+     *
+     * @property hits The number of requests that were served from the cache.
+     * @property misses The number of requests that required the trace to be loaded.
+     * @property evictions The number of traces that were evicted from the cache.
+     * @property loadTimeMs The total time spent loading traces (in milliseconds).
+     * @property entryCount The number of traces in the cache.
+     * @property size The estimated size of the cached traces in bytes.
+     */
+    public data class Stats(
+        val hits: Long,
+        val misses: Long,
+        val evictions: Long,
+        val loadTimeMs: Long,
+        val entryCount: Int,
+        val size: Long,
+    )
+
+    /**
+     * An entry in the cache.
+     */
+    private class Entry(val future: CompletableFuture<List<Task>>) {
+        var size: Long = 0L
+        var index: TaskIndex? = null
+    }
+
+    public companion object {
+        /**
+         * The estimated number of bytes per task, excluding its fragments.
+         */
+        private const val TASK_SIZE = 256L
+
+        /**
+         * The estimated number of bytes per fragment (duration, usage, core count and remaining duration).
+         */
+        private const val FRAGMENT_SIZE = 28L
+
+        /**
+         * The cache shared by all [ComputeWorkloadLoader]s in the process. By default, it may use a quarter of the
+         * maximum heap size, which can be overridden using the `opendc.workload.cache.size` system property (in bytes).
+         */
+        @JvmStatic
+        public val shared: ComputeWorkloadCache =
+            ComputeWorkloadCache(
+                System.getProperty("opendc.workload.cache.size")?.toLongOrNull()
+                    ?: (Runtime.getRuntime().maxMemory() / 4),
+            )
+
+        /**
+         * Estimate the size of the specified tasks in bytes.
+         */
+        private fun estimateSize(tasks: List<Task>): Long {
+            var size = 0L
+            for (task in tasks) {
+                size += TASK_SIZE + FRAGMENT_SIZE * task.trace.totalSize
+            }
+            return size
+        }
+    }
+}
@@ -23,7 +23,10 @@
 package org.opendc.compute.workload
 
 import mu.KotlinLogging
+import org.opendc.compute.workload.internal.TaskIndex
+import org.opendc.compute.workload.internal.TraceTaskStream
 import org.opendc.simulator.compute.workload.TraceWorkload
+import org.opendc.trace.TableBatch
 import org.opendc.trace.Trace
 import org.opendc.trace.conv.TABLE_RESOURCES
 import org.opendc.trace.conv.TABLE_RESOURCE_STATES
@@ -36,57 +39,65 @@ import org.opendc.trace.conv.resourceStateCpuUsage
 import org.opendc.trace.conv.resourceStateDuration
 import org.opendc.trace.conv.resourceSubmissionTime
 import java.io.File
-import java.lang.ref.SoftReference
-import java.time.Duration
+import java.time.Instant
 import java.util.UUID
-import java.util.concurrent.ConcurrentHashMap
 import kotlin.math.roundToLong
 
 /**
  * A helper class for loading compute workload traces into memory.
  *
  * @param baseDir The directory containing the traces.
+ * @param cache The cache in which the loaded traces are stored. By default, the cache is shared by all loaders in the
+ * process.
  */
 public class ComputeWorkloadLoader(
     private val baseDir: File,
     private val checkpointInterval: Long,
     private val checkpointDuration: Long,
     private val checkpointIntervalScaling: Double,
+    private val cache: ComputeWorkloadCache = ComputeWorkloadCache.shared,
 ) {
     /**
      * The logger for this instance.
      */
     private val logger = KotlinLogging.logger {}
 
-    /**
-     * The cache of workloads.
-     */
-    private val cache = ConcurrentHashMap<String, SoftReference<List<Task>>>()
-
     /**
      * Read the fragments into memory.
      */
     private fun parseFragments(trace: Trace): Map<String, Builder> {
         val reader = checkNotNull(trace.getTable(TABLE_RESOURCE_STATES)).newReader()
 
-        val idCol = reader.resolve(resourceID)
-        val durationCol = reader.resolve(resourceStateDuration)
-        val coresCol = reader.resolve(resourceCpuCount)
-        val usageCol = reader.resolve(resourceStateCpuUsage)
+        val batch = TableBatch(BATCH_SIZE)
+        val ids = batch.strings(reader.resolve(resourceID))
+        val durations = batch.durations(reader.resolve(resourceStateDuration))
+        val cores = batch.ints(reader.resolve(resourceCpuCount))
+        val usages = batch.doubles(reader.resolve(resourceStateCpuUsage))
 
-        val fragments = mutableMapOf<String, Builder>()
+        // The builders are indexed by the dictionary code of the resource identifier. Codes are assigned in order of
+        // first appearance, so an unseen identifier always gets the next free index.
+        val builders = ArrayList<Builder>()
 
         return try {
-            while (reader.nextRow()) {
-                val id = reader.getString(idCol)!!
-                val durationMs = reader.getDuration(durationCol)!!
-                val cores = reader.getInt(coresCol)
-                val cpuUsage = reader.getDouble(usageCol)
-
-                val builder = fragments.computeIfAbsent(id) { Builder(checkpointInterval, checkpointDuration, checkpointIntervalScaling) }
-                builder.add(durationMs, cpuUsage, cores)
+            while (reader.nextBatch(batch)) {
+                val codes = ids.codes
+
+                for (row in 0 until batch.size) {
+                    val code = codes[row]
+                    check(code >= 0) { "Missing resource identifier" }
+
+                    if (code == builders.size) {
+                        builders.add(Builder(checkpointInterval, checkpointDuration, checkpointIntervalScaling))
+                    }
+
+                    builders[code].add(durations[row], usages[row], cores[row])
+                }
             }
 
+            val fragments = LinkedHashMap<String, Builder>(builders.size * 2)
+            for ((code, builder) in builders.withIndex()) {
+                fragments[ids.lookup(code)] = builder
+            }
             fragments
         } finally {
             reader.close()
@@ -102,46 +113,40 @@ public class ComputeWorkloadLoader(
     ): List<Task> {
         val reader = checkNotNull(trace.getTable(TABLE_RESOURCES)).newReader()
 
-        val idCol = reader.resolve(resourceID)
-        val submissionTimeCol = reader.resolve(resourceSubmissionTime)
-        val durationCol = reader.resolve(resourceDuration)
-        val cpuCountCol = reader.resolve(resourceCpuCount)
-        val cpuCapacityCol = reader.resolve(resourceCpuCapacity)
-        val memCol = reader.resolve(resourceMemCapacity)
+        val batch = TableBatch(BATCH_SIZE)
+        val ids = batch.strings(reader.resolve(resourceID))
+        val submissionTimes = batch.instants(reader.resolve(resourceSubmissionTime))
+        val durations = batch.longs(reader.resolve(resourceDuration))
+        val cpuCounts = batch.ints(reader.resolve(resourceCpuCount))
+        val cpuCapacities = batch.doubles(reader.resolve(resourceCpuCapacity))
+        val memCapacities = batch.doubles(reader.resolve(resourceMemCapacity))
 
         var counter = 0
         val entries = mutableListOf<Task>()
 
         return try {
-            while (reader.nextRow()) {
-                val id = reader.getString(idCol)!!
-                if (!fragments.containsKey(id)) {
-                    continue
-                }
+            while (reader.nextBatch(batch)) {
+                for (row in 0 until batch.size) {
+                    val id = ids[row]!!
+                    val builder = fragments[id] ?: continue // Get all fragments related to this VM
 
-                val submissionTime = reader.getInstant(submissionTimeCol)!!
-                val duration = reader.getLong(durationCol)
-                val cpuCount = reader.getInt(cpuCountCol)
-                val cpuCapacity = reader.getDouble(cpuCapacityCol)
-                val memCapacity = reader.getDouble(memCol) / 1000.0 // Convert from KB to MB
-                val uid = UUID.nameUUIDFromBytes("$id-${counter++}".toByteArray())
-
-                val builder = fragments.getValue(id) // Get all fragments related to this VM
-                val totalLoad = builder.totalLoad
-
-                entries.add(
-                    Task(
-                        uid,
-                        id,
-                        cpuCount,
-                        cpuCapacity,
-                        memCapacity.roundToLong(),
-                        totalLoad,
-                        submissionTime,
-                        duration,
-                        builder.build(),
-                    ),
-                )
+                    val memCapacity = memCapacities[row] / 1000.0 // Convert from KB to MB
+                    val uid = UUID.nameUUIDFromBytes("$id-${counter++}".toByteArray())
+
+                    entries.add(
+                        Task(
+                            uid,
+                            id,
+                            cpuCounts[row],
+                            cpuCapacities[row],
+                            memCapacity.roundToLong(),
+                            builder.totalLoad,
+                            Instant.ofEpochMilli(submissionTimes[row]),
+                            durations[row],
+                            builder.build(),
+                        ),
+                    )
+                }
             }
 
             // Make sure the virtual machines are ordered by start time
@@ -158,48 +163,98 @@ public class ComputeWorkloadLoader(
 
     /**
      * Load the trace with the specified [name] and [format].
+     *
+     * The returned tasks are shared with all other users of the same trace. This is safe since a [TraceWorkload] is
+     * immutable: the progress of a checkpointed workload is recorded in a new snapshot rather than in the workload.
      */
     public fun get(
         name: String,
         format: String,
     ): List<Task> {
-        val ref =
-            cache.compute(name) { key, oldVal ->
-                val inst = oldVal?.get()
-                if (inst == null) {
-                    val path = baseDir.resolve(key)
+        return cache.get(key(name, format)) { load(name, format) }
+    }
+
+    /**
+     * Obtain the [TaskIndex] over the tasks returned by [get], which is cached together with the trace.
+     */
+    internal fun index(
+        name: String,
+        format: String,
+    ): TaskIndex {
+        return cache.index(key(name, format)) { load(name, format) }
+    }
+
+    /**
+     * Construct the key of the trace with the specified [name] and [format] in the cache.
+     */
+    private fun key(
+        name: String,
+        format: String,
+    ): ComputeWorkloadCache.Key {
+        val path = baseDir.resolve(name)
+        return ComputeWorkloadCache.Key(path, format, checkpointInterval, checkpointDuration, checkpointIntervalScaling)
+    }
 
-                    logger.info { "Loading trace $key at $path" }
+    /**
+     * Load the trace with the specified [name] and [format] into memory.
+     */
+    private fun load(
+        name: String,
+        format: String,
+    ): List<Task> {
+        val path = baseDir.resolve(name)
+        logger.info { "Loading trace $name at $path" }
 
-                    val trace = Trace.open(path, format)
-                    val fragments = parseFragments(trace)
-                    val vms = parseMeta(trace, fragments)
+        val trace = Trace.open(path, format)
+        val fragments = parseFragments(trace)
+        return parseMeta(trace, fragments)
+    }
 
-                    SoftReference(vms)
-                } else {
-                    oldVal
-                }
-            }
+    /**
+     * Open a stream over the tasks of the trace with the specified [name] and [format], ordered by submission time.
+     *
+     * In contrast to [get], only the metadata of the tasks is read up front. The fragments of a task are decoded when
+     * the task is taken from the stream and are released once the task is no longer referenced, so the memory used
+     * by the stream scales with the number of tasks that are active at once rather than with the size of the trace.
+     * Streams are not cached.
+     */
+    public fun stream(
+        name: String,
+        format: String,
+    ): TaskStream {
+        val path = baseDir.resolve(name)
+        logger.info { "Streaming trace $name at $path" }
 
-        return checkNotNull(ref?.get()) { "Memory pressure" }
+        val trace = Trace.open(path, format)
+        return TraceTaskStream(trace, checkpointInterval, checkpointDuration, checkpointIntervalScaling)
     }
 
     /**
-     * Clear the workload cache.
+     * Clear the workload cache of this loader.
+     *
+     * The process-wide [ComputeWorkloadCache.shared] cache is left untouched, since other loaders may still use its
+     * traces. That cache evicts the least recently used traces by itself when it runs out of space.
      */
     public fun reset() {
-        cache.clear()
+        if (cache !== ComputeWorkloadCache.shared) {
+            cache.clear()
+        }
     }
 
     /**
      * A builder for a VM trace.
      */
-    private class Builder(checkpointInterval: Long, checkpointDuration: Long, checkpointIntervalScaling: Double) {
+    internal class Builder(checkpointInterval: Long, checkpointDuration: Long, checkpointIntervalScaling: Double) {
         /**
          * The total load of the trace.
          */
         @JvmField var totalLoad: Double = 0.0
 
+        /**
+         * The number of fragments added to the trace.
+         */
+        @JvmField var size: Int = 0
+
         /**
          * The internal builder for the trace.
          */
@@ -208,18 +263,19 @@ public class ComputeWorkloadLoader(
         /**
          * Add a fragment to the trace.
          *
-         * @param duration The duration of the fragment (in epoch millis).
+         * @param duration The duration of the fragment (in millis).
          * @param usage CPU usage of this fragment.
          * @param cores Number of cores used.
          */
         fun add(
-            duration: Duration,
+            duration: Long,
             usage: Double,
             cores: Int,
         ) {
-            totalLoad += (usage * duration.toMillis()) / 1000 // avg MHz * duration = MFLOPs
+            totalLoad += (usage * duration) / 1000 // avg MHz * duration = MFLOPs
+            size++
 
-            builder.add(duration.toMillis(), usage, cores)
+            builder.add(duration, usage, cores)
         }
 
         /**
@@ -227,4 +283,11 @@ public class ComputeWorkloadLoader(
          */
         fun build(): TraceWorkload = builder.build()
     }
+
+    internal companion object {
+        /**
+         * The number of rows to read from the trace at once.
+         */
+        const val BATCH_SIZE = 4096
+    }
 }
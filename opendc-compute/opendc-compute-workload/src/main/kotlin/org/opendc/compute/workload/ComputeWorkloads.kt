@@ -26,8 +26,11 @@ package org.opendc.compute.workload
 
 import org.opendc.compute.workload.internal.CompositeComputeWorkload
 import org.opendc.compute.workload.internal.HpcSampledComputeWorkload
-import org.opendc.compute.workload.internal.LoadSampledComputeWorkload
+import org.opendc.compute.workload.internal.LoadTaskSampler
+import org.opendc.compute.workload.internal.SampledComputeWorkload
+import org.opendc.compute.workload.internal.StratifiedTaskSampler
 import org.opendc.compute.workload.internal.TraceComputeWorkload
+import org.opendc.compute.workload.internal.UniformTaskSampler
 
 /**
  * Construct a workload from a trace.
@@ -45,10 +48,35 @@ public fun composite(vararg pairs: Pair<ComputeWorkload, Double>): ComputeWorklo
 }
 
 /**
- * Sample a workload by a [fraction] of the total load.
+ * Sample a workload by a [fraction] of the total load, taking the tasks in order of the workload.
  */
 public fun ComputeWorkload.sampleByLoad(fraction: Double): ComputeWorkload {
-    return LoadSampledComputeWorkload(this, fraction)
+    return SampledComputeWorkload(this, LoadTaskSampler(fraction, shuffle = false))
+}
+
+/**
+ * Sample a workload by a [fraction] of the total load, taking the tasks in random order.
+ */
+public fun ComputeWorkload.sampleRandomlyByLoad(fraction: Double): ComputeWorkload {
+    return SampledComputeWorkload(this, LoadTaskSampler(fraction, shuffle = true))
+}
+
+/**
+ * Sample [count] tasks of a workload uniformly at random.
+ */
+public fun ComputeWorkload.sampleRandomly(count: Int): ComputeWorkload {
+    return SampledComputeWorkload(this, UniformTaskSampler(count))
+}
+
+/**
+ * Sample a [fraction] of the tasks of a workload uniformly at random from each of [count] [strata].
+ */
+public fun ComputeWorkload.sampleStratified(
+    fraction: Double,
+    strata: TaskStrata,
+    count: Int = 10,
+): ComputeWorkload {
+    return SampledComputeWorkload(this, StratifiedTaskSampler(fraction, strata, count))
 }
 
 /**
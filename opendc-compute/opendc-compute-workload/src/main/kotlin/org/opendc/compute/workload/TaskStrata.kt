@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.opendc.compute.workload
+
+/**
+ * The criteria by which the tasks of a workload can be divided into strata for sampling.
+ */
+public enum class TaskStrata {
+    /**
+     * Strata of equal size by the total load of the tasks.
+     */
+    Load,
+
+    /**
+     * Strata of equal size by the duration of the tasks.
+     */
+    Duration,
+
+    /**
+     * Windows of equal length in time by the submission time of the tasks.
+     */
+    SubmissionWindow,
+
+    /**
+     * Two strata for the HPC and non-HPC tasks, where HPC tasks are identified by their name.
+     */
+    HpcClass,
+}
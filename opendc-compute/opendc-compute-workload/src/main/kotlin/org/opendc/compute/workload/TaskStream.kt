@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.opendc.compute.workload
+
+import org.opendc.compute.workload.internal.ListTaskStream
+import java.time.Instant
+
+/**
+ * An iterator over the [Task]s of a workload in order of submission time.
+ *
+ * Streams may decode the tasks lazily while they are iterated, so they should be closed when they are no longer
+ * needed.
+ */
+public interface TaskStream : Iterator<Task>, AutoCloseable {
+    /**
+     * The total number of tasks in the stream.
+     */
+    public val size: Int
+
+    /**
+     * The submission time of the first task in the stream or `null` if the stream is empty.
+     */
+    public val startTime: Instant?
+
+    public companion object {
+        /**
+         * Construct a [TaskStream] over the specified list of [tasks], ordered by submission time.
+         */
+        public fun of(tasks: List<Task>): TaskStream = ListTaskStream(tasks)
+    }
+}
@@ -45,11 +45,6 @@ internal class HpcSampledComputeWorkload(
      */
     private val logger = KotlinLogging.logger {}
 
-    /**
-     * The pattern to match compute nodes in the workload.
-     */
-    private val pattern = Regex("^(ComputeNode|cn).*")
-
     override fun resolve(
         loader: ComputeWorkloadLoader,
         random: RandomGenerator,
@@ -59,7 +54,7 @@ internal class HpcSampledComputeWorkload(
         val (hpc, nonHpc) =
             vms.partition { entry ->
                 val name = entry.name
-                name.matches(pattern)
+                name.matches(TaskIndex.HPC_PATTERN)
             }
 
         val hpcSequence =
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.opendc.compute.workload.internal
+
+import org.opendc.compute.workload.Task
+import org.opendc.compute.workload.TaskStream
+import java.time.Instant
+
+/**
+ * A [TaskStream] over a list of materialized [Task]s.
+ */
+internal class ListTaskStream(tasks: List<Task>) : TaskStream {
+    private val tasks = tasks.sortedBy { it.submissionTime }
+    private var position = 0
+
+    override val size: Int
+        get() = tasks.size
+
+    override val startTime: Instant?
+        get() = tasks.firstOrNull()?.submissionTime
+
+    override fun hasNext(): Boolean = position < tasks.size
+
+    override fun next(): Task {
+        if (position >= tasks.size) {
+            throw NoSuchElementException()
+        }
+
+        return tasks[position++]
+    }
+
+    override fun close() {}
+}
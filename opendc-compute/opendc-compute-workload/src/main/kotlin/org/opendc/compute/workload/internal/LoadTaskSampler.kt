@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021 AtLarge Research
+ * Copyright (c) 2024 AtLarge Research
  *
  * Permission is hereby granted, free of charge, to any person obtaining a copy
  * of this software and associated documentation files (the "Software"), to deal
@@ -19,46 +19,50 @@
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
  * SOFTWARE.
  */
-
 package org.opendc.compute.workload.internal
 
-import mu.KotlinLogging
-import org.opendc.compute.workload.ComputeWorkload
-import org.opendc.compute.workload.ComputeWorkloadLoader
-import org.opendc.compute.workload.Task
 import java.util.random.RandomGenerator
 
 /**
- * A [ComputeWorkload] that is sampled based on total load.
+ * A [TaskSampler] that selects tasks until their load reaches a [fraction] of the total load of the workload.
+ *
+ * @param fraction The fraction of the total load to sample.
+ * @param shuffle A flag to indicate that the tasks are visited in random order. Otherwise, the tasks are visited in
+ * order of the workload, so that the same prefix of the workload is selected for every seed.
  */
-internal class LoadSampledComputeWorkload(val source: ComputeWorkload, val fraction: Double) : ComputeWorkload {
-    /**
-     * The logging instance of this class.
-     */
-    private val logger = KotlinLogging.logger {}
-
-    override fun resolve(
-        loader: ComputeWorkloadLoader,
+internal class LoadTaskSampler(private val fraction: Double, private val shuffle: Boolean) : TaskSampler {
+    override fun select(
+        index: TaskIndex,
         random: RandomGenerator,
-    ): List<Task> {
-        val vms = source.resolve(loader, random) // fixme: Should be shuffled, otherwise the first fraction is always chosen
-        val res = mutableListOf<Task>()
+    ): IntArray {
+        if (!shuffle) {
+            return IntArray(index.prefixCount(fraction)) { it }
+        }
 
-        val totalLoad = vms.sumOf { it.totalLoad }
+        val size = index.size
+        val totalLoad = index.totalLoad
+        val res = ArrayList<Int>()
+
+        // Visit the tasks in random order using a lazy Fisher-Yates shuffle, which only records the swapped positions
+        val swaps = HashMap<Int, Int>()
         var currentLoad = 0.0
 
-        for (entry in vms) {
-            val entryLoad = entry.totalLoad
+        for (i in 0 until size) {
+            val j = i + random.nextInt(size - i)
+            val position = swaps[j] ?: j
+            swaps[j] = swaps[i] ?: i
+
+            val entryLoad = index.loadOf(position)
             if ((currentLoad + entryLoad) / totalLoad > fraction) {
                 break
             }
 
             currentLoad += entryLoad
-            res += entry
+            res.add(position)
         }
 
-        logger.info { "Sampled ${vms.size} VMs (fraction $fraction) into subset of ${res.size} VMs" }
-
-        return res
+        val positions = res.toIntArray()
+        positions.sort()
+        return positions
     }
 }
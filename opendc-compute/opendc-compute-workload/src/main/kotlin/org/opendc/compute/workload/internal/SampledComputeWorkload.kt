@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2021 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.compute.workload.internal
+
+import mu.KotlinLogging
+import org.opendc.compute.workload.ComputeWorkload
+import org.opendc.compute.workload.ComputeWorkloadLoader
+import org.opendc.compute.workload.Task
+import org.opendc.compute.workload.TaskStream
+import java.util.random.RandomGenerator
+
+/**
+ * A [ComputeWorkload] that is sampled from a [source] workload using a [TaskSampler].
+ *
+ * The sampler operates on a [TaskIndex] over the source workload. For traces, the index is cached together with the
+ * trace, so that drawing a sample only costs as much as the selected tasks. Since the index of a stream orders the
+ * tasks in the same way as the resolved trace, both select the same tasks for the same seed.
+ */
+internal class SampledComputeWorkload(val source: ComputeWorkload, val sampler: TaskSampler) : ComputeWorkload {
+    /**
+     * The logging instance of this class.
+     */
+    private val logger = KotlinLogging.logger {}
+
+    override fun resolve(
+        loader: ComputeWorkloadLoader,
+        random: RandomGenerator,
+    ): List<Task> {
+        val index =
+            if (source is TraceComputeWorkload) {
+                loader.index(source.name, source.format)
+            } else {
+                TaskIndex(source.resolve(loader, random))
+            }
+
+        val tasks = checkNotNull(index.tasks)
+        val positions = sampler.select(index, random)
+
+        logger.info { "Sampled ${index.size} VMs into subset of ${positions.size} VMs" }
+
+        return positions.map { tasks[it] }
+    }
+
+    override fun stream(
+        loader: ComputeWorkloadLoader,
+        random: RandomGenerator,
+    ): TaskStream {
+        if (source !is TraceComputeWorkload) {
+            // Other workloads are materialized, so sample the resolved tasks instead
+            return super.stream(loader, random)
+        }
+
+        val stream = source.stream(loader, random) as TraceTaskStream
+        val index = stream.index()
+        val positions = sampler.select(index, random)
+
+        logger.info { "Sampled ${index.size} VMs into subset of ${positions.size} VMs" }
+
+        stream.select(positions)
+        return stream
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.opendc.compute.workload.internal
+
+import org.opendc.compute.workload.TaskStrata
+import java.util.random.RandomGenerator
+import kotlin.math.roundToInt
+
+/**
+ * A [TaskSampler] that divides the tasks into strata and selects a [fraction] of the tasks in every stratum uniformly
+ * at random.
+ *
+ * Every stratum is a range of positions in one of the orderings of the [TaskIndex], so the strata are found by binary
+ * search and only the selected tasks are visited.
+ *
+ * @param fraction The fraction of the tasks to sample from every stratum.
+ * @param strata The criterion by which the tasks are divided.
+ * @param count The number of strata, which is ignored for [TaskStrata.HpcClass].
+ */
+internal class StratifiedTaskSampler(
+    private val fraction: Double,
+    private val strata: TaskStrata,
+    private val count: Int,
+) : TaskSampler {
+    init {
+        require(fraction in 0.0..1.0) { "Fraction must be between 0 and 1" }
+        require(count > 0) { "Number of strata must be positive" }
+    }
+
+    override fun select(
+        index: TaskIndex,
+        random: RandomGenerator,
+    ): IntArray {
+        val size = index.size
+        val order: IntArray
+        val bounds: IntArray
+
+        when (strata) {
+            TaskStrata.Load -> {
+                order = index.orderByLoad()
+                bounds = IntArray(count + 1) { ((it.toLong() * size) / count).toInt() }
+            }
+            TaskStrata.Duration -> {
+                order = index.orderByDuration()
+                bounds = IntArray(count + 1) { ((it.toLong() * size) / count).toInt() }
+            }
+            TaskStrata.SubmissionWindow -> {
+                order = index.orderBySubmission()
+                bounds = windows(index, order)
+            }
+            TaskStrata.HpcClass -> {
+                order = index.orderByHpcClass()
+                bounds = intArrayOf(0, index.hpcCount, size)
+            }
+        }
+
+        val counts = IntArray(bounds.size - 1) { ((bounds[it + 1] - bounds[it]) * fraction).roundToInt() }
+        val positions = IntArray(counts.sum())
+        var offset = 0
+
+        for (i in counts.indices) {
+            random.selectDistinct(order, bounds[i], bounds[i + 1], counts[i], positions, offset)
+            offset += counts[i]
+        }
+
+        positions.sort()
+        return positions
+    }
+
+    /**
+     * Divide the tasks into [count] windows of equal length between the first and last submission.
+     *
+     * @return The first position in [order] of every window, followed by the number of tasks.
+     */
+    private fun windows(
+        index: TaskIndex,
+        order: IntArray,
+    ): IntArray {
+        val size = order.size
+        val bounds = IntArray(count + 1)
+        bounds[count] = size
+
+        if (size == 0) {
+            return bounds
+        }
+
+        val start = index.submissionTimeOf(order[0])
+        val length = (index.submissionTimeOf(order[size - 1]) - start).toDouble() / count
+
+        for (i in 1 until count) {
+            val edge = start + i * length
+
+            // Find the first task that is submitted at or after the edge of the window
+            var lo = bounds[i - 1]
+            var hi = size
+            while (lo < hi) {
+                val mid = (lo + hi) ushr 1
+                if (index.submissionTimeOf(order[mid]) < edge) {
+                    lo = mid + 1
+                } else {
+                    hi = mid
+                }
+            }
+            bounds[i] = lo
+        }
+
+        return bounds
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.opendc.compute.workload.internal
+
+import org.opendc.compute.workload.Task
+
+/**
+ * An index over the metadata of the tasks in a workload, which allows samplers to select tasks without visiting every
+ * task in the workload.
+ *
+ * The tasks are identified by their position in the workload. The prefix sums of the loads are computed on
+ * construction, while the orderings of the tasks by load, duration and submission time and the HPC classes are
+ * computed on first use. Since an index is cached together with its trace, this cost is paid once per trace rather
+ * than once per sample.
+ *
+ * @property tasks The tasks of the workload if they are materialized, or `null` if the index belongs to a stream.
+ */
+internal class TaskIndex(
+    val tasks: List<Task>?,
+    private val names: Array<String>,
+    private val loads: DoubleArray,
+    private val durations: LongArray,
+    private val submissionTimes: LongArray,
+) {
+    /**
+     * Construct a [TaskIndex] over the specified list of [tasks].
+     */
+    constructor(tasks: List<Task>) : this(
+        tasks,
+        Array(tasks.size) { tasks[it].name },
+        DoubleArray(tasks.size) { tasks[it].totalLoad },
+        LongArray(tasks.size) { tasks[it].duration },
+        LongArray(tasks.size) { tasks[it].submissionTime.toEpochMilli() },
+    )
+
+    /**
+     * The number of tasks in the index.
+     */
+    val size: Int
+        get() = loads.size
+
+    /**
+     * The sums of the loads of the first `i` tasks.
+     */
+    private val prefixLoads =
+        DoubleArray(loads.size + 1).also {
+            var sum = 0.0
+            for (i in loads.indices) {
+                sum += loads[i]
+                it[i + 1] = sum
+            }
+        }
+
+    /**
+     * The total load of the tasks.
+     */
+    val totalLoad: Double
+        get() = prefixLoads[size]
+
+    /**
+     * A flag per task to indicate whether it is an HPC task.
+     */
+    private val isHpc by lazy { BooleanArray(size) { names[it].matches(HPC_PATTERN) } }
+
+    private val byLoad by lazy { sortedBy { loads[it] } }
+    private val byDuration by lazy { sortedBy { durations[it] } }
+    private val bySubmission by lazy { sortedBy { submissionTimes[it] } }
+    private val byHpcClass by lazy { sortedBy { !isHpc[it] } }
+
+    /**
+     * The number of HPC tasks in the workload.
+     */
+    val hpcCount: Int by lazy { isHpc.count { it } }
+
+    /**
+     * Return the load of the task at [position].
+     */
+    fun loadOf(position: Int): Double = loads[position]
+
+    /**
+     * Return the submission time of the task at [position] in milliseconds since the epoch.
+     */
+    fun submissionTimeOf(position: Int): Long = submissionTimes[position]
+
+    /**
+     * Return the largest number of leading tasks whose load does not exceed the specified [fraction] of the total load.
+     *
+     * The prefix sums are non-decreasing, so the number is found by binary search.
+     */
+    fun prefixCount(fraction: Double): Int {
+        val totalLoad = totalLoad
+        var lo = 0
+        var hi = size
+
+        // Invariant: the first `lo` tasks fit, the first `hi + 1` tasks do not
+        while (lo < hi) {
+            val mid = (lo + hi + 1) ushr 1
+            if (prefixLoads[mid] / totalLoad > fraction) {
+                hi = mid - 1
+            } else {
+                lo = mid
+            }
+        }
+
+        return lo
+    }
+
+    /**
+     * Return the positions of the tasks ordered by load.
+     */
+    fun orderByLoad(): IntArray = byLoad
+
+    /**
+     * Return the positions of the tasks ordered by duration.
+     */
+    fun orderByDuration(): IntArray = byDuration
+
+    /**
+     * Return the positions of the tasks ordered by submission time.
+     */
+    fun orderBySubmission(): IntArray = bySubmission
+
+    /**
+     * Return the positions of the tasks ordered by HPC class, where the first [hpcCount] tasks are HPC tasks.
+     */
+    fun orderByHpcClass(): IntArray = byHpcClass
+
+    /**
+     * Return the positions of the tasks in stable order of the specified [key].
+     */
+    private inline fun <R : Comparable<R>> sortedBy(crossinline key: (Int) -> R): IntArray {
+        return (0 until size).sortedBy { key(it) }.toIntArray()
+    }
+
+    companion object {
+        /**
+         * The pattern to match the names of HPC compute nodes in a workload.
+         */
+        val HPC_PATTERN = Regex("^(ComputeNode|cn).*")
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.opendc.compute.workload.internal
+
+import java.util.random.RandomGenerator
+
+/**
+ * A strategy for selecting a subset of the tasks in a workload.
+ */
+internal fun interface TaskSampler {
+    /**
+     * Select the tasks to sample from the workload described by [index].
+     *
+     * @param index The index over the tasks in the workload.
+     * @param random The random generator to drive the selection, which is seeded by the scenario.
+     * @return The positions of the selected tasks in ascending order.
+     */
+    fun select(
+        index: TaskIndex,
+        random: RandomGenerator,
+    ): IntArray
+}
+
+/**
+ * Select [count] distinct positions uniformly at random from [from] (inclusive) to [to] (exclusive) of [order] and
+ * write them into [out], starting at [offset]. If [order] is `null`, the positions are selected from the range itself.
+ *
+ * This uses Floyd's algorithm, which requires [count] random numbers regardless of the size of the range.
+ */
+internal fun RandomGenerator.selectDistinct(
+    order: IntArray?,
+    from: Int,
+    to: Int,
+    count: Int,
+    out: IntArray,
+    offset: Int,
+) {
+    val size = to - from
+    val selected = HashSet<Int>(count * 2)
+    var i = offset
+
+    for (j in size - count until size) {
+        val t = nextInt(j + 1)
+        val k = if (selected.add(t)) t else j.also { selected.add(it) }
+        out[i++] = if (order != null) order[from + k] else from + k
+    }
+}
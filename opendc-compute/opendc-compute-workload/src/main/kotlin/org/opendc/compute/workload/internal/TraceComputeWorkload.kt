@@ -25,6 +25,7 @@ package org.opendc.compute.workload.internal
 import org.opendc.compute.workload.ComputeWorkload
 import org.opendc.compute.workload.ComputeWorkloadLoader
 import org.opendc.compute.workload.Task
+import org.opendc.compute.workload.TaskStream
 import java.util.random.RandomGenerator
 
 /**
@@ -37,4 +38,11 @@ internal class TraceComputeWorkload(val name: String, val format: String) : Comp
     ): List<Task> {
         return loader.get(name, format)
     }
+
+    override fun stream(
+        loader: ComputeWorkloadLoader,
+        random: RandomGenerator,
+    ): TaskStream {
+        return loader.stream(name, format)
+    }
 }
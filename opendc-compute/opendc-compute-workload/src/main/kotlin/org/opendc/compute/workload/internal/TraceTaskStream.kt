@@ -0,0 +1,419 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.opendc.compute.workload.internal
+
+import org.opendc.compute.workload.ComputeWorkloadLoader.Builder
+import org.opendc.compute.workload.ComputeWorkloadLoader.Companion.BATCH_SIZE
+import org.opendc.compute.workload.Task
+import org.opendc.compute.workload.TaskStream
+import org.opendc.trace.TableBatch
+import org.opendc.trace.TableReader
+import org.opendc.trace.Trace
+import org.opendc.trace.conv.TABLE_RESOURCES
+import org.opendc.trace.conv.TABLE_RESOURCE_STATES
+import org.opendc.trace.conv.resourceCpuCapacity
+import org.opendc.trace.conv.resourceCpuCount
+import org.opendc.trace.conv.resourceDuration
+import org.opendc.trace.conv.resourceID
+import org.opendc.trace.conv.resourceMemCapacity
+import org.opendc.trace.conv.resourceStateCpuUsage
+import org.opendc.trace.conv.resourceStateDuration
+import org.opendc.trace.conv.resourceSubmissionTime
+import java.time.Instant
+import java.util.UUID
+import kotlin.math.roundToLong
+
+/**
+ * A [TaskStream] that decodes the fragments of the tasks in a trace while it is iterated.
+ *
+ * On construction, the metadata of the tasks is read into memory together with the number of fragments and the total
+ * load of every resource, which only requires a scan over the identifier, duration and usage columns of the fragments.
+ * While the stream is iterated, the fragments table is read sequentially up to the point where all fragments of the
+ * next task have been seen. Fragments of tasks that are not yet due are buffered, so the memory used by the stream is
+ * smallest when the fragments are stored in order of submission, as written by the trace converter.
+ *
+ * The tasks and their identifiers are identical to the ones returned by
+ * [org.opendc.compute.workload.ComputeWorkloadLoader.get].
+ */
+internal class TraceTaskStream(
+    private val trace: Trace,
+    private val checkpointInterval: Long,
+    private val checkpointDuration: Long,
+    private val checkpointIntervalScaling: Double,
+) : TaskStream {
+    /**
+     * The identifiers of the resources in the trace.
+     */
+    private val ids = ArrayList<String>()
+
+    /**
+     * The metadata of the tasks, indexed by their row in the resources table.
+     */
+    private var resources = IntArray(INITIAL_CAPACITY)
+    private var submissionTimes = LongArray(INITIAL_CAPACITY)
+    private var durations = LongArray(INITIAL_CAPACITY)
+    private var cpuCounts = IntArray(INITIAL_CAPACITY)
+    private var cpuCapacities = DoubleArray(INITIAL_CAPACITY)
+    private var memCapacities = LongArray(INITIAL_CAPACITY)
+
+    /**
+     * The number of fragments and total load of every resource.
+     */
+    private val fragmentCounts: IntArray
+    private val fragmentLoads: DoubleArray
+
+    /**
+     * The rows of the tasks in order of submission and the sequence number of every task, which is used to derive
+     * its unique identifier.
+     */
+    private var order: IntArray
+    private val serials: IntArray
+
+    /**
+     * The number of tasks in the stream and the position of the next task.
+     */
+    private var limit: Int
+    private var position = 0
+
+    /**
+     * The number of tasks still to be taken from the stream per resource.
+     */
+    private var pending = IntArray(0)
+
+    /**
+     * The builders of the resources whose fragments are being decoded.
+     */
+    private var builders = arrayOfNulls<Builder>(0)
+
+    /**
+     * The reader over the fragments table, which is opened when the first task is taken from the stream.
+     */
+    private var reader: TableReader? = null
+    private val batch = TableBatch(BATCH_SIZE)
+    private var fragmentIds: TableBatch.StringVector? = null
+    private var fragmentDurations: TableBatch.LongVector? = null
+    private var fragmentCores: TableBatch.IntVector? = null
+    private var fragmentUsages: TableBatch.DoubleVector? = null
+
+    /**
+     * The resources of the dictionary codes of the fragment reader, or `-1` if the resource has no metadata.
+     */
+    private var codes = IntArray(INITIAL_CAPACITY)
+    private var codeCount = 0
+
+    private var isClosed = false
+
+    /**
+     * The index of the resources by identifier.
+     */
+    private val resourcesById = HashMap<String, Int>()
+
+    init {
+        val rows = readMeta()
+
+        fragmentCounts = IntArray(ids.size)
+        fragmentLoads = DoubleArray(ids.size)
+        countFragments()
+
+        // Only tasks with fragments are part of the workload
+        val serials = IntArray(rows)
+        val selected = ArrayList<Int>(rows)
+        for (row in 0 until rows) {
+            if (fragmentCounts[resources[row]] > 0) {
+                serials[row] = selected.size
+                selected.add(row)
+            }
+        }
+
+        // Make sure the tasks are ordered by start time
+        this.order = selected.sortedBy { submissionTimes[it] }.toIntArray()
+        this.serials = serials
+        this.limit = order.size
+    }
+
+    override val size: Int
+        get() = limit
+
+    override val startTime: Instant?
+        get() = if (limit > 0) Instant.ofEpochMilli(submissionTimes[order[0]]) else null
+
+    /**
+     * Return an index over the metadata of the tasks in order of submission.
+     */
+    fun index(): TaskIndex {
+        return TaskIndex(
+            null,
+            Array(limit) { ids[resources[order[it]]] },
+            DoubleArray(limit) { fragmentLoads[resources[order[it]]] },
+            LongArray(limit) { durations[order[it]] },
+            LongArray(limit) { submissionTimes[order[it]] },
+        )
+    }
+
+    /**
+     * Restrict the stream to the tasks at the specified [positions] of the [index], which must be in ascending order.
+     * This method must be invoked before any task is taken.
+     */
+    fun select(positions: IntArray) {
+        check(reader == null && position == 0) { "Stream is already being iterated" }
+        val order = order
+        this.order = IntArray(positions.size) { order[positions[it]] }
+        limit = positions.size
+    }
+
+    override fun hasNext(): Boolean {
+        if (position < limit) {
+            return true
+        }
+
+        close()
+        return false
+    }
+
+    override fun next(): Task {
+        if (position >= limit) {
+            throw NoSuchElementException()
+        }
+
+        if (reader == null) {
+            open()
+        }
+
+        val row = order[position++]
+        val resource = resources[row]
+        val expected = fragmentCounts[resource]
+
+        while ((builders[resource]?.size ?: 0) < expected) {
+            check(readBatch()) { "Missing fragments for resource ${ids[resource]}" }
+        }
+
+        val builder = builders[resource]!!
+
+        // Release the fragments once the last task of the resource has been taken
+        if (--pending[resource] == 0) {
+            builders[resource] = null
+        }
+
+        val id = ids[resource]
+        return Task(
+            UUID.nameUUIDFromBytes("$id-${serials[row]}".toByteArray()),
+            id,
+            cpuCounts[row],
+            cpuCapacities[row],
+            memCapacities[row],
+            builder.totalLoad,
+            Instant.ofEpochMilli(submissionTimes[row]),
+            durations[row],
+            builder.build(),
+        )
+    }
+
+    override fun close() {
+        if (isClosed) {
+            return
+        }
+
+        isClosed = true
+        position = limit
+        builders = arrayOfNulls(0)
+        reader?.close()
+    }
+
+    /**
+     * Read the metadata of the tasks into memory and return the number of tasks.
+     */
+    private fun readMeta(): Int {
+        val reader = checkNotNull(trace.getTable(TABLE_RESOURCES)).newReader()
+
+        val batch = TableBatch(BATCH_SIZE)
+        val ids = batch.strings(reader.resolve(resourceID))
+        val submissionTimes = batch.instants(reader.resolve(resourceSubmissionTime))
+        val durations = batch.longs(reader.resolve(resourceDuration))
+        val cpuCounts = batch.ints(reader.resolve(resourceCpuCount))
+        val cpuCapacities = batch.doubles(reader.resolve(resourceCpuCapacity))
+        val memCapacities = batch.doubles(reader.resolve(resourceMemCapacity))
+
+        var rows = 0
+
+        try {
+            while (reader.nextBatch(batch)) {
+                ensureCapacity(rows + batch.size)
+
+                for (row in 0 until batch.size) {
+                    val id = ids[row]!!
+                    val resource =
+                        resourcesById.getOrPut(id) {
+                            this.ids.add(id)
+                            this.ids.size - 1
+                        }
+
+                    resources[rows] = resource
+                    this.submissionTimes[rows] = submissionTimes[row]
+                    this.durations[rows] = durations[row]
+                    this.cpuCounts[rows] = cpuCounts[row]
+                    this.cpuCapacities[rows] = cpuCapacities[row]
+                    this.memCapacities[rows] = (memCapacities[row] / 1000.0).roundToLong() // Convert from KB to MB
+                    rows++
+                }
+            }
+        } finally {
+            reader.close()
+        }
+
+        return rows
+    }
+
+    /**
+     * Count the fragments and compute the total load of every resource.
+     */
+    private fun countFragments() {
+        val reader =
+            checkNotNull(trace.getTable(TABLE_RESOURCE_STATES))
+                .newReader(listOf(resourceID, resourceStateDuration, resourceStateCpuUsage))
+
+        val batch = TableBatch(BATCH_SIZE)
+        val ids = batch.strings(reader.resolve(resourceID))
+        val durations = batch.durations(reader.resolve(resourceStateDuration))
+        val usages = batch.doubles(reader.resolve(resourceStateCpuUsage))
+
+        try {
+            var resourceCount = 0
+            var resourceByCode = IntArray(INITIAL_CAPACITY)
+
+            while (reader.nextBatch(batch)) {
+                for (row in 0 until batch.size) {
+                    val code = ids.codes[row]
+                    check(code >= 0) { "Missing resource identifier" }
+
+                    // Codes are assigned in order of first appearance, so an unseen code is always the next one
+                    if (code == resourceCount) {
+                        if (code == resourceByCode.size) {
+                            resourceByCode = resourceByCode.copyOf(resourceByCode.size * 2)
+                        }
+                        resourceByCode[resourceCount++] = resourceOf(ids.lookup(code))
+                    }
+
+                    val resource = resourceByCode[code]
+                    if (resource >= 0) {
+                        fragmentCounts[resource]++
+                        fragmentLoads[resource] += (usages[row] * durations[row]) / 1000 // avg MHz * duration = MFLOPs
+                    }
+                }
+            }
+        } finally {
+            reader.close()
+        }
+    }
+
+    /**
+     * Open the reader over the fragments table.
+     */
+    private fun open() {
+        val pending = IntArray(ids.size)
+        for (i in 0 until limit) {
+            pending[resources[order[i]]]++
+        }
+        this.pending = pending
+        this.builders = arrayOfNulls(ids.size)
+
+        val reader =
+            checkNotNull(trace.getTable(TABLE_RESOURCE_STATES))
+                .newReader(listOf(resourceID, resourceStateDuration, resourceCpuCount, resourceStateCpuUsage))
+        fragmentIds = batch.strings(reader.resolve(resourceID))
+        fragmentDurations = batch.durations(reader.resolve(resourceStateDuration))
+        fragmentCores = batch.ints(reader.resolve(resourceCpuCount))
+        fragmentUsages = batch.doubles(reader.resolve(resourceStateCpuUsage))
+        this.reader = reader
+    }
+
+    /**
+     * Read the next batch of fragments and add them to the builders of the resources that are still pending.
+     *
+     * @return `true` if a batch was read, `false` if the fragments table is exhausted.
+     */
+    private fun readBatch(): Boolean {
+        val reader = reader!!
+        if (!reader.nextBatch(batch)) {
+            return false
+        }
+
+        val ids = fragmentIds!!
+        val durations = fragmentDurations!!
+        val cores = fragmentCores!!
+        val usages = fragmentUsages!!
+
+        for (row in 0 until batch.size) {
+            val code = ids.codes[row]
+            check(code >= 0) { "Missing resource identifier" }
+
+            if (code == codeCount) {
+                if (code == codes.size) {
+                    codes = codes.copyOf(codes.size * 2)
+                }
+                codes[codeCount++] = resourceOf(ids.lookup(code))
+            }
+
+            val resource = codes[code]
+            if (resource < 0 || pending[resource] == 0) {
+                continue
+            }
+
+            val builder =
+                builders[resource]
+                    ?: Builder(checkpointInterval, checkpointDuration, checkpointIntervalScaling).also {
+                        builders[resource] = it
+                    }
+            builder.add(durations[row], usages[row], cores[row])
+        }
+
+        return true
+    }
+
+    /**
+     * Return the resource with the specified [id] or `-1` if the resource has no metadata.
+     */
+    private fun resourceOf(id: String): Int = resourcesById[id] ?: -1
+
+    /**
+     * Ensure that the metadata arrays can hold [capacity] tasks.
+     */
+    private fun ensureCapacity(capacity: Int) {
+        if (capacity <= resources.size) {
+            return
+        }
+
+        val newCapacity = maxOf(capacity, resources.size * 2)
+        resources = resources.copyOf(newCapacity)
+        submissionTimes = submissionTimes.copyOf(newCapacity)
+        durations = durations.copyOf(newCapacity)
+        cpuCounts = cpuCounts.copyOf(newCapacity)
+        cpuCapacities = cpuCapacities.copyOf(newCapacity)
+        memCapacities = memCapacities.copyOf(newCapacity)
+    }
+
+    private companion object {
+        /**
+         * The initial capacity of the arrays holding the metadata of the tasks.
+         */
+        const val INITIAL_CAPACITY = 1024
+    }
+}
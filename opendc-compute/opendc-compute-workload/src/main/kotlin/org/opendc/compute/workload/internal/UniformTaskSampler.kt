@@ -19,45 +19,28 @@
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
  * SOFTWARE.
  */
+package org.opendc.compute.workload.internal
 
-package org.opendc.simulator.compute.power;
+import java.util.random.RandomGenerator
 
 /**
- * An object holding the carbon intensity during a specific time frame.
- * Used by {@link CarbonModel}.
+ * A [TaskSampler] that selects [count] tasks uniformly at random, or all tasks if the workload contains fewer tasks.
  */
-public class CarbonFragment {
-    private long startTime;
-    private long endTime;
-    private double carbonIntensity;
-
-    public CarbonFragment(long startTime, long endTime, double carbonIntensity) {
-        this.setStartTime(startTime);
-        this.setEndTime(endTime);
-        this.setCarbonIntensity(carbonIntensity);
-    }
-
-    public double getCarbonIntensity() {
-        return carbonIntensity;
-    }
-
-    public void setCarbonIntensity(double carbonIntensity) {
-        this.carbonIntensity = carbonIntensity;
-    }
-
-    public long getEndTime() {
-        return endTime;
-    }
-
-    public void setEndTime(long endTime) {
-        this.endTime = endTime;
-    }
-
-    public long getStartTime() {
-        return startTime;
+internal class UniformTaskSampler(private val count: Int) : TaskSampler {
+    init {
+        require(count >= 0) { "Number of tasks must be non-negative" }
     }
 
-    public void setStartTime(long startTime) {
-        this.startTime = startTime;
+    override fun select(
+        index: TaskIndex,
+        random: RandomGenerator,
+    ): IntArray {
+        val size = index.size
+        val count = minOf(count, size)
+        val positions = IntArray(count)
+
+        random.selectDistinct(null, 0, size, count, positions, 0)
+        positions.sort()
+        return positions
     }
 }
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.compute.workload
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertAll
+import org.junit.jupiter.api.assertThrows
+import org.opendc.simulator.compute.workload.TraceFragment
+import org.opendc.simulator.compute.workload.TraceWorkload
+import java.io.File
+import java.time.Instant
+import java.util.UUID
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Test suite for the [ComputeWorkloadCache] class.
+ */
+class ComputeWorkloadCacheTest {
+    @Test
+    fun testHit() {
+        val cache = ComputeWorkloadCache(Long.MAX_VALUE)
+        val loads = AtomicInteger()
+        val loader = { tasks(2).also { loads.incrementAndGet() } }
+
+        val first = cache.get(key("a"), loader)
+        val second = cache.get(key("a"), loader)
+
+        val stats = cache.getStats()
+        assertAll(
+            { assertSame(first, second, "A cached trace should be shared") },
+            { assertEquals(1, loads.get()) },
+            { assertEquals(1, stats.hits) },
+            { assertEquals(1, stats.misses) },
+            { assertEquals(1, stats.entryCount) },
+            { assertEquals(2 * TASK_SIZE, stats.size) },
+        )
+    }
+
+    @Test
+    fun testKeyParameters() {
+        val cache = ComputeWorkloadCache(Long.MAX_VALUE)
+        val loads = AtomicInteger()
+        val loader = { tasks(1).also { loads.incrementAndGet() } }
+
+        cache.get(key("a"), loader)
+        cache.get(key("a", checkpointInterval = 60_000), loader)
+        cache.get(key("a").copy(format = "bitbrains"), loader)
+
+        // Traces with different checkpoint parameters or formats are separate entries
+        assertEquals(3, loads.get())
+        assertEquals(3, cache.getStats().entryCount)
+    }
+
+    @Test
+    fun testEvictLeastRecentlyUsed() {
+        val cache = ComputeWorkloadCache(2 * TASK_SIZE)
+        val loads = mutableListOf<String>()
+        val loader = { name: String -> { tasks(1).also { loads.add(name) } } }
+
+        cache.get(key("a"), loader("a"))
+        cache.get(key("b"), loader("b"))
+        cache.get(key("a"), loader("a"))
+
+        // Trace b is the least recently used trace when c is loaded
+        cache.get(key("c"), loader("c"))
+        cache.get(key("a"), loader("a"))
+        cache.get(key("b"), loader("b"))
+
+        val stats = cache.getStats()
+        assertAll(
+            { assertEquals(listOf("a", "b", "c", "b"), loads) },
+            { assertEquals(2, stats.evictions) },
+            { assertEquals(2, stats.entryCount) },
+            { assertEquals(2 * TASK_SIZE, stats.size) },
+        )
+    }
+
+    @Test
+    fun testTooLarge() {
+        val cache = ComputeWorkloadCache(2 * TASK_SIZE)
+        val loads = AtomicInteger()
+        val loader = { tasks(3).also { loads.incrementAndGet() } }
+
+        assertEquals(3, cache.get(key("a"), loader).size)
+        assertEquals(3, cache.get(key("a"), loader).size)
+
+        // A trace that does not fit is returned, but not cached
+        assertEquals(2, loads.get())
+        assertEquals(0, cache.getStats().entryCount)
+        assertEquals(0, cache.getStats().size)
+    }
+
+    @Test
+    fun testFailedLoad() {
+        val cache = ComputeWorkloadCache(Long.MAX_VALUE)
+        val loads = AtomicInteger()
+
+        val error =
+            assertThrows<IllegalStateException> {
+                cache.get(key("a")) {
+                    loads.incrementAndGet()
+                    throw IllegalStateException("Corrupt trace")
+                }
+            }
+        assertEquals("Corrupt trace", error.message)
+
+        // The failed load should not be cached
+        cache.get(key("a")) { tasks(1).also { loads.incrementAndGet() } }
+        assertEquals(2, loads.get())
+        assertEquals(1, cache.getStats().entryCount)
+    }
+
+    @Test
+    fun testConcurrentLoads() {
+        val cache = ComputeWorkloadCache(Long.MAX_VALUE)
+        val threads = 8
+        val loads = AtomicInteger()
+        val release = CountDownLatch(1)
+        val executor = Executors.newFixedThreadPool(threads)
+
+        try {
+            val results =
+                (0 until threads).map {
+                    executor.submit<List<Task>> {
+                        cache.get(key("a")) {
+                            loads.incrementAndGet()
+                            release.await()
+                            tasks(2)
+                        }
+                    }
+                }
+
+            // Hold the load until all threads have requested the trace
+            val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10)
+            while (cache.getStats().let { it.hits + it.misses } < threads) {
+                assertTrue(System.nanoTime() < deadline, "All threads should request the trace")
+                Thread.sleep(1)
+            }
+            release.countDown()
+
+            val first = results[0].get(10, TimeUnit.SECONDS)
+            for (result in results) {
+                assertSame(first, result.get(10, TimeUnit.SECONDS), "All threads should share the same trace")
+            }
+
+            val stats = cache.getStats()
+            assertAll(
+                { assertEquals(1, loads.get(), "The trace should be loaded once") },
+                { assertEquals(threads - 1L, stats.hits) },
+                { assertEquals(1, stats.misses) },
+            )
+        } finally {
+            release.countDown()
+            executor.shutdownNow()
+        }
+    }
+
+    @Test
+    fun testIndex() {
+        val cache = ComputeWorkloadCache(Long.MAX_VALUE)
+        val loader = { tasks(2) }
+
+        // The index is cached together with the trace
+        assertSame(cache.index(key("a"), loader), cache.index(key("a"), loader))
+
+        cache.clear()
+        assertEquals(0, cache.getStats().entryCount)
+        assertEquals(0, cache.getStats().size)
+    }
+
+    @Test
+    fun testLoaderReset() {
+        val cache = ComputeWorkloadCache(Long.MAX_VALUE)
+        cache.get(key("a")) { tasks(1) }
+        ComputeWorkloadCache.shared.get(key("a")) { tasks(1) }
+
+        try {
+            ComputeWorkloadLoader(File("."), 0, 0, 1.0, cache).reset()
+            ComputeWorkloadLoader(File("."), 0, 0, 1.0).reset()
+
+            // A loader only clears a cache of its own, since other loaders may use the shared cache
+            assertEquals(0, cache.getStats().entryCount)
+            assertEquals(1, ComputeWorkloadCache.shared.getStats().entryCount)
+        } finally {
+            ComputeWorkloadCache.shared.clear()
+        }
+    }
+
+    private fun key(
+        path: String,
+        checkpointInterval: Long = 0,
+    ): ComputeWorkloadCache.Key = ComputeWorkloadCache.Key(path, "opendc-vm", checkpointInterval, 0, 1.0)
+
+    /**
+     * Construct a trace of [count] tasks with a single fragment each.
+     */
+    private fun tasks(count: Int): List<Task> =
+        List(count) {
+            Task(
+                UUID.randomUUID(),
+                "task-$it",
+                1,
+                1000.0,
+                1024,
+                1000.0 * 3600,
+                Instant.EPOCH,
+                3_600_000,
+                TraceWorkload.ofFragments(TraceFragment(3_600_000, 1000.0, 1)),
+            )
+        }
+
+    private companion object {
+        /**
+         * The estimated size of a task with a single fragment.
+         */
+        const val TASK_SIZE = 256L + 28L
+    }
+}
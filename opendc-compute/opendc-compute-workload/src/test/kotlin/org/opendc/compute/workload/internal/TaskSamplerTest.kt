@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.opendc.compute.workload.internal
+
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.opendc.compute.workload.ComputeWorkload
+import org.opendc.compute.workload.ComputeWorkloadLoader
+import org.opendc.compute.workload.Task
+import org.opendc.compute.workload.TaskStrata
+import org.opendc.simulator.compute.workload.TraceFragment
+import org.opendc.simulator.compute.workload.TraceWorkload
+import java.io.File
+import java.time.Instant
+import java.util.Random
+import java.util.UUID
+import java.util.random.RandomGenerator
+
+/**
+ * Test suite for the [TaskSampler] implementations.
+ */
+class TaskSamplerTest {
+    @Test
+    fun testSameSeedSameSelection() {
+        val index = createIndex(100)
+        val samplers =
+            listOf(
+                UniformTaskSampler(10),
+                LoadTaskSampler(0.3, shuffle = true),
+                StratifiedTaskSampler(0.2, TaskStrata.Load, 5),
+            )
+
+        for (sampler in samplers) {
+            val first = sampler.select(index, Random(42))
+            val second = sampler.select(index, Random(42))
+            val other = sampler.select(index, Random(43))
+
+            assertArrayEquals(first, second, "Same seed should select the same tasks")
+            assertFalse(first.contentEquals(other), "Different seeds should select different tasks")
+        }
+    }
+
+    @Test
+    fun testUniformDistinctAndSorted() {
+        val index = createIndex(50)
+        val positions = UniformTaskSampler(20).select(index, Random(0))
+
+        assertEquals(20, positions.size)
+        assertEquals(20, positions.distinct().size, "Positions should be distinct")
+        assertArrayEquals(positions.sortedArray(), positions, "Positions should be sorted")
+        assertTrue(positions.all { it in 0 until 50 })
+    }
+
+    @Test
+    fun testUniformAllTasks() {
+        val index = createIndex(5)
+        val positions = UniformTaskSampler(10).select(index, Random(0))
+
+        assertArrayEquals(intArrayOf(0, 1, 2, 3, 4), positions)
+    }
+
+    @Test
+    fun testUniformIsUniform() {
+        val size = 10
+        val count = 3
+        val trials = 20_000
+        val index = createIndex(size)
+        val sampler = UniformTaskSampler(count)
+        val random = Random(0)
+        val frequencies = IntArray(size)
+
+        repeat(trials) {
+            for (position in sampler.select(index, random)) {
+                frequencies[position]++
+            }
+        }
+
+        // Every task is selected with probability count / size, so allow a deviation of about five standard deviations
+        val expected = trials.toDouble() * count / size
+        for (frequency in frequencies) {
+            assertEquals(expected, frequency.toDouble(), 350.0)
+        }
+    }
+
+    @Test
+    fun testStratifiedCountsPerStratum() {
+        // The loads increase with the position, so the load strata are consecutive ranges of ten tasks
+        val index = createIndex(100)
+        val positions = StratifiedTaskSampler(0.3, TaskStrata.Load, 10).select(index, Random(0))
+
+        assertEquals(30, positions.size)
+        for (stratum in 0 until 10) {
+            assertEquals(3, positions.count { it / 10 == stratum }, "Incorrect count in stratum $stratum")
+        }
+    }
+
+    @Test
+    fun testStratifiedHpcClass() {
+        val index = createIndex(40) { if (it < 10) "cn$it" else "vm$it" }
+        val positions = StratifiedTaskSampler(0.5, TaskStrata.HpcClass, 1).select(index, Random(0))
+
+        assertEquals(5, positions.count { it < 10 }, "Incorrect number of HPC tasks")
+        assertEquals(15, positions.count { it >= 10 }, "Incorrect number of other tasks")
+    }
+
+    @Test
+    fun testStreamOfOtherWorkloadResolvesOnce() {
+        val source = CountingWorkload(List(10) { createTask(it) })
+        val loader = ComputeWorkloadLoader(File("."), 0L, 0L, 0.0)
+
+        val tasks = SampledComputeWorkload(source, UniformTaskSampler(4)).stream(loader, Random(0)).use { it.size }
+
+        assertEquals(4, tasks)
+        assertEquals(1, source.resolved, "The source should be resolved once")
+        assertEquals(0, source.streamed, "The source should not be streamed")
+    }
+
+    private fun createIndex(
+        size: Int,
+        name: (Int) -> String = { "vm$it" },
+    ): TaskIndex =
+        TaskIndex(
+            null,
+            Array(size) { name(it) },
+            DoubleArray(size) { it + 1.0 },
+            LongArray(size) { (size - it) * 1000L },
+            LongArray(size) { it * 1000L },
+        )
+
+    private fun createTask(id: Int): Task =
+        Task(
+            UUID(0, id.toLong()),
+            "vm$id",
+            1,
+            1000.0,
+            1024,
+            1000.0,
+            Instant.ofEpochMilli(id * 1000L),
+            1000L,
+            TraceWorkload.ofFragments(TraceFragment(1000L, 1000.0, 1)),
+        )
+
+    /**
+     * A [ComputeWorkload] that counts how it is accessed.
+     */
+    private class CountingWorkload(private val tasks: List<Task>) : ComputeWorkload {
+        var resolved = 0
+        var streamed = 0
+
+        override fun resolve(
+            loader: ComputeWorkloadLoader,
+            random: RandomGenerator,
+        ): List<Task> {
+            resolved++
+            return tasks
+        }
+
+        override fun stream(
+            loader: ComputeWorkloadLoader,
+            random: RandomGenerator,
+        ) = super.stream(loader, random).also { streamed++ }
+    }
+}
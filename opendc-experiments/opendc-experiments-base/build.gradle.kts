@@ -27,6 +27,7 @@ plugins {
     `kotlin-library-conventions`
     `testing-conventions`
     `jacoco-conventions`
+    `benchmark-conventions`
     distribution
     kotlin("plugin.serialization") version "1.9.22"
 }
@@ -44,6 +45,7 @@ dependencies {
     implementation(project(mapOf("path" to ":opendc-compute:opendc-compute-topology")))
     implementation(project(mapOf("path" to ":opendc-compute:opendc-compute-carbon")))
     implementation(project(mapOf("path" to ":opendc-compute:opendc-compute-failure")))
+    implementation(project(mapOf("path" to ":opendc-trace:opendc-trace-parquet")))
 
     runtimeOnly(libs.log4j.core)
     runtimeOnly(libs.log4j.slf4j)
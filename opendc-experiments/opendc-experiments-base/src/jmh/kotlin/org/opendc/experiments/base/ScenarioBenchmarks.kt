@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.opendc.experiments.base
+
+import org.opendc.compute.simulator.scheduler.ComputeSchedulerEnum
+import org.opendc.compute.simulator.telemetry.parquet.ComputeExportConfig
+import org.opendc.experiments.base.experiment.Scenario
+import org.opendc.experiments.base.experiment.specs.AllocationPolicySpec
+import org.opendc.experiments.base.experiment.specs.ScenarioTopologySpec
+import org.opendc.experiments.base.experiment.specs.WorkloadSpec
+import org.opendc.experiments.base.experiment.specs.WorkloadTypes
+import org.opendc.experiments.base.runner.runScenario
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+import org.openjdk.jmh.annotations.Warmup
+import java.io.File
+import java.nio.file.Files
+import java.util.concurrent.TimeUnit
+
+/**
+ * End-to-end benchmarks of a scenario on the bundled Bitbrains trace, including the export of the results.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 2, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+class ScenarioBenchmarks {
+    @Param("Mem", "ActiveServers")
+    lateinit var policy: ComputeSchedulerEnum
+
+    @Param("1", "4")
+    private var engineParallelism: Int = 0
+
+    private lateinit var outputFolder: File
+    private lateinit var scenario: Scenario
+
+    @Setup
+    fun setUp() {
+        outputFolder = Files.createTempDirectory("opendc-benchmark").toFile()
+
+        val workload = WorkloadSpec("src/test/resources/traces/bitbrains-small", WorkloadTypes.ComputeWorkload)
+        scenario =
+            Scenario(
+                id = 0,
+                name = "benchmark",
+                outputFolder = outputFolder.path,
+                computeExportConfig = ComputeExportConfig.ALL_COLUMNS,
+                topologySpec = ScenarioTopologySpec("src/test/resources/topologies/multi.json"),
+                workloadSpec = workload,
+                allocationPolicySpec = AllocationPolicySpec(policy),
+                failureModelSpec = null,
+                checkpointModelSpec = null,
+                engineParallelism = engineParallelism,
+            )
+    }
+
+    @TearDown
+    fun tearDown() {
+        outputFolder.deleteRecursively()
+    }
+
+    @Benchmark
+    fun benchmarkScenario() {
+        runScenario(scenario, seed = 0L)
+    }
+}
@@ -83,6 +83,7 @@ public fun getExperiment(experimentSpec: ExperimentSpec): List<Scenario> {
                 failureModelSpec = scenarioSpec.failureModel,
                 checkpointModelSpec = scenarioSpec.checkpointModel,
                 maxNumFailures = scenarioSpec.maxNumFailures,
+                engineParallelism = experimentSpec.engineParallelism,
             )
         trackScenario(scenarioSpec, outputFolder)
         scenarios.add(scenario)
@@ -43,6 +43,7 @@ import org.opendc.experiments.base.experiment.specs.WorkloadSpec
  * @property runs The Int representing the number of runs of the scenario. It defaults to 1.
  * @property initialSeed The Int representing the initial seed of the scenario. It defaults to 0.
  * @property computeExportConfig configures which parquet columns are to be included in the output files.
+ * @property engineParallelism The number of threads used by the flow engine to update independent hosts in parallel.
  */
 public data class Scenario(
     var id: Int = -1,
@@ -58,4 +59,5 @@ public data class Scenario(
     val failureModelSpec: FailureModelSpec?,
     val checkpointModelSpec: CheckpointModelSpec?,
     val maxNumFailures: Int = 10,
+    val engineParallelism: Int = 1,
 )
@@ -24,17 +24,28 @@ package org.opendc.experiments.base.experiment.specs
 
 import kotlinx.serialization.Serializable
 import org.opendc.compute.simulator.scheduler.ComputeSchedulerEnum
+import org.opendc.compute.simulator.scheduler.QueueDiscipline
 
 /**
  * specification describing how tasks are allocated
  *
  * @property policyType
+ * @property queueDiscipline The discipline used to order the tasks waiting to be scheduled.
+ * @property backfillWindow The maximum number of tasks behind a blocked head considered in a scheduling cycle.
+ * @property indexed A flag to indicate that hosts are selected through an index instead of a linear scan.
  *
  * TODO: expand with more variables such as allowed over-subscription
  */
 @Serializable
 public data class AllocationPolicySpec(
     val policyType: ComputeSchedulerEnum = ComputeSchedulerEnum.Mem,
+    val queueDiscipline: QueueDiscipline = QueueDiscipline.FIFO,
+    val backfillWindow: Int = 64,
+    val indexed: Boolean = false,
 ) {
+    init {
+        require(backfillWindow >= 0) { "The backfill window should be non-negative" }
+    }
+
     public val name: String = policyType.toString()
 }
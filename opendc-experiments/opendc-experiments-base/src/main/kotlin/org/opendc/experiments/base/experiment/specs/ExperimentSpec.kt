@@ -41,6 +41,8 @@ import java.util.UUID
  * @property runs
  * @property computeExportConfig configures which parquet columns are to
  * be included in the output files.
+ * @property engineParallelism The number of threads used by the flow engine of a single run to update independent
+ * hosts in parallel.
  */
 
 @Serializable
@@ -58,9 +60,11 @@ public data class ExperimentSpec(
     val allocationPolicies: Set<AllocationPolicySpec> = setOf(AllocationPolicySpec()),
     val failureModels: Set<FailureModelSpec?> = setOf(null),
     val checkpointModels: Set<CheckpointModelSpec?> = setOf(null),
+    val engineParallelism: Int = 1,
 ) {
     init {
         require(runs > 0) { "The number of runs should always be positive" }
+        require(engineParallelism > 0) { "The engine parallelism should always be positive" }
 
         // generate name if not provided
         // TODO: improve this
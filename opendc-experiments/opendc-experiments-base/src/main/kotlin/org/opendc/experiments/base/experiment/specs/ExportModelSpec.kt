@@ -23,17 +23,43 @@
 package org.opendc.experiments.base.experiment.specs
 
 import kotlinx.serialization.Serializable
+import org.apache.parquet.hadoop.metadata.CompressionCodecName
+import org.opendc.trace.util.parquet.ParquetWriterConfig
 
 /**
  * specification describing how the results should be exported
  *
  * @property exportInterval The interval of exporting results in s. Should be higher than 0.0
+ * @property rowGroupSize The target size of a row group of the output files in bytes.
+ * @property pageSize The target size of a page of the output files in bytes.
+ * @property compression The compression codec of the output files (e.g., "zstd" or "snappy").
+ * @property compressionLevel The compression level for "zstd", or `null` for the default level.
  */
 @Serializable
 public data class ExportModelSpec(
     val exportInterval: Long = 5 * 60,
+    val rowGroupSize: Long = 128 * 1024 * 1024,
+    val pageSize: Int = 1024 * 1024,
+    val compression: String = "zstd",
+    val compressionLevel: Int? = null,
 ) {
     init {
         require(exportInterval > 0) { "The Export interval has to be higher than 0" }
+        require(rowGroupSize > 0) { "The row group size has to be higher than 0" }
+        require(pageSize > 0) { "The page size has to be higher than 0" }
+        require(CompressionCodecName.values().any { it.name.equals(compression, ignoreCase = true) }) {
+            "Unknown compression codec $compression"
+        }
     }
+
+    /**
+     * Convert this specification into the configuration of the Parquet writers.
+     */
+    public fun toWriterConfig(): ParquetWriterConfig =
+        ParquetWriterConfig(
+            rowGroupSize = rowGroupSize,
+            pageSize = pageSize,
+            codec = CompressionCodecName.valueOf(compression.uppercase()),
+            compressionLevel = compressionLevel,
+        )
 }
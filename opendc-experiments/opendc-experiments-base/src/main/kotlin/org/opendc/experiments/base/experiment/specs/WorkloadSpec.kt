@@ -33,11 +33,14 @@ import java.io.File
  *
  * @property pathToFile
  * @property type
+ * @property streaming A flag to indicate that the tasks are streamed from the trace while the simulation runs instead
+ * of being loaded up front. Streamed workloads use less memory, but are not shared through the workload cache.
  */
 @Serializable
 public data class WorkloadSpec(
     val pathToFile: String,
     val type: WorkloadTypes,
+    val streaming: Boolean = false,
 ) {
     public val name: String = File(pathToFile).nameWithoutExtension
 
@@ -25,9 +25,12 @@
 package org.opendc.experiments.base.runner
 
 import com.github.ajalt.clikt.core.CliktCommand
+import com.github.ajalt.clikt.parameters.options.default
 import com.github.ajalt.clikt.parameters.options.defaultLazy
+import com.github.ajalt.clikt.parameters.options.flag
 import com.github.ajalt.clikt.parameters.options.option
 import com.github.ajalt.clikt.parameters.types.file
+import com.github.ajalt.clikt.parameters.types.int
 import org.opendc.experiments.base.experiment.getExperiment
 import java.io.File
 
@@ -47,8 +50,21 @@ internal class ExperimentCommand : CliktCommand(name = "experiment") {
         .file(canBeDir = false, canBeFile = true)
         .defaultLazy { File("resources/experiment.json") }
 
+    /**
+     * The number of runs to execute in parallel.
+     */
+    private val parallelism by option("-p", "--parallelism", help = "number of runs to execute in parallel")
+        .int()
+        .default(ExperimentExecutor.defaultParallelism())
+
+    /**
+     * A flag to indicate that runs completed by a previous attempt should be skipped.
+     */
+    private val resume by option("--resume", help = "skip runs that were completed by a previous attempt")
+        .flag()
+
     override fun run() {
         val experiment = getExperiment(scenarioPath)
-        runExperiment(experiment)
+        runExperiment(experiment, parallelism, resume)
     }
 }
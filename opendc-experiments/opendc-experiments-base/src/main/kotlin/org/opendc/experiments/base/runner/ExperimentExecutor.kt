@@ -0,0 +1,422 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.base.runner
+
+import org.opendc.common.logger.logger
+import org.opendc.experiments.base.experiment.Scenario
+import java.io.File
+import java.io.FileWriter
+import java.security.MessageDigest
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+
+/**
+ * An executor that runs every (scenario, seed) pair of an experiment as a separate work item on a shared pool.
+ *
+ * Runs are admitted based on an estimate of the memory they need, so that a sweep over large traces does not
+ * exhaust the heap when all workers start at once. Concurrent runs share a decoded trace through the workload cache,
+ * so the memory of a trace is only claimed once while any run that uses it is active. Finished runs are appended to a
+ * completion log in the output folder of the scenario. When resuming, a crashed sweep can be restarted without
+ * repeating the completed runs.
+ * Runs are identified in the log by their scenario, seed and a hash of the scenario configuration, so a run is
+ * repeated if its scenario changed since it completed.
+ *
+ * @param parallelism The number of runs to execute concurrently.
+ * @param memoryBudget The number of bytes that may be claimed by concurrently executing runs.
+ * @param resume A flag to indicate that runs recorded in the completion log should be skipped.
+ * @param runner The function to run a single scenario with a given seed.
+ */
+public class ExperimentExecutor(
+    private val parallelism: Int = defaultParallelism(),
+    private val memoryBudget: Long = defaultMemoryBudget(),
+    private val resume: Boolean = false,
+    private val runner: (Scenario, Long) -> Unit = ::runScenario,
+) {
+    init {
+        require(parallelism > 0) { "The parallelism should always be positive" }
+        require(memoryBudget > 0) { "The memory budget should always be positive" }
+    }
+
+    /**
+     * The admission gate, in units of [MEMORY_UNIT] bytes.
+     */
+    private val budgetUnits = (memoryBudget / MEMORY_UNIT).coerceIn(1, Int.MAX_VALUE.toLong()).toInt()
+    private val admission = Admission(budgetUnits)
+
+    /**
+     * Run all (scenario, seed) pairs of the specified [experiment].
+     *
+     * @param experiment The scenarios to run.
+     * @param onCompletion A callback that is invoked after each run, including the runs skipped from the log.
+     * @return The results of the runs that were executed or skipped.
+     * @throws ExperimentFailedException if any of the runs failed, after all other runs have finished.
+     */
+    public fun execute(
+        experiment: List<Scenario>,
+        onCompletion: (RunResult) -> Unit = {},
+    ): List<RunResult> {
+        val logs = experiment.map { it.outputFolder }.distinct().associateWith { CompletionLog(File(it, LOG_FILE)) }
+        val results = mutableListOf<RunResult>()
+        val pending = mutableListOf<RunKey>()
+
+        for (scenario in experiment) {
+            val log = logs.getValue(scenario.outputFolder)
+            for (i in 0 until scenario.runs) {
+                val key = RunKey(scenario, scenario.initialSeed + i.toLong())
+                val duration = if (resume) log.completed[key.id] else null
+                if (duration != null) {
+                    val result = RunResult(scenario.id, key.seed, duration, skipped = true)
+                    results.add(result)
+                    onCompletion(result)
+                } else {
+                    pending.add(key)
+                }
+            }
+        }
+
+        if (pending.isEmpty()) {
+            return results
+        }
+
+        val threadId = AtomicInteger()
+        val factory = ThreadFactory { r -> Thread(r, "opendc-experiment-${threadId.getAndIncrement()}") }
+        val pool = Executors.newFixedThreadPool(minOf(parallelism, pending.size), factory)
+
+        try {
+            val futures = mutableListOf<Future<RunResult>>()
+            for (key in pending) {
+                val cost = estimateCost(key.scenario)
+                futures.add(
+                    pool.submit(
+                        Callable {
+                            val result = executeRun(key, cost, logs.getValue(key.scenario.outputFolder))
+                            onCompletion(result)
+                            result
+                        },
+                    ),
+                )
+            }
+
+            for (future in futures) {
+                results.add(future.get())
+            }
+        } finally {
+            pool.shutdownNow()
+            logs.values.forEach { it.close() }
+        }
+
+        if (results.any { !it.isSuccess }) {
+            throw ExperimentFailedException(results)
+        }
+
+        return results
+    }
+
+    /**
+     * Execute a single run once enough memory is available.
+     *
+     * Any [Throwable] of the run, including an [OutOfMemoryError], is recorded as a failure of that run only, so the
+     * other runs of the experiment can still finish.
+     */
+    private fun executeRun(
+        key: RunKey,
+        cost: RunCost,
+        log: CompletionLog,
+    ): RunResult {
+        admission.acquire(cost)
+        val start = System.nanoTime()
+        try {
+            runner(key.scenario, key.seed)
+            val duration = (System.nanoTime() - start) / 1_000_000
+            log.append(key.id, duration)
+            return RunResult(key.scenario.id, key.seed, duration)
+        } catch (e: Throwable) {
+            val duration = (System.nanoTime() - start) / 1_000_000
+            LOG.error("Run of scenario ${key.scenario.id} with seed ${key.seed} failed", e)
+            return RunResult(key.scenario.id, key.seed, duration, failure = e)
+        } finally {
+            admission.release(cost)
+        }
+    }
+
+    /**
+     * Estimate the memory a run of [scenario] claims while it executes.
+     *
+     * The estimate of the trace is based on its on-disk size, which expands when decoded into memory. A run that
+     * needs more than the whole budget is capped, so it will still run, but only by itself.
+     */
+    private fun estimateCost(scenario: Scenario): RunCost {
+        val workload = scenario.workloadSpec
+        val file = File(workload.pathToFile)
+        val traceSize =
+            file
+                .walkTopDown()
+                .filter { it.isFile }
+                .sumOf { it.length() }
+
+        val runUnits = (BASE_RUN_MEMORY / MEMORY_UNIT).coerceIn(1, budgetUnits.toLong()).toInt()
+        val traceUnits =
+            (traceSize * TRACE_EXPANSION / MEMORY_UNIT).coerceIn(0, (budgetUnits - runUnits).toLong()).toInt()
+
+        // A streamed trace is decoded by every run separately instead of being shared through the workload cache
+        val trace = if (workload.streaming) null else file.canonicalPath
+        return RunCost(runUnits, trace, traceUnits)
+    }
+
+    /**
+     * The memory claimed by a single run, in units of [MEMORY_UNIT] bytes.
+     *
+     * @property runUnits The memory claimed by the run itself.
+     * @property trace The identity of the decoded trace that is shared with the other runs using it, or `null` if the
+     * run does not share its trace.
+     * @property traceUnits The memory claimed by the decoded trace.
+     */
+    private class RunCost(val runUnits: Int, val trace: String?, val traceUnits: Int)
+
+    /**
+     * The admission gate of the runs, which admits runs in order of arrival once the memory they claim is available.
+     *
+     * The memory of a shared trace is claimed by the first active run that uses it and released once the last of
+     * those runs finishes.
+     */
+    private class Admission(budgetUnits: Int) {
+        private val lock = ReentrantLock()
+        private val released = lock.newCondition()
+        private var freeUnits = budgetUnits
+        private val waiting = ArrayDeque<RunCost>()
+        private val activeTraces = HashMap<String, Int>()
+
+        fun acquire(cost: RunCost) {
+            lock.withLock {
+                waiting.addLast(cost)
+                try {
+                    while (waiting.first() !== cost || requiredUnits(cost) > freeUnits) {
+                        released.await()
+                    }
+                } catch (e: InterruptedException) {
+                    waiting.remove(cost)
+                    released.signalAll()
+                    throw e
+                }
+
+                waiting.removeFirst()
+                freeUnits -= requiredUnits(cost)
+                cost.trace?.let { trace -> activeTraces.merge(trace, 1, Int::plus) }
+
+                // The next run in line may fit as well
+                released.signalAll()
+            }
+        }
+
+        fun release(cost: RunCost) {
+            lock.withLock {
+                freeUnits += cost.runUnits
+
+                val trace = cost.trace
+                if (trace == null) {
+                    freeUnits += cost.traceUnits
+                } else {
+                    val users = activeTraces.getValue(trace) - 1
+                    if (users > 0) {
+                        activeTraces[trace] = users
+                    } else {
+                        activeTraces.remove(trace)
+                        freeUnits += cost.traceUnits
+                    }
+                }
+
+                released.signalAll()
+            }
+        }
+
+        private fun requiredUnits(cost: RunCost): Int {
+            val trace = cost.trace
+            return if (trace != null && trace in activeTraces) cost.runUnits else cost.runUnits + cost.traceUnits
+        }
+    }
+
+    /**
+     * The result of a single run of an experiment.
+     *
+     * @property scenarioId The identifier of the scenario that was run.
+     * @property seed The seed used for the run.
+     * @property durationMs The wall-clock time spent on the run, in milliseconds.
+     * @property skipped A flag to indicate that the run was already recorded in the completion log.
+     * @property failure The exception that caused the run to fail, or `null` if it succeeded.
+     */
+    public data class RunResult(
+        val scenarioId: Int,
+        val seed: Long,
+        val durationMs: Long,
+        val skipped: Boolean = false,
+        val failure: Throwable? = null,
+    ) {
+        /**
+         * A flag to indicate whether the run completed successfully.
+         */
+        val isSuccess: Boolean
+            get() = failure == null
+    }
+
+    /**
+     * An exception thrown when one or more runs of an experiment failed.
+     *
+     * The exceptions of the failed runs are attached as suppressed exceptions.
+     *
+     * @property results The results of all runs of the experiment, including the failed runs.
+     */
+    public class ExperimentFailedException(
+        public val results: List<RunResult>,
+    ) : RuntimeException("${results.count { !it.isSuccess }} of ${results.size} runs failed") {
+        init {
+            results.forEach { result -> result.failure?.let { addSuppressed(it) } }
+        }
+    }
+
+    /**
+     * A single work item of the executor.
+     */
+    private class RunKey(val scenario: Scenario, val seed: Long) {
+        val id: String = "${scenario.id},$seed,${configHash(scenario)}"
+    }
+
+    /**
+     * An append-only log of the runs that completed successfully, stored as `scenario,seed,config,durationMs` lines.
+     */
+    private class CompletionLog(private val file: File) {
+        val completed: Map<String, Long> = read()
+        private var writer: FileWriter? = null
+
+        private fun read(): Map<String, Long> {
+            if (!file.exists()) {
+                return emptyMap()
+            }
+
+            val result = mutableMapOf<String, Long>()
+            file.forEachLine { line ->
+                val parts = line.split(',')
+                // Ignore lines that were only partially written before a crash
+                val duration = parts.getOrNull(3)?.toLongOrNull()
+                if (parts.size == 4 && duration != null) {
+                    result["${parts[0]},${parts[1]},${parts[2]}"] = duration
+                }
+            }
+            return result
+        }
+
+        @Synchronized
+        fun append(
+            id: String,
+            durationMs: Long,
+        ) {
+            val writer = writer ?: FileWriter(file.also { it.parentFile?.mkdirs() }, true).also { writer = it }
+            writer.write("$id,$durationMs\n")
+            writer.flush()
+        }
+
+        @Synchronized
+        fun close() {
+            writer?.close()
+            writer = null
+        }
+    }
+
+    public companion object {
+        private val LOG by logger()
+
+        /**
+         * Compute a hash of the configuration of [scenario] that is stable across processes.
+         *
+         * The number of runs and the initial seed are excluded, since the seed of a run is part of its key. The
+         * exported columns are sorted by name, because their sets are not ordered.
+         */
+        private fun configHash(scenario: Scenario): String {
+            val exportConfig = scenario.computeExportConfig
+            val columns =
+                listOf(
+                    exportConfig.hostExportColumns,
+                    exportConfig.taskExportColumns,
+                    exportConfig.powerSourceExportColumns,
+                    exportConfig.batteryExportColumns,
+                    exportConfig.serviceExportColumns,
+                ).map { set -> set.map { it.name }.sorted() }
+            val config =
+                listOf(
+                    scenario.name,
+                    scenario.outputFolder,
+                    scenario.topologySpec,
+                    scenario.workloadSpec,
+                    scenario.allocationPolicySpec,
+                    scenario.exportModelSpec,
+                    scenario.failureModelSpec,
+                    scenario.checkpointModelSpec,
+                    scenario.maxNumFailures,
+                    columns,
+                ).joinToString("|")
+
+            val digest = MessageDigest.getInstance("SHA-256").digest(config.toByteArray())
+            return digest.take(8).joinToString("") { "%02x".format(it) }
+        }
+
+        /**
+         * The name of the completion log in the output folder of an experiment.
+         */
+        public const val LOG_FILE: String = "completed-runs.csv"
+
+        /**
+         * The granularity at which memory is claimed by runs.
+         */
+        private const val MEMORY_UNIT = 1L shl 20
+
+        /**
+         * The memory claimed by a run regardless of its trace (topology, service, telemetry buffers).
+         */
+        private const val BASE_RUN_MEMORY = 64L shl 20
+
+        /**
+         * The factor by which a compressed trace grows when decoded into memory.
+         */
+        private const val TRACE_EXPANSION = 8
+
+        /**
+         * The default parallelism, configured through the `opendc.experiment.parallelism` property or the number
+         * of available cores.
+         */
+        public fun defaultParallelism(): Int =
+            System.getProperty("opendc.experiment.parallelism")?.toIntOrNull()
+                ?: Runtime.getRuntime().availableProcessors()
+
+        /**
+         * The default memory budget, configured through the `opendc.experiment.memory` property or the part of the
+         * heap that is not reserved for the shared trace cache.
+         */
+        public fun defaultMemoryBudget(): Long =
+            System.getProperty("opendc.experiment.memory")?.toLongOrNull()
+                ?: (Runtime.getRuntime().maxMemory() / 4 * 3)
+    }
+}
@@ -24,37 +24,69 @@ package org.opendc.experiments.base.runner
 
 import me.tongfei.progressbar.ProgressBarBuilder
 import me.tongfei.progressbar.ProgressBarStyle
+import org.opendc.compute.workload.ComputeWorkloadCache
 import org.opendc.experiments.base.experiment.Scenario
 
 /**
- * Run scenario when no pool is available for parallel execution
+ * Run all scenarios of an experiment, scheduling every (scenario, seed) pair on a shared pool.
  *
  * @param experiment The scenarios to run
+ * @param parallelism The number of runs that can be executed in parallel
+ * @param resume A flag to indicate that runs completed by a previous attempt should be skipped
+ * @throws ExperimentExecutor.ExperimentFailedException if any of the runs failed
  */
-public fun runExperiment(experiment: List<Scenario>) {
+public fun runExperiment(
+    experiment: List<Scenario>,
+    parallelism: Int = ExperimentExecutor.defaultParallelism(),
+    resume: Boolean = false,
+) {
     val ansiReset = "\u001B[0m"
     val ansiGreen = "\u001B[32m"
     val ansiBlue = "\u001B[34m"
+    val ansiRed = "\u001B[31m"
 
     setupOutputFolderStructure(experiment[0].outputFolder)
 
+    println("$ansiGreen================================================================================$ansiReset")
+    println("$ansiBlue Running ${experiment.size} scenarios on $parallelism workers $ansiReset")
+    println("$ansiGreen================================================================================$ansiReset")
+
     val pb =
         ProgressBarBuilder().setInitialMax(experiment.sumOf { scenario -> scenario.runs.toLong() })
             .setStyle(ProgressBarStyle.ASCII)
             .setTaskName("Simulating...").build()
 
-    for (scenario in experiment) {
-        println(
-            "\n\n$ansiGreen================================================================================$ansiReset",
-        )
-        println("$ansiBlue Running scenario: ${scenario.name} $ansiReset")
-        println("$ansiGreen================================================================================$ansiReset")
-
-        for (seed in 0..<scenario.runs) {
-            println("$ansiBlue Starting seed: $seed $ansiReset")
-            runScenario(scenario, seed.toLong())
-            pb.step()
+    val executor = ExperimentExecutor(parallelism, resume = resume)
+    var error: ExperimentExecutor.ExperimentFailedException? = null
+    val results =
+        try {
+            pb.use { executor.execute(experiment) { pb.step() } }
+        } catch (e: ExperimentExecutor.ExperimentFailedException) {
+            error = e
+            e.results
         }
+
+    val executed = results.filter { !it.skipped }
+    val skipped = results.size - executed.size
+    val failed = executed.filter { !it.isSuccess }
+    val runTime = executed.sumOf { it.durationMs }
+    println(
+        "$ansiBlue Completed ${executed.size - failed.size} runs in $runTime ms of run time, " +
+            "skipped $skipped runs completed by a previous attempt $ansiReset",
+    )
+    for (result in executed.sortedWith(compareBy({ it.scenarioId }, { it.seed }))) {
+        println("$ansiBlue Scenario ${result.scenarioId}, seed ${result.seed}: ${result.durationMs} ms $ansiReset")
+    }
+    for (result in failed) {
+        println("$ansiRed Scenario ${result.scenarioId}, seed ${result.seed} failed: ${result.failure} $ansiReset")
     }
-    pb.close()
+
+    val cacheStats = ComputeWorkloadCache.shared.getStats()
+    println(
+        "$ansiBlue Trace cache: ${cacheStats.hits} hits, ${cacheStats.misses} misses, " +
+            "${cacheStats.loadTimeMs} ms spent loading traces $ansiReset",
+    )
+
+    // Report the failures only after the summary, so that the process exits with an error
+    error?.let { throw it }
 }
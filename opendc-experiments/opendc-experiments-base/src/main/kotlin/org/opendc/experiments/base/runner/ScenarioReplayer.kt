@@ -24,11 +24,11 @@
 
 package org.opendc.experiments.base.runner
 
-import kotlinx.coroutines.coroutineScope
-import kotlinx.coroutines.delay
-import kotlinx.coroutines.launch
-import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.CancellableContinuation
+import kotlinx.coroutines.suspendCancellableCoroutine
 import kotlinx.coroutines.yield
+import org.opendc.common.Dispatcher
+import org.opendc.common.DispatcherProvider
 import org.opendc.compute.api.TaskState
 import org.opendc.compute.failure.models.FailureModel
 import org.opendc.compute.simulator.TaskWatcher
@@ -39,54 +39,53 @@ import org.opendc.experiments.base.experiment.specs.FailureModelSpec
 import org.opendc.experiments.base.experiment.specs.createFailureModel
 import java.time.InstantSource
 import java.util.Random
+import kotlin.coroutines.ContinuationInterceptor
 import kotlin.coroutines.coroutineContext
+import kotlin.coroutines.resume
 import kotlin.math.max
 
 /**
- * A watcher that is locked and waits for a change in the task state to unlock
- * @param unlockStates determine which [TaskState] triggers an unlock.
- *                     Default values are TERMINATED, ERROR, and DELETED.
+ * Helper method to replay the specified list of [Task] and suspend execution util all VMs have finished.
+ *
+ * @param clock The simulation clock.
+ * @param trace The trace to simulate.
+ * @param seed The seed to use for randomness.
+ * @param submitImmediately A flag to indicate that the tasks are scheduled immediately (so not at their start time).
+ * @param failureModelSpec A failure model to use for injecting failures.
  */
-public class RunningTaskWatcher : TaskWatcher {
-    // TODO: make this changeable
-    private val unlockStates: List<TaskState> = listOf(TaskState.DELETED)
-
-    private val mutex: Mutex = Mutex()
-
-    public suspend fun lock() {
-        mutex.lock()
-    }
-
-    public suspend fun wait() {
-        this.lock()
-    }
-
-    override fun onStateChanged(
-        task: ServiceTask,
-        newState: TaskState,
-    ) {
-        if (unlockStates.contains(newState)) {
-            mutex.unlock()
-        }
-    }
+public suspend fun ComputeService.replay(
+    clock: InstantSource,
+    trace: List<Task>,
+    failureModelSpec: FailureModelSpec? = null,
+    seed: Long = 0,
+    submitImmediately: Boolean = false,
+) {
+    replay(clock, trace.sortedBy { it.submissionTime }.iterator(), failureModelSpec, seed, submitImmediately)
 }
 
 /**
- * Helper method to replay the specified list of [Task] and suspend execution util all VMs have finished.
+ * Helper method to replay the [Task]s produced by [trace] and suspend execution util all VMs have finished.
+ *
+ * Submissions are scheduled directly on the simulation dispatcher and the iterator is only advanced when the next
+ * task is due, so the trace does not need to be kept in memory as a whole.
  *
  * @param clock The simulation clock.
- * @param trace The trace to simulate.
+ * @param trace An iterator over the tasks to simulate, ordered by submission time.
  * @param seed The seed to use for randomness.
  * @param submitImmediately A flag to indicate that the tasks are scheduled immediately (so not at their start time).
  * @param failureModelSpec A failure model to use for injecting failures.
  */
 public suspend fun ComputeService.replay(
     clock: InstantSource,
-    trace: List<Task>,
+    trace: Iterator<Task>,
     failureModelSpec: FailureModelSpec? = null,
     seed: Long = 0,
     submitImmediately: Boolean = false,
 ) {
+    val provider =
+        requireNotNull(coroutineContext[ContinuationInterceptor] as? DispatcherProvider) {
+            "Replaying a trace requires a coroutine dispatcher that is backed by a simulation dispatcher"
+        }
     val client = newClient()
 
     // Create a failure model based on the failureModelSpec, if not null, otherwise set failureModel to null
@@ -96,54 +95,11 @@ public suspend fun ComputeService.replay(
         }
 
     try {
-        coroutineScope {
-            // Start the fault injector
-            failureModel?.start()
-
-            var simulationOffset = Long.MIN_VALUE
-
-            for (entry in trace.sortedBy { it.submissionTime }) {
-                val now = clock.millis()
-                val start = entry.submissionTime.toEpochMilli()
-
-                // Set the simulationOffset based on the starting time of the first task
-                if (simulationOffset == Long.MIN_VALUE) {
-                    simulationOffset = start - now
-                }
-
-                // Delay the task based on the startTime given by the trace.
-                if (!submitImmediately) {
-                    delay(max(0, (start - now - simulationOffset)))
-                }
-
-                val workload = entry.trace
-                val meta = mutableMapOf<String, Any>("workload" to workload)
-
-                launch {
-                    val task =
-                        client.newTask(
-                            entry.name,
-                            client.newFlavor(
-                                entry.name,
-                                entry.cpuCount,
-                                entry.memCapacity,
-                                if (entry.cpuCapacity > 0.0) mapOf("cpu-capacity" to entry.cpuCapacity) else emptyMap(),
-                            ),
-                            workload,
-                            meta,
-                        )
-
-                    val taskWatcher = RunningTaskWatcher()
-                    taskWatcher.lock()
-                    task.watch(taskWatcher)
-
-                    // Wait until the task is terminated
-                    taskWatcher.wait()
-
-                    // Stop the task after reaching the end-time of the virtual machine
-//                    task.delete()
-                }
-            }
+        // Start the fault injector
+        failureModel?.start()
+
+        suspendCancellableCoroutine { cont ->
+            TraceReplayer(provider.dispatcher, clock, client, trace, submitImmediately, cont).start()
         }
         yield()
     } finally {
@@ -151,3 +107,109 @@ public suspend fun ComputeService.replay(
         client.close()
     }
 }
+
+/**
+ * A driver that submits the tasks of a trace at their submission time and keeps track of their completion.
+ *
+ * Only a counter of the submitted tasks that have not been deleted yet is maintained, so the memory used for
+ * tracking is independent of the size of the trace.
+ */
+private class TraceReplayer(
+    private val dispatcher: Dispatcher,
+    private val clock: InstantSource,
+    private val client: ComputeService.ComputeClient,
+    private val trace: Iterator<Task>,
+    private val submitImmediately: Boolean,
+    private val cont: CancellableContinuation<Unit>,
+) : TaskWatcher, Runnable {
+    /**
+     * The next task to submit, or `null` if the trace has been exhausted.
+     */
+    private var next: Task? = null
+
+    /**
+     * The offset between the timestamps in the trace and the simulation clock.
+     */
+    private var simulationOffset = Long.MIN_VALUE
+
+    /**
+     * The number of submitted tasks that have not been deleted yet.
+     */
+    private var activeTasks = 0
+
+    fun start() {
+        next = if (trace.hasNext()) trace.next() else null
+        run()
+    }
+
+    /**
+     * Submit all tasks that are due and schedule a wake-up for the next one.
+     */
+    override fun run() {
+        if (!cont.isActive) {
+            return
+        }
+
+        while (true) {
+            val entry = next ?: break
+            val now = clock.millis()
+            val start = entry.submissionTime.toEpochMilli()
+
+            // Set the simulationOffset based on the starting time of the first task
+            if (simulationOffset == Long.MIN_VALUE) {
+                simulationOffset = start - now
+            }
+
+            // Delay the task based on the startTime given by the trace.
+            val delay = max(0, start - now - simulationOffset)
+            if (!submitImmediately && delay > 0) {
+                dispatcher.schedule(delay, this)
+                return
+            }
+
+            next = if (trace.hasNext()) trace.next() else null
+            submit(entry)
+        }
+
+        checkCompletion()
+    }
+
+    override fun onStateChanged(
+        task: ServiceTask,
+        newState: TaskState,
+    ) {
+        if (newState == TaskState.DELETED) {
+            activeTasks--
+            checkCompletion()
+        }
+    }
+
+    private fun submit(entry: Task) {
+        val workload = entry.trace
+        val meta = mutableMapOf<String, Any>("workload" to workload)
+
+        val task =
+            client.newTask(
+                entry.name,
+                client.internFlavor(
+                    entry.cpuCount,
+                    entry.memCapacity,
+                    if (entry.cpuCapacity > 0.0) mapOf("cpu-capacity" to entry.cpuCapacity) else emptyMap(),
+                ),
+                workload,
+                meta,
+            )
+
+        activeTasks++
+        task.watch(this)
+    }
+
+    /**
+     * Resume the replaying coroutine once the trace is exhausted and all submitted tasks have been deleted.
+     */
+    private fun checkCompletion() {
+        if (next == null && activeTasks == 0 && cont.isActive) {
+            cont.resume(Unit)
+        }
+    }
+}
@@ -33,34 +33,31 @@ import org.opendc.compute.simulator.service.ComputeService
 import org.opendc.compute.simulator.telemetry.parquet.ParquetComputeMonitor
 import org.opendc.compute.topology.clusterTopology
 import org.opendc.compute.workload.ComputeWorkloadLoader
+import org.opendc.compute.workload.TaskStream
 import org.opendc.experiments.base.experiment.Scenario
 import org.opendc.experiments.base.experiment.specs.getWorkloadType
 import org.opendc.simulator.kotlin.runSimulation
 import java.io.File
 import java.time.Duration
 import java.util.Random
-import java.util.concurrent.ForkJoinPool
-import java.util.stream.LongStream
 
 /**
  * Run scenario when a pool is available for parallel execution
  * The scenario is run multiple times based on the user input
  *
  * @param scenario The scenario to run
+ * @param executor The executor used to schedule the runs of the scenario.
+ * @throws ExperimentExecutor.ExperimentFailedException if any of the runs failed.
  */
-public fun runScenario(scenario: Scenario) {
+public fun runScenario(
+    scenario: Scenario,
+    executor: ExperimentExecutor = ExperimentExecutor(),
+) {
     val pb =
         ProgressBarBuilder().setInitialMax(scenario.runs.toLong()).setStyle(ProgressBarStyle.ASCII)
             .setTaskName("Simulating...").build()
 
-    val pool = ForkJoinPool(5)
-    pool.submit {
-        LongStream.range(0, scenario.runs.toLong()).parallel().forEach {
-            runScenario(scenario, scenario.initialSeed + it)
-            pb.step()
-        }
-        pb.close()
-    }.join()
+    pb.use { executor.execute(listOf(scenario)) { pb.step() } }
 }
 
 /**
@@ -88,19 +85,35 @@ public fun runScenario(
                     checkpointDuration,
                     checkpointIntervalScaling,
                 )
-            val tasks = getWorkloadType(scenario.workloadSpec.type).resolve(workloadLoader, Random(seed))
-
-            val startTimeLong = tasks.minOf { it.submissionTime }.toEpochMilli()
+            val workload = getWorkloadType(scenario.workloadSpec.type)
+            val tasks =
+                if (scenario.workloadSpec.streaming) {
+                    // The fragments of the tasks are only decoded shortly before the tasks are submitted
+                    workload.stream(workloadLoader, Random(seed))
+                } else {
+                    // Resolved workloads are shared with other scenarios through the workload cache
+                    TaskStream.of(workload.resolve(workloadLoader, Random(seed)))
+                }
+
+            val startTimeLong = checkNotNull(tasks.startTime) { "The workload is empty" }.toEpochMilli()
             val startTime = Duration.ofMillis(startTimeLong)
 
             val topology = clusterTopology(scenario.topologySpec.pathToFile, Random(seed))
             provisioner.runSteps(
                 setupComputeService(
                     serviceDomain,
-                    { createComputeScheduler(scenario.allocationPolicySpec.policyType, Random(it.seeder.nextLong())) },
+                    {
+                        createComputeScheduler(
+                            scenario.allocationPolicySpec.policyType,
+                            Random(it.seeder.nextLong()),
+                            indexed = scenario.allocationPolicySpec.indexed,
+                        )
+                    },
                     maxNumFailures = scenario.maxNumFailures,
+                    queueDiscipline = scenario.allocationPolicySpec.queueDiscipline,
+                    backfillWindow = scenario.allocationPolicySpec.backfillWindow,
                 ),
-                setupHosts(serviceDomain, topology, startTimeLong),
+                setupHosts(serviceDomain, topology, startTimeLong, scenario.engineParallelism),
             )
 
             addExportModel(provisioner, serviceDomain, scenario, seed, startTime, scenario.id)
@@ -111,12 +124,14 @@ public fun runScenario(
             val monitor = provisioner.getMonitor()
             service.setMetricReader(monitor)
 
-            service.replay(
-                timeSource,
-                tasks,
-                failureModelSpec = scenario.failureModelSpec,
-                seed = seed,
-            )
+            tasks.use {
+                service.replay(
+                    timeSource,
+                    it,
+                    failureModelSpec = scenario.failureModelSpec,
+                    seed = seed,
+                )
+            }
         }
     }
 
@@ -146,6 +161,7 @@ public fun addExportModel(
                 "seed=$seed",
                 bufferSize = 4096,
                 computeExportConfig = scenario.computeExportConfig,
+                writerConfig = scenario.exportModelSpec.toWriterConfig(),
             ),
             Duration.ofSeconds(scenario.exportModelSpec.exportInterval),
             startTime,
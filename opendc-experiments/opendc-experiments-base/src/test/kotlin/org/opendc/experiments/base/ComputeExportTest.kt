@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.base
+
+import kotlinx.coroutines.delay
+import org.apache.parquet.example.data.Group
+import org.apache.parquet.hadoop.example.GroupReadSupport
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotNull
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertAll
+import org.junit.jupiter.api.io.TempDir
+import org.opendc.compute.simulator.provisioner.Provisioner
+import org.opendc.compute.simulator.provisioner.registerComputeMonitor
+import org.opendc.compute.simulator.provisioner.setupComputeService
+import org.opendc.compute.simulator.provisioner.setupHosts
+import org.opendc.compute.simulator.scheduler.FilterScheduler
+import org.opendc.compute.simulator.scheduler.filters.ComputeFilter
+import org.opendc.compute.simulator.scheduler.filters.RamFilter
+import org.opendc.compute.simulator.scheduler.filters.VCpuFilter
+import org.opendc.compute.simulator.scheduler.weights.CoreRamWeigher
+import org.opendc.compute.simulator.service.ComputeService
+import org.opendc.compute.simulator.telemetry.ComputeMonitor
+import org.opendc.compute.simulator.telemetry.parquet.ParquetComputeMonitor
+import org.opendc.compute.simulator.telemetry.table.TaskTableReader
+import org.opendc.compute.topology.clusterTopology
+import org.opendc.simulator.compute.workload.TraceFragment
+import org.opendc.simulator.compute.workload.TraceWorkload
+import org.opendc.simulator.kotlin.runSimulation
+import org.opendc.trace.util.parquet.LocalParquetReader
+import java.io.File
+import java.time.Instant
+
+/**
+ * Test suite that exports the task metrics of a small simulation through the [ParquetComputeMonitor] and reads them
+ * back from disk.
+ *
+ * Task `a` occupies half of the host until t=900s, so task `b`, which needs the whole host, waits in the queue
+ * until then.
+ */
+class ComputeExportTest {
+    @Test
+    fun testTaskRoundTrip(
+        @TempDir base: File,
+    ) {
+        val expected = mutableListOf<TaskTableReader>()
+
+        runSimulation {
+            val topology = clusterTopology(File("src/test/resources/topologies/single.json"))
+            val scheduler =
+                FilterScheduler(
+                    filters = listOf(ComputeFilter(), VCpuFilter(1.0), RamFilter(1.0)),
+                    weighers = listOf(CoreRamWeigher(multiplier = 1.0)),
+                )
+            val parquetMonitor = ParquetComputeMonitor(base, "test", bufferSize = 4)
+
+            // Pass the live readers to the exporter, as the metric reader does, and keep a copy to compare against
+            val monitor =
+                object : ComputeMonitor, AutoCloseable {
+                    override val readsInPlace: Boolean = true
+
+                    override fun record(reader: TaskTableReader) {
+                        expected.add(reader.copy())
+                        parquetMonitor.record(reader)
+                    }
+
+                    override fun close() {
+                        parquetMonitor.close()
+                    }
+                }
+
+            Provisioner(dispatcher, 0L).use { provisioner ->
+                provisioner.runSteps(
+                    setupComputeService("compute.opendc.org", { scheduler }),
+                    registerComputeMonitor("compute.opendc.org", monitor),
+                    setupHosts("compute.opendc.org", topology),
+                )
+
+                val service = provisioner.registry.resolve("compute.opendc.org", ComputeService::class.java)!!
+                val client = service.newClient()
+
+                for ((name, cores, duration) in TASKS) {
+                    val flavor = client.internFlavor(cores, 1024, emptyMap<String, Any>())
+                    val workload = TraceWorkload.ofFragments(TraceFragment(duration, 1000.0, cores))
+                    client.newTask(name, flavor, workload, emptyMap<String, Any>())
+                }
+
+                // Let all tasks finish before the hosts are removed
+                delay(2_400_000)
+                client.close()
+            }
+        }
+
+        val actual = mutableListOf<Group>()
+        LocalParquetReader(File(base, "test/task.parquet"), GroupReadSupport()).use { reader ->
+            while (true) {
+                actual.add(reader.read() ?: break)
+            }
+        }
+
+        assertEquals(expected.size, actual.size, "The number of exported rows should match the recorded rows")
+        for ((row, group) in actual.withIndex()) {
+            assertRow(expected[row], group, row)
+        }
+
+        val rowsB = expected.filter { it.taskInfo.name == "b" }
+        assertNull(rowsB.first().host, "A task waiting in the queue should not report a host")
+        assertNotNull(rowsB.last().host, "A finished task should report the host it last ran on")
+        assertTrue(expected.any { it.taskInfo.name == "a" && it.cpuUsage > 0.0 }, "Task a should report its usage")
+    }
+
+    /**
+     * Assert that the columns of [group] match the values of the recorded [reader].
+     */
+    private fun assertRow(
+        reader: TaskTableReader,
+        group: Group,
+        row: Int,
+    ) {
+        val message = "Row $row (task ${reader.taskInfo.name})"
+        assertAll(
+            message,
+            { assertEquals(reader.timestamp.toEpochMilli(), group.getLong("timestamp", 0)) },
+            { assertEquals(reader.timestampAbsolute.toEpochMilli(), group.getLong("timestamp_absolute", 0)) },
+            { assertEquals(reader.taskInfo.id, group.getString("task_id", 0)) },
+            { assertEquals(reader.host?.id, group.optionalString("host_id")) },
+            { assertEquals(reader.taskInfo.name, group.getString("task_name", 0)) },
+            { assertEquals(reader.taskInfo.cpuCount, group.getInteger("cpu_count", 0)) },
+            { assertEquals(reader.taskInfo.memCapacity, group.getLong("mem_capacity", 0)) },
+            { assertEquals(reader.cpuLimit.toFloat(), group.getFloat("cpu_limit", 0)) },
+            { assertEquals(reader.cpuUsage.toFloat(), group.getFloat("cpu_usage", 0)) },
+            { assertEquals(reader.cpuDemand.toFloat(), group.getFloat("cpu_demand", 0)) },
+            { assertEquals(reader.cpuActiveTime, group.getLong("cpu_time_active", 0)) },
+            { assertEquals(reader.cpuIdleTime, group.getLong("cpu_time_idle", 0)) },
+            { assertEquals(reader.cpuStealTime, group.getLong("cpu_time_steal", 0)) },
+            { assertEquals(reader.cpuLostTime, group.getLong("cpu_time_lost", 0)) },
+            { assertEquals(reader.uptime, group.getLong("uptime", 0)) },
+            { assertEquals(reader.downtime, group.getLong("downtime", 0)) },
+            { assertEquals(reader.provisionTime.toMillis(), group.optionalLong("provision_time")) },
+            { assertEquals(reader.bootTime.toMillis(), group.optionalLong("boot_time")) },
+            { assertEquals(reader.creationTime.toMillis(), group.optionalLong("creation_time")) },
+            { assertEquals(reader.finishTime.toMillis(), group.optionalLong("finish_time")) },
+            { assertEquals(reader.bootTimeAbsolute.toMillis(), group.optionalLong("boot_time_absolute")) },
+            { assertEquals(reader.taskState?.name, group.optionalString("task_state")) },
+        )
+    }
+
+    private fun Instant?.toMillis(): Long? = this?.toEpochMilli()
+
+    private fun Group.optionalLong(field: String): Long? =
+        if (getFieldRepetitionCount(field) > 0) getLong(field, 0) else null
+
+    private fun Group.optionalString(field: String): String? =
+        if (getFieldRepetitionCount(field) > 0) getString(field, 0) else null
+
+    private companion object {
+        /**
+         * The name, number of cores and duration of the tasks, in order of submission.
+         */
+        val TASKS =
+            listOf(
+                Triple("a", 6, 900_000L),
+                Triple("b", 12, 600_000L),
+            )
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.opendc.experiments.base
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+import org.opendc.compute.workload.ComputeWorkload
+import org.opendc.compute.workload.ComputeWorkloadCache
+import org.opendc.compute.workload.ComputeWorkloadLoader
+import org.opendc.compute.workload.Task
+import org.opendc.compute.workload.sampleByLoad
+import org.opendc.compute.workload.trace
+import java.io.File
+import java.util.Random
+
+/**
+ * Test suite for streaming a [ComputeWorkload] compared to resolving it.
+ */
+class ComputeWorkloadStreamTest {
+    /**
+     * The loader used to read the traces, which does not share its tasks with other tests.
+     */
+    private val loader = ComputeWorkloadLoader(File("src/test/resources/traces"), 0L, 0L, 0.0, ComputeWorkloadCache(1))
+
+    @ParameterizedTest
+    @ValueSource(doubles = [1.0, 0.5, 0.1])
+    fun testStreamMatchesResolve(fraction: Double) {
+        val workload = trace("bitbrains-small").sampleByLoad(fraction)
+
+        val expected = workload.resolve(loader, Random(0)).sortedBy { it.submissionTime }
+        val actual = workload.stream(loader, Random(0)).use { it.asSequence().toList() }
+
+        assertEquals(expected.size, actual.size, "Incorrect number of tasks")
+        for ((e, a) in expected.zip(actual)) {
+            assertTaskEquals(e, a)
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(doubles = [1.0, 0.5])
+    fun testStreamMetadata(fraction: Double) {
+        val workload = trace("bitbrains-small").sampleByLoad(fraction)
+        val expected = workload.resolve(loader, Random(0))
+
+        workload.stream(loader, Random(0)).use {
+            assertEquals(expected.size, it.size, "Incorrect size")
+            assertEquals(expected.minOf { task -> task.submissionTime }, it.startTime, "Incorrect start time")
+        }
+    }
+
+    private fun assertTaskEquals(
+        expected: Task,
+        actual: Task,
+    ) {
+        assertEquals(expected.uid, actual.uid, "Incorrect UUID of ${expected.name}")
+        assertEquals(expected.name, actual.name, "Incorrect order")
+        assertEquals(expected.submissionTime, actual.submissionTime)
+        assertEquals(expected.cpuCount, actual.cpuCount)
+        assertEquals(expected.cpuCapacity, actual.cpuCapacity)
+        assertEquals(expected.memCapacity, actual.memCapacity)
+        assertEquals(expected.totalLoad, actual.totalLoad)
+        assertEquals(expected.duration, actual.duration)
+        assertEquals(expected.trace.fragments, actual.trace.fragments, "Incorrect fragments of ${expected.name}")
+    }
+}
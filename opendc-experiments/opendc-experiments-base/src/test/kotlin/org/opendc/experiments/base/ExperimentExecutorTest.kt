@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.opendc.experiments.base
+
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertInstanceOf
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.opendc.compute.simulator.telemetry.parquet.ComputeExportConfig
+import org.opendc.experiments.base.experiment.Scenario
+import org.opendc.experiments.base.experiment.specs.AllocationPolicySpec
+import org.opendc.experiments.base.experiment.specs.ScenarioTopologySpec
+import org.opendc.experiments.base.experiment.specs.WorkloadSpec
+import org.opendc.experiments.base.experiment.specs.WorkloadTypes
+import org.opendc.experiments.base.runner.ExperimentExecutor
+import java.io.File
+import java.io.RandomAccessFile
+import java.nio.file.Files
+import java.util.Collections
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+/**
+ * Test suite for [ExperimentExecutor].
+ */
+class ExperimentExecutorTest {
+    private lateinit var outputFolder: File
+
+    @BeforeEach
+    fun setUp() {
+        outputFolder = Files.createTempDirectory("output").toFile()
+    }
+
+    @AfterEach
+    fun tearDown() {
+        outputFolder.deleteRecursively()
+    }
+
+    @Test
+    fun testFailuresFailExperiment() {
+        val scenario = createScenario(runs = 3)
+        val executed = Collections.synchronizedList(mutableListOf<Long>())
+        val executor =
+            ExperimentExecutor(parallelism = 2) { _, seed ->
+                executed.add(seed)
+                check(seed != 1L) { "Run failed" }
+            }
+
+        val e = assertThrows<ExperimentExecutor.ExperimentFailedException> { executor.execute(listOf(scenario)) }
+
+        assertEquals(setOf(0L, 1L, 2L), executed.toSet(), "All runs should be attempted")
+        assertEquals(3, e.results.size)
+        assertEquals(listOf(1L), e.results.filter { !it.isSuccess }.map { it.seed })
+        assertEquals(1, e.suppressed.size)
+    }
+
+    @Test
+    fun testErrorFailsOnlyItsRun() {
+        val scenario = createScenario(runs = 3)
+        val completed = Collections.synchronizedList(mutableListOf<Long>())
+        val executor =
+            ExperimentExecutor(parallelism = 3) { _, seed ->
+                if (seed == 1L) {
+                    throw OutOfMemoryError("Run failed")
+                }
+
+                // Let the failed run finish before the other runs
+                Thread.sleep(100)
+                completed.add(seed)
+            }
+
+        val e = assertThrows<ExperimentExecutor.ExperimentFailedException> { executor.execute(listOf(scenario)) }
+
+        assertEquals(setOf(0L, 2L), completed.toSet(), "The other runs should complete")
+        assertInstanceOf(OutOfMemoryError::class.java, e.results.single { !it.isSuccess }.failure)
+    }
+
+    @Test
+    fun testSharedTraceAdmission() {
+        // A sparse file of 256 MiB, which claims 2 GiB of memory when decoded
+        val trace = File(outputFolder, "trace").also { it.mkdirs() }
+        RandomAccessFile(File(trace, "tasks.parquet"), "rw").use { it.setLength(256L shl 20) }
+
+        val runs = 3
+        val scenario = createScenario(runs = runs, workloadPath = trace.path)
+        val started = CountDownLatch(runs)
+
+        // The budget only fits the trace once, together with the memory of the runs themselves
+        val executor =
+            ExperimentExecutor(parallelism = runs, memoryBudget = (2048L + runs * 64) shl 20) { _, _ ->
+                started.countDown()
+                check(started.await(10, TimeUnit.SECONDS)) { "Runs sharing a trace should be admitted together" }
+            }
+
+        val results = executor.execute(listOf(scenario))
+        assertTrue(results.all { it.isSuccess })
+    }
+
+    @Test
+    fun testNoResumeByDefault() {
+        val scenario = createScenario(runs = 2)
+        var count = 0
+        val executor = ExperimentExecutor(parallelism = 1) { _, _ -> count++ }
+
+        executor.execute(listOf(scenario))
+        executor.execute(listOf(scenario))
+
+        assertEquals(4, count)
+    }
+
+    @Test
+    fun testResume() {
+        val scenario = createScenario(runs = 2)
+        var count = 0
+        val executor = ExperimentExecutor(parallelism = 1, resume = true) { _, _ -> count++ }
+
+        executor.execute(listOf(scenario))
+        val results = executor.execute(listOf(scenario))
+
+        assertEquals(2, count)
+        assertTrue(results.all { it.skipped })
+    }
+
+    @Test
+    fun testResumeChangedScenario() {
+        var count = 0
+        val executor = ExperimentExecutor(parallelism = 1, resume = true) { _, _ -> count++ }
+
+        executor.execute(listOf(createScenario(runs = 2)))
+        val results = executor.execute(listOf(createScenario(runs = 2, maxNumFailures = 5)))
+
+        assertEquals(4, count, "Runs of a changed scenario should be repeated")
+        assertTrue(results.none { it.skipped })
+    }
+
+    private fun createScenario(
+        runs: Int,
+        maxNumFailures: Int = 10,
+        workloadPath: String = "src/test/resources/traces/single_task",
+    ): Scenario =
+        Scenario(
+            id = 0,
+            outputFolder = outputFolder.path,
+            runs = runs,
+            computeExportConfig = ComputeExportConfig.ALL_COLUMNS,
+            topologySpec = ScenarioTopologySpec("src/test/resources/topologies/single.json"),
+            workloadSpec = WorkloadSpec(workloadPath, WorkloadTypes.ComputeWorkload),
+            allocationPolicySpec = AllocationPolicySpec(),
+            failureModelSpec = null,
+            checkpointModelSpec = null,
+            maxNumFailures = maxNumFailures,
+        )
+}
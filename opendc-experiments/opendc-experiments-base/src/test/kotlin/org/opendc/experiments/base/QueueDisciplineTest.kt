@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.opendc.experiments.base
+
+import kotlinx.coroutines.delay
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertAll
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.EnumSource
+import org.opendc.compute.api.TaskState
+import org.opendc.compute.simulator.TaskWatcher
+import org.opendc.compute.simulator.provisioner.Provisioner
+import org.opendc.compute.simulator.provisioner.setupComputeService
+import org.opendc.compute.simulator.provisioner.setupHosts
+import org.opendc.compute.simulator.scheduler.FilterScheduler
+import org.opendc.compute.simulator.scheduler.QueueDiscipline
+import org.opendc.compute.simulator.scheduler.filters.ComputeFilter
+import org.opendc.compute.simulator.scheduler.filters.HostFilter
+import org.opendc.compute.simulator.scheduler.filters.RamFilter
+import org.opendc.compute.simulator.scheduler.filters.VCpuFilter
+import org.opendc.compute.simulator.scheduler.weights.CoreRamWeigher
+import org.opendc.compute.simulator.service.ComputeService
+import org.opendc.compute.simulator.service.ServiceTask
+import org.opendc.compute.topology.clusterTopology
+import org.opendc.simulator.compute.workload.TraceFragment
+import org.opendc.simulator.compute.workload.TraceWorkload
+import org.opendc.simulator.kotlin.SimulationCoroutineScope
+import org.opendc.simulator.kotlin.runSimulation
+import java.io.File
+
+/**
+ * Test suite for the [QueueDiscipline]s of the [ComputeService].
+ *
+ * The tasks run on a single host with 12 cores. Task `a` occupies half of the host until t=600s, so the head task
+ * `b`, which needs the whole host, is blocked until then. Task `c` ends before `a` and can be backfilled without
+ * delaying `b`, while task `d` would still run when `b` is expected to start.
+ */
+class QueueDisciplineTest {
+    @Test
+    fun testFifo() =
+        runSimulation {
+            val starts = run(QueueDiscipline.FIFO)
+
+            // Without backfilling, the tasks start in order of submission
+            assertEquals(listOf("a", "b", "c", "d"), starts.entries.sortedBy { it.value }.map { it.key })
+            assertAll(
+                { assertEquals(0L, starts["a"]) },
+                { assertEquals(600_000L, starts["b"]) },
+                { assertEquals(1_200_000L, starts["c"]) },
+                { assertEquals(1_200_000L, starts["d"]) },
+            )
+        }
+
+    @ParameterizedTest
+    @EnumSource(value = QueueDiscipline::class, names = ["EASY_BACKFILLING", "CONSERVATIVE_BACKFILLING"])
+    fun testBackfilling(discipline: QueueDiscipline) =
+        runSimulation {
+            val starts = run(discipline)
+
+            assertAll(
+                { assertEquals(0L, starts["a"]) },
+                { assertEquals(600_000L, starts["b"], "The reservation of the head should not be delayed") },
+                { assertEquals(0L, starts["c"], "A task that ends before the reservation should be backfilled") },
+                { assertEquals(1_200_000L, starts["d"], "A task that delays the reservation should wait") },
+            )
+        }
+
+    /**
+     * Test that a task is only reserved a host that passes the filters of the scheduler.
+     *
+     * The tasks run on two hosts with 12 cores. Task `a` occupies host H01 until t=600s and task `b` occupies host H02
+     * until t=1200s. The head task `c` may not run on H01, so it is reserved H02 and task `d` can be backfilled on H01
+     * as soon as `a` ends.
+     */
+    @ParameterizedTest
+    @EnumSource(value = QueueDiscipline::class, names = ["EASY_BACKFILLING", "CONSERVATIVE_BACKFILLING"])
+    fun testReservationFilters(discipline: QueueDiscipline) =
+        runSimulation {
+            val filter =
+                HostFilter { host, task ->
+                    when (task.name) {
+                        "a" -> host.host.getName() == "H01"
+                        "c" -> host.host.getName() != "H01"
+                        else -> true
+                    }
+                }
+            val tasks =
+                listOf(
+                    Triple("a", 12, 600_000L),
+                    Triple("b", 12, 1_200_000L),
+                    Triple("c", 12, 600_000L),
+                    Triple("d", 11, 300_000L),
+                )
+            val starts = run(discipline, "dual.json", tasks, filter)
+
+            assertAll(
+                { assertEquals(0L, starts["a"]) },
+                { assertEquals(0L, starts["b"]) },
+                { assertEquals(1_200_000L, starts["c"]) },
+                { assertEquals(600_000L, starts["d"], "A host the head cannot use should not be reserved") },
+            )
+        }
+
+    /**
+     * Run the [tasks] with the specified [discipline] and return the start times of the tasks by name.
+     */
+    private suspend fun SimulationCoroutineScope.run(
+        discipline: QueueDiscipline,
+        topologyName: String = "single.json",
+        tasks: List<Triple<String, Int, Long>> = TASKS,
+        vararg extraFilters: HostFilter,
+    ): Map<String, Long> {
+        val starts = mutableMapOf<String, Long>()
+        val topology = clusterTopology(File("src/test/resources/topologies/$topologyName"))
+        val scheduler =
+            FilterScheduler(
+                filters = listOf(ComputeFilter(), VCpuFilter(1.0), RamFilter(1.0), *extraFilters),
+                weighers = listOf(CoreRamWeigher(multiplier = 1.0)),
+            )
+
+        Provisioner(dispatcher, 0L).use { provisioner ->
+            provisioner.runSteps(
+                setupComputeService("compute.opendc.org", { scheduler }, queueDiscipline = discipline),
+                setupHosts("compute.opendc.org", topology),
+            )
+
+            val service = provisioner.registry.resolve("compute.opendc.org", ComputeService::class.java)!!
+            val client = service.newClient()
+            val watcher =
+                object : TaskWatcher {
+                    override fun onStateChanged(
+                        task: ServiceTask,
+                        newState: TaskState,
+                    ) {
+                        if (newState == TaskState.RUNNING) {
+                            starts.putIfAbsent(task.name, timeSource.millis())
+                        }
+                    }
+                }
+
+            for ((name, cores, duration) in tasks) {
+                val flavor = client.internFlavor(cores, 1024, emptyMap<String, Any>())
+                val workload = TraceWorkload.ofFragments(TraceFragment(duration, 1000.0, cores))
+                client.newTask(name, flavor, workload, emptyMap<String, Any>()).watch(watcher)
+            }
+
+            // Let all tasks finish before the hosts are removed
+            delay(6_000_000)
+            client.close()
+        }
+
+        return starts
+    }
+
+    private companion object {
+        /**
+         * The name, number of cores and duration of the tasks, in order of submission.
+         */
+        val TASKS =
+            listOf(
+                Triple("a", 6, 600_000L),
+                Triple("b", 12, 600_000L),
+                Triple("c", 4, 300_000L),
+                Triple("d", 2, 3_000_000L),
+            )
+    }
+}
@@ -26,6 +26,8 @@ import org.junit.jupiter.api.Assertions.assertEquals
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
 import org.junit.jupiter.api.assertAll
+import org.opendc.compute.failure.models.FailureModel
+import org.opendc.compute.failure.models.FailureSchedule
 import org.opendc.compute.simulator.provisioner.Provisioner
 import org.opendc.compute.simulator.provisioner.registerComputeMonitor
 import org.opendc.compute.simulator.provisioner.setupComputeService
@@ -216,6 +218,56 @@ class ScenarioIntegrationTest {
             )
         }
 
+    /**
+     * Test that a failure that hits a host during an outage, or at the moment it ends, is absorbed by that outage
+     * instead of extending it.
+     */
+    @Test
+    fun testSingleTaskOverlappingFailures() =
+        runSimulation {
+            val seed = 1L
+            val workload = createTestWorkload("single_task", 1.0, seed)
+            val topology = createTopology("single.json")
+            val monitor = monitor
+
+            // The second failure starts during the outage of the first one, the third at the moment it ends
+            var absorbedFailures = 0L
+            val schedule =
+                FailureSchedule(
+                    longArrayOf(1000000, 500000, 500000),
+                    longArrayOf(1000000, 3000000, 1000000),
+                    doubleArrayOf(1.0, 1.0, 1.0),
+                )
+
+            Provisioner(dispatcher, seed).use { provisioner ->
+                provisioner.runSteps(
+                    setupComputeService(serviceDomain = "compute.opendc.org", { computeScheduler }),
+                    registerComputeMonitor(serviceDomain = "compute.opendc.org", monitor),
+                    setupHosts(serviceDomain = "compute.opendc.org", topology),
+                )
+
+                val service = provisioner.registry.resolve("compute.opendc.org", ComputeService::class.java)!!
+                val failureModel =
+                    object : FailureModel(coroutineContext, timeSource, service, Random(seed)) {
+                        override fun createSchedule(): FailureSchedule = schedule
+                    }
+
+                failureModel.use {
+                    it.start()
+                    service.replay(timeSource, workload, seed = seed)
+                }
+                absorbedFailures = failureModel.absorbedFailures
+            }
+
+            // The host is only down during the first outage, after which the task restarts and runs to completion
+            assertAll(
+                { assertEquals(1, monitor.tasksCompleted) { "Task not completed" } },
+                { assertEquals(1000000, monitor.downtime) { "Downtime incorrect" } },
+                { assertEquals(4000000, monitor.activeTime) { "Active time incorrect" } },
+                { assertEquals(2, absorbedFailures) { "Absorbed failures incorrect" } },
+            )
+        }
+
     /**
      * Test a small simulation setup.
      */
@@ -395,6 +447,7 @@ class ScenarioIntegrationTest {
         var powerDraw = 0.0
         var energyUsage = 0.0
         var uptime = 0L
+        var downtime = 0L
 
         override fun record(reader: HostTableReader) {
             idleTime += reader.cpuIdleTime
@@ -404,6 +457,7 @@ class ScenarioIntegrationTest {
             powerDraw += reader.powerDraw
             energyUsage += reader.energyUsage
             uptime += reader.uptime
+            downtime += reader.downtime
         }
     }
 }
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.experiments.base
+
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertAll
+import org.opendc.compute.simulator.provisioner.Provisioner
+import org.opendc.compute.simulator.provisioner.registerComputeMonitor
+import org.opendc.compute.simulator.provisioner.setupComputeService
+import org.opendc.compute.simulator.provisioner.setupHosts
+import org.opendc.compute.simulator.scheduler.FilterScheduler
+import org.opendc.compute.simulator.scheduler.filters.ComputeFilter
+import org.opendc.compute.simulator.scheduler.filters.HostFilter
+import org.opendc.compute.simulator.scheduler.filters.RamFilter
+import org.opendc.compute.simulator.scheduler.filters.VCpuFilter
+import org.opendc.compute.simulator.scheduler.weights.CoreRamWeigher
+import org.opendc.compute.simulator.service.ComputeService
+import org.opendc.compute.topology.clusterTopology
+import org.opendc.compute.workload.Task
+import org.opendc.experiments.base.runner.replay
+import org.opendc.simulator.compute.workload.TraceFragment
+import org.opendc.simulator.compute.workload.TraceWorkload
+import org.opendc.simulator.kotlin.SimulationCoroutineScope
+import org.opendc.simulator.kotlin.runSimulation
+import java.io.File
+import java.time.Instant
+import java.util.UUID
+
+/**
+ * Test suite for replaying a trace on a [ComputeService].
+ *
+ * The trace consists of three tasks of 100 seconds that are submitted at t=0s, t=300s and t=900s relative to the
+ * first task in the trace.
+ */
+class ScenarioReplayerTest {
+    @Test
+    fun testSubmissionTimes() =
+        runSimulation {
+            val (submissions, service) = replay(submitImmediately = false)
+
+            // The submissions follow the trace, and the replay ends once the last task has completed
+            assertAll(
+                { assertEquals(mapOf("a" to 0L, "b" to 300_000L, "c" to 900_000L), submissions) },
+                { assertEquals(3, service.getSchedulerStats().tasksCompleted) },
+                { assertTrue(timeSource.millis() >= 1_000_000L, "The replay should wait for the last task") },
+            )
+        }
+
+    @Test
+    fun testSubmitImmediately() =
+        runSimulation {
+            val (submissions, service) = replay(submitImmediately = true)
+
+            assertAll(
+                { assertEquals(mapOf("a" to 0L, "b" to 0L, "c" to 0L), submissions) },
+                { assertEquals(3, service.getSchedulerStats().tasksCompleted) },
+            )
+        }
+
+    @Test
+    fun testCancellation() =
+        runSimulation {
+            val (submissions, _) =
+                replay(submitImmediately = false) { service ->
+                    val job = launch { service.replay(timeSource, TRACE) }
+                    delay(600_000)
+                    job.cancel()
+
+                    // The remaining tasks of the trace are not submitted after the replay is cancelled
+                    delay(1_200_000)
+                    assertTrue(job.isCancelled)
+                }
+
+            assertEquals(mapOf("a" to 0L, "b" to 300_000L), submissions)
+        }
+
+    /**
+     * Replay [TRACE] on a single host using [body] and return the submission times of the tasks by name, relative to
+     * the start of the simulation.
+     */
+    private suspend fun SimulationCoroutineScope.replay(
+        submitImmediately: Boolean,
+        body: suspend (ComputeService) -> Unit = {
+            it.replay(timeSource, TRACE, submitImmediately = submitImmediately)
+        },
+    ): Pair<Map<String, Long>, ComputeService> {
+        val submissions = mutableMapOf<String, Long>()
+        val topology = clusterTopology(File("src/test/resources/topologies/single.json"))
+
+        // Every task passes the filters when it is scheduled, which records the moment it was submitted
+        val recorder =
+            HostFilter { _, task ->
+                submissions.putIfAbsent(task.name, task.createdAt!!.toEpochMilli())
+                true
+            }
+        val scheduler =
+            FilterScheduler(
+                filters = listOf(ComputeFilter(), VCpuFilter(1.0), RamFilter(1.0), recorder),
+                weighers = listOf(CoreRamWeigher(multiplier = 1.0)),
+            )
+
+        Provisioner(dispatcher, 0L).use { provisioner ->
+            provisioner.runSteps(
+                setupComputeService("compute.opendc.org", { scheduler }),
+                setupHosts("compute.opendc.org", topology),
+                // The metric reader removes the tasks that have finished, which completes the replay
+                registerComputeMonitor("compute.opendc.org", ScenarioIntegrationTest.TestComputeMonitor()),
+            )
+
+            val service = provisioner.registry.resolve("compute.opendc.org", ComputeService::class.java)!!
+            body(service)
+            return submissions to service
+        }
+    }
+
+    private companion object {
+        /**
+         * The trace to replay, whose timestamps do not coincide with the simulation clock.
+         */
+        val TRACE =
+            listOf("a" to 0L, "b" to 300_000L, "c" to 900_000L).map { (name, submission) ->
+                Task(
+                    UUID.nameUUIDFromBytes(name.toByteArray()),
+                    name,
+                    1,
+                    1000.0,
+                    1024,
+                    1000.0 * 100,
+                    Instant.ofEpochMilli(1_000_000_000L + submission),
+                    100_000,
+                    TraceWorkload.ofFragments(TraceFragment(100_000, 1000.0, 1)),
+                )
+            }
+    }
+}
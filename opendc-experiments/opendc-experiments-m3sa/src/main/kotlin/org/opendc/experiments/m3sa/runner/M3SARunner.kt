@@ -25,13 +25,14 @@
 package org.opendc.experiments.m3sa.runner
 
 import org.opendc.experiments.base.experiment.Scenario
+import org.opendc.experiments.base.runner.runExperiment as runBaseExperiment
 import org.opendc.experiments.base.runner.setupOutputFolderStructure
 
 /**
- * Run scenario when no pool is available for parallel execution
+ * Run all scenarios of an experiment on the shared experiment executor.
  *
  * @param experiment The scenarios to run
- * @param parallelism The number of scenarios that can be run in parallel
+ * @param parallelism The number of runs that can be executed in parallel
  */
 public fun runExperiment(
     experiment: List<Scenario>,
@@ -39,5 +40,5 @@ public fun runExperiment(
 ) {
     setupOutputFolderStructure(experiment[0].outputFolder)
 
-    runExperiment(experiment, parallelism)
+    runBaseExperiment(experiment, parallelism)
 }
@@ -24,15 +24,18 @@ package org.opendc.simulator.compute
 
 import kotlinx.coroutines.coroutineScope
 import kotlinx.coroutines.launch
-import org.opendc.simulator.compute.old.SimBareMetalMachine
-import org.opendc.simulator.compute.old.kernel.SimHypervisor
-import org.opendc.simulator.compute.old.model.CpuModel
-import org.opendc.simulator.compute.old.model.MachineModel
-import org.opendc.simulator.compute.old.model.MemoryUnit
-import org.opendc.simulator.compute.old.model.ProcessingNode
-import org.opendc.simulator.compute.old.workload.SimTrace
-import org.opendc.simulator.flow2.FlowEngine
-import org.opendc.simulator.flow2.mux.FlowMultiplexerFactory
+import org.opendc.simulator.Multiplexer
+import org.opendc.simulator.compute.cpu.CpuPowerModels
+import org.opendc.simulator.compute.machine.SimMachine
+import org.opendc.simulator.compute.models.CpuModel
+import org.opendc.simulator.compute.models.MachineModel
+import org.opendc.simulator.compute.models.MemoryUnit
+import org.opendc.simulator.compute.workload.TraceWorkload
+import org.opendc.simulator.engine.FlowEdge
+import org.opendc.simulator.engine.FlowEngine
+import org.opendc.simulator.engine.FlowGraph
+import org.opendc.simulator.engine.FlowNode
+import org.opendc.simulator.engine.FlowSupplier
 import org.opendc.simulator.kotlin.runSimulation
 import org.openjdk.jmh.annotations.Benchmark
 import org.openjdk.jmh.annotations.Fork
@@ -42,121 +45,99 @@ import org.openjdk.jmh.annotations.Setup
 import org.openjdk.jmh.annotations.State
 import org.openjdk.jmh.annotations.Warmup
 import java.util.SplittableRandom
-import java.util.concurrent.ThreadLocalRandom
 import java.util.concurrent.TimeUnit
 
+/**
+ * Benchmarks for stepping through the fragments of a [TraceWorkload] on a [SimMachine].
+ */
 @State(Scope.Thread)
 @Fork(1)
 @Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
 @Measurement(iterations = 5, time = 3, timeUnit = TimeUnit.SECONDS)
 class SimMachineBenchmarks {
     private lateinit var machineModel: MachineModel
-    private lateinit var trace: SimTrace
+    private lateinit var trace: TraceWorkload
 
     @Setup
     fun setUp() {
-        val cpuNode = ProcessingNode("Intel", "Xeon", "amd64", 2)
-
         machineModel =
             MachineModel(
-                // cpus
-                List(cpuNode.coreCount) {
-                    CpuModel(
-                        cpuNode,
-                        it,
-                        1000.0,
-                    )
-                },
-                // memory
-                List(4) { MemoryUnit("Crucial", "MTA18ASF4G72AZ-3G2B1", 3200.0, 32_000) },
+                CpuModel(0, 2, 1000.0, "Intel", "Xeon", "amd64"),
+                MemoryUnit("Crucial", "MTA18ASF4G72AZ-3G2B1", 3200.0, 32_000),
             )
 
-        val random = ThreadLocalRandom.current()
-        val builder = SimTrace.builder()
+        val random = SplittableRandom(1)
+        val builder = TraceWorkload.builder()
         repeat(1000000) {
-            val timestamp = it.toLong() * 1000
-            val deadline = timestamp + 1000
-            builder.add(deadline, random.nextDouble(0.0, 4500.0), 1)
+            builder.add(1000, random.nextDouble(0.0, 4500.0), 1)
         }
         trace = builder.build()
     }
 
+    /**
+     * A single virtual machine runs the trace on the machine.
+     */
     @Benchmark
-    fun benchmarkBareMetal() {
+    fun benchmarkSingleWorkload() {
         return runSimulation {
             val engine = FlowEngine.create(dispatcher)
-            val graph = engine.newGraph()
-            val machine = SimBareMetalMachine.create(graph, machineModel)
-            return@runSimulation machine.runWorkload(trace.createWorkload(0))
+            val machine = createMachine(engine.newGraph())
+
+            return@runSimulation machine.runWorkload(trace)
         }
     }
 
+    /**
+     * Two virtual machines compete for the CPU of the machine.
+     */
     @Benchmark
-    fun benchmarkSpaceSharedHypervisor() {
+    fun benchmarkDoubleWorkload() {
         return runSimulation {
             val engine = FlowEngine.create(dispatcher)
-            val graph = engine.newGraph()
-            val machine = SimBareMetalMachine.create(graph, machineModel)
-            val hypervisor = SimHypervisor.create(FlowMultiplexerFactory.forwardingMultiplexer(), SplittableRandom(1))
+            val machine = createMachine(engine.newGraph())
 
-            launch { machine.runWorkload(hypervisor) }
-
-            val vm = hypervisor.newMachine(machineModel)
-
-            try {
-                return@runSimulation vm.runWorkload(trace.createWorkload(0))
-            } finally {
-                vm.cancel()
-                machine.cancel()
+            coroutineScope {
+                repeat(2) {
+                    launch { machine.runWorkload(trace) }
+                }
             }
         }
     }
 
-    @Benchmark
-    fun benchmarkFairShareHypervisorSingle() {
-        return runSimulation {
-            val engine = FlowEngine.create(dispatcher)
-            val graph = engine.newGraph()
-            val machine = SimBareMetalMachine.create(graph, machineModel)
-            val hypervisor = SimHypervisor.create(FlowMultiplexerFactory.maxMinMultiplexer(), SplittableRandom(1))
+    /**
+     * Construct a [SimMachine] that is connected to an unconstrained power supply.
+     */
+    private fun createMachine(graph: FlowGraph): SimMachine {
+        val powerMux = Multiplexer(graph)
+        graph.addEdge(powerMux, PowerSupplier(graph, 10_000.0))
 
-            launch { machine.runWorkload(hypervisor) }
+        return SimMachine(graph, machineModel, powerMux, CpuPowerModels.linear(350.0, 200.0)) {}
+    }
 
-            val vm = hypervisor.newMachine(machineModel)
+    /**
+     * A [FlowSupplier] that supplies all power that is demanded, up to its capacity.
+     */
+    class PowerSupplier(graph: FlowGraph, private val capacity: Double) : FlowNode(graph), FlowSupplier {
+        override fun onUpdate(now: Long): Long = Long.MAX_VALUE
+
+        override fun handleDemand(
+            consumerEdge: FlowEdge,
+            newDemand: Double,
+        ) {
+            pushSupply(consumerEdge, minOf(newDemand, capacity))
+        }
 
-            try {
-                return@runSimulation vm.runWorkload(trace.createWorkload(0))
-            } finally {
-                vm.cancel()
-                machine.cancel()
-            }
+        override fun pushSupply(
+            consumerEdge: FlowEdge,
+            newSupply: Double,
+        ) {
+            consumerEdge.pushSupply(newSupply)
         }
-    }
 
-    @Benchmark
-    fun benchmarkFairShareHypervisorDouble() {
-        return runSimulation {
-            val engine = FlowEngine.create(dispatcher)
-            val graph = engine.newGraph()
-            val machine = SimBareMetalMachine.create(graph, machineModel)
-            val hypervisor = SimHypervisor.create(FlowMultiplexerFactory.maxMinMultiplexer(), SplittableRandom(1))
+        override fun addConsumerEdge(consumerEdge: FlowEdge) {}
 
-            launch { machine.runWorkload(hypervisor) }
+        override fun removeConsumerEdge(consumerEdge: FlowEdge) {}
 
-            coroutineScope {
-                repeat(2) {
-                    val vm = hypervisor.newMachine(machineModel)
-
-                    launch {
-                        try {
-                            vm.runWorkload(trace.createWorkload(0))
-                        } finally {
-                            machine.cancel()
-                        }
-                    }
-                }
-            }
-            machine.cancel()
-        }
+        override fun getCapacity(): Double = capacity
     }
 }
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.opendc.simulator.compute.cpu;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import org.opendc.simulator.engine.FlowGraph;
+import org.opendc.simulator.engine.FlowNode;
+
+/**
+ * A {@link FlowNode} that updates the power demand of multiple {@link SimCpu}s in batches.
+ *
+ * <p>
+ * Instead of evaluating their {@link CpuPowerModel} on every change of their utilization, the CPUs attached to a batch
+ * mark their power demand as stale. Once per engine round, the batch evaluates the stale CPUs of every power model
+ * using a single call to {@link CpuPowerModel#computePower(double[], double[], int)} and pushes the new power demands
+ * to the PSUs of the CPUs. Since hosts with the same specification share their power model, this allows the
+ * (tabulated) power model of a cluster to be evaluated in a tight loop.
+ *
+ * <p>
+ * The power demands are pushed at the same timestamp at which the utilization changed, in the order in which the
+ * CPUs were attached to the batch. The batch is shared between the partitions of the flow network, since it interacts
+ * with the CPUs outside of {@link org.opendc.simulator.engine.FlowEdge}s.
+ */
+public final class CpuPowerBatch extends FlowNode {
+    /**
+     * The CPUs attached to this batch, grouped by their power model.
+     */
+    private final IdentityHashMap<CpuPowerModel, Group> groups = new IdentityHashMap<>();
+
+    /**
+     * The groups in the order in which they were created.
+     */
+    private final ArrayList<Group> groupList = new ArrayList<>();
+
+    /**
+     * A flag to indicate that an update of the batch has been scheduled.
+     */
+    private boolean scheduled;
+
+    /**
+     * Construct a new {@link CpuPowerBatch} instance.
+     *
+     * @param graph The {@link FlowGraph} to which the batch belongs.
+     */
+    public CpuPowerBatch(FlowGraph graph) {
+        super(graph);
+
+        this.markShared();
+    }
+
+    /**
+     * Attach the specified CPU to this batch.
+     */
+    synchronized void attach(SimCpu cpu) {
+        final CpuPowerModel model = cpu.getCpuPowerModel();
+        Group group = groups.get(model);
+
+        if (group == null) {
+            group = new Group(model);
+            groups.put(model, group);
+            groupList.add(group);
+        }
+
+        cpu.powerBatchIndex = group.add(cpu);
+    }
+
+    /**
+     * Detach the specified CPU from this batch.
+     */
+    synchronized void detach(SimCpu cpu) {
+        final int index = cpu.powerBatchIndex;
+        if (index < 0) {
+            return;
+        }
+
+        groups.get(cpu.getCpuPowerModel()).remove(index);
+        cpu.powerBatchIndex = -1;
+    }
+
+    /**
+     * Mark the power demand of the specified CPU as stale.
+     */
+    synchronized void enqueue(SimCpu cpu) {
+        final int index = cpu.powerBatchIndex;
+        if (index < 0) {
+            return;
+        }
+
+        groups.get(cpu.getCpuPowerModel()).pending.set(index);
+
+        if (!scheduled) {
+            scheduled = true;
+            this.invalidate();
+        }
+    }
+
+    @Override
+    public long onUpdate(long now) {
+        final ArrayList<Group> groupList = this.groupList;
+
+        synchronized (this) {
+            scheduled = false;
+
+            for (Group group : groupList) {
+                group.collect();
+            }
+        }
+
+        for (Group group : groupList) {
+            group.apply();
+        }
+
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * The CPUs of the batch that share the same power model.
+     */
+    private static final class Group {
+        private final CpuPowerModel model;
+
+        private SimCpu[] cpus = new SimCpu[16];
+        private int size;
+
+        private int[] free = new int[16];
+        private int freeCount;
+
+        private final BitSet pending = new BitSet();
+
+        private SimCpu[] batch = new SimCpu[16];
+        private double[] utilizations = new double[16];
+        private double[] powers = new double[16];
+        private int batchSize;
+
+        Group(CpuPowerModel model) {
+            this.model = model;
+        }
+
+        /**
+         * Add the specified CPU to the group and return its index.
+         */
+        int add(SimCpu cpu) {
+            final int index;
+            if (freeCount > 0) {
+                index = free[--freeCount];
+            } else {
+                index = size++;
+
+                if (index == cpus.length) {
+                    final int capacity = cpus.length * 2;
+                    cpus = Arrays.copyOf(cpus, capacity);
+                    free = Arrays.copyOf(free, capacity);
+                    batch = Arrays.copyOf(batch, capacity);
+                    utilizations = Arrays.copyOf(utilizations, capacity);
+                    powers = Arrays.copyOf(powers, capacity);
+                }
+            }
+
+            cpus[index] = cpu;
+            return index;
+        }
+
+        /**
+         * Remove the CPU at the specified index from the group.
+         */
+        void remove(int index) {
+            cpus[index] = null;
+            pending.clear(index);
+            free[freeCount++] = index;
+        }
+
+        /**
+         * Collect the stale CPUs of the group and their current utilization.
+         */
+        void collect() {
+            final BitSet pending = this.pending;
+            final SimCpu[] cpus = this.cpus;
+            final SimCpu[] batch = this.batch;
+            final double[] utilizations = this.utilizations;
+            int batchSize = 0;
+
+            for (int i = pending.nextSetBit(0); i >= 0; i = pending.nextSetBit(i + 1)) {
+                final SimCpu cpu = cpus[i];
+                batch[batchSize] = cpu;
+                utilizations[batchSize] = cpu.getUtilization();
+                batchSize++;
+            }
+
+            pending.clear();
+            this.batchSize = batchSize;
+        }
+
+        /**
+         * Compute and push the power demand of the collected CPUs.
+         */
+        void apply() {
+            final int batchSize = this.batchSize;
+            if (batchSize == 0) {
+                return;
+            }
+
+            final SimCpu[] batch = this.batch;
+            final double[] powers = this.powers;
+
+            model.computePower(utilizations, powers, batchSize);
+
+            for (int i = 0; i < batchSize; i++) {
+                batch[i].applyPowerDemand(powers[i]);
+                batch[i] = null;
+            }
+
+            this.batchSize = 0;
+        }
+    }
+}
@@ -36,6 +36,29 @@ public interface CpuPowerModel {
      */
     double computePower(double utilization);
 
+    /**
+     * Computes the CPU power consumption for a batch of utilization levels.
+     *
+     * @param utilizations The CPU utilization levels.
+     * @param out The array in which the power consumption (in W) of every utilization level is stored.
+     */
+    default void computePower(double[] utilizations, double[] out) {
+        computePower(utilizations, out, utilizations.length);
+    }
+
+    /**
+     * Computes the CPU power consumption for the first <code>length</code> utilization levels of a batch.
+     *
+     * @param utilizations The CPU utilization levels.
+     * @param out The array in which the power consumption (in W) of every utilization level is stored.
+     * @param length The number of utilization levels to compute the power consumption for.
+     */
+    default void computePower(double[] utilizations, double[] out, int length) {
+        for (int i = 0; i < length; i++) {
+            out[i] = computePower(utilizations[i]);
+        }
+    }
+
     String getName();
 
     default String getFullName() {
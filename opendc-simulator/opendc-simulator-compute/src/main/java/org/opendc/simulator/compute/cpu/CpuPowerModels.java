@@ -28,6 +28,11 @@ import java.util.Arrays;
  * A collection {@link CpuPowerModel} implementations.
  */
 public class CpuPowerModels {
+    /**
+     * The maximum number of segments in the lookup table of a {@link TabulatedCpuPowerModel}.
+     */
+    public static final int MAX_TABLE_RESOLUTION = 1 << 16;
+
     private CpuPowerModels() {}
 
     /**
@@ -131,6 +136,24 @@ public class CpuPowerModels {
         return new ZeroIdlePowerDecorator(delegate);
     }
 
+    /**
+     * Approximate an existing {@link CpuPowerModel} using a lookup table with linear interpolation, which avoids
+     * evaluating expensive models (e.g., {@link #sqrt(double, double)} or {@link #mse(double, double, double)}) on
+     * every change in utilization.
+     *
+     * @param delegate The existing {@link CpuPowerModel} to approximate.
+     * @param maxError The maximum absolute error (in W) of the approximation.
+     * @throws IllegalArgumentException if the error bound cannot be met with a table of at most
+     *                                  {@value #MAX_TABLE_RESOLUTION} segments.
+     * @see TabulatedCpuPowerModel#getMaxError()
+     */
+    public static TabulatedCpuPowerModel tabulate(CpuPowerModel delegate, double maxError) {
+        if (!(maxError >= 0.0)) {
+            throw new IllegalArgumentException("Maximum error must be non-negative");
+        }
+        return TabulatedCpuPowerModel.of(delegate, maxError, MAX_TABLE_RESOLUTION);
+    }
+
     private static final class ConstantPowerModel implements CpuPowerModel {
         private final double power;
 
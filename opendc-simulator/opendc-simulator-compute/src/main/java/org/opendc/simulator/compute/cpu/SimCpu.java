@@ -38,6 +38,13 @@ public final class SimCpu extends FlowNode implements FlowSupplier, FlowConsumer
 
     private final CpuPowerModel cpuPowerModel;
 
+    private final CpuPowerBatch powerBatch;
+
+    /**
+     * The index of the CPU in its {@link CpuPowerBatch}, or -1 if the CPU is not attached to a batch.
+     */
+    int powerBatchIndex = -1;
+
     private double currentCpuDemand = 0.0f; // cpu capacity demanded by the mux
     private double currentCpuUtilization = 0.0f;
     private double currentCpuSupplied = 0.0f; // cpu capacity supplied to the mux
@@ -93,6 +100,14 @@ public final class SimCpu extends FlowNode implements FlowSupplier, FlowConsumer
         return cpuModel;
     }
 
+    public CpuPowerModel getCpuPowerModel() {
+        return cpuPowerModel;
+    }
+
+    double getUtilization() {
+        return this.currentCpuUtilization;
+    }
+
     @Override
     public String toString() {
         return "SimBareMetalMachine.Cpu[model=" + cpuModel + "]";
@@ -103,12 +118,23 @@ public final class SimCpu extends FlowNode implements FlowSupplier, FlowConsumer
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
     public SimCpu(FlowGraph graph, CpuModel cpuModel, CpuPowerModel powerModel, int id) {
+        this(graph, cpuModel, powerModel, id, null);
+    }
+
+    /**
+     * Construct a new {@link SimCpu} instance.
+     *
+     * @param powerBatch The {@link CpuPowerBatch} that updates the power demand of the CPU, or <code>null</code> to
+     *                   evaluate the power model on every change of the utilization.
+     */
+    public SimCpu(FlowGraph graph, CpuModel cpuModel, CpuPowerModel powerModel, int id, CpuPowerBatch powerBatch) {
         super(graph);
         this.cpuModel = cpuModel;
         this.maxCapacity = this.cpuModel.getTotalCapacity();
 
         // TODO: connect this to the front-end
         this.cpuPowerModel = powerModel;
+        this.powerBatch = powerBatch;
 
         this.lastCounterUpdate = graph.getEngine().getClock().millis();
 
@@ -126,11 +152,7 @@ public final class SimCpu extends FlowNode implements FlowSupplier, FlowConsumer
         this.currentCpuUtilization = Math.min(this.currentCpuDemand / this.maxCapacity, 1.0);
 
         // Calculate Power Demand and send to PSU
-        double powerDemand = this.cpuPowerModel.computePower(this.currentCpuUtilization);
-
-        if (powerDemand != this.currentPowerDemand) {
-            this.pushDemand(this.psuEdge, powerDemand);
-        }
+        updatePowerDemand();
 
         // Calculate the amount of cpu this can provide
         double cpuSupply = Math.min(this.currentCpuDemand, this.maxCapacity);
@@ -146,6 +168,27 @@ public final class SimCpu extends FlowNode implements FlowSupplier, FlowConsumer
         this.updateCounters(this.clock.millis());
     }
 
+    /**
+     * Update the power demand of the CPU after its utilization has changed, either directly or through its
+     * {@link CpuPowerBatch}.
+     */
+    private void updatePowerDemand() {
+        if (this.powerBatch != null) {
+            this.powerBatch.enqueue(this);
+        } else {
+            applyPowerDemand(this.cpuPowerModel.computePower(this.currentCpuUtilization));
+        }
+    }
+
+    /**
+     * Push the specified power demand to the psu if it has changed.
+     */
+    void applyPowerDemand(double powerDemand) {
+        if (powerDemand != this.currentPowerDemand && this.psuEdge != null) {
+            this.pushDemand(this.psuEdge, powerDemand);
+        }
+    }
+
     /**
      * Update the performance counters of the CPU.
      *
@@ -209,11 +252,7 @@ public final class SimCpu extends FlowNode implements FlowSupplier, FlowConsumer
         this.currentCpuUtilization = Math.min(this.currentCpuDemand / this.maxCapacity, 1.0);
 
         // Calculate Power Demand and send to PSU
-        double powerDemand = this.cpuPowerModel.computePower(this.currentCpuUtilization);
-
-        if (powerDemand != this.currentPowerDemand) {
-            this.pushDemand(this.psuEdge, powerDemand);
-        }
+        updatePowerDemand();
     }
 
     /**
@@ -249,6 +288,10 @@ public final class SimCpu extends FlowNode implements FlowSupplier, FlowConsumer
     public void addSupplierEdge(FlowEdge supplierEdge) {
         this.psuEdge = supplierEdge;
 
+        if (this.powerBatch != null) {
+            this.powerBatch.attach(this);
+        }
+
         this.invalidate();
     }
 
@@ -267,6 +310,10 @@ public final class SimCpu extends FlowNode implements FlowSupplier, FlowConsumer
     @Override
     public void removeSupplierEdge(FlowEdge supplierEdge) {
         this.psuEdge = null;
+
+        if (this.powerBatch != null) {
+            this.powerBatch.detach(this);
+        }
         this.invalidate();
     }
 }
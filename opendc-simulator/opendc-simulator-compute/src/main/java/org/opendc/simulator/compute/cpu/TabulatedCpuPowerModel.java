@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.opendc.simulator.compute.cpu;
+
+/**
+ * A {@link CpuPowerModel} that approximates another model using a lookup table with linear interpolation.
+ *
+ * <p>
+ * The table holds the power draw of the model at equally spaced utilization levels between 0 and 1, such that
+ * evaluating the model only requires a multiplication and a single interpolation step, regardless of the cost of
+ * the original model. The utilization is clamped between 0 and 1. The power draw at zero utilization is stored
+ * separately, so that models with a discontinuity at zero (see {@link CpuPowerModels#zeroIdle(CpuPowerModel)}) are
+ * approximated correctly.
+ *
+ * <p>
+ * Instances are constructed using {@link CpuPowerModels#tabulate(CpuPowerModel, double)}, which selects the smallest
+ * resolution for which the approximation error stays within the requested bound. Instances are immutable and can be
+ * shared between hosts with the same model.
+ */
+public final class TabulatedCpuPowerModel implements CpuPowerModel {
+    /**
+     * The number of points per segment at which the approximation error is measured.
+     */
+    private static final int ERROR_SAMPLES = 8;
+
+    private final CpuPowerModel delegate;
+    private final double[] table;
+    private final int resolution;
+    private final double zeroPower;
+    private final double maxError;
+
+    private TabulatedCpuPowerModel(CpuPowerModel delegate, int resolution) {
+        this.delegate = delegate;
+        this.resolution = resolution;
+        this.zeroPower = delegate.computePower(0.0);
+
+        final double[] table = new double[resolution + 1];
+        // The first level is the limit towards zero utilization, which may differ from the power draw at zero
+        table[0] = delegate.computePower(Double.MIN_VALUE);
+        for (int i = 1; i <= resolution; i++) {
+            table[i] = delegate.computePower((double) i / resolution);
+        }
+        this.table = table;
+        this.maxError = measureError();
+    }
+
+    /**
+     * Construct a {@link TabulatedCpuPowerModel} for the specified model.
+     *
+     * @param delegate The model to approximate.
+     * @param maxError The maximum absolute approximation error (in W).
+     * @param maxResolution The maximum number of segments in the table.
+     * @throws IllegalArgumentException if the error bound cannot be met within the maximum resolution.
+     */
+    static TabulatedCpuPowerModel of(CpuPowerModel delegate, double maxError, int maxResolution) {
+        if (delegate instanceof TabulatedCpuPowerModel tabulated && tabulated.maxError <= maxError) {
+            return tabulated;
+        }
+
+        TabulatedCpuPowerModel model = null;
+        for (int resolution = 16; resolution <= maxResolution; resolution *= 2) {
+            model = new TabulatedCpuPowerModel(delegate, resolution);
+            if (model.maxError <= maxError) {
+                return model;
+            }
+        }
+
+        throw new IllegalArgumentException("Cannot approximate " + delegate + " within " + maxError + " W (best: "
+                + (model != null ? model.maxError : Double.NaN) + " W)");
+    }
+
+    @Override
+    public double computePower(double utilization) {
+        if (!(utilization > 0.0)) {
+            return zeroPower;
+        }
+
+        final double[] table = this.table;
+        final double position = Math.min(utilization, 1.0) * resolution;
+        final int index = Math.min((int) position, resolution - 1);
+        final double lower = table[index];
+        return lower + (table[index + 1] - lower) * (position - index);
+    }
+
+    @Override
+    public void computePower(double[] utilizations, double[] out, int length) {
+        final double[] table = this.table;
+        final int resolution = this.resolution;
+        final double zeroPower = this.zeroPower;
+
+        for (int i = 0; i < length; i++) {
+            final double utilization = utilizations[i];
+
+            if (!(utilization > 0.0)) {
+                out[i] = zeroPower;
+                continue;
+            }
+
+            final double position = Math.min(utilization, 1.0) * resolution;
+            final int index = Math.min((int) position, resolution - 1);
+            final double lower = table[index];
+            out[i] = lower + (table[index + 1] - lower) * (position - index);
+        }
+    }
+
+    /**
+     * Return the model that is approximated by this table.
+     */
+    public CpuPowerModel getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Return the number of segments in the table.
+     */
+    public int getResolution() {
+        return resolution;
+    }
+
+    /**
+     * Return the maximum absolute approximation error (in W) that was measured for this table.
+     */
+    public double getMaxError() {
+        return maxError;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public String getFullName() {
+        return delegate.getFullName();
+    }
+
+    @Override
+    public String toString() {
+        return "TabulatedCpuPowerModel[delegate=" + delegate + ",resolution=" + resolution + ",maxError=" + maxError
+                + "]";
+    }
+
+    /**
+     * Measure the maximum absolute difference between the table and the original model at equally spaced points
+     * within every segment of the table.
+     */
+    private double measureError() {
+        double error = 0.0;
+        for (int i = 0; i < resolution; i++) {
+            for (int j = 1; j < ERROR_SAMPLES; j++) {
+                final double utilization = (i + (double) j / ERROR_SAMPLES) / resolution;
+                error = Math.max(error, Math.abs(computePower(utilization) - delegate.computePower(utilization)));
+            }
+        }
+        return error;
+    }
+}
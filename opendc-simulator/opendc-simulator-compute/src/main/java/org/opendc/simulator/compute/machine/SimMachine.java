@@ -25,6 +25,7 @@ package org.opendc.simulator.compute.machine;
 import java.time.InstantSource;
 import java.util.function.Consumer;
 import org.opendc.simulator.Multiplexer;
+import org.opendc.simulator.compute.cpu.CpuPowerBatch;
 import org.opendc.simulator.compute.cpu.CpuPowerModel;
 import org.opendc.simulator.compute.cpu.SimCpu;
 import org.opendc.simulator.compute.memory.Memory;
@@ -117,6 +118,22 @@ public class SimMachine {
             Multiplexer powerMux,
             CpuPowerModel cpuPowerModel,
             Consumer<Exception> completion) {
+        this(graph, machineModel, powerMux, cpuPowerModel, null, completion);
+    }
+
+    /**
+     * Construct a new {@link SimMachine} whose power demand is updated by the specified {@link CpuPowerBatch}.
+     *
+     * @param powerBatch The {@link CpuPowerBatch} that updates the power demand of the CPU, or <code>null</code> to
+     *                   evaluate the power model on every change of the utilization.
+     */
+    public SimMachine(
+            FlowGraph graph,
+            MachineModel machineModel,
+            Multiplexer powerMux,
+            CpuPowerModel cpuPowerModel,
+            CpuPowerBatch powerBatch,
+            Consumer<Exception> completion) {
         this.graph = graph;
         this.machineModel = machineModel;
         this.clock = graph.getEngine().getClock();
@@ -126,7 +143,7 @@ public class SimMachine {
 
         graph.addEdge(this.psu, powerMux);
 
-        this.cpu = new SimCpu(graph, this.machineModel.getCpuModel(), cpuPowerModel, 0);
+        this.cpu = new SimCpu(graph, this.machineModel.getCpuModel(), cpuPowerModel, 0, powerBatch);
 
         graph.addEdge(this.cpu, this.psu);
 
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.simulator.compute.power;
+
+import java.util.Arrays;
+
+/**
+ * An immutable timeline of the carbon intensity of a power source.
+ * <p>
+ * The timeline consists of consecutive fragments, stored as two primitive arrays. Each fragment starts at its timestamp
+ * and lasts until the start of the next fragment. The first fragment extends to the beginning of time and the last
+ * fragment extends to the end of time. A timeline can be shared by any number of {@link SimPowerSource}s.
+ * <p>
+ * Since the carbon intensity is constant within a fragment, the integral of the carbon intensity over any interval is
+ * computed in closed form from the prefix sums of the fragments (see {@link #integrate(long, long, int)}).
+ */
+public final class CarbonTimeline {
+    private final long[] timestamps;
+    private final double[] intensities;
+
+    /**
+     * The integral of the carbon intensity from the start of the second fragment to the start of every fragment.
+     */
+    private final double[] prefixSums;
+
+    private CarbonTimeline(long[] timestamps, double[] intensities) {
+        this.timestamps = timestamps;
+        this.intensities = intensities;
+
+        final double[] prefixSums = new double[timestamps.length];
+        for (int i = 2; i < timestamps.length; i++) {
+            prefixSums[i] = prefixSums[i - 1] + intensities[i - 1] * (timestamps[i] - timestamps[i - 1]);
+        }
+        this.prefixSums = prefixSums;
+    }
+
+    /**
+     * Construct a {@link CarbonTimeline} from the specified samples, which do not need to be ordered.
+     *
+     * @param timestamps The start times of the fragments (in epoch millis).
+     * @param intensities The carbon intensity of each fragment.
+     * @param size The number of samples to use from the arrays.
+     * @throws IllegalArgumentException if <code>size</code> is not positive or exceeds the length of the arrays.
+     */
+    public static CarbonTimeline of(long[] timestamps, double[] intensities, int size) {
+        if (size <= 0 || size > timestamps.length || size > intensities.length) {
+            throw new IllegalArgumentException("Invalid number of samples: " + size);
+        }
+
+        long[] sortedTimestamps = Arrays.copyOf(timestamps, size);
+        double[] sortedIntensities = Arrays.copyOf(intensities, size);
+
+        boolean isSorted = true;
+        for (int i = 1; i < size; i++) {
+            if (sortedTimestamps[i] < sortedTimestamps[i - 1]) {
+                isSorted = false;
+                break;
+            }
+        }
+
+        if (!isSorted) {
+            // Stable sort of the indices by timestamp, to retain the order of samples with the same timestamp
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(timestamps[a], timestamps[b]));
+
+            for (int i = 0; i < size; i++) {
+                sortedTimestamps[i] = timestamps[order[i]];
+                sortedIntensities[i] = intensities[order[i]];
+            }
+        }
+
+        return new CarbonTimeline(sortedTimestamps, sortedIntensities);
+    }
+
+    /**
+     * Return the number of fragments in the timeline.
+     */
+    public int size() {
+        return timestamps.length;
+    }
+
+    /**
+     * Return the index of the fragment that contains the specified absolute time (in epoch millis).
+     */
+    public int indexOf(long time) {
+        long[] timestamps = this.timestamps;
+
+        // Find the last fragment that starts at or before the given time
+        int low = 1;
+        int high = timestamps.length - 1;
+        int result = 0;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] <= time) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Return the index of the fragment that contains the specified absolute time (in epoch millis), starting the
+     * search at the fragment at index <code>hint</code>, which is efficient when the time moves forward.
+     */
+    public int indexOf(long time, int hint) {
+        if (hint < 0 || hint >= timestamps.length || time < getStartTime(hint)) {
+            return indexOf(time);
+        }
+
+        int index = hint;
+        while (time >= getEndTime(index)) {
+            if (++index - hint > 8) {
+                return indexOf(time);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Return the integral of the carbon intensity over the specified interval (in intensity times milliseconds).
+     *
+     * @param from The start of the interval (in epoch millis).
+     * @param to The end of the interval (in epoch millis).
+     * @param hint The index of the fragment that contains <code>from</code>, used to speed up the search.
+     */
+    public double integrate(long from, long to, int hint) {
+        final int fromIndex = indexOf(from, hint);
+        final int toIndex = indexOf(to, fromIndex);
+
+        if (fromIndex == toIndex) {
+            return intensities[fromIndex] * (to - from);
+        }
+
+        return valueAt(to, toIndex) - valueAt(from, fromIndex);
+    }
+
+    /**
+     * Return the integral of the carbon intensity from the start of the second fragment to the specified time in the
+     * fragment at the specified index.
+     */
+    private double valueAt(long time, int index) {
+        final int origin = Math.max(index, 1);
+        return prefixSums[origin] + intensities[index] * (time - timestamps[origin]);
+    }
+
+    /**
+     * Return the start time of the fragment at the specified index (in epoch millis).
+     */
+    public long getStartTime(int index) {
+        return index == 0 ? Long.MIN_VALUE : timestamps[index];
+    }
+
+    /**
+     * Return the end time (exclusive) of the fragment at the specified index (in epoch millis).
+     */
+    public long getEndTime(int index) {
+        return index == timestamps.length - 1 ? Long.MAX_VALUE : timestamps[index + 1];
+    }
+
+    /**
+     * Return the carbon intensity of the fragment at the specified index.
+     */
+    public double getCarbonIntensity(int index) {
+        return intensities[index];
+    }
+}
@@ -152,6 +152,9 @@ public final class SimBattery  extends FlowNode implements FlowSupplier {
     public SimBattery(FlowGraph graph, double max_capacity, double chargeRate) {
         super(graph);
 
+        // The battery interacts directly with the power source, so it cannot be updated in parallel
+        this.markShared();
+
         this.capacity = max_capacity;
         this.minChargedValue = 0.1*max_capacity;
         this.maxChargedValue = 0.8*max_capacity;
@@ -22,7 +22,6 @@
 
 package org.opendc.simulator.compute.power;
 
-import java.util.List;
 import org.opendc.simulator.compute.cpu.SimCpu;
 import org.opendc.simulator.engine.FlowEdge;
 import org.opendc.simulator.engine.FlowGraph;
@@ -39,10 +38,23 @@ public final class SimPowerSource extends FlowNode implements FlowSupplier {
     private double powerSupplied = 0.0f;
     private double totalEnergyUsage = 0.0f;
 
-    private double carbonIntensity = 0.0f;
     private double totalCarbonEmission = 0.0f;
 
-    private CarbonModel carbonModel = null;
+    /**
+     * The carbon intensity of the power source over time, or <code>null</code> if the carbon intensity is zero.
+     */
+    private CarbonTimeline carbonTimeline;
+
+    /**
+     * The absolute timestamp at which the workload started, which relates the clock to the carbon timeline.
+     */
+    private final long startTime;
+
+    /**
+     * The index of the fragment of the carbon timeline at the last update.
+     */
+    private int carbonIndex;
+
     private FlowEdge muxEdge;
 
     private double capacity = Long.MAX_VALUE;
@@ -85,7 +97,20 @@ public final class SimPowerSource extends FlowNode implements FlowSupplier {
     }
 
     public double getCarbonIntensity() {
-        return this.carbonIntensity;
+        return getCarbonIntensity(this.clock.millis());
+    }
+
+    /**
+     * Return the carbon intensity of the power source at the specified time.
+     */
+    private double getCarbonIntensity(long now) {
+        final CarbonTimeline carbonTimeline = this.carbonTimeline;
+        if (carbonTimeline == null) {
+            return 0.0;
+        }
+
+        this.carbonIndex = carbonTimeline.indexOf(now + this.startTime, this.carbonIndex);
+        return carbonTimeline.getCarbonIntensity(this.carbonIndex);
     }
 
     /**
@@ -110,9 +135,12 @@ public final class SimPowerSource extends FlowNode implements FlowSupplier {
     // Constructors
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
-    public SimPowerSource(FlowGraph graph, double max_capacity, List<CarbonFragment> carbonFragments, long startTime, SimBattery battery, String policy, double policyTheshold) {
+    public SimPowerSource(FlowGraph graph, double max_capacity, CarbonTimeline carbonTimeline, long startTime, SimBattery battery, String policy, double policyTheshold) {
         super(graph);
 
+        // The power source interacts directly with the battery and carbon model, so it cannot be updated in parallel
+        this.markShared();
+
         this.capacity = max_capacity;
         this.battery = battery;
         this.policyName = policy;
@@ -120,19 +148,16 @@ public final class SimPowerSource extends FlowNode implements FlowSupplier {
         this.policy = new BatteryPolicy(policyName, this.policyThreshold);
         this.battery.addConsumerEdge(this.muxEdge);
 
-        if (carbonFragments != null) {
-            this.carbonModel = new CarbonModel(graph, this, carbonFragments, startTime);
-        }
+        // The carbon intensity is looked up in the timeline when needed rather than being pushed at every change, so
+        // the power source does not need to be updated at the boundaries of the fragments
+        this.carbonTimeline = carbonTimeline;
+        this.startTime = startTime;
+
         lastUpdate = this.clock.millis();
         chargingRate = this.clock.millis();
     }
 
     public void close() {
-        if (this.carbonModel != null) {
-            this.carbonModel.close();
-            this.carbonModel = null;
-        }
-
         this.closeNode();
     }
 
@@ -142,7 +167,7 @@ public final class SimPowerSource extends FlowNode implements FlowSupplier {
 
     @Override
     public long onUpdate(long now) {
-        battery.setBatteryState(policy.mainPolicy(battery, carbonIntensity, powerDemand));
+        battery.setBatteryState(policy.mainPolicy(battery, getCarbonIntensity(now), powerDemand));
 
         if(battery.getBatteryState() == SimBattery.STATE.CHARGING){
             double chargeRate = battery.getChargeRate();
@@ -170,7 +195,10 @@ public final class SimPowerSource extends FlowNode implements FlowSupplier {
     }
 
     /**
-     * Calculate the energy usage up until <code>now</code>.
+     * Calculate the energy usage and carbon emission up until <code>now</code>.
+     * <p>
+     * The power draw is constant between two updates, so the carbon emission over the interval is the power draw
+     * multiplied by the integral of the carbon intensity, which is computed in closed form by the timeline.
      */
     public void updateCounters(long now) {
         long lastUpdate = this.lastUpdate;
@@ -182,7 +210,16 @@ public final class SimPowerSource extends FlowNode implements FlowSupplier {
             double energyToBattery = (this.powerToBattery * duration * 0.001);
             // Compute the energy usage of the machine
             this.totalEnergyUsage += energyUsage + energyToBattery;
-            this.totalCarbonEmission += this.carbonIntensity * ((energyUsage + energyToBattery) / 3600000.0);
+
+            final CarbonTimeline carbonTimeline = this.carbonTimeline;
+            if (carbonTimeline != null) {
+                final long from = lastUpdate + this.startTime;
+                final double integral = carbonTimeline.integrate(from, now + this.startTime, this.carbonIndex);
+                final double power = this.powerSupplied + this.powerToBattery;
+
+                this.totalCarbonEmission += power * integral * 0.001 / 3600000.0;
+                this.carbonIndex = carbonTimeline.indexOf(now + this.startTime, this.carbonIndex);
+            }
         }
     }
 
@@ -220,10 +257,4 @@ public final class SimPowerSource extends FlowNode implements FlowSupplier {
     public void removeConsumerEdge(FlowEdge consumerEdge) {
         this.muxEdge = null;
     }
-
-    // Update the carbon intensity of the power source
-    public void updateCarbonIntensity(double carbonIntensity) {
-        this.updateCounters();
-        this.carbonIntensity = carbonIntensity;
-    }
 }
@@ -65,6 +65,13 @@ public class ChainWorkload implements Workload {
         this.workloads.subList(0, numberOfWorkloads).clear();
     }
 
+    /**
+     * Replace the workload at the specified index, e.g., by a snapshot of its progress.
+     */
+    public void setWorkload(int index, Workload workload) {
+        this.workloads.set(index, workload);
+    }
+
     @Override
     public SimWorkload startWorkload(FlowSupplier supplier, long now) {
         return new SimChainWorkload(supplier, this, now);
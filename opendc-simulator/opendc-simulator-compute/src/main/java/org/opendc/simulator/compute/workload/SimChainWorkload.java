@@ -161,6 +161,9 @@ final class SimChainWorkload extends SimWorkload implements FlowSupplier {
         this.workloadIndex = 0;
 
         activeWorkload.makeSnapshot(now);
+
+        // Snapshots of trace workloads are copy-on-write, so the chain needs to refer to the latest snapshot
+        this.snapshot.setWorkload(0, activeWorkload.getSnapshot());
     }
 
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -22,20 +22,44 @@
 
 package org.opendc.simulator.compute.workload;
 
-import java.util.LinkedList;
 import org.opendc.simulator.engine.FlowConsumer;
 import org.opendc.simulator.engine.FlowEdge;
 import org.opendc.simulator.engine.FlowGraph;
 import org.opendc.simulator.engine.FlowNode;
 import org.opendc.simulator.engine.FlowSupplier;
 
+/**
+ * A {@link SimWorkload} that replays a {@link TraceWorkload} by walking over its fragments with a cursor.
+ */
 public class SimTraceWorkload extends SimWorkload implements FlowConsumer {
-    private LinkedList<TraceFragment> remainingFragments;
+    private final long[] durations;
+    private final double[] cpuUsages;
+    private final int size;
+
+    /**
+     * The absolute index of the fragment that is being executed.
+     */
     private int fragmentIndex;
 
-    private TraceFragment currentFragment;
+    /**
+     * The duration and CPU usage of the current fragment. These may differ from the trace when the workload resumes
+     * from a snapshot or performs a checkpoint.
+     */
+    private long currentDuration;
+
+    private double currentUsage;
     private long startOfFragment;
 
+    /**
+     * A flag to indicate that the workload is making a checkpoint, after which the remainder of an earlier checkpoint
+     * ({@link #pendingCheckpoint}) is executed and the fragment at {@link #fragmentIndex} resumes with duration
+     * {@link #resumeDuration}.
+     */
+    private boolean checkpointing;
+
+    private long pendingCheckpoint;
+    private long resumeDuration;
+
     private FlowEdge machineEdge;
     private double currentDemand;
     private double currentSupply;
@@ -71,11 +95,33 @@ public class SimTraceWorkload extends SimWorkload implements FlowConsumer {
         return 0;
     }
 
-    public TraceFragment getNextFragment() {
-        this.currentFragment = this.remainingFragments.pop();
-        this.fragmentIndex++;
+    /**
+     * Move the cursor to the next fragment.
+     *
+     * @return <code>true</code> if there is a next fragment, <code>false</code> if the trace is exhausted.
+     */
+    private boolean nextFragment() {
+        if (this.checkpointing) {
+            if (this.pendingCheckpoint > 0) {
+                this.currentDuration = this.pendingCheckpoint;
+                this.pendingCheckpoint = 0;
+                return true;
+            }
+
+            this.checkpointing = false;
+            this.currentDuration = this.resumeDuration;
+            this.currentUsage = this.cpuUsages[this.fragmentIndex];
+            return true;
+        }
+
+        final int index = ++this.fragmentIndex;
+        if (index >= this.size) {
+            return false;
+        }
 
-        return this.currentFragment;
+        this.currentDuration = this.durations[index];
+        this.currentUsage = this.cpuUsages[index];
+        return true;
     }
 
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -87,14 +133,26 @@ public class SimTraceWorkload extends SimWorkload implements FlowConsumer {
 
         this.snapshot = workload;
         this.checkpointDuration = workload.getCheckpointDuration();
-        this.remainingFragments = new LinkedList<>(workload.getFragments());
-        this.fragmentIndex = 0;
+        this.durations = workload.getDurations();
+        this.cpuUsages = workload.getCpuUsages();
+        this.size = workload.getTotalSize();
+
+        // Resume from the progress recorded in the workload, starting with the remainder of an interrupted checkpoint
+        this.fragmentIndex = workload.getOffset();
+        if (workload.getPendingCheckpoint() > 0) {
+            this.checkpointing = true;
+            this.resumeDuration = workload.getFirstDuration();
+            this.currentDuration = workload.getPendingCheckpoint();
+            this.currentUsage = TraceWorkload.CHECKPOINT_CPU_USAGE;
+        } else {
+            this.currentDuration = workload.getFirstDuration();
+            this.currentUsage = this.fragmentIndex < this.size ? this.cpuUsages[this.fragmentIndex] : 0.0;
+        }
 
         final FlowGraph graph = ((FlowNode) supplier).getGraph();
         graph.addEdge(this, supplier);
 
-        this.currentFragment = this.getNextFragment();
-        pushDemand(machineEdge, this.currentFragment.cpuUsage());
+        pushDemand(machineEdge, this.currentUsage);
         this.startOfFragment = now;
     }
 
@@ -105,7 +163,7 @@ public class SimTraceWorkload extends SimWorkload implements FlowConsumer {
     @Override
     public long onUpdate(long now) {
         long passedTime = getPassedTime(now);
-        long duration = this.currentFragment.duration();
+        long duration = this.currentDuration;
 
         // The current Fragment has not yet been finished, continue
         if (passedTime < duration) {
@@ -115,23 +173,22 @@ public class SimTraceWorkload extends SimWorkload implements FlowConsumer {
         // Loop through fragments until the passed time is filled.
         // We need a while loop to account for skipping of fragments.
         while (passedTime >= duration) {
-            if (this.remainingFragments.isEmpty()) {
+            passedTime = passedTime - duration;
+
+            // get next Fragment
+            if (!this.nextFragment()) {
                 this.stopWorkload();
                 return Long.MAX_VALUE;
             }
 
-            passedTime = passedTime - duration;
-
-            // get next Fragment
-            currentFragment = this.getNextFragment();
-            duration = currentFragment.duration();
+            duration = this.currentDuration;
         }
 
         // start new fragment
         this.startOfFragment = now - passedTime;
 
         // Change the cpu Usage to the new Fragment
-        pushDemand(machineEdge, this.currentFragment.cpuUsage());
+        pushDemand(machineEdge, this.currentUsage);
 
         // Return the time when the current fragment will complete
         return this.startOfFragment + duration;
@@ -142,8 +199,6 @@ public class SimTraceWorkload extends SimWorkload implements FlowConsumer {
         this.closeNode();
 
         this.machineEdge = null;
-        this.remainingFragments = null;
-        this.currentFragment = null;
     }
 
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -162,31 +217,32 @@ public class SimTraceWorkload extends SimWorkload implements FlowConsumer {
      * @param now Moment on which the snapshot is made in milliseconds
      */
     public void makeSnapshot(long now) {
-
-        // Check if fragments is empty
+        // The workload has already finished
+        if (this.fragmentIndex >= this.size) {
+            return;
+        }
 
         // Get remaining time of current fragment
         long passedTime = getPassedTime(now);
-        long remainingTime = currentFragment.duration() - passedTime;
-
-        // Create a new fragment based on the current fragment and remaining duration
-        TraceFragment newFragment =
-                new TraceFragment(remainingTime, currentFragment.cpuUsage(), currentFragment.coreCount());
-
-        // Alter the snapshot by removing finished fragments
-        this.snapshot.removeFragments(this.fragmentIndex);
-        this.snapshot.addFirst(newFragment);
-
-        this.remainingFragments.addFirst(newFragment);
-
-        // Create and add a fragment for processing the snapshot process
-        // TODO: improve the implementation of cpuUsage and coreCount
-        TraceFragment snapshotFragment = new TraceFragment(this.checkpointDuration, 123456, 1);
-        this.remainingFragments.addFirst(snapshotFragment);
+        long remainingTime = this.currentDuration - passedTime;
+
+        // Record the progress in a new snapshot, since the previous one may be shared with other executions
+        if (this.checkpointing) {
+            // A checkpoint is already in progress: its remainder becomes part of the snapshot and is executed after
+            // the new checkpoint
+            this.pendingCheckpoint += remainingTime;
+            this.snapshot = this.snapshot.withProgress(this.fragmentIndex, this.resumeDuration, this.pendingCheckpoint);
+        } else {
+            // Resume the current fragment after the checkpoint
+            this.snapshot = this.snapshot.withProgress(this.fragmentIndex, remainingTime);
+
+            this.checkpointing = true;
+            this.resumeDuration = remainingTime;
+        }
 
-        this.fragmentIndex = -1;
-        this.currentFragment = getNextFragment();
-        pushDemand(this.machineEdge, this.currentFragment.cpuUsage());
+        this.currentDuration = this.checkpointDuration;
+        this.currentUsage = TraceWorkload.CHECKPOINT_CPU_USAGE;
+        pushDemand(this.machineEdge, this.currentUsage);
         this.startOfFragment = now;
 
         this.invalidate();
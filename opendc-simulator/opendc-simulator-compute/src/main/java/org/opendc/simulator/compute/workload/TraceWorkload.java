@@ -23,30 +23,264 @@
 package org.opendc.simulator.compute.workload;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import org.opendc.simulator.engine.FlowSupplier;
 
+/**
+ * A {@link Workload} that replays a trace of CPU usage.
+ *
+ * <p>
+ * The fragments of the trace are stored column-wise in primitive arrays, which are shared by every execution of the
+ * workload and never modified after construction. The progress of the workload (e.g., due to checkpointing) is
+ * tracked as an offset into these arrays together with the remaining duration of the fragment at that offset, and the
+ * remainder of a checkpoint that was interrupted by the snapshot, which is replayed before that fragment.
+ *
+ * <p>
+ * Instances are immutable, so a single workload can safely be shared between tasks, caches and concurrent
+ * simulations. Recording progress creates a new instance that shares the fragments (see {@link #withProgress}).
+ */
 public class TraceWorkload implements Workload {
-    private ArrayList<TraceFragment> fragments;
+    /**
+     * The CPU demand while a checkpoint is being made (in MHz). The demand exceeds the capacity of the modelled
+     * machines, so that a checkpoint uses all CPU capacity that is available to the workload.
+     */
+    static final double CHECKPOINT_CPU_USAGE = 123456;
+
+    /**
+     * The number of cores used while a checkpoint is being made.
+     */
+    static final int CHECKPOINT_CORE_COUNT = 1;
+
+    private final long[] durations;
+    private final double[] cpuUsages;
+    private final int[] coreCounts;
+    private final int size;
+
+    /**
+     * The total duration of the fragments after each fragment, so that the remaining duration of a snapshot can be
+     * computed in constant time.
+     */
+    private final long[] remainingDurations;
+
+    /**
+     * The index of the first fragment that still needs to be executed.
+     */
+    private final int offset;
+
+    /**
+     * The remaining duration of the fragment at {@link #offset}.
+     */
+    private final long firstDuration;
+
+    /**
+     * The remaining duration of an interrupted checkpoint that is executed before the fragment at {@link #offset}, or
+     * <code>0</code> if there is none.
+     */
+    private final long pendingCheckpoint;
+
     private final long checkpointInterval;
     private final long checkpointDuration;
     private final double checkpointIntervalScaling;
 
+    /**
+     * Construct a {@link TraceWorkload} from the specified fragments, which are merged like {@link Builder#add}.
+     */
     public TraceWorkload(
             ArrayList<TraceFragment> fragments,
             long checkpointInterval,
             long checkpointDuration,
             double checkpointIntervalScaling) {
-        this.fragments = fragments;
+        this(builderOf(fragments, checkpointInterval, checkpointDuration, checkpointIntervalScaling));
+    }
+
+    /**
+     * Construct a {@link TraceWorkload} from the fragments that have been added to the specified {@link Builder}.
+     */
+    private TraceWorkload(Builder builder) {
+        this(
+                Arrays.copyOf(builder.durations, builder.size),
+                Arrays.copyOf(builder.cpuUsages, builder.size),
+                Arrays.copyOf(builder.coreCounts, builder.size),
+                builder.checkpointInterval,
+                builder.checkpointDuration,
+                builder.checkpointIntervalScaling);
+    }
+
+    /**
+     * Construct a {@link TraceWorkload} that starts at the first of the specified fragments.
+     */
+    private TraceWorkload(
+            long[] durations,
+            double[] cpuUsages,
+            int[] coreCounts,
+            long checkpointInterval,
+            long checkpointDuration,
+            double checkpointIntervalScaling) {
+        final int size = durations.length;
+
+        this.durations = durations;
+        this.cpuUsages = cpuUsages;
+        this.coreCounts = coreCounts;
+        this.size = size;
+        this.remainingDurations = new long[size];
+        for (int i = size - 2; i >= 0; i--) {
+            this.remainingDurations[i] = this.remainingDurations[i + 1] + durations[i + 1];
+        }
+        this.offset = 0;
+        this.firstDuration = size > 0 ? durations[0] : 0L;
+        this.pendingCheckpoint = 0L;
+        this.checkpointInterval = checkpointInterval;
+        this.checkpointDuration = checkpointDuration;
+        this.checkpointIntervalScaling = checkpointIntervalScaling;
+    }
+
+    private TraceWorkload(
+            long[] durations,
+            double[] cpuUsages,
+            int[] coreCounts,
+            int size,
+            long[] remainingDurations,
+            int offset,
+            long firstDuration,
+            long pendingCheckpoint,
+            long checkpointInterval,
+            long checkpointDuration,
+            double checkpointIntervalScaling) {
+        this.durations = durations;
+        this.cpuUsages = cpuUsages;
+        this.coreCounts = coreCounts;
+        this.size = size;
+        this.remainingDurations = remainingDurations;
+        this.offset = offset;
+        this.firstDuration = firstDuration;
+        this.pendingCheckpoint = pendingCheckpoint;
         this.checkpointInterval = checkpointInterval;
         this.checkpointDuration = checkpointDuration;
         this.checkpointIntervalScaling = checkpointIntervalScaling;
     }
 
-    public ArrayList<TraceFragment> getFragments() {
+    /**
+     * Return the fragments that still need to be executed.
+     *
+     * <p>
+     * This method materializes a {@link TraceFragment} for every remaining fragment and should not be used in
+     * performance sensitive code. Use {@link #getDuration(int)}, {@link #getCpuUsage(int)} and
+     * {@link #getCoreCount(int)} instead.
+     */
+    public List<TraceFragment> getFragments() {
+        final int n = size();
+        final ArrayList<TraceFragment> fragments = new ArrayList<>(n);
+
+        for (int i = 0; i < n; i++) {
+            fragments.add(new TraceFragment(getDuration(i), getCpuUsage(i), getCoreCount(i)));
+        }
+
         return fragments;
     }
 
+    /**
+     * Return the number of fragments that still need to be executed, including an interrupted checkpoint.
+     */
+    public int size() {
+        return size - offset + (pendingCheckpoint > 0 ? 1 : 0);
+    }
+
+    /**
+     * Return the duration of the fragment at the specified index (relative to the first remaining fragment).
+     */
+    public long getDuration(int index) {
+        if (pendingCheckpoint > 0) {
+            if (index == 0) {
+                return pendingCheckpoint;
+            }
+            index--;
+        }
+
+        return index == 0 ? firstDuration : durations[offset + index];
+    }
+
+    /**
+     * Return the CPU usage of the fragment at the specified index (relative to the first remaining fragment).
+     */
+    public double getCpuUsage(int index) {
+        if (pendingCheckpoint > 0) {
+            if (index == 0) {
+                return CHECKPOINT_CPU_USAGE;
+            }
+            index--;
+        }
+
+        return cpuUsages[offset + index];
+    }
+
+    /**
+     * Return the number of cores used by the fragment at the specified index (relative to the first remaining
+     * fragment).
+     */
+    public int getCoreCount(int index) {
+        if (pendingCheckpoint > 0) {
+            if (index == 0) {
+                return CHECKPOINT_CORE_COUNT;
+            }
+            index--;
+        }
+
+        return coreCounts[offset + index];
+    }
+
+    /**
+     * Return the absolute index of the first fragment that still needs to be executed.
+     */
+    int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Return the remaining duration of the first fragment that still needs to be executed.
+     */
+    long getFirstDuration() {
+        return firstDuration;
+    }
+
+    /**
+     * Return the remaining duration of the interrupted checkpoint that is executed first, or <code>0</code> if there is
+     * none.
+     */
+    long getPendingCheckpoint() {
+        return pendingCheckpoint;
+    }
+
+    /**
+     * Return the total duration of the fragments that still need to be executed.
+     */
+    public long getRemainingDuration() {
+        if (offset >= size) {
+            return pendingCheckpoint;
+        }
+
+        return pendingCheckpoint + firstDuration + remainingDurations[offset];
+    }
+
+    /**
+     * Return the total number of fragments in the trace, including the fragments that have been executed.
+     */
+    public int getTotalSize() {
+        return size;
+    }
+
+    long[] getDurations() {
+        return durations;
+    }
+
+    double[] getCpuUsages() {
+        return cpuUsages;
+    }
+
+    int[] getCoreCounts() {
+        return coreCounts;
+    }
+
     @Override
     public long getCheckpointInterval() {
         return checkpointInterval;
@@ -62,15 +296,38 @@ public class TraceWorkload implements Workload {
         return checkpointIntervalScaling;
     }
 
-    public void removeFragments(int numberOfFragments) {
-        if (numberOfFragments <= 0) {
-            return;
-        }
-        this.fragments.subList(0, numberOfFragments).clear();
+    /**
+     * Return a workload that shares the fragments with this workload, but resumes from the specified progress of an
+     * execution. This workload is not modified.
+     *
+     * @param offset The absolute index of the fragment that was being executed.
+     * @param remainingDuration The remaining duration of that fragment.
+     */
+    TraceWorkload withProgress(int offset, long remainingDuration) {
+        return withProgress(offset, remainingDuration, 0L);
     }
 
-    public void addFirst(TraceFragment fragment) {
-        this.fragments.add(0, fragment);
+    /**
+     * Return a workload that shares the fragments with this workload, but resumes from the specified progress of an
+     * execution that was interrupted while making a checkpoint. This workload is not modified.
+     *
+     * @param offset The absolute index of the fragment that resumes after the checkpoint.
+     * @param remainingDuration The remaining duration of that fragment.
+     * @param pendingCheckpoint The remaining duration of the checkpoint, which is executed before that fragment.
+     */
+    TraceWorkload withProgress(int offset, long remainingDuration, long pendingCheckpoint) {
+        return new TraceWorkload(
+                durations,
+                cpuUsages,
+                coreCounts,
+                size,
+                remainingDurations,
+                offset,
+                remainingDuration,
+                pendingCheckpoint,
+                checkpointInterval,
+                checkpointDuration,
+                checkpointIntervalScaling);
     }
 
     @Override
@@ -92,13 +349,7 @@ public class TraceWorkload implements Workload {
      * @param fragments The array of fragments to construct the trace from.
      */
     public static TraceWorkload ofFragments(TraceFragment... fragments) {
-        final Builder builder = builder();
-
-        for (TraceFragment fragment : fragments) {
-            builder.add(fragment.duration(), fragment.cpuUsage(), fragment.coreCount());
-        }
-
-        return builder.build();
+        return ofFragments(Arrays.asList(fragments));
     }
 
     /**
@@ -107,17 +358,31 @@ public class TraceWorkload implements Workload {
      * @param fragments The fragments to construct the trace from.
      */
     public static TraceWorkload ofFragments(List<TraceFragment> fragments) {
-        final Builder builder = builder();
+        return builderOf(fragments, 0L, 0L, 0.0).build();
+    }
+
+    /**
+     * Construct a {@link Builder} to which the specified fragments have been added.
+     */
+    private static Builder builderOf(
+            List<TraceFragment> fragments,
+            long checkpointInterval,
+            long checkpointDuration,
+            double checkpointIntervalScaling) {
+        final Builder builder = builder(checkpointInterval, checkpointDuration, checkpointIntervalScaling);
 
         for (TraceFragment fragment : fragments) {
             builder.add(fragment.duration(), fragment.cpuUsage(), fragment.coreCount());
         }
 
-        return builder.build();
+        return builder;
     }
 
     public static final class Builder {
-        private final ArrayList<TraceFragment> fragments;
+        private long[] durations;
+        private double[] cpuUsages;
+        private int[] coreCounts;
+        private int size;
         private final long checkpointInterval;
         private final long checkpointDuration;
         private final double checkpointIntervalScaling;
@@ -126,7 +391,9 @@ public class TraceWorkload implements Workload {
          * Construct a new {@link Builder} instance.
          */
         private Builder(long checkpointInterval, long checkpointDuration, double checkpointIntervalScaling) {
-            this.fragments = new ArrayList<>();
+            this.durations = new long[16];
+            this.cpuUsages = new double[16];
+            this.coreCounts = new int[16];
             this.checkpointInterval = checkpointInterval;
             this.checkpointDuration = checkpointDuration;
             this.checkpointIntervalScaling = checkpointIntervalScaling;
@@ -135,20 +402,40 @@ public class TraceWorkload implements Workload {
         /**
          * Add a fragment to the trace.
          *
+         * <p>
+         * A fragment with the same CPU usage and core count as the previous fragment is merged into the previous
+         * fragment, since the workload would otherwise wake up at the boundary without changing its demand.
+         *
          * @param duration The timestamp at which the fragment ends (in epoch millis).
          * @param usage The CPU usage at this fragment.
          * @param cores The number of cores used during this fragment.
          */
         public void add(long duration, double usage, int cores) {
-            fragments.add(fragments.size(), new TraceFragment(duration, usage, cores));
+            int size = this.size;
+
+            if (size > 0 && cpuUsages[size - 1] == usage && coreCounts[size - 1] == cores) {
+                durations[size - 1] += duration;
+                return;
+            }
+
+            if (size == durations.length) {
+                int newCapacity = size + (size >> 1);
+                durations = Arrays.copyOf(durations, newCapacity);
+                cpuUsages = Arrays.copyOf(cpuUsages, newCapacity);
+                coreCounts = Arrays.copyOf(coreCounts, newCapacity);
+            }
+
+            durations[size] = duration;
+            cpuUsages[size] = usage;
+            coreCounts[size] = cores;
+            this.size = size + 1;
         }
 
         /**
          * Build the {@link TraceWorkload} instance.
          */
         public TraceWorkload build() {
-            return new TraceWorkload(
-                    this.fragments, this.checkpointInterval, this.checkpointDuration, this.checkpointIntervalScaling);
+            return new TraceWorkload(this);
         }
     }
 }
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.opendc.simulator.compute.cpu
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+import org.opendc.simulator.Multiplexer
+import org.opendc.simulator.SimulationDispatcher
+import org.opendc.simulator.compute.machine.SimMachine
+import org.opendc.simulator.compute.models.CpuModel
+import org.opendc.simulator.compute.models.MachineModel
+import org.opendc.simulator.compute.models.MemoryUnit
+import org.opendc.simulator.compute.workload.TraceFragment
+import org.opendc.simulator.compute.workload.TraceWorkload
+import org.opendc.simulator.engine.FlowEdge
+import org.opendc.simulator.engine.FlowEngine
+import org.opendc.simulator.engine.FlowGraph
+import org.opendc.simulator.engine.FlowNode
+import org.opendc.simulator.engine.FlowSupplier
+import kotlin.random.Random
+
+/**
+ * Test suite for the [CpuPowerBatch] class.
+ */
+class CpuPowerBatchTest {
+    @ParameterizedTest
+    @ValueSource(ints = [1, 4])
+    fun testEquivalence(parallelism: Int) {
+        val expected = simulate(parallelism, batched = false)
+        val actual = simulate(parallelism, batched = true)
+
+        assertEquals(expected, actual)
+    }
+
+    /**
+     * Simulate a number of hosts with fluctuating workloads and return the power draw of every host at the middle
+     * of every second, followed by the energy usage of every host.
+     */
+    private fun simulate(
+        parallelism: Int,
+        batched: Boolean,
+    ): List<List<Double>> {
+        val dispatcher = SimulationDispatcher()
+        val engine = FlowEngine.create(dispatcher, parallelism)
+        val graph = engine.newGraph()
+        val random = Random(0)
+
+        val source = TestSupplier(graph)
+        val powerMux = Multiplexer(graph)
+        powerMux.markShared()
+        graph.addEdge(powerMux, source)
+
+        val batch = if (batched) CpuPowerBatch(graph) else null
+        val models =
+            listOf(
+                CpuPowerModels.tabulate(CpuPowerModels.sqrt(350.0, 200.0), 0.5),
+                CpuPowerModels.linear(350.0, 200.0),
+            )
+        val machineModel =
+            MachineModel(
+                CpuModel(0, 4, 1000.0, "Intel", "Xeon", "amd64"),
+                MemoryUnit("Crucial", "MTA18ASF4G72AZ-3G2B1", 3200.0, 32_000 * 4),
+            )
+
+        val machines =
+            List(16) {
+                val machine = SimMachine(graph, machineModel, powerMux, models[it % models.size], batch) {}
+                val fragments =
+                    List(10 + random.nextInt(10)) {
+                        TraceFragment(1000L * (1 + random.nextInt(3)), random.nextInt(5) * 1000.0, 4)
+                    }
+                machine.startWorkload(TraceWorkload.ofFragments(fragments)) {}
+                machine
+            }
+
+        val result = mutableListOf<List<Double>>()
+        for (time in 500L until 60_000L step 1000L) {
+            dispatcher.schedule(time) { result.add(machines.map { it.psu.powerDraw }) }
+        }
+
+        dispatcher.advanceUntilIdle()
+        result.add(machines.map { it.psu.energyUsage })
+        engine.close()
+
+        return result
+    }
+
+    /**
+     * A [FlowSupplier] that supplies all demand.
+     */
+    private class TestSupplier(graph: FlowGraph) : FlowNode(graph), FlowSupplier {
+        init {
+            markShared()
+        }
+
+        override fun onUpdate(now: Long): Long = Long.MAX_VALUE
+
+        override fun handleDemand(
+            consumerEdge: FlowEdge,
+            newDemand: Double,
+        ) {
+            pushSupply(consumerEdge, newDemand)
+        }
+
+        override fun pushSupply(
+            consumerEdge: FlowEdge,
+            newSupply: Double,
+        ) {
+            consumerEdge.pushSupply(newSupply)
+        }
+
+        override fun addConsumerEdge(consumerEdge: FlowEdge) {}
+
+        override fun removeConsumerEdge(consumerEdge: FlowEdge) {}
+
+        override fun getCapacity(): Double = Double.POSITIVE_INFINITY
+    }
+}
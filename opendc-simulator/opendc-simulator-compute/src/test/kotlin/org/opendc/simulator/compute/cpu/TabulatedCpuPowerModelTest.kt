@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.opendc.simulator.compute.cpu
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertAll
+import org.junit.jupiter.api.assertThrows
+
+/**
+ * Test suite for the [TabulatedCpuPowerModel] class.
+ */
+class TabulatedCpuPowerModelTest {
+    @Test
+    fun testErrorIsBounded() {
+        val model = CpuPowerModels.sqrt(350.0, 200.0)
+        val table = CpuPowerModels.tabulate(model, 0.5)
+
+        assertTrue(table.maxError <= 0.5)
+
+        for (i in 0..10_000) {
+            val utilization = i / 10_000.0
+            assertEquals(model.computePower(utilization), table.computePower(utilization), 0.5)
+        }
+    }
+
+    @Test
+    fun testBatchMatchesScalar() {
+        val table = CpuPowerModels.tabulate(CpuPowerModels.cubic(350.0, 200.0), 0.1)
+        val utilizations = doubleArrayOf(-1.0, 0.0, 0.123, 0.5, 0.999, 1.0, 2.0)
+        val out = DoubleArray(utilizations.size)
+
+        table.computePower(utilizations, out)
+
+        assertAll(utilizations.indices.map { i -> { assertEquals(table.computePower(utilizations[i]), out[i], 1e-9) } })
+    }
+
+    @Test
+    fun testZeroIdle() {
+        val table = CpuPowerModels.tabulate(CpuPowerModels.zeroIdle(CpuPowerModels.linear(350.0, 200.0)), 0.01)
+
+        assertAll(
+            { assertEquals(0.0, table.computePower(0.0)) },
+            { assertEquals(275.0, table.computePower(0.5), 0.01) },
+        )
+    }
+
+    @Test
+    fun testUnreachableBound() {
+        assertThrows<IllegalArgumentException> { CpuPowerModels.tabulate(CpuPowerModels.sqrt(350.0, 200.0), 1e-9) }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.simulator.compute.power
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertAll
+import org.junit.jupiter.api.assertThrows
+
+/**
+ * Test suite for the [CarbonTimeline] class.
+ */
+class CarbonTimelineTest {
+    @Test
+    fun testLookup() {
+        val timeline = CarbonTimeline.of(longArrayOf(2000, 0, 1000), doubleArrayOf(30.0, 10.0, 20.0), 3)
+
+        assertAll(
+            { assertEquals(3, timeline.size()) },
+            { assertEquals(0, timeline.indexOf(-500)) },
+            { assertEquals(0, timeline.indexOf(999)) },
+            { assertEquals(1, timeline.indexOf(1000)) },
+            { assertEquals(2, timeline.indexOf(Long.MAX_VALUE)) },
+            { assertEquals(Long.MIN_VALUE, timeline.getStartTime(0)) },
+            { assertEquals(1000L, timeline.getEndTime(0)) },
+            { assertEquals(Long.MAX_VALUE, timeline.getEndTime(2)) },
+            { assertEquals(20.0, timeline.getCarbonIntensity(1)) },
+        )
+    }
+
+    @Test
+    fun testIntegrate() {
+        val timeline = CarbonTimeline.of(longArrayOf(0, 1000, 2000), doubleArrayOf(10.0, 20.0, 30.0), 3)
+
+        assertAll(
+            { assertEquals(10000.0, timeline.integrate(-500, 500, 0)) },
+            { assertEquals(40000.0, timeline.integrate(500, 2500, 0)) },
+            { assertEquals(0.0, timeline.integrate(1500, 1500, 2)) },
+            { assertEquals(2, timeline.indexOf(2500, 0)) },
+        )
+    }
+
+    @Test
+    fun testEmpty() {
+        assertThrows<IllegalArgumentException> { CarbonTimeline.of(LongArray(0), DoubleArray(0), 0) }
+    }
+}
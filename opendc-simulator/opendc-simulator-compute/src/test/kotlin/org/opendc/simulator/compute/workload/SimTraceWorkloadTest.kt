@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.simulator.compute.workload
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertAll
+import org.opendc.simulator.SimulationDispatcher
+import org.opendc.simulator.engine.FlowEdge
+import org.opendc.simulator.engine.FlowEngine
+import org.opendc.simulator.engine.FlowGraph
+import org.opendc.simulator.engine.FlowNode
+import org.opendc.simulator.engine.FlowSupplier
+
+/**
+ * Test suite for the snapshot and resume functionality of the [SimTraceWorkload] class.
+ */
+class SimTraceWorkloadTest {
+    private lateinit var dispatcher: SimulationDispatcher
+    private lateinit var graph: FlowGraph
+
+    private val workload =
+        TraceWorkload.builder(0, 100, 1.0).apply {
+            add(1000, 10.0, 1)
+            add(2000, 20.0, 1)
+            add(3000, 30.0, 1)
+        }.build()
+
+    @BeforeEach
+    fun setUp() {
+        dispatcher = SimulationDispatcher()
+        graph = FlowEngine.create(dispatcher).newGraph()
+    }
+
+    @Test
+    fun testRunToCompletion() {
+        val supplier = TestSupplier(graph, dispatcher)
+        workload.startWorkload(supplier, 0)
+        dispatcher.advanceUntilIdle()
+
+        assertAll(
+            { assertEquals(listOf(0L to 10.0, 1000L to 20.0, 3000L to 30.0), supplier.demands) },
+            { assertEquals(6000L, supplier.stoppedAt) },
+        )
+    }
+
+    @Test
+    fun testSnapshot() {
+        val supplier = TestSupplier(graph, dispatcher)
+        val running = workload.startWorkload(supplier, 0)
+
+        lateinit var snapshot: TraceWorkload
+        dispatcher.schedule(1500) {
+            running.makeSnapshot(1500)
+            snapshot = running.snapshot as TraceWorkload
+        }
+        dispatcher.advanceUntilIdle()
+
+        assertAll(
+            { assertEquals(3, workload.size()) },
+            { assertEquals(listOf(1500L, 3000L), snapshot.fragments.map { it.duration }) },
+            { assertEquals(listOf(20.0, 30.0), snapshot.fragments.map { it.cpuUsage }) },
+            { assertEquals(4500L, snapshot.remainingDuration) },
+            // The current fragment resumes after the checkpoint
+            { assertEquals(1500L to TraceWorkload.CHECKPOINT_CPU_USAGE, supplier.demands[2]) },
+            { assertEquals(1600L to 20.0, supplier.demands[3]) },
+            { assertEquals(6100L, supplier.stoppedAt) },
+        )
+    }
+
+    @Test
+    fun testSnapshotDuringCheckpoint() {
+        val supplier = TestSupplier(graph, dispatcher)
+        val running = workload.startWorkload(supplier, 0)
+
+        lateinit var snapshot: TraceWorkload
+        dispatcher.schedule(1500) { running.makeSnapshot(1500) }
+        dispatcher.schedule(1550) {
+            running.makeSnapshot(1550)
+            snapshot = running.snapshot as TraceWorkload
+        }
+        dispatcher.advanceUntilIdle()
+
+        assertAll(
+            // The remainder of the interrupted checkpoint is part of the snapshot
+            { assertEquals(listOf(50L, 1500L, 3000L), snapshot.fragments.map { it.duration }) },
+            { assertEquals(TraceWorkload.CHECKPOINT_CPU_USAGE, snapshot.getCpuUsage(0)) },
+            { assertEquals(4550L, snapshot.remainingDuration) },
+            { assertEquals(1700L to 20.0, supplier.demands[3]) },
+            { assertEquals(6200L, supplier.stoppedAt) },
+        )
+    }
+
+    @Test
+    fun testResumeFromSnapshot() {
+        val running = workload.startWorkload(TestSupplier(graph, dispatcher), 0)
+        lateinit var snapshot: Workload
+        dispatcher.schedule(1500) { running.makeSnapshot(1500) }
+        dispatcher.schedule(1550) {
+            running.makeSnapshot(1550)
+            snapshot = running.snapshot
+            running.stopWorkload()
+        }
+        dispatcher.advanceUntilIdle()
+
+        // Restart the snapshot on a new graph, as is done after a failure
+        val dispatcher = SimulationDispatcher()
+        val graph = FlowEngine.create(dispatcher).newGraph()
+        val supplier = TestSupplier(graph, dispatcher)
+        snapshot.startWorkload(supplier, 0)
+        dispatcher.advanceUntilIdle()
+
+        assertAll(
+            {
+                assertEquals(
+                    listOf(0L to TraceWorkload.CHECKPOINT_CPU_USAGE, 50L to 20.0, 1550L to 30.0),
+                    supplier.demands,
+                )
+            },
+            { assertEquals(4550L, supplier.stoppedAt) },
+        )
+    }
+
+    /**
+     * A [FlowSupplier] that records the demand changes of its consumer and the moment it is disconnected.
+     */
+    private class TestSupplier(
+        graph: FlowGraph,
+        private val dispatcher: SimulationDispatcher,
+    ) : FlowNode(graph), FlowSupplier {
+        val demands = mutableListOf<Pair<Long, Double>>()
+        var stoppedAt = -1L
+
+        override fun onUpdate(now: Long): Long = Long.MAX_VALUE
+
+        override fun handleDemand(
+            consumerEdge: FlowEdge,
+            newDemand: Double,
+        ) {
+            demands.add(dispatcher.currentTime to newDemand)
+            pushSupply(consumerEdge, newDemand)
+        }
+
+        override fun pushSupply(
+            consumerEdge: FlowEdge,
+            newSupply: Double,
+        ) {
+            consumerEdge.pushSupply(newSupply)
+        }
+
+        override fun addConsumerEdge(consumerEdge: FlowEdge) {}
+
+        override fun removeConsumerEdge(consumerEdge: FlowEdge) {
+            stoppedAt = dispatcher.currentTime
+        }
+
+        override fun getCapacity(): Double = Double.MAX_VALUE
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.opendc.simulator.compute.workload
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertAll
+
+/**
+ * Test suite for the [TraceWorkload] class.
+ */
+class TraceWorkloadTest {
+    @Test
+    fun testWithProgressDoesNotModifyWorkload() {
+        val workload =
+            TraceWorkload.ofFragments(
+                TraceFragment(1000, 10.0, 1),
+                TraceFragment(2000, 20.0, 1),
+                TraceFragment(3000, 30.0, 1),
+            )
+
+        val snapshot = workload.withProgress(1, 500)
+
+        assertAll(
+            { assertEquals(3, workload.size()) },
+            { assertEquals(6000, workload.remainingDuration) },
+            { assertEquals(2, snapshot.size()) },
+            { assertEquals(500, snapshot.getDuration(0)) },
+            { assertEquals(20.0, snapshot.getCpuUsage(0)) },
+            { assertEquals(3500, snapshot.remainingDuration) },
+        )
+    }
+
+    @Test
+    fun testRemainingDuration() {
+        val workload =
+            TraceWorkload.ofFragments(
+                TraceFragment(1000, 10.0, 1),
+                TraceFragment(2000, 20.0, 1),
+                TraceFragment(3000, 30.0, 1),
+            )
+
+        assertAll(
+            { assertEquals(3250, workload.withProgress(2, 3000, 250).remainingDuration) },
+            { assertEquals(5100, workload.withProgress(1, 2000, 100).remainingDuration) },
+            { assertEquals(100, workload.withProgress(3, 0, 100).remainingDuration) },
+            { assertEquals(0, TraceWorkload.ofFragments().remainingDuration) },
+        )
+    }
+
+    @Test
+    fun testConstructorMergesFragments() {
+        val workload =
+            TraceWorkload(
+                arrayListOf(
+                    TraceFragment(1000, 10.0, 1),
+                    TraceFragment(2000, 10.0, 1),
+                    TraceFragment(3000, 20.0, 1),
+                ),
+                0,
+                0,
+                0.0,
+            )
+
+        // Consecutive fragments with the same demand are merged, as with the builder
+        assertAll(
+            { assertEquals(2, workload.size()) },
+            { assertEquals(3000, workload.getDuration(0)) },
+            { assertEquals(20.0, workload.getCpuUsage(1)) },
+            { assertEquals(6000, workload.remainingDuration) },
+        )
+    }
+}
@@ -25,6 +25,7 @@ description = "Simulation-specific code for use in OpenDC"
 // Build configuration
 plugins {
     `kotlin-library-conventions`
+    `benchmark-conventions`
 }
 
 dependencies {
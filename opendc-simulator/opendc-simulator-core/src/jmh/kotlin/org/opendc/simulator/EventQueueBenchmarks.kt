@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.simulator
+
+import org.opendc.common.DispatcherHandle
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+import java.util.SplittableRandom
+import java.util.concurrent.TimeUnit
+
+/**
+ * Benchmarks comparing the [EventQueue] implementations of the [SimulationDispatcher].
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 3, timeUnit = TimeUnit.SECONDS)
+class EventQueueBenchmarks {
+    @Param("BINARY_HEAP", "INDEXED_HEAP", "CALENDAR")
+    lateinit var queueType: EventQueueType
+
+    @Param("100", "10000")
+    private var sources: Int = 0
+
+    /**
+     * Trace-driven workload: every source advances to the next five-minute fragment boundary, while it arms a
+     * cancellable timer (e.g., a [org.opendc.common.util.Pacer] or coroutine delay) that is cancelled before it fires.
+     */
+    @Benchmark
+    fun benchmarkAlignedFragments(): Long {
+        val dispatcher = SimulationDispatcher(0, queueType)
+        val random = SplittableRandom(1)
+        val fragment = 5 * 60 * 1000L
+        val end = 24 * 60 * 60 * 1000L
+
+        repeat(sources) {
+            dispatcher.schedule(
+                0,
+                object : Runnable {
+                    private var timer: DispatcherHandle? = null
+
+                    override fun run() {
+                        timer?.cancel()
+
+                        if (dispatcher.currentTime + fragment < end) {
+                            timer = dispatcher.scheduleCancellable(random.nextLong(1, 2 * fragment), Runnable {})
+                            dispatcher.schedule(fragment, this)
+                        }
+                    }
+                },
+            )
+        }
+
+        dispatcher.advanceUntilIdle()
+        return dispatcher.currentTime
+    }
+
+    /**
+     * Unaligned workload: every source schedules its next event after a random delay, and half of the armed timers
+     * are cancelled.
+     */
+    @Benchmark
+    fun benchmarkRandomDelays(): Long {
+        val dispatcher = SimulationDispatcher(0, queueType)
+        val random = SplittableRandom(1)
+        val end = 24 * 60 * 60 * 1000L
+
+        repeat(sources) {
+            dispatcher.schedule(
+                0,
+                object : Runnable {
+                    override fun run() {
+                        if (dispatcher.currentTime >= end) {
+                            return
+                        }
+
+                        val timer = dispatcher.scheduleCancellable(random.nextLong(1, 60_000), Runnable {})
+                        if (random.nextBoolean()) {
+                            timer.cancel()
+                        }
+
+                        dispatcher.schedule(random.nextLong(1, 600_000), this)
+                    }
+                },
+            )
+        }
+
+        dispatcher.advanceUntilIdle()
+        return dispatcher.currentTime
+    }
+}
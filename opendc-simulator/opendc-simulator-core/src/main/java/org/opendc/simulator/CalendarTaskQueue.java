@@ -0,0 +1,572 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.simulator;
+
+import java.util.Arrays;
+
+/**
+ * A calendar queue of pending tasks that groups the tasks with the same deadline into a single bucket.
+ *
+ * <p>
+ * Simulations driven by sampled traces schedule many events at exactly the same moment in time (e.g., every five
+ * minutes). Instead of ordering every individual task in a heap, this queue only orders the distinct deadlines, while
+ * the tasks within a bucket are kept in order of their identifier. Since identifiers are handed out in increasing
+ * order by the {@link SimulationDispatcher}, adding a task to a bucket is an append in the common case. Buckets are
+ * located by their deadline through a hash index, so cancelling a task takes <code>O(log b)</code> time, where
+ * <code>b</code> is the size of the bucket.
+ */
+final class CalendarTaskQueue implements EventQueue {
+    /**
+     * The maximum number of empty buckets to retain for re-use.
+     */
+    private static final int MAX_FREE_BUCKETS = 64;
+
+    /**
+     * The non-empty buckets ordered by deadline as a binary heap.
+     */
+    private Bucket[] heap;
+
+    /**
+     * The number of buckets in the heap.
+     */
+    private int heapSize = 0;
+
+    /**
+     * The keys (deadlines) of the bucket index.
+     */
+    private long[] indexKeys;
+
+    /**
+     * The buckets of the bucket index. A <code>null</code> value denotes an empty entry.
+     */
+    private Bucket[] indexBuckets;
+
+    /**
+     * A list of empty buckets that can be re-used.
+     */
+    private Bucket freeList;
+
+    /**
+     * The number of buckets in the free list.
+     */
+    private int freeCount = 0;
+
+    /**
+     * The number of pending tasks in the queue.
+     */
+    private int size = 0;
+
+    /**
+     * Construct a {@link CalendarTaskQueue} with the specified initial number of buckets.
+     *
+     * @param initialCapacity The initial number of distinct deadlines the queue can hold.
+     */
+    CalendarTaskQueue(int initialCapacity) {
+        this.heap = new Bucket[initialCapacity];
+
+        int indexCapacity = Integer.highestOneBit(Math.max(initialCapacity, 4) * 2 - 1) << 1;
+        this.indexKeys = new long[indexCapacity];
+        this.indexBuckets = new Bucket[indexCapacity];
+    }
+
+    /**
+     * Construct a {@link CalendarTaskQueue} with an initial capacity of 64 buckets.
+     */
+    CalendarTaskQueue() {
+        this(64);
+    }
+
+    @Override
+    public void add(long deadline, int id, Runnable task) {
+        Bucket bucket = indexGet(deadline);
+
+        if (bucket == null) {
+            bucket = obtainBucket(deadline);
+            indexPut(bucket);
+            heapAdd(bucket);
+        }
+
+        bucket.add(id, task);
+        size++;
+    }
+
+    @Override
+    public Runnable poll() {
+        if (heapSize == 0) {
+            return null;
+        }
+
+        final Bucket bucket = heap[0];
+        final Runnable result = bucket.poll();
+
+        size--;
+
+        if (bucket.live == 0) {
+            retire(bucket);
+        }
+
+        return result;
+    }
+
+    @Override
+    public long peekDeadline() {
+        if (heapSize == 0) {
+            return Long.MAX_VALUE;
+        }
+
+        return heap[0].deadline;
+    }
+
+    @Override
+    public boolean remove(long deadline, int id) {
+        final Bucket bucket = indexGet(deadline);
+
+        if (bucket == null || !bucket.remove(id)) {
+            return false;
+        }
+
+        size--;
+
+        if (bucket.live == 0) {
+            retire(bucket);
+        }
+
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Obtain an empty bucket for the specified deadline, re-using a bucket from the free list if possible.
+     */
+    private Bucket obtainBucket(long deadline) {
+        Bucket bucket = freeList;
+
+        if (bucket != null) {
+            freeList = bucket.next;
+            bucket.next = null;
+            freeCount--;
+        } else {
+            bucket = new Bucket();
+        }
+
+        bucket.deadline = deadline;
+        return bucket;
+    }
+
+    /**
+     * Remove the specified (empty) bucket from the queue.
+     */
+    private void retire(Bucket bucket) {
+        heapRemove(bucket.heapIndex);
+        indexRemove(bucket.deadline);
+
+        bucket.head = 0;
+        bucket.tail = 0;
+
+        if (freeCount < MAX_FREE_BUCKETS) {
+            bucket.next = freeList;
+            freeList = bucket;
+            freeCount++;
+        }
+    }
+
+    /**
+     * Add the specified bucket to the heap.
+     */
+    private void heapAdd(Bucket bucket) {
+        int i = heapSize;
+
+        if (i >= heap.length) {
+            int oldCapacity = heap.length;
+            heap = Arrays.copyOf(heap, oldCapacity + (oldCapacity < 64 ? oldCapacity + 2 : oldCapacity >> 1));
+        }
+
+        heapSize = i + 1;
+        siftUp(i, bucket);
+    }
+
+    /**
+     * Remove the bucket at the specified position from the heap.
+     */
+    private void heapRemove(int i) {
+        final Bucket[] heap = this.heap;
+        int s = --heapSize;
+
+        if (s == i) {
+            heap[i] = null;
+        } else {
+            Bucket moved = heap[s];
+            heap[s] = null;
+
+            siftDown(i, s, moved);
+            if (heap[i] == moved) {
+                siftUp(i, moved);
+            }
+        }
+    }
+
+    /**
+     * Sift up a bucket in the heap.
+     */
+    private void siftUp(int k, Bucket bucket) {
+        final Bucket[] heap = this.heap;
+        final long deadline = bucket.deadline;
+
+        while (k > 0) {
+            int parent = (k - 1) >>> 1;
+            Bucket parentBucket = heap[parent];
+
+            if (deadline >= parentBucket.deadline) {
+                break;
+            }
+
+            heap[k] = parentBucket;
+            parentBucket.heapIndex = k;
+
+            k = parent;
+        }
+
+        heap[k] = bucket;
+        bucket.heapIndex = k;
+    }
+
+    /**
+     * Sift down a bucket in the heap.
+     */
+    private void siftDown(int k, int n, Bucket bucket) {
+        final Bucket[] heap = this.heap;
+        final long deadline = bucket.deadline;
+
+        int half = n >>> 1; // loop while a non-leaf
+
+        while (k < half) {
+            int child = (k << 1) + 1; // assume left child is least
+            Bucket childBucket = heap[child];
+
+            int right = child + 1;
+            if (right < n && childBucket.deadline > heap[right].deadline) {
+                child = right;
+                childBucket = heap[right];
+            }
+
+            if (deadline <= childBucket.deadline) {
+                break;
+            }
+
+            heap[k] = childBucket;
+            childBucket.heapIndex = k;
+
+            k = child;
+        }
+
+        heap[k] = bucket;
+        bucket.heapIndex = k;
+    }
+
+    /**
+     * Find the bucket for the specified deadline.
+     *
+     * @return The bucket or <code>null</code> if there are no tasks with the specified deadline.
+     */
+    private Bucket indexGet(long deadline) {
+        final long[] keys = this.indexKeys;
+        final Bucket[] buckets = this.indexBuckets;
+        final int mask = keys.length - 1;
+
+        for (int i = hash(deadline) & mask; ; i = (i + 1) & mask) {
+            Bucket bucket = buckets[i];
+            if (bucket == null || keys[i] == deadline) {
+                return bucket;
+            }
+        }
+    }
+
+    /**
+     * Insert the specified bucket into the index.
+     */
+    private void indexPut(Bucket bucket) {
+        if (heapSize + 1 > indexKeys.length >>> 1) {
+            rehash(indexKeys.length << 1);
+        }
+
+        final long[] keys = this.indexKeys;
+        final Bucket[] buckets = this.indexBuckets;
+        final int mask = keys.length - 1;
+
+        int i = hash(bucket.deadline) & mask;
+        while (buckets[i] != null) {
+            i = (i + 1) & mask;
+        }
+
+        keys[i] = bucket.deadline;
+        buckets[i] = bucket;
+    }
+
+    /**
+     * Remove the bucket with the specified deadline from the index.
+     */
+    private void indexRemove(long deadline) {
+        final long[] keys = this.indexKeys;
+        final Bucket[] buckets = this.indexBuckets;
+        final int mask = keys.length - 1;
+
+        int i = hash(deadline) & mask;
+        while (buckets[i] != null && keys[i] != deadline) {
+            i = (i + 1) & mask;
+        }
+
+        if (buckets[i] == null) {
+            return;
+        }
+
+        // Shift back the entries following the removed entry, so that lookups do not need tombstones
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+
+            if (buckets[j] == null) {
+                break;
+            }
+
+            int home = hash(keys[j]) & mask;
+            // Move the entry if its home position is cyclically outside the range (i, j]
+            if (i <= j ? (home <= i || home > j) : (home <= i && home > j)) {
+                keys[i] = keys[j];
+                buckets[i] = buckets[j];
+                i = j;
+            }
+        }
+
+        buckets[i] = null;
+    }
+
+    /**
+     * Resize the index to the specified capacity.
+     */
+    private void rehash(int capacity) {
+        Bucket[] oldBuckets = this.indexBuckets;
+
+        this.indexKeys = new long[capacity];
+        this.indexBuckets = new Bucket[capacity];
+
+        final long[] keys = this.indexKeys;
+        final Bucket[] buckets = this.indexBuckets;
+        final int mask = capacity - 1;
+
+        for (Bucket bucket : oldBuckets) {
+            if (bucket == null) {
+                continue;
+            }
+
+            int i = hash(bucket.deadline) & mask;
+            while (buckets[i] != null) {
+                i = (i + 1) & mask;
+            }
+
+            keys[i] = bucket.deadline;
+            buckets[i] = bucket;
+        }
+    }
+
+    /**
+     * Spread the bits of the deadline, since deadlines are typically multiples of the same interval.
+     */
+    private static int hash(long deadline) {
+        long h = deadline * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * A bucket of tasks that share the same deadline, ordered by their identifier.
+     */
+    private static final class Bucket {
+        /**
+         * The deadline of the tasks in this bucket.
+         */
+        long deadline;
+
+        /**
+         * The position of this bucket in the heap.
+         */
+        int heapIndex;
+
+        /**
+         * The identifiers of the tasks in this bucket.
+         */
+        int[] ids = new int[16];
+
+        /**
+         * The tasks in this bucket. Cancelled tasks are represented by a <code>null</code> value.
+         */
+        Runnable[] tasks = new Runnable[16];
+
+        /**
+         * The position of the first entry in the bucket.
+         */
+        int head;
+
+        /**
+         * The position after the last entry in the bucket.
+         */
+        int tail;
+
+        /**
+         * The number of tasks in this bucket that have not been cancelled.
+         */
+        int live;
+
+        /**
+         * The next bucket in the free list.
+         */
+        Bucket next;
+
+        /**
+         * Add a task to this bucket.
+         */
+        void add(int id, Runnable task) {
+            int tail = this.tail;
+
+            if (tail >= ids.length) {
+                makeRoom();
+                tail = this.tail;
+            }
+
+            final int[] ids = this.ids;
+            final Runnable[] tasks = this.tasks;
+
+            if (tail == head || ids[tail - 1] <= id) {
+                // Common case: identifiers are handed out in increasing order
+                ids[tail] = id;
+                tasks[tail] = task;
+            } else {
+                int i = upperBound(id);
+                System.arraycopy(ids, i, ids, i + 1, tail - i);
+                System.arraycopy(tasks, i, tasks, i + 1, tail - i);
+                ids[i] = id;
+                tasks[i] = task;
+            }
+
+            this.tail = tail + 1;
+            live++;
+        }
+
+        /**
+         * Remove the first task from this bucket.
+         *
+         * @return The first non-cancelled task in this bucket.
+         */
+        Runnable poll() {
+            final Runnable[] tasks = this.tasks;
+            int head = this.head;
+
+            Runnable result;
+            while ((result = tasks[head]) == null) {
+                head++;
+            }
+
+            tasks[head] = null;
+            this.head = head + 1;
+            live--;
+            return result;
+        }
+
+        /**
+         * Cancel the task with the specified identifier.
+         *
+         * @return <code>true</code> if the task was found and cancelled, <code>false</code> otherwise.
+         */
+        boolean remove(int id) {
+            int i = Arrays.binarySearch(ids, head, tail, id);
+
+            if (i < 0) {
+                return false;
+            }
+
+            // Binary search may land on any entry with this identifier, so look for one that has not been cancelled
+            final int[] ids = this.ids;
+            final Runnable[] tasks = this.tasks;
+            while (i > head && ids[i - 1] == id) {
+                i--;
+            }
+
+            for (; i < tail && ids[i] == id; i++) {
+                if (tasks[i] != null) {
+                    tasks[i] = null;
+                    live--;
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        /**
+         * Find the position after the last entry with an identifier smaller than or equal to <code>id</code>.
+         */
+        private int upperBound(int id) {
+            final int[] ids = this.ids;
+            int low = head;
+            int high = tail;
+
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (ids[mid] <= id) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+
+            return low;
+        }
+
+        /**
+         * Make room for a new entry at the end of the bucket, either by compacting or by growing the bucket.
+         */
+        private void makeRoom() {
+            int head = this.head;
+            int count = tail - head;
+
+            if (head > 0 && count < (ids.length >> 1)) {
+                System.arraycopy(ids, head, ids, 0, count);
+                System.arraycopy(tasks, head, tasks, 0, count);
+                Arrays.fill(tasks, count, tail, null);
+            } else {
+                int newCapacity = ids.length << 1;
+                int[] newIds = new int[newCapacity];
+                Runnable[] newTasks = new Runnable[newCapacity];
+                System.arraycopy(ids, head, newIds, 0, count);
+                System.arraycopy(tasks, head, newTasks, 0, count);
+                ids = newIds;
+                tasks = newTasks;
+            }
+
+            this.head = 0;
+            this.tail = count;
+        }
+    }
+}
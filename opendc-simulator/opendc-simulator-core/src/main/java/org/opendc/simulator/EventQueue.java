@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.simulator;
+
+/**
+ * A priority queue of pending tasks used by a {@link SimulationDispatcher}.
+ *
+ * <p>
+ * Tasks are ordered by their deadline and, in case two tasks share the same deadline, by their identifier. Different
+ * implementations trade off the cost of insertion, polling and cancellation (see {@link EventQueueType}).
+ */
+interface EventQueue {
+    /**
+     * Add a new task to this queue.
+     *
+     * @param deadline The deadline of the task.
+     * @param id       The identifier of the task.
+     * @param task     The {@link Runnable} representing the task to execute.
+     */
+    void add(long deadline, int id, Runnable task);
+
+    /**
+     * Retrieve the next task to be executed.
+     *
+     * @return The head of the queue or <code>null</code> if the queue is empty.
+     */
+    Runnable poll();
+
+    /**
+     * Find the earliest deadline in the queue.
+     *
+     * @return The earliest deadline in the queue or {@link Long#MAX_VALUE} if the queue is empty.
+     */
+    long peekDeadline();
+
+    /**
+     * Remove the task with the specified <code>deadline</code> and <code>id</code>.
+     *
+     * @return <code>true</code> if the task was found and removed, <code>false</code> otherwise.
+     */
+    boolean remove(long deadline, int id);
+
+    /**
+     * Return the number of pending tasks in the queue.
+     */
+    int size();
+}
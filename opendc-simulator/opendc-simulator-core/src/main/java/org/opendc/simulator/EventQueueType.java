@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.simulator;
+
+/**
+ * The implementations of the pending task queue that can be used by a {@link SimulationDispatcher}.
+ */
+public enum EventQueueType {
+    /**
+     * A binary heap over primitive arrays. Cancelling a task requires a linear scan over the heap.
+     */
+    BINARY_HEAP {
+        @Override
+        EventQueue create() {
+            return new TaskQueue();
+        }
+    },
+
+    /**
+     * A binary heap that maintains an index from task identifiers to heap slots, such that cancelling a task takes
+     * <code>O(log n)</code> time.
+     */
+    INDEXED_HEAP {
+        @Override
+        EventQueue create() {
+            return new IndexedTaskQueue();
+        }
+    },
+
+    /**
+     * A calendar queue that groups tasks with the same deadline into a single bucket. Only the distinct deadlines are
+     * ordered by a heap, which makes this queue well-suited for workloads where many events happen at the same moment
+     * in time (e.g., trace fragments that are aligned to the same sampling interval).
+     */
+    CALENDAR {
+        @Override
+        EventQueue create() {
+            return new CalendarTaskQueue();
+        }
+    };
+
+    /**
+     * Construct a new, empty {@link EventQueue} of this type.
+     */
+    abstract EventQueue create();
+}
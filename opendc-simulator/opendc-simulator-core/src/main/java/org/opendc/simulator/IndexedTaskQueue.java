@@ -0,0 +1,373 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.simulator;
+
+import java.util.Arrays;
+
+/**
+ * A binary heap of pending tasks that maintains an index from task identifiers to their slot in the heap.
+ *
+ * <p>
+ * In contrast to {@link TaskQueue}, which needs to scan the entire heap to find a task to cancel, this queue locates
+ * the task in constant time via its index, so that cancellation takes <code>O(log n)</code> time. The index is kept
+ * in primitive arrays (open addressing with linear probing) to avoid allocations in the simulator's hot path.
+ *
+ * <p>
+ * This queue assumes that the identifiers of the pending tasks are unique.
+ */
+final class IndexedTaskQueue implements EventQueue {
+    /**
+     * The deadlines of the pending tasks.
+     */
+    private long[] deadlines;
+
+    /**
+     * The identifiers of the pending tasks.
+     */
+    private int[] ids;
+
+    /**
+     * The {@link Runnable}s representing the tasks that have been scheduled.
+     */
+    private Runnable[] tasks;
+
+    /**
+     * The number of elements in the priority queue.
+     */
+    private int size = 0;
+
+    /**
+     * The keys (task identifiers) of the index.
+     */
+    private int[] indexKeys;
+
+    /**
+     * The values (heap slots) of the index. A value of <code>-1</code> denotes an empty entry.
+     */
+    private int[] indexSlots;
+
+    /**
+     * Construct an {@link IndexedTaskQueue} with the specified initial capacity.
+     *
+     * @param initialCapacity The initial capacity of the queue.
+     */
+    IndexedTaskQueue(int initialCapacity) {
+        this.deadlines = new long[initialCapacity];
+        this.ids = new int[initialCapacity];
+        this.tasks = new Runnable[initialCapacity];
+
+        int indexCapacity = Integer.highestOneBit(Math.max(initialCapacity, 4) * 2 - 1) << 1;
+        this.indexKeys = new int[indexCapacity];
+        this.indexSlots = new int[indexCapacity];
+        Arrays.fill(indexSlots, -1);
+    }
+
+    /**
+     * Construct an {@link IndexedTaskQueue} with an initial capacity of 256 elements.
+     */
+    IndexedTaskQueue() {
+        this(256);
+    }
+
+    @Override
+    public void add(long deadline, int id, Runnable task) {
+        int i = size;
+
+        if (i >= deadlines.length) {
+            grow();
+        }
+
+        if (i + 1 > indexKeys.length >>> 1) {
+            rehash(indexKeys.length << 1);
+        }
+
+        size = i + 1;
+        siftUp(i, deadline, id, task);
+    }
+
+    @Override
+    public Runnable poll() {
+        final Runnable[] tasks = this.tasks;
+        final Runnable result = tasks[0];
+
+        if (result != null) {
+            indexRemove(ids[0]);
+
+            int n = --size;
+
+            if (n > 0) {
+                siftDown(0, n, deadlines[n], ids[n], tasks[n]);
+            }
+
+            // Clear the last element of the queue
+            tasks[n] = null;
+        }
+
+        return result;
+    }
+
+    @Override
+    public long peekDeadline() {
+        if (size == 0) {
+            return Long.MAX_VALUE;
+        }
+
+        return deadlines[0];
+    }
+
+    @Override
+    public boolean remove(long deadline, int id) {
+        int i = indexGet(id);
+
+        if (i < 0 || deadlines[i] != deadline) {
+            return false;
+        }
+
+        indexRemove(id);
+
+        Runnable[] tasks = this.tasks;
+        int s = --size;
+
+        if (s == i) {
+            tasks[i] = null;
+        } else {
+            long movedDeadline = deadlines[s];
+            int movedId = ids[s];
+            Runnable movedTask = tasks[s];
+
+            tasks[s] = null;
+
+            siftDown(i, s, movedDeadline, movedId, movedTask);
+            if (ids[i] == movedId) {
+                siftUp(i, movedDeadline, movedId, movedTask);
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Increases the capacity of the priority queue.
+     */
+    private void grow() {
+        int oldCapacity = deadlines.length;
+
+        // Double size if small; else grow by 50%
+        int newCapacity = oldCapacity + (oldCapacity < 64 ? oldCapacity + 2 : oldCapacity >> 1);
+
+        deadlines = Arrays.copyOf(deadlines, newCapacity);
+        ids = Arrays.copyOf(ids, newCapacity);
+        tasks = Arrays.copyOf(tasks, newCapacity);
+    }
+
+    /**
+     * Sift up an entry in the heap.
+     */
+    private void siftUp(int k, long deadline, int id, Runnable task) {
+        final long[] deadlines = this.deadlines;
+        final int[] ids = this.ids;
+        final Runnable[] tasks = this.tasks;
+
+        while (k > 0) {
+            int parent = (k - 1) >>> 1;
+            long parentDeadline = deadlines[parent];
+            int parentId = ids[parent];
+
+            if (compare(deadline, id, parentDeadline, parentId) >= 0) {
+                break;
+            }
+
+            deadlines[k] = parentDeadline;
+            ids[k] = parentId;
+            tasks[k] = tasks[parent];
+            indexPut(parentId, k);
+
+            k = parent;
+        }
+
+        deadlines[k] = deadline;
+        ids[k] = id;
+        tasks[k] = task;
+        indexPut(id, k);
+    }
+
+    /**
+     * Sift down an entry in the heap.
+     */
+    private void siftDown(int k, int n, long deadline, int id, Runnable task) {
+        final long[] deadlines = this.deadlines;
+        final int[] ids = this.ids;
+        final Runnable[] tasks = this.tasks;
+
+        int half = n >>> 1; // loop while a non-leaf
+
+        while (k < half) {
+            int child = (k << 1) + 1; // assume left child is least
+
+            long childDeadline = deadlines[child];
+            int childId = ids[child];
+
+            int right = child + 1;
+            if (right < n) {
+                long rightDeadline = deadlines[right];
+                int rightId = ids[right];
+
+                if (compare(childDeadline, childId, rightDeadline, rightId) > 0) {
+                    child = right;
+                    childDeadline = rightDeadline;
+                    childId = rightId;
+                }
+            }
+
+            if (compare(deadline, id, childDeadline, childId) <= 0) {
+                break;
+            }
+
+            deadlines[k] = childDeadline;
+            ids[k] = childId;
+            tasks[k] = tasks[child];
+            indexPut(childId, k);
+
+            k = child;
+        }
+
+        deadlines[k] = deadline;
+        ids[k] = id;
+        tasks[k] = task;
+        indexPut(id, k);
+    }
+
+    /**
+     * Find the heap slot of the task with the specified identifier.
+     *
+     * @return The slot of the task or <code>-1</code> if the task is not in the queue.
+     */
+    private int indexGet(int id) {
+        final int[] keys = this.indexKeys;
+        final int[] slots = this.indexSlots;
+        final int mask = keys.length - 1;
+
+        for (int i = hash(id) & mask; ; i = (i + 1) & mask) {
+            int slot = slots[i];
+            if (slot < 0) {
+                return -1;
+            } else if (keys[i] == id) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Insert or update the heap slot of the task with the specified identifier.
+     */
+    private void indexPut(int id, int slot) {
+        final int[] keys = this.indexKeys;
+        final int[] slots = this.indexSlots;
+        final int mask = keys.length - 1;
+
+        int i = hash(id) & mask;
+        while (slots[i] >= 0 && keys[i] != id) {
+            i = (i + 1) & mask;
+        }
+
+        keys[i] = id;
+        slots[i] = slot;
+    }
+
+    /**
+     * Remove the task with the specified identifier from the index.
+     */
+    private void indexRemove(int id) {
+        final int[] keys = this.indexKeys;
+        final int[] slots = this.indexSlots;
+        final int mask = keys.length - 1;
+
+        int i = hash(id) & mask;
+        while (keys[i] != id || slots[i] < 0) {
+            if (slots[i] < 0) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+
+        // Shift back the entries following the removed entry, so that lookups do not need tombstones
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+
+            if (slots[j] < 0) {
+                break;
+            }
+
+            int home = hash(keys[j]) & mask;
+            // Move the entry if its home position is cyclically outside the range (i, j]
+            if (i <= j ? (home <= i || home > j) : (home <= i && home > j)) {
+                keys[i] = keys[j];
+                slots[i] = slots[j];
+                i = j;
+            }
+        }
+
+        slots[i] = -1;
+    }
+
+    /**
+     * Resize the index to the specified capacity.
+     */
+    private void rehash(int capacity) {
+        int[] oldKeys = this.indexKeys;
+        int[] oldSlots = this.indexSlots;
+
+        this.indexKeys = new int[capacity];
+        this.indexSlots = new int[capacity];
+        Arrays.fill(indexSlots, -1);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            int slot = oldSlots[i];
+            if (slot >= 0) {
+                indexPut(oldKeys[i], slot);
+            }
+        }
+    }
+
+    /**
+     * Spread the bits of the task identifier, since identifiers are typically allocated sequentially.
+     */
+    private static int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Helper method to compare two task entries.
+     */
+    private static int compare(long leftDeadline, int leftId, long rightDeadline, int rightId) {
+        int cmp = Long.compare(leftDeadline, rightDeadline);
+        return cmp == 0 ? Integer.compare(leftId, rightId) : cmp;
+    }
+}
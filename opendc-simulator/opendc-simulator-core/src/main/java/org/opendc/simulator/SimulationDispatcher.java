@@ -42,9 +42,9 @@ import org.opendc.common.DispatcherHandle;
  */
 public final class SimulationDispatcher implements Dispatcher {
     /**
-     * The {@link TaskQueue} containing the pending tasks.
+     * The {@link EventQueue} containing the pending tasks.
      */
-    private final TaskQueue queue = new TaskQueue();
+    private final EventQueue queue;
 
     /**
      * The current time of the scheduler in milliseconds since epoch.
@@ -61,13 +61,24 @@ public final class SimulationDispatcher implements Dispatcher {
      */
     private final SimulationClock timeSource = new SimulationClock(this);
 
+    /**
+     * Construct a {@link SimulationDispatcher} instance with the specified initial time and queue implementation.
+     *
+     * @param initialTimeMs The initial virtual time of the scheduler in milliseconds since epoch.
+     * @param queueType The type of queue to use for the pending tasks.
+     */
+    public SimulationDispatcher(long initialTimeMs, EventQueueType queueType) {
+        this.currentTime = initialTimeMs;
+        this.queue = queueType.create();
+    }
+
     /**
      * Construct a {@link SimulationDispatcher} instance with the specified initial time.
      *
      * @param initialTimeMs The initial virtual time of the scheduler in milliseconds since epoch.
      */
     public SimulationDispatcher(long initialTimeMs) {
-        this.currentTime = initialTimeMs;
+        this(initialTimeMs, EventQueueType.INDEXED_HEAP);
     }
 
     /**
@@ -86,6 +97,13 @@ public final class SimulationDispatcher implements Dispatcher {
         return currentTime;
     }
 
+    /**
+     * Return the number of tasks that are pending in the queue of this dispatcher.
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
     /**
      * Return the virtual time source associated with this dispatcher.
      *
@@ -118,7 +136,7 @@ public final class SimulationDispatcher implements Dispatcher {
      * tasks in the queue of this scheduler.
      */
     public void advanceUntilIdle() {
-        final TaskQueue queue = this.queue;
+        final EventQueue queue = this.queue;
 
         while (true) {
             long deadline = queue.peekDeadline();
@@ -150,7 +168,7 @@ public final class SimulationDispatcher implements Dispatcher {
             target = Long.MAX_VALUE;
         }
 
-        final TaskQueue queue = this.queue;
+        final EventQueue queue = this.queue;
         long deadline;
 
         while ((deadline = queue.peekDeadline()) < target) {
@@ -167,7 +185,7 @@ public final class SimulationDispatcher implements Dispatcher {
      * Execute the tasks that are scheduled to execute at this moment of virtual time.
      */
     public void runCurrent() {
-        final TaskQueue queue = this.queue;
+        final EventQueue queue = this.queue;
         long currentTime = this.currentTime;
 
         while (queue.peekDeadline() == currentTime) {
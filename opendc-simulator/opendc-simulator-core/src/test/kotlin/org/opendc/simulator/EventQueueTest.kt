@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.simulator
+
+import org.junit.jupiter.api.Assertions.assertAll
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.EnumSource
+import java.util.SplittableRandom
+
+/**
+ * Test suite for the [EventQueue] implementations.
+ */
+class EventQueueTest {
+    /**
+     * Test whether tasks with the same deadline are returned in order of their identifier.
+     */
+    @ParameterizedTest
+    @EnumSource(EventQueueType::class)
+    fun testSameDeadline(type: EventQueueType) {
+        val queue = type.create()
+
+        val entryA = newTask()
+        queue.add(48, 2, entryA)
+
+        val entryB = newTask()
+        queue.add(48, 0, entryB)
+
+        val entryC = newTask()
+        queue.add(48, 1, entryC)
+
+        assertAll(
+            { assertEquals(3, queue.size()) },
+            { assertEquals(48, queue.peekDeadline()) },
+            { assertEquals(entryB, queue.poll()) },
+            { assertEquals(entryC, queue.poll()) },
+            { assertEquals(entryA, queue.poll()) },
+            { assertNull(queue.poll()) },
+            { assertEquals(Long.MAX_VALUE, queue.peekDeadline()) },
+        )
+    }
+
+    /**
+     * Test whether removing all tasks of a deadline exposes the next deadline.
+     */
+    @ParameterizedTest
+    @EnumSource(EventQueueType::class)
+    fun testRemoveAllOfDeadline(type: EventQueueType) {
+        val queue = type.create()
+
+        val entryA = newTask()
+        queue.add(20, 0, entryA)
+        queue.add(20, 1, entryA)
+
+        val entryB = newTask()
+        queue.add(58, 2, entryB)
+
+        assertAll(
+            { assertTrue(queue.remove(20, 1)) },
+            { assertTrue(queue.remove(20, 0)) },
+            { assertFalse(queue.remove(20, 0)) },
+            { assertFalse(queue.remove(58, 1)) },
+            { assertEquals(58, queue.peekDeadline()) },
+            { assertEquals(entryB, queue.poll()) },
+            { assertNull(queue.poll()) },
+        )
+    }
+
+    /**
+     * Test whether the queue produces the same order as the binary heap for a random mix of operations.
+     */
+    @ParameterizedTest
+    @EnumSource(EventQueueType::class)
+    fun testRandomOperations(type: EventQueueType) {
+        val queue = type.create()
+        val reference = TaskQueue(4)
+        val random = SplittableRandom(0)
+        val pending = ArrayList<Pair<Long, Int>>()
+
+        var now = 0L
+        var id = 0
+
+        repeat(20_000) {
+            when (random.nextInt(4)) {
+                0, 1 -> {
+                    val deadline = now + random.nextInt(5) * 300_000L
+                    val task = newTask()
+                    queue.add(deadline, id, task)
+                    reference.add(deadline, id, task)
+                    pending.add(deadline to id)
+                    id++
+                }
+                2 -> {
+                    assertEquals(reference.peekDeadline(), queue.peekDeadline())
+                    val deadline = reference.peekDeadline()
+                    val task = reference.poll()
+                    assertEquals(task, queue.poll())
+
+                    if (task != null) {
+                        now = deadline
+                    }
+                }
+                else -> {
+                    if (pending.isNotEmpty()) {
+                        val (deadline, taskId) = pending.removeAt(random.nextInt(pending.size))
+                        assertEquals(reference.remove(deadline, taskId), queue.remove(deadline, taskId))
+                    }
+                }
+            }
+
+            assertEquals(reference.size(), queue.size())
+        }
+
+        while (true) {
+            val task = reference.poll()
+            assertEquals(task, queue.poll())
+
+            if (task == null) {
+                break
+            }
+        }
+    }
+
+    /**
+     * Construct a new, distinct task instance.
+     */
+    private fun newTask(): Runnable =
+        object : Runnable {
+            override fun run() {}
+        }
+}
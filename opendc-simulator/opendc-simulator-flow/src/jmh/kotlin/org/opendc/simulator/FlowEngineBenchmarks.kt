@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.opendc.simulator
+
+import org.opendc.simulator.MultiplexerBenchmarks.BenchmarkSupplier
+import org.opendc.simulator.engine.FlowConsumer
+import org.opendc.simulator.engine.FlowEdge
+import org.opendc.simulator.engine.FlowEngine
+import org.opendc.simulator.engine.FlowGraph
+import org.opendc.simulator.engine.FlowNode
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+import java.util.SplittableRandom
+import java.util.concurrent.TimeUnit
+
+/**
+ * Benchmarks for the update throughput of the [FlowEngine], where every node updates its demand at the boundaries of
+ * five-minute trace fragments during a simulated day.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 3, timeUnit = TimeUnit.SECONDS)
+class FlowEngineBenchmarks {
+    @Param("100", "10000")
+    private var nodeCount: Int = 0
+
+    @Param("1", "4")
+    private var parallelism: Int = 0
+
+    /**
+     * Every node is connected to its own supplier, such that the nodes form independent partitions.
+     */
+    @Benchmark
+    fun benchmarkIndependentNodes(): Long {
+        val dispatcher = SimulationDispatcher()
+        val engine = FlowEngine.create(dispatcher, parallelism)
+        val graph = engine.newGraph()
+        val random = SplittableRandom(1)
+
+        repeat(nodeCount) {
+            val consumer = FragmentConsumer(graph, random.split())
+            graph.addEdge(consumer, BenchmarkSupplier(graph, 100.0))
+            consumer.invalidate()
+        }
+
+        return runUntilIdle(dispatcher, engine)
+    }
+
+    /**
+     * All nodes are connected to a single [Multiplexer], such that the nodes cannot be updated in parallel.
+     */
+    @Benchmark
+    fun benchmarkMultiplexedNodes(): Long {
+        val dispatcher = SimulationDispatcher()
+        val engine = FlowEngine.create(dispatcher, parallelism)
+        val graph = engine.newGraph()
+        val random = SplittableRandom(1)
+
+        val multiplexer = Multiplexer(graph)
+        graph.addEdge(multiplexer, BenchmarkSupplier(graph, nodeCount * 40.0))
+
+        repeat(nodeCount) {
+            val consumer = FragmentConsumer(graph, random.split())
+            graph.addEdge(consumer, multiplexer)
+            consumer.invalidate()
+        }
+
+        return runUntilIdle(dispatcher, engine)
+    }
+
+    /**
+     * Run the simulation until all nodes have finished.
+     */
+    private fun runUntilIdle(
+        dispatcher: SimulationDispatcher,
+        engine: FlowEngine,
+    ): Long {
+        try {
+            dispatcher.advanceUntilIdle()
+        } finally {
+            engine.close()
+        }
+
+        return dispatcher.currentTime
+    }
+
+    /**
+     * A [FlowConsumer] that pushes a new demand at the start of every fragment.
+     */
+    class FragmentConsumer(graph: FlowGraph, private val random: SplittableRandom) : FlowNode(graph), FlowConsumer {
+        private var edge: FlowEdge? = null
+
+        override fun onUpdate(now: Long): Long {
+            if (now >= END) {
+                return Long.MAX_VALUE
+            }
+
+            pushDemand(edge!!, random.nextDouble(0.0, 100.0))
+            return now + FRAGMENT
+        }
+
+        override fun handleSupply(
+            supplierEdge: FlowEdge,
+            newSupply: Double,
+        ) {}
+
+        override fun pushDemand(
+            supplierEdge: FlowEdge,
+            newDemand: Double,
+        ) {
+            supplierEdge.pushDemand(newDemand)
+        }
+
+        override fun addSupplierEdge(supplierEdge: FlowEdge) {
+            edge = supplierEdge
+        }
+
+        override fun removeSupplierEdge(supplierEdge: FlowEdge) {
+            edge = null
+        }
+
+        private companion object {
+            /**
+             * The duration of a fragment in milliseconds.
+             */
+            const val FRAGMENT = 5 * 60 * 1000L
+
+            /**
+             * The end of the simulation in milliseconds.
+             */
+            const val END = 24 * 60 * 60 * 1000L
+        }
+    }
+}
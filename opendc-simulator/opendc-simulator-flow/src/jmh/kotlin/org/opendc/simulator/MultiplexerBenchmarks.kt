@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.simulator
+
+import org.opendc.simulator.engine.FlowConsumer
+import org.opendc.simulator.engine.FlowEdge
+import org.opendc.simulator.engine.FlowEngine
+import org.opendc.simulator.engine.FlowGraph
+import org.opendc.simulator.engine.FlowNode
+import org.opendc.simulator.engine.FlowSupplier
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+import java.util.SplittableRandom
+import java.util.concurrent.TimeUnit
+
+/**
+ * Benchmarks for the fan-in of a [Multiplexer] with a growing number of consumers.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 3, timeUnit = TimeUnit.SECONDS)
+class MultiplexerBenchmarks {
+    @Param("1", "10", "100", "1000")
+    private var consumerCount: Int = 0
+
+    private lateinit var consumers: Array<BenchmarkConsumer>
+    private lateinit var random: SplittableRandom
+
+    @Setup
+    fun setUp() {
+        val graph = FlowEngine.create(SimulationDispatcher()).newGraph()
+        val multiplexer = Multiplexer(graph)
+
+        // Provision the supplier such that the multiplexer is over-provisioned on average
+        graph.addEdge(multiplexer, BenchmarkSupplier(graph, consumerCount * 40.0))
+
+        random = SplittableRandom(1)
+        consumers =
+            Array(consumerCount) {
+                val consumer = BenchmarkConsumer(graph)
+                graph.addEdge(consumer, multiplexer)
+                consumer.demand(random.nextDouble(0.0, 100.0))
+                consumer
+            }
+    }
+
+    /**
+     * A single consumer changes its demand.
+     */
+    @Benchmark
+    fun benchmarkSingleDemandChange() {
+        val consumer = consumers[random.nextInt(consumers.size)]
+        consumer.demand(random.nextDouble(0.0, 100.0))
+    }
+
+    /**
+     * A single capped consumer changes its demand, but remains capped at the fair share.
+     */
+    @Benchmark
+    fun benchmarkCappedDemandChange() {
+        val consumer = consumers[random.nextInt(consumers.size)]
+        if (consumer.supply < consumer.lastDemand) {
+            consumer.demand(random.nextDouble(100.0, 200.0))
+        }
+    }
+
+    /**
+     * All consumers change their demand (e.g., at a trace fragment boundary).
+     */
+    @Benchmark
+    fun benchmarkAllDemandsChange() {
+        for (consumer in consumers) {
+            consumer.demand(random.nextDouble(0.0, 100.0))
+        }
+    }
+
+    /**
+     * A [FlowSupplier] that supplies the demand up to its capacity.
+     */
+    class BenchmarkSupplier(graph: FlowGraph, private val capacity: Double) : FlowNode(graph), FlowSupplier {
+        override fun onUpdate(now: Long): Long = Long.MAX_VALUE
+
+        override fun handleDemand(
+            consumerEdge: FlowEdge,
+            newDemand: Double,
+        ) {
+            pushSupply(consumerEdge, minOf(newDemand, capacity))
+        }
+
+        override fun pushSupply(
+            consumerEdge: FlowEdge,
+            newSupply: Double,
+        ) {
+            consumerEdge.pushSupply(newSupply)
+        }
+
+        override fun addConsumerEdge(consumerEdge: FlowEdge) {}
+
+        override fun removeConsumerEdge(consumerEdge: FlowEdge) {}
+
+        override fun getCapacity(): Double = capacity
+    }
+
+    /**
+     * A [FlowConsumer] that records the supply it receives.
+     */
+    class BenchmarkConsumer(graph: FlowGraph) : FlowNode(graph), FlowConsumer {
+        private var edge: FlowEdge? = null
+        var supply = 0.0
+        var lastDemand = 0.0
+
+        fun demand(demand: Double) {
+            lastDemand = demand
+            pushDemand(edge!!, demand)
+        }
+
+        override fun onUpdate(now: Long): Long = Long.MAX_VALUE
+
+        override fun handleSupply(
+            supplierEdge: FlowEdge,
+            newSupply: Double,
+        ) {
+            supply = newSupply
+        }
+
+        override fun pushDemand(
+            supplierEdge: FlowEdge,
+            newDemand: Double,
+        ) {
+            supplierEdge.pushDemand(newDemand)
+        }
+
+        override fun addSupplierEdge(supplierEdge: FlowEdge) {
+            edge = supplierEdge
+        }
+
+        override fun removeSupplierEdge(supplierEdge: FlowEdge) {
+            edge = null
+        }
+    }
+}
@@ -22,7 +22,6 @@
 
 package org.opendc.simulator;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import org.opendc.simulator.engine.FlowConsumer;
 import org.opendc.simulator.engine.FlowEdge;
@@ -30,18 +29,39 @@ import org.opendc.simulator.engine.FlowGraph;
 import org.opendc.simulator.engine.FlowNode;
 import org.opendc.simulator.engine.FlowSupplier;
 
+/**
+ * A {@link FlowNode} that multiplexes the supply of a single supplier over multiple consumers.
+ *
+ * <p>
+ * When the total demand of the consumers exceeds the supply, the supply is distributed according to max-min fairness
+ * (water-filling). The demands and supplies of the consumers are stored in primitive arrays, and the consumers are
+ * kept in an index that is sorted by their demand. This index is updated incrementally whenever a consumer changes its
+ * demand, such that no allocations or sorts are necessary in the hot path.
+ */
 public class Multiplexer extends FlowNode implements FlowSupplier, FlowConsumer {
-    private final ArrayList<FlowEdge> consumerEdges = new ArrayList<>();
+    private FlowEdge[] consumerEdges = new FlowEdge[4];
     private FlowEdge supplierEdge;
 
-    private final ArrayList<Double> demands = new ArrayList<>(); // What is demanded by the consumers
-    private final ArrayList<Double> supplies = new ArrayList<>(); // What is supplied to the consumers
+    private double[] demands = new double[4]; // What is demanded by the consumers
+    private double[] supplies = new double[4]; // What is supplied to the consumers
+
+    private int[] sortedConsumers = new int[4]; // The indices of the consumers sorted by their demand (ascending)
+    private int[] sortedPositions = new int[4]; // The position of each consumer in sortedConsumers
+
+    private int consumerCount = 0; // The number of consumers
 
     private double totalDemand; // The total demand of all the consumers
     private double totalSupply; // The total supply from the supplier
 
     private boolean overProvisioned = false;
-    private int currentConsumerIdx = -1;
+
+    private int[] pendingConsumers = new int[4]; // The consumers whose demand is waiting to be supplied
+    private boolean[] pending = new boolean[4]; // Whether a consumer is in the list of pending consumers
+    private int pendingCount = 0;
+    private boolean settling = false; // Whether an update is scheduled to supply the pending consumers
+
+    private double fairShare = Double.POSITIVE_INFINITY; // The supply of the consumers that are capped
+    private int cappedIdx = 0; // The position in sortedConsumers from which consumers are capped at the fair share
 
     private double capacity; // What is the max capacity
 
@@ -62,27 +82,37 @@ public class Multiplexer extends FlowNode implements FlowSupplier, FlowConsumer
     }
 
     public long onUpdate(long now) {
+        this.settling = false;
+
+        // Supply the consumers whose demand has not been answered by the supplier during the engine cycle
+        if (this.pendingCount > 0) {
+            distributeSupply();
+        }
 
         return Long.MAX_VALUE;
     }
 
     private void distributeSupply() {
         // if supply >= demand -> push supplies to all tasks
-        // TODO: possible optimization -> Only has to be done for the specific consumer that changed demand
         if (this.totalSupply >= this.totalDemand) {
 
             // If this came from a state of over provisioning, provide all consumers with their demand
             if (this.overProvisioned) {
-                for (int idx = 0; idx < this.consumerEdges.size(); idx++) {
-                    this.pushSupply(this.consumerEdges.get(idx), this.demands.get(idx));
+                for (int idx = 0; idx < this.consumerCount; idx++) {
+                    this.pushSupply(this.consumerEdges[idx], this.demands[idx]);
                 }
+
+                this.fairShare = Double.POSITIVE_INFINITY;
+                this.cappedIdx = this.consumerCount;
             }
 
-            if (this.currentConsumerIdx != -1) {
-                this.pushSupply(
-                    this.consumerEdges.get(this.currentConsumerIdx), this.demands.get(this.currentConsumerIdx));
-                this.currentConsumerIdx = -1;
+            // Otherwise, only the consumers that changed their demand need to receive a new supply
+            final int[] pendingConsumers = this.pendingConsumers;
+            for (int i = 0; i < this.pendingCount; i++) {
+                int idx = pendingConsumers[i];
+                this.pushSupply(this.consumerEdges[idx], this.demands[idx]);
             }
+            clearPending();
 
             this.overProvisioned = false;
         }
@@ -90,51 +120,123 @@ public class Multiplexer extends FlowNode implements FlowSupplier, FlowConsumer
         // if supply < demand -> distribute the supply over all consumers
         else {
             this.overProvisioned = true;
-            double[] supplies = redistributeSupply(this.demands, this.totalSupply);
-
-            for (int idx = 0; idx < this.consumerEdges.size(); idx++) {
-                this.pushSupply(this.consumerEdges.get(idx), supplies[idx]);
-            }
+            this.redistributeSupply();
         }
     }
 
-    private record Demand(int idx, double value) {}
+    /**
+     * Distribute the total supply over the consumers according to max-min fairness.
+     *
+     * <p>
+     * Consumers are visited in order of increasing demand. Every consumer whose demand is below the fair share of
+     * the remaining supply receives its full demand, after which all remaining consumers are capped at the fair share.
+     */
+    private void redistributeSupply() {
+        final int[] sortedConsumers = this.sortedConsumers;
+        final double[] demands = this.demands;
+        final int n = this.consumerCount;
 
-    private static double[] redistributeSupply(ArrayList<Double> demands, double totalSupply) {
-        int inputSize = demands.size();
+        double availableCapacity = this.totalSupply;
+        double share = Double.POSITIVE_INFINITY;
+        int i = 0;
 
-        final double[] supplies = new double[inputSize];
-        final Demand[] tempDemands = new Demand[inputSize];
+        for (; i < n; i++) {
+            double d = demands[sortedConsumers[i]];
 
-        for (int i = 0; i < inputSize; i++) {
-            tempDemands[i] = new Demand(i, demands.get(i));
+            if (d == 0.0) {
+                continue;
+            }
+
+            double availableShare = availableCapacity / (n - i);
+            if (d >= availableShare) {
+                share = availableShare;
+                break;
+            }
+
+            availableCapacity -= d;
         }
 
-        Arrays.sort(tempDemands, (o1, o2) -> {
-            Double i1 = o1.value;
-            Double i2 = o2.value;
-            return i1.compareTo(i2);
-        });
+        this.fairShare = share;
+        this.cappedIdx = i;
 
-        double availableCapacity = totalSupply; // totalSupply
+        clearPending();
 
-        for (int i = 0; i < inputSize; i++) {
-            double d = tempDemands[i].value;
+        // Push the new supplies to the consumers
+        for (int j = 0; j < n; j++) {
+            int idx = sortedConsumers[j];
+            this.pushSupply(this.consumerEdges[idx], j < i ? demands[idx] : share);
+        }
+    }
 
-            if (d == 0.0) {
-                continue;
-            }
+    /**
+     * Move the consumer at the specified index to its position in the sorted index after its demand changed.
+     */
+    private void reorder(int idx) {
+        final int[] sortedConsumers = this.sortedConsumers;
+        final int[] sortedPositions = this.sortedPositions;
+        final double[] demands = this.demands;
+        final double demand = demands[idx];
+        final int n = this.consumerCount;
+
+        int pos = sortedPositions[idx];
+
+        // Shift consumers with a higher demand to the right
+        while (pos > 0 && demands[sortedConsumers[pos - 1]] > demand) {
+            int other = sortedConsumers[pos - 1];
+            sortedConsumers[pos] = other;
+            sortedPositions[other] = pos;
+            pos--;
+        }
+
+        // Shift consumers with a lower demand to the left
+        while (pos < n - 1 && demands[sortedConsumers[pos + 1]] < demand) {
+            int other = sortedConsumers[pos + 1];
+            sortedConsumers[pos] = other;
+            sortedPositions[other] = pos;
+            pos++;
+        }
 
-            double availableShare = availableCapacity / (inputSize - i);
-            double r = Math.min(d, availableShare);
+        sortedConsumers[pos] = idx;
+        sortedPositions[idx] = pos;
+    }
 
-            int idx = tempDemands[i].idx;
-            supplies[idx] = r; // Update the rates
-            availableCapacity -= r;
+    /**
+     * Mark the consumer at the specified index as waiting for its demand to be supplied.
+     */
+    private void addPending(int idx) {
+        if (!this.pending[idx]) {
+            this.pending[idx] = true;
+            this.pendingConsumers[this.pendingCount++] = idx;
         }
+    }
+
+    /**
+     * Clear the list of consumers waiting for their demand to be supplied.
+     */
+    private void clearPending() {
+        final int[] pendingConsumers = this.pendingConsumers;
+        final boolean[] pending = this.pending;
+
+        for (int i = 0; i < this.pendingCount; i++) {
+            pending[pendingConsumers[i]] = false;
+        }
+
+        this.pendingCount = 0;
+    }
 
-        // Return the used capacity
-        return supplies;
+    /**
+     * Increase the capacity of the consumer arrays.
+     */
+    private void grow() {
+        int newCapacity = this.consumerEdges.length << 1;
+
+        this.consumerEdges = Arrays.copyOf(this.consumerEdges, newCapacity);
+        this.demands = Arrays.copyOf(this.demands, newCapacity);
+        this.supplies = Arrays.copyOf(this.supplies, newCapacity);
+        this.sortedConsumers = Arrays.copyOf(this.sortedConsumers, newCapacity);
+        this.sortedPositions = Arrays.copyOf(this.sortedPositions, newCapacity);
+        this.pendingConsumers = Arrays.copyOf(this.pendingConsumers, newCapacity);
+        this.pending = Arrays.copyOf(this.pending, newCapacity);
     }
 
     /**
@@ -143,11 +245,25 @@ public class Multiplexer extends FlowNode implements FlowSupplier, FlowConsumer
      */
     @Override
     public void addConsumerEdge(FlowEdge consumerEdge) {
-        consumerEdge.setConsumerIndex(this.consumerEdges.size());
+        int idx = this.consumerCount;
+
+        if (idx == this.consumerEdges.length) {
+            grow();
+        }
 
-        this.consumerEdges.add(consumerEdge);
-        this.demands.add(0.0);
-        this.supplies.add(0.0);
+        consumerEdge.setConsumerIndex(idx);
+
+        this.consumerEdges[idx] = consumerEdge;
+        this.demands[idx] = 0.0;
+        this.supplies[idx] = 0.0;
+        this.sortedConsumers[idx] = idx;
+        this.sortedPositions[idx] = idx;
+        this.consumerCount = idx + 1;
+
+        reorder(idx);
+
+        // A consumer without demand is never capped
+        this.cappedIdx++;
     }
 
     @Override
@@ -165,18 +281,58 @@ public class Multiplexer extends FlowNode implements FlowSupplier, FlowConsumer
             return;
         }
 
-        this.totalDemand -= consumerEdge.getDemand();
+        this.totalDemand -= this.demands[idx];
+
+        final FlowEdge[] consumerEdges = this.consumerEdges;
+        final double[] demands = this.demands;
+        final double[] supplies = this.supplies;
+        final int[] sortedConsumers = this.sortedConsumers;
+        final int n = --this.consumerCount;
 
-        this.consumerEdges.remove(idx);
-        this.demands.remove(idx);
-        this.supplies.remove(idx);
+        // Remove the consumer from the sorted index
+        int pos = this.sortedPositions[idx];
+        System.arraycopy(sortedConsumers, pos + 1, sortedConsumers, pos, n - pos);
+
+        // Remove the consumer from the arrays
+        System.arraycopy(consumerEdges, idx + 1, consumerEdges, idx, n - idx);
+        System.arraycopy(demands, idx + 1, demands, idx, n - idx);
+        System.arraycopy(supplies, idx + 1, supplies, idx, n - idx);
+        System.arraycopy(this.pending, idx + 1, this.pending, idx, n - idx);
+        consumerEdges[n] = null;
+        this.pending[n] = false;
 
         // update the consumer index for all consumerEdges higher than this.
-        for (int i = idx; i < this.consumerEdges.size(); i++) {
-            this.consumerEdges.get(i).setConsumerIndex(i);
+        for (int i = idx; i < n; i++) {
+            consumerEdges[i].setConsumerIndex(i);
+        }
+
+        final int[] sortedPositions = this.sortedPositions;
+        for (int i = 0; i < n; i++) {
+            int other = sortedConsumers[i];
+            if (other > idx) {
+                other--;
+                sortedConsumers[i] = other;
+            }
+            sortedPositions[other] = i;
+        }
+
+        // Remove the consumer from the pending consumers
+        final int[] pendingConsumers = this.pendingConsumers;
+        int pendingCount = 0;
+        for (int i = 0; i < this.pendingCount; i++) {
+            int other = pendingConsumers[i];
+            if (other != idx) {
+                pendingConsumers[pendingCount++] = other > idx ? other - 1 : other;
+            }
+        }
+        this.pendingCount = pendingCount;
+
+        if (pos < this.cappedIdx) {
+            this.cappedIdx--;
         }
 
-        this.currentConsumerIdx = -1;
+        // The supplies are not redistributed after removing a consumer, so the fair share is no longer valid
+        this.fairShare = Double.NaN;
 
         this.pushDemand(this.supplierEdge, this.totalDemand);
     }
@@ -192,26 +348,42 @@ public class Multiplexer extends FlowNode implements FlowSupplier, FlowConsumer
     public void handleDemand(FlowEdge consumerEdge, double newDemand) {
         int idx = consumerEdge.getConsumerIndex();
 
-        this.currentConsumerIdx = idx;
-
         if (idx == -1) {
             System.out.println("Error (Multiplexer): Demand pushed by an unknown consumer");
             return;
         }
 
         // Update the total demand (This is cheaper than summing over all demands)
-        double prevDemand = demands.get(idx);
+        double prevDemand = demands[idx];
 
-        demands.set(idx, newDemand);
+        demands[idx] = newDemand;
         this.totalDemand += (newDemand - prevDemand);
 
+        boolean wasCapped = this.sortedPositions[idx] >= this.cappedIdx;
+        reorder(idx);
+
         if (overProvisioned) {
-            distributeSupply();
+            // If the consumer remains capped at the fair share, the supplies of all consumers are unchanged
+            boolean unchanged = wasCapped && newDemand >= this.fairShare && this.totalSupply < this.totalDemand;
+            if (!unchanged) {
+                distributeSupply();
+            }
+        } else {
+            // The consumer receives its demand once the supplier responds to the new total demand
+            addPending(idx);
         }
 
         // Send new totalDemand to CPU
-        // TODO: Look at what happens if total demand is not changed (if total demand is higher than totalSupply)
         this.pushDemand(this.supplierEdge, this.totalDemand);
+
+        // The supplier does not respond if its supply is unchanged (e.g., when it is saturated or when two consumers
+        // exchange demand), and it may respond later in the engine cycle (e.g., when the push is buffered by the
+        // engine). Distributing the current supply now could push transient supplies based on the previous supply, so
+        // the pending consumers are supplied in a later update of the multiplexer within the same engine cycle.
+        if (this.pendingCount > 0 && !this.settling) {
+            this.settling = true;
+            this.invalidate();
+        }
     }
 
     @Override
@@ -232,13 +404,14 @@ public class Multiplexer extends FlowNode implements FlowSupplier, FlowConsumer
 
         if (idx == -1) {
             System.out.println("Error (Multiplexer): pushing supply to an unknown consumer");
+            return;
         }
 
-        if (supplies.get(idx) == newSupply) {
+        if (supplies[idx] == newSupply) {
             return;
         }
 
-        supplies.set(idx, newSupply);
+        supplies[idx] = newSupply;
         consumerEdge.pushSupply(newSupply);
     }
 }
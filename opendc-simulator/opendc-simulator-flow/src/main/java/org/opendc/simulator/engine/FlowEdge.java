@@ -40,6 +40,13 @@ public class FlowEdge {
 
     private double capacity;
 
+    /**
+     * Flags to indicate that a push to a shared node is buffered by the active partition.
+     */
+    boolean pendingDemand;
+
+    boolean pendingSupply;
+
     public FlowEdge(FlowConsumer consumer, FlowSupplier supplier) {
         if (!(consumer instanceof FlowNode)) {
             throw new IllegalArgumentException("Flow consumer is not a FlowNode");
@@ -114,6 +121,12 @@ public class FlowEdge {
         }
 
         this.demand = newDemand;
+
+        final FlowNode supplierNode = (FlowNode) this.supplier;
+        if (supplierNode.shared && supplierNode.engine.deferDemand(this)) {
+            return;
+        }
+
         this.supplier.handleDemand(this, newDemand);
     }
 
@@ -126,6 +139,34 @@ public class FlowEdge {
         }
 
         this.supply = newSupply;
+
+        final FlowNode consumerNode = (FlowNode) this.consumer;
+        if (consumerNode.shared && consumerNode.engine.deferSupply(this)) {
+            return;
+        }
+
         this.consumer.handleSupply(this, newSupply);
     }
+
+    /**
+     * Deliver the buffered demand of this edge to the supplier.
+     */
+    void flushDemand() {
+        this.pendingDemand = false;
+
+        if (this.supplier != null) {
+            this.supplier.handleDemand(this, this.demand);
+        }
+    }
+
+    /**
+     * Deliver the buffered supply of this edge to the consumer.
+     */
+    void flushSupply() {
+        this.pendingSupply = false;
+
+        if (this.consumer != null) {
+            this.consumer.handleSupply(this, this.supply);
+        }
+    }
 }
@@ -24,6 +24,8 @@ package org.opendc.simulator.engine;
 
 import java.time.Clock;
 import java.time.InstantSource;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
 import kotlin.coroutines.CoroutineContext;
 import org.opendc.common.Dispatcher;
 
@@ -32,8 +34,13 @@ import org.opendc.common.Dispatcher;
  * <p>
  * The engine centralizes the scheduling logic of state updates of flow connections, allowing update propagation
  * to happen more efficiently. and overall, reducing the work necessary to transition into a steady state.
+ * <p>
+ * When created with a parallelism larger than one, the engine partitions the flow network into the connected
+ * components that remain after removing the shared nodes (see {@link FlowNode#markShared()}). The updates of
+ * different partitions that occur at the same timestamp are then executed in parallel, after which the effects on
+ * shared nodes are applied in a deterministic order, such that the results do not depend on the parallelism.
  */
-public final class FlowEngine implements Runnable {
+public final class FlowEngine implements Runnable, AutoCloseable {
     /**
      * The queue of {@link FlowNode} updates that are scheduled for immediate execution.
      */
@@ -57,16 +64,80 @@ public final class FlowEngine implements Runnable {
     private final Dispatcher dispatcher;
     private final InstantSource clock;
 
+    /**
+     * The pool on which the partitions are updated, or <code>null</code> if the engine runs sequentially.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The graphs that are driven by this engine.
+     */
+    private final ArrayList<FlowGraph> graphs = new ArrayList<>();
+
+    /**
+     * The partitions and shared nodes that are updated in the current round of the engine cycle.
+     */
+    private final ArrayList<FlowPartition> partitions = new ArrayList<>();
+
+    private final ArrayList<FlowNode> serial = new ArrayList<>();
+
+    /**
+     * The partition objects that can be reused in the next round.
+     */
+    private final ArrayList<FlowPartition> sparePartitions = new ArrayList<>();
+
+    /**
+     * The partition that is being updated by the current thread.
+     */
+    private final ThreadLocal<FlowPartition> currentPartition = new ThreadLocal<>();
+
+    /**
+     * A flag to indicate that the partitions are being updated in parallel.
+     */
+    private boolean parallelCycle;
+
+    /**
+     * A flag to indicate that the partitions need to be recomputed before the next cycle.
+     */
+    private boolean partitionsStale;
+
+    /**
+     * The number of edges removed since the partitions were last computed. Since removing an edge may split a
+     * partition, the partitions are periodically recomputed to recover the parallelism.
+     */
+    private int removedEdges;
+
+    private int removedEdgesThreshold = 64;
+
     /**
      * Create a new {@link FlowEngine} instance using the specified {@link CoroutineContext} and {@link InstantSource}.
      */
     public static FlowEngine create(Dispatcher dispatcher) {
-        return new FlowEngine(dispatcher);
+        return new FlowEngine(dispatcher, 1);
+    }
+
+    /**
+     * Create a new {@link FlowEngine} instance that updates independent partitions of the flow network in parallel.
+     *
+     * @param dispatcher The {@link Dispatcher} driving the simulation.
+     * @param parallelism The number of threads to update partitions on. A value of one or less runs the engine on the
+     *                    simulation thread only.
+     */
+    public static FlowEngine create(Dispatcher dispatcher, int parallelism) {
+        return new FlowEngine(dispatcher, parallelism);
     }
 
-    FlowEngine(Dispatcher dispatcher) {
+    FlowEngine(Dispatcher dispatcher, int parallelism) {
         this.dispatcher = dispatcher;
         this.clock = dispatcher.getTimeSource();
+        this.pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    /**
+     * Return the number of threads used to update the partitions of the flow network.
+     */
+    public int getParallelism() {
+        return pool != null ? pool.getParallelism() : 1;
     }
 
     /**
@@ -110,6 +181,18 @@ public final class FlowEngine implements Runnable {
      * This method should only be invoked while inside an engine cycle.
      */
     void scheduleImmediateInContext(FlowNode ctx) {
+        if (parallelCycle) {
+            final FlowPartition partition = currentPartition.get();
+            if (partition != null) {
+                if (ctx.shared) {
+                    partition.shared.add(ctx);
+                } else {
+                    partition.queue.add(ctx);
+                }
+                return;
+            }
+        }
+
         queue.add(ctx);
     }
 
@@ -137,14 +220,190 @@ public final class FlowEngine implements Runnable {
      * This method should only be invoked while inside an engine cycle.
      */
     void scheduleDelayedInContext(FlowNode ctx) {
+        if (parallelCycle) {
+            final FlowPartition partition = currentPartition.get();
+            if (partition != null) {
+                partition.delayed.add(ctx);
+                return;
+            }
+        }
+
         FlowTimerQueue timerQueue = this.timerQueue;
         timerQueue.enqueue(ctx);
     }
 
+    /**
+     * Buffer the demand pushed along the specified edge to a shared node if a partition is being updated.
+     *
+     * @return <code>true</code> if the push is buffered, <code>false</code> if it should be delivered immediately.
+     */
+    boolean deferDemand(FlowEdge edge) {
+        if (!parallelCycle) {
+            return false;
+        }
+
+        final FlowPartition partition = currentPartition.get();
+        if (partition == null) {
+            return false;
+        }
+
+        if (!edge.pendingDemand) {
+            edge.pendingDemand = true;
+            partition.demandEdges.add(edge);
+        }
+        return true;
+    }
+
+    /**
+     * Buffer the supply pushed along the specified edge to a shared node if a partition is being updated.
+     *
+     * @return <code>true</code> if the push is buffered, <code>false</code> if it should be delivered immediately.
+     */
+    boolean deferSupply(FlowEdge edge) {
+        if (!parallelCycle) {
+            return false;
+        }
+
+        final FlowPartition partition = currentPartition.get();
+        if (partition == null) {
+            return false;
+        }
+
+        if (!edge.pendingSupply) {
+            edge.pendingSupply = true;
+            partition.supplyEdges.add(edge);
+        }
+        return true;
+    }
+
+    /**
+     * Buffer the closing of the specified node if a partition is being updated, since closing a node modifies the
+     * graph and may invoke arbitrary callbacks.
+     *
+     * @return <code>true</code> if the close is buffered, <code>false</code> if it should be performed immediately.
+     */
+    boolean deferClose(FlowNode node) {
+        if (!parallelCycle) {
+            return false;
+        }
+
+        final FlowPartition partition = currentPartition.get();
+        if (partition == null) {
+            return false;
+        }
+
+        partition.closing.add(node);
+        return true;
+    }
+
+    void enterPartition(FlowPartition partition) {
+        currentPartition.set(partition);
+    }
+
+    void exitPartition() {
+        currentPartition.remove();
+    }
+
+    /**
+     * Register the specified {@link FlowGraph} with this engine.
+     */
+    void registerGraph(FlowGraph graph) {
+        graphs.add(graph);
+    }
+
+    /**
+     * Merge the partitions of the specified nodes after an edge has been added between them.
+     */
+    void linkPartitions(FlowNode a, FlowNode b) {
+        if (pool == null || a.shared || b.shared) {
+            return;
+        }
+
+        FlowNode rootA = findPartition(a);
+        FlowNode rootB = findPartition(b);
+
+        if (rootA == rootB) {
+            return;
+        }
+
+        if (rootA.partitionSize < rootB.partitionSize) {
+            FlowNode tmp = rootA;
+            rootA = rootB;
+            rootB = tmp;
+        }
+
+        rootB.partitionParent = rootA;
+        rootA.partitionSize += rootB.partitionSize;
+    }
+
+    /**
+     * Record that an edge has been removed from one of the graphs.
+     */
+    void unlinkPartitions() {
+        if (pool != null && ++removedEdges > removedEdgesThreshold) {
+            partitionsStale = true;
+        }
+    }
+
+    /**
+     * Mark the partitions of the engine as stale, for instance when a node becomes shared.
+     */
+    void invalidatePartitions() {
+        partitionsStale = true;
+    }
+
+    /**
+     * Find the root node of the partition to which the specified node belongs.
+     */
+    private static FlowNode findPartition(FlowNode node) {
+        while (node.partitionParent != node) {
+            // Path halving
+            node.partitionParent = node.partitionParent.partitionParent;
+            node = node.partitionParent;
+        }
+
+        return node;
+    }
+
+    /**
+     * Recompute the partitions of all graphs driven by this engine.
+     */
+    private void rebuildPartitions() {
+        int edgeCount = 0;
+
+        for (FlowGraph graph : graphs) {
+            graph.rebuildPartitions();
+            edgeCount += graph.getEdgeCount();
+        }
+
+        partitionsStale = false;
+        removedEdges = 0;
+        removedEdgesThreshold = Math.max(64, edgeCount);
+    }
+
     /**
      * Run all the enqueued actions for the specified timestamp (<code>now</code>).
      */
     private void doRunEngine(long now) {
+        final FlowTimerQueue timerQueue = this.timerQueue;
+
+        if (pool != null) {
+            doRunEngineParallel(now);
+        } else {
+            doRunEngineSequential(now);
+        }
+
+        // Schedule an engine invocation for the next update to occur.
+        long headDeadline = timerQueue.peekDeadline();
+        if (headDeadline != Long.MAX_VALUE && headDeadline >= now) {
+            trySchedule(futureInvocations, now, headDeadline);
+        }
+    }
+
+    /**
+     * Run all the enqueued actions for the specified timestamp on the simulation thread.
+     */
+    private void doRunEngineSequential(long now) {
         final FlowNodeQueue queue = this.queue;
         final FlowTimerQueue timerQueue = this.timerQueue;
 
@@ -174,12 +433,120 @@ public final class FlowEngine implements Runnable {
         } finally {
             active = false;
         }
+    }
 
-        // Schedule an engine invocation for the next update to occur.
-        long headDeadline = timerQueue.peekDeadline();
-        if (headDeadline != Long.MAX_VALUE && headDeadline >= now) {
-            trySchedule(futureInvocations, now, headDeadline);
+    /**
+     * Run all the enqueued actions for the specified timestamp, updating independent partitions in parallel.
+     * <p>
+     * The cycle proceeds in rounds. Each round collects the pending updates, groups them by partition, updates the
+     * partitions in parallel, and applies their buffered effects in the order in which the partitions were
+     * encountered. Finally, the shared nodes are updated on the simulation thread. Rounds are repeated until no
+     * updates remain for the current timestamp.
+     */
+    private void doRunEngineParallel(long now) {
+        final FlowNodeQueue queue = this.queue;
+        final FlowTimerQueue timerQueue = this.timerQueue;
+        final ArrayList<FlowPartition> partitions = this.partitions;
+        final ArrayList<FlowNode> serial = this.serial;
+
+        try {
+            // Mark the engine as active to prevent concurrent calls to this method
+            active = true;
+
+            if (partitionsStale) {
+                rebuildPartitions();
+            }
+
+            while (true) {
+                while (true) {
+                    final FlowNode ctx = timerQueue.poll(now);
+                    if (ctx == null) {
+                        break;
+                    }
+
+                    assignPartition(ctx, now);
+                }
+
+                while (true) {
+                    final FlowNode ctx = queue.poll();
+                    if (ctx == null) {
+                        break;
+                    }
+
+                    assignPartition(ctx, now);
+                }
+
+                final int partitionCount = partitions.size();
+                if (partitionCount == 0 && serial.isEmpty()) {
+                    break;
+                }
+
+                if (partitionCount == 1) {
+                    // Nothing to parallelize: update the nodes directly
+                    final FlowPartition partition = partitions.get(0);
+                    partition.root.partition = null;
+                    partition.root = null;
+
+                    for (FlowNode node : partition.nodes) {
+                        node.update(now);
+                    }
+                } else if (partitionCount > 1) {
+                    parallelCycle = true;
+                    try {
+                        for (int i = 1; i < partitionCount; i++) {
+                            pool.execute(partitions.get(i));
+                        }
+
+                        // Let the simulation thread participate in the cycle
+                        partitions.get(0).invoke();
+
+                        for (int i = 1; i < partitionCount; i++) {
+                            partitions.get(i).join();
+                        }
+                    } finally {
+                        parallelCycle = false;
+                    }
+
+                    for (FlowPartition partition : partitions) {
+                        partition.root.partition = null;
+                        partition.commit(timerQueue, queue);
+                    }
+                }
+
+                sparePartitions.addAll(partitions);
+                partitions.clear();
+
+                for (int i = 0; i < serial.size(); i++) {
+                    serial.get(i).update(now);
+                }
+                serial.clear();
+            }
+        } finally {
+            active = false;
+        }
+    }
+
+    /**
+     * Assign the specified node to its partition for the current round.
+     */
+    private void assignPartition(FlowNode node, long now) {
+        if (node.shared) {
+            serial.add(node);
+            return;
+        }
+
+        final FlowNode root = findPartition(node);
+        FlowPartition partition = root.partition;
+
+        if (partition == null) {
+            final ArrayList<FlowPartition> spare = this.sparePartitions;
+            partition = spare.isEmpty() ? new FlowPartition(this) : spare.remove(spare.size() - 1);
+            partition.reset(root, now);
+            root.partition = partition;
+            partitions.add(partition);
         }
+
+        partition.nodes.add(node);
     }
 
     @Override
@@ -187,6 +554,16 @@ public final class FlowEngine implements Runnable {
         doRunEngine(futureInvocations.poll());
     }
 
+    /**
+     * Release the threads used by the engine.
+     */
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
     /**
      * Try to schedule an engine invocation at the specified [target].
      *
@@ -33,6 +33,7 @@ public class FlowGraph {
 
     public FlowGraph(FlowEngine engine) {
         this.engine = engine;
+        this.engine.registerGraph(this);
     }
 
     /**
@@ -45,7 +46,7 @@ public class FlowGraph {
     /**
      * Create a new {@link FlowNode} representing a node in the flow network.
      */
-    public void addNode(FlowNode node) {
+    public synchronized void addNode(FlowNode node) {
         if (nodes.contains(node)) {
             System.out.println("Node already exists");
         }
@@ -58,7 +59,7 @@ public class FlowGraph {
     /**
      * Internal method to remove the specified {@link FlowNode} from the graph.
      */
-    public void removeNode(FlowNode node) {
+    public synchronized void removeNode(FlowNode node) {
 
         // Remove all edges connected to node
         final ArrayList<FlowEdge> connectedEdges = nodeToEdge.get(node);
@@ -75,7 +76,7 @@ public class FlowGraph {
     /**
      * Add an edge between the specified consumer and supplier in this graph.
      */
-    public void addEdge(FlowConsumer flowConsumer, FlowSupplier flowSupplier) {
+    public synchronized void addEdge(FlowConsumer flowConsumer, FlowSupplier flowSupplier) {
         // Check if the consumer and supplier are both FlowNodes
         if (!(flowConsumer instanceof FlowNode)) {
             throw new IllegalArgumentException("Flow consumer is not a FlowNode");
@@ -98,9 +99,11 @@ public class FlowGraph {
 
         nodeToEdge.get((FlowNode) flowConsumer).add(flowEdge);
         nodeToEdge.get((FlowNode) flowSupplier).add(flowEdge);
+
+        engine.linkPartitions((FlowNode) flowConsumer, (FlowNode) flowSupplier);
     }
 
-    public void removeEdge(FlowEdge flowEdge) {
+    public synchronized void removeEdge(FlowEdge flowEdge) {
         final FlowConsumer consumer = flowEdge.getConsumer();
         final FlowSupplier supplier = flowEdge.getSupplier();
         nodeToEdge.get((FlowNode) consumer).remove(flowEdge);
@@ -108,5 +111,28 @@ public class FlowGraph {
 
         edges.remove(flowEdge);
         flowEdge.close();
+
+        engine.unlinkPartitions();
+    }
+
+    /**
+     * Recompute the partitions of the nodes in this graph from scratch.
+     */
+    synchronized void rebuildPartitions() {
+        for (FlowNode node : nodes) {
+            node.partitionParent = node;
+            node.partitionSize = 1;
+        }
+
+        for (FlowEdge edge : edges) {
+            engine.linkPartitions((FlowNode) edge.getConsumer(), (FlowNode) edge.getSupplier());
+        }
+    }
+
+    /**
+     * Return the number of edges in this graph.
+     */
+    synchronized int getEdgeCount() {
+        return edges.size();
     }
 }
@@ -52,6 +52,26 @@ public abstract class FlowNode {
      */
     int timerIndex = -1;
 
+    /**
+     * A flag to indicate that the node is shared between partitions of the flow network (see {@link #markShared()}).
+     */
+    boolean shared;
+
+    /**
+     * The parent of this node in the disjoint-set forest that tracks the partitions of the flow network.
+     */
+    FlowNode partitionParent = this;
+
+    /**
+     * The number of nodes in the partition if this node is the root of the partition.
+     */
+    int partitionSize = 1;
+
+    /**
+     * The partition that is assigned to this (root) node during the active engine cycle.
+     */
+    FlowPartition partition;
+
     protected InstantSource clock;
     protected FlowGraph parentGraph;
     protected FlowEngine engine;
@@ -90,6 +110,29 @@ public abstract class FlowNode {
     public void setTimerIndex(int index) {
         this.timerIndex = index;
     }
+
+    /**
+     * Mark this node as shared between partitions of the flow network.
+     *
+     * <p>
+     * A shared node is never updated in parallel with other nodes. Instead, pushes towards a shared node during a
+     * parallel engine cycle are buffered and applied once all partitions have finished their updates. Nodes that
+     * interact with other nodes outside of {@link FlowEdge}s (e.g., by directly invoking methods on them) or that
+     * aggregate flows of many independent nodes must be marked as shared.
+     */
+    public void markShared() {
+        if (!this.shared) {
+            this.shared = true;
+            this.engine.invalidatePartitions();
+        }
+    }
+
+    /**
+     * Return whether this node is shared between partitions of the flow network.
+     */
+    public boolean isShared() {
+        return shared;
+    }
     /**
      * Invalidate the {@link FlowNode} forcing the stage to update.
      *
@@ -178,6 +221,11 @@ public abstract class FlowNode {
             return;
         }
 
+        // Closing a node modifies the graph, which may not happen concurrently
+        if (this.engine.deferClose(this)) {
+            return;
+        }
+
         // Mark the stage as closed
         this.nodeState = NodeState.CLOSED;
 
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.simulator.engine;
+
+import java.util.ArrayList;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A partition of the flow network that is updated independently of the other partitions during a parallel engine
+ * cycle.
+ *
+ * <p>
+ * A partition is a connected component of the flow network after removing the shared nodes (see
+ * {@link FlowNode#markShared()}). During a parallel cycle, the updates of a partition are executed on a worker
+ * thread, while all effects that reach beyond the partition are buffered in the partition and applied by the engine
+ * in a deterministic order once all partitions have finished: pushes to shared nodes, timer updates, and closing of
+ * nodes (which may modify the graph and notify listeners).
+ */
+final class FlowPartition extends RecursiveAction {
+    /**
+     * The nodes to update in this cycle.
+     */
+    final ArrayList<FlowNode> nodes = new ArrayList<>();
+
+    /**
+     * The queue of updates that are triggered within the partition during the cycle.
+     */
+    final FlowNodeQueue queue = new FlowNodeQueue(16);
+
+    /**
+     * The nodes whose timer needs to be updated in the timer queue of the engine.
+     */
+    final ArrayList<FlowNode> delayed = new ArrayList<>();
+
+    /**
+     * The shared nodes that have been scheduled for an immediate update.
+     */
+    final ArrayList<FlowNode> shared = new ArrayList<>();
+
+    /**
+     * The edges along which a demand has been pushed to a shared supplier.
+     */
+    final ArrayList<FlowEdge> demandEdges = new ArrayList<>();
+
+    /**
+     * The edges along which a supply has been pushed to a shared consumer.
+     */
+    final ArrayList<FlowEdge> supplyEdges = new ArrayList<>();
+
+    /**
+     * The nodes that are closed during the cycle.
+     */
+    final ArrayList<FlowNode> closing = new ArrayList<>();
+
+    /**
+     * The engine to which the partition belongs.
+     */
+    private final FlowEngine engine;
+
+    /**
+     * The root node of the partition in the active cycle.
+     */
+    FlowNode root;
+
+    /**
+     * The timestamp of the active cycle.
+     */
+    private long now;
+
+    FlowPartition(FlowEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Prepare the partition for a new cycle.
+     */
+    void reset(FlowNode root, long now) {
+        this.root = root;
+        this.now = now;
+
+        nodes.clear();
+        delayed.clear();
+        shared.clear();
+        demandEdges.clear();
+        supplyEdges.clear();
+        closing.clear();
+
+        reinitialize();
+    }
+
+    @Override
+    protected void compute() {
+        final long now = this.now;
+        engine.enterPartition(this);
+
+        try {
+            for (FlowNode node : nodes) {
+                node.update(now);
+            }
+
+            final FlowNodeQueue queue = this.queue;
+            while (true) {
+                final FlowNode node = queue.poll();
+                if (node == null) {
+                    break;
+                }
+
+                node.update(now);
+            }
+        } finally {
+            engine.exitPartition();
+        }
+    }
+
+    /**
+     * Apply the buffered effects of this partition. This method must be invoked by the engine on the simulation
+     * thread after the parallel cycle has finished.
+     */
+    void commit(FlowTimerQueue timerQueue, FlowNodeQueue queue) {
+        for (FlowNode node : delayed) {
+            timerQueue.enqueue(node);
+        }
+
+        for (FlowNode node : shared) {
+            queue.add(node);
+        }
+
+        for (FlowEdge edge : demandEdges) {
+            edge.flushDemand();
+        }
+
+        for (FlowEdge edge : supplyEdges) {
+            edge.flushSupply();
+        }
+
+        for (FlowNode node : closing) {
+            node.closeNode();
+        }
+
+        root = null;
+    }
+}
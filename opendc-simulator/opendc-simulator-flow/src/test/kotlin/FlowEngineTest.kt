@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import org.junit.jupiter.api.Assertions.assertAll
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import org.opendc.simulator.Multiplexer
+import org.opendc.simulator.SimulationDispatcher
+import org.opendc.simulator.engine.FlowConsumer
+import org.opendc.simulator.engine.FlowEdge
+import org.opendc.simulator.engine.FlowEngine
+import org.opendc.simulator.engine.FlowGraph
+import org.opendc.simulator.engine.FlowNode
+import org.opendc.simulator.engine.FlowSupplier
+import java.util.Random
+
+/**
+ * Test suite for the parallel execution of the [FlowEngine].
+ */
+class FlowEngineTest {
+    @Test
+    fun testParallelMatchesSequential() {
+        val sequential = simulate(1, 100_000.0)
+        val parallel = simulate(4, 100_000.0)
+
+        assertAll(
+            { assertEquals(sequential.work, parallel.work) },
+            { assertEquals(sequential.energy, parallel.energy) },
+            { assertEquals(sequential.endTime, parallel.endTime) },
+        )
+    }
+
+    @Test
+    fun testParallelDeterministic() {
+        val a = simulate(2, 1000.0)
+        val b = simulate(4, 1000.0)
+
+        assertAll(
+            { assertEquals(a.work, b.work) },
+            { assertEquals(a.energy, b.energy) },
+            { assertEquals(a.endTime, b.endTime) },
+        )
+    }
+
+    private data class Result(val work: Double, val energy: Double, val endTime: Long)
+
+    /**
+     * Simulate a number of independent hosts that are connected to a shared power source.
+     */
+    private fun simulate(
+        parallelism: Int,
+        capacity: Double,
+    ): Result {
+        val dispatcher = SimulationDispatcher()
+        val engine = FlowEngine.create(dispatcher, parallelism)
+        val graph = engine.newGraph()
+        val random = Random(0)
+
+        val source = TestSupplier(graph, capacity)
+        val powerMux = Multiplexer(graph)
+        powerMux.markShared()
+        graph.addEdge(powerMux, source)
+
+        val workloads = mutableListOf<TestWorkload>()
+        val psus = mutableListOf<TestPsu>()
+
+        repeat(16) {
+            val psu = TestPsu(graph)
+            val cpuMux = Multiplexer(graph)
+            graph.addEdge(psu, powerMux)
+            graph.addEdge(cpuMux, psu)
+            psus.add(psu)
+
+            repeat(1 + random.nextInt(3)) {
+                val demands = DoubleArray(20 + random.nextInt(20)) { random.nextInt(5) * 25.0 }
+                val workload = TestWorkload(graph, demands, 1000L * (1 + random.nextInt(3)))
+                graph.addEdge(workload, cpuMux)
+                workloads.add(workload)
+            }
+        }
+
+        dispatcher.advanceUntilIdle()
+        engine.close()
+
+        return Result(workloads.sumOf { it.work }, psus.sumOf { it.energy }, dispatcher.currentTime)
+    }
+
+    /**
+     * A [FlowSupplier] that supplies the demand up to its capacity.
+     */
+    private class TestSupplier(graph: FlowGraph, private val capacity: Double) : FlowNode(graph), FlowSupplier {
+        init {
+            markShared()
+        }
+
+        override fun onUpdate(now: Long): Long = Long.MAX_VALUE
+
+        override fun handleDemand(
+            consumerEdge: FlowEdge,
+            newDemand: Double,
+        ) {
+            pushSupply(consumerEdge, minOf(newDemand, capacity))
+        }
+
+        override fun pushSupply(
+            consumerEdge: FlowEdge,
+            newSupply: Double,
+        ) {
+            consumerEdge.pushSupply(newSupply)
+        }
+
+        override fun addConsumerEdge(consumerEdge: FlowEdge) {}
+
+        override fun removeConsumerEdge(consumerEdge: FlowEdge) {}
+
+        override fun getCapacity(): Double = capacity
+    }
+
+    /**
+     * A node that forwards the flow between a host and the shared power source, while integrating its supply.
+     */
+    private class TestPsu(graph: FlowGraph) : FlowNode(graph), FlowConsumer, FlowSupplier {
+        private var supplierEdge: FlowEdge? = null
+        private var consumerEdge: FlowEdge? = null
+        private var supply = 0.0
+        private var lastUpdate = clock.millis()
+        var energy = 0.0
+
+        override fun onUpdate(now: Long): Long {
+            integrate(now)
+            return Long.MAX_VALUE
+        }
+
+        private fun integrate(now: Long) {
+            energy += supply * (now - lastUpdate)
+            lastUpdate = now
+        }
+
+        override fun handleSupply(
+            supplierEdge: FlowEdge,
+            newSupply: Double,
+        ) {
+            integrate(clock.millis())
+            supply = newSupply
+            consumerEdge?.let { pushSupply(it, newSupply) }
+        }
+
+        override fun handleDemand(
+            consumerEdge: FlowEdge,
+            newDemand: Double,
+        ) {
+            supplierEdge?.let { pushDemand(it, newDemand) }
+        }
+
+        override fun pushDemand(
+            supplierEdge: FlowEdge,
+            newDemand: Double,
+        ) {
+            supplierEdge.pushDemand(newDemand)
+        }
+
+        override fun pushSupply(
+            consumerEdge: FlowEdge,
+            newSupply: Double,
+        ) {
+            consumerEdge.pushSupply(newSupply)
+        }
+
+        override fun addSupplierEdge(supplierEdge: FlowEdge) {
+            this.supplierEdge = supplierEdge
+        }
+
+        override fun removeSupplierEdge(supplierEdge: FlowEdge) {
+            this.supplierEdge = null
+        }
+
+        override fun addConsumerEdge(consumerEdge: FlowEdge) {
+            this.consumerEdge = consumerEdge
+        }
+
+        override fun removeConsumerEdge(consumerEdge: FlowEdge) {
+            this.consumerEdge = null
+        }
+
+        override fun getCapacity(): Double = Double.MAX_VALUE
+    }
+
+    /**
+     * A [FlowConsumer] that demands a fixed sequence of values, after which it closes.
+     */
+    private class TestWorkload(
+        graph: FlowGraph,
+        private val demands: DoubleArray,
+        private val period: Long,
+    ) : FlowNode(graph), FlowConsumer {
+        private var edge: FlowEdge? = null
+        private var supply = 0.0
+        private val startTime = clock.millis()
+        private var lastUpdate = startTime
+        var work = 0.0
+
+        override fun onUpdate(now: Long): Long {
+            integrate(now)
+
+            val index = ((now - startTime) / period).toInt()
+            if (index >= demands.size) {
+                closeNode()
+                return Long.MAX_VALUE
+            }
+
+            edge?.let { pushDemand(it, demands[index]) }
+            return startTime + (index + 1) * period
+        }
+
+        private fun integrate(now: Long) {
+            work += supply * (now - lastUpdate)
+            lastUpdate = now
+        }
+
+        override fun handleSupply(
+            supplierEdge: FlowEdge,
+            newSupply: Double,
+        ) {
+            integrate(clock.millis())
+            supply = newSupply
+        }
+
+        override fun pushDemand(
+            supplierEdge: FlowEdge,
+            newDemand: Double,
+        ) {
+            supplierEdge.pushDemand(newDemand)
+        }
+
+        override fun addSupplierEdge(supplierEdge: FlowEdge) {
+            edge = supplierEdge
+        }
+
+        override fun removeSupplierEdge(supplierEdge: FlowEdge) {
+            edge = null
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import org.junit.jupiter.api.Assertions.assertAll
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.opendc.simulator.Multiplexer
+import org.opendc.simulator.SimulationDispatcher
+import org.opendc.simulator.engine.FlowConsumer
+import org.opendc.simulator.engine.FlowEdge
+import org.opendc.simulator.engine.FlowEngine
+import org.opendc.simulator.engine.FlowGraph
+import org.opendc.simulator.engine.FlowNode
+import org.opendc.simulator.engine.FlowSupplier
+
+/**
+ * Test suite for the [Multiplexer] class.
+ */
+class MultiplexerTest {
+    private lateinit var dispatcher: SimulationDispatcher
+    private lateinit var graph: FlowGraph
+    private lateinit var multiplexer: Multiplexer
+
+    @BeforeEach
+    fun setUp() {
+        dispatcher = SimulationDispatcher()
+        graph = FlowEngine.create(dispatcher).newGraph()
+    }
+
+    private fun setUpSupplier(deferred: Boolean = false) {
+        multiplexer = Multiplexer(graph)
+        graph.addEdge(multiplexer, TestSupplier(graph, 100.0, deferred))
+    }
+
+    @Test
+    fun testUnderProvisioned() {
+        setUpSupplier()
+        val a = addConsumer(10.0)
+        val b = addConsumer(50.0)
+
+        assertAll(
+            { assertEquals(60.0, multiplexer.totalDemand) },
+            { assertEquals(10.0, a.supply) },
+            { assertEquals(50.0, b.supply) },
+        )
+    }
+
+    @Test
+    fun testMaxMinFairShare() {
+        setUpSupplier()
+        val a = addConsumer(10.0)
+        val b = addConsumer(50.0)
+        val c = addConsumer(80.0)
+
+        assertAll(
+            { assertEquals(10.0, a.supply) },
+            { assertEquals(45.0, b.supply) },
+            { assertEquals(45.0, c.supply) },
+        )
+    }
+
+    @Test
+    fun testCappedConsumerChangesDemand() {
+        setUpSupplier()
+        val a = addConsumer(10.0)
+        val b = addConsumer(50.0)
+        val c = addConsumer(80.0)
+
+        c.demand(60.0)
+
+        assertAll(
+            { assertEquals(120.0, multiplexer.totalDemand) },
+            { assertEquals(10.0, a.supply) },
+            { assertEquals(45.0, b.supply) },
+            { assertEquals(45.0, c.supply) },
+        )
+    }
+
+    @Test
+    fun testReturnToUnderProvisioned() {
+        setUpSupplier()
+        val a = addConsumer(10.0)
+        val b = addConsumer(50.0)
+        val c = addConsumer(80.0)
+
+        b.demand(20.0)
+        c.demand(60.0)
+
+        assertAll(
+            { assertEquals(10.0, a.supply) },
+            { assertEquals(20.0, b.supply) },
+            { assertEquals(60.0, c.supply) },
+        )
+    }
+
+    @Test
+    fun testZeroDemand() {
+        setUpSupplier()
+        val a = addConsumer(0.0)
+        val b = addConsumer(70.0)
+        val c = addConsumer(70.0)
+
+        assertAll(
+            { assertEquals(0.0, a.supply) },
+            { assertEquals(50.0, b.supply) },
+            { assertEquals(50.0, c.supply) },
+        )
+    }
+
+    @Test
+    fun testNoTransientSupply() {
+        setUpSupplier(deferred = true)
+
+        val a = addConsumer(20.0)
+        val b = addConsumer(60.0)
+        dispatcher.advanceUntilIdle()
+
+        // The supplier responds to the new total demand in its own update, after which the demand of a can be met
+        a.demand(40.0)
+        dispatcher.advanceUntilIdle()
+
+        assertAll(
+            { assertEquals(listOf(20.0, 40.0), a.supplies) },
+            { assertEquals(listOf(60.0), b.supplies) },
+        )
+    }
+
+    @Test
+    fun testSaturatedSupplier() {
+        setUpSupplier()
+
+        val a = addConsumer(30.0)
+        val b = addConsumer(70.0)
+
+        // The supply of the saturated supplier does not change, so the supplier does not respond
+        a.demand(40.0)
+        dispatcher.advanceUntilIdle()
+
+        assertAll(
+            { assertEquals(110.0, multiplexer.totalDemand) },
+            { assertEquals(listOf(30.0, 40.0), a.supplies) },
+            { assertEquals(listOf(70.0, 60.0), b.supplies) },
+        )
+    }
+
+    private fun addConsumer(demand: Double): TestConsumer {
+        val consumer = TestConsumer(graph)
+        graph.addEdge(consumer, multiplexer)
+        consumer.demand(demand)
+        return consumer
+    }
+
+    /**
+     * A [FlowSupplier] that supplies the demand up to its capacity, either immediately or in its next update if
+     * [deferred] is set.
+     */
+    private class TestSupplier(
+        graph: FlowGraph,
+        private val capacity: Double,
+        private val deferred: Boolean,
+    ) : FlowNode(graph), FlowSupplier {
+        private var edge: FlowEdge? = null
+        private var demand = 0.0
+
+        override fun onUpdate(now: Long): Long {
+            edge?.let { pushSupply(it, minOf(demand, capacity)) }
+            return Long.MAX_VALUE
+        }
+
+        override fun handleDemand(
+            consumerEdge: FlowEdge,
+            newDemand: Double,
+        ) {
+            demand = newDemand
+
+            if (deferred) {
+                invalidate()
+            } else {
+                pushSupply(consumerEdge, minOf(newDemand, capacity))
+            }
+        }
+
+        override fun pushSupply(
+            consumerEdge: FlowEdge,
+            newSupply: Double,
+        ) {
+            consumerEdge.pushSupply(newSupply)
+        }
+
+        override fun addConsumerEdge(consumerEdge: FlowEdge) {
+            edge = consumerEdge
+        }
+
+        override fun removeConsumerEdge(consumerEdge: FlowEdge) {
+            edge = null
+        }
+
+        override fun getCapacity(): Double = capacity
+    }
+
+    /**
+     * A [FlowConsumer] that records the supply it receives.
+     */
+    private class TestConsumer(graph: FlowGraph) : FlowNode(graph), FlowConsumer {
+        private var edge: FlowEdge? = null
+        var supply = 0.0
+        val supplies = mutableListOf<Double>()
+
+        fun demand(demand: Double) {
+            pushDemand(edge!!, demand)
+        }
+
+        override fun onUpdate(now: Long): Long = Long.MAX_VALUE
+
+        override fun handleSupply(
+            supplierEdge: FlowEdge,
+            newSupply: Double,
+        ) {
+            supply = newSupply
+            supplies.add(newSupply)
+        }
+
+        override fun pushDemand(
+            supplierEdge: FlowEdge,
+            newDemand: Double,
+        ) {
+            supplierEdge.pushDemand(newDemand)
+        }
+
+        override fun addSupplierEdge(supplierEdge: FlowEdge) {
+            edge = supplierEdge
+        }
+
+        override fun removeSupplierEdge(supplierEdge: FlowEdge) {
+            edge = null
+        }
+    }
+}
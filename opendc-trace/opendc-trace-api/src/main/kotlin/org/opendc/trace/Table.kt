@@ -43,6 +43,33 @@ public interface Table {
      */
     public fun newReader(projection: List<String>? = null): TableReader
 
+    /**
+     * Open a [TableReader] for a projection of this table, pushing down [predicate] into the reader.
+     *
+     * The predicate is advisory (see [TablePredicate]), so the reader may still return rows that do not satisfy it.
+     *
+     * @param projection The names of the columns to fetch from the table or `null` if no projection is performed.
+     * @param predicate The predicate to push down into the reader or `null` to read all rows.
+     */
+    public fun newReader(
+        projection: List<String>?,
+        predicate: TablePredicate?,
+    ): TableReader = newReader(projection)
+
+    /**
+     * Open a [TableReader] for a projection of this table, pushing down [predicate] into the reader and scanning the
+     * table according to [options].
+     *
+     * @param projection The names of the columns to fetch from the table or `null` if no projection is performed.
+     * @param predicate The predicate to push down into the reader or `null` to read all rows.
+     * @param options The options for scanning the table or `null` to use the defaults of the format.
+     */
+    public fun newReader(
+        projection: List<String>?,
+        predicate: TablePredicate?,
+        options: TableScanOptions?,
+    ): TableReader = newReader(projection, predicate)
+
     /**
      * Open a [TableWriter] for this table.
      *
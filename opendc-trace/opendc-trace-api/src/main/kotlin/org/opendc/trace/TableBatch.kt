@@ -0,0 +1,402 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.trace
+
+import org.opendc.trace.util.parquet.StringTable
+
+/**
+ * A reusable, columnar batch of rows read from a [TableReader] through [TableReader.nextBatch].
+ *
+ * Callers register a vector for every column they are interested in, keyed by the column index obtained through
+ * [TableReader.resolve]. Columns that are not registered are skipped when filling the batch. The vectors store their
+ * values in primitive arrays of [capacity] elements, so that reading a batch does not allocate per row.
+ *
+ * @param capacity The maximum number of rows in a single batch.
+ */
+public class TableBatch(public val capacity: Int) {
+    init {
+        require(capacity > 0) { "Capacity must be positive" }
+    }
+
+    /**
+     * The number of rows currently in the batch.
+     */
+    public var size: Int = 0
+        private set
+
+    /**
+     * A flag to indicate that the batch cannot hold any more rows.
+     */
+    public val isFull: Boolean
+        get() = size >= capacity
+
+    /**
+     * The vectors registered for this batch, indexed by column index.
+     */
+    private var vectors = arrayOfNulls<Vector>(8)
+
+    /**
+     * Register (or obtain the previously registered) vector for the integer column with the specified [index].
+     */
+    public fun ints(index: Int): IntVector = register(index) { IntVector(capacity) }
+
+    /**
+     * Register (or obtain the previously registered) vector for the long column with the specified [index].
+     */
+    public fun longs(index: Int): LongVector = register(index) { LongVector(capacity, LongVector.Kind.LONG) }
+
+    /**
+     * Register (or obtain the previously registered) vector for the [java.time.Instant] column with the specified
+     * [index]. The values are stored as milliseconds since the epoch.
+     */
+    public fun instants(index: Int): LongVector = register(index) { LongVector(capacity, LongVector.Kind.INSTANT) }
+
+    /**
+     * Register (or obtain the previously registered) vector for the [java.time.Duration] column with the specified
+     * [index]. The values are stored in milliseconds.
+     */
+    public fun durations(index: Int): LongVector = register(index) { LongVector(capacity, LongVector.Kind.DURATION) }
+
+    /**
+     * Register (or obtain the previously registered) vector for the double column with the specified [index].
+     */
+    public fun doubles(index: Int): DoubleVector = register(index) { DoubleVector(capacity) }
+
+    /**
+     * Register (or obtain the previously registered) vector for the string column with the specified [index].
+     */
+    public fun strings(index: Int): StringVector = register(index) { StringVector(capacity) }
+
+    /**
+     * Obtain the vector registered for the column with the specified [index] or `null` if the column is not part of
+     * the batch.
+     */
+    public fun vector(index: Int): Vector? = vectors.getOrNull(index)
+
+    /**
+     * Remove all rows from the batch. The registered vectors (and the dictionaries of string vectors) are retained.
+     */
+    public fun clear() {
+        size = 0
+    }
+
+    /**
+     * Reserve the next row in the batch and return its index.
+     */
+    internal fun appendRow(): Int {
+        check(size < capacity) { "Batch is full" }
+        return size++
+    }
+
+    /**
+     * Obtain the vector of type [V] registered for the column with the specified [index].
+     */
+    internal inline fun <reified V : Vector> typed(index: Int): V? {
+        val vector = vector(index) ?: return null
+        require(vector is V) { "Column $index is not backed by a ${V::class.simpleName}" }
+        return vector
+    }
+
+    /**
+     * Fill the next row of the batch with the current row of [reader].
+     */
+    internal fun appendFrom(reader: TableReader) {
+        val row = appendRow()
+        val vectors = vectors
+
+        for (index in vectors.indices) {
+            val vector = vectors[index] ?: continue
+
+            if (reader.isNull(index)) {
+                vector.setNull(row)
+                continue
+            }
+
+            when (vector) {
+                is IntVector -> vector[row] = reader.getInt(index)
+                is LongVector ->
+                    vector[row] =
+                        when (vector.kind) {
+                            LongVector.Kind.LONG -> reader.getLong(index)
+                            LongVector.Kind.INSTANT -> reader.getInstant(index)!!.toEpochMilli()
+                            LongVector.Kind.DURATION -> reader.getDuration(index)!!.toMillis()
+                        }
+                is DoubleVector -> vector[row] = reader.getDouble(index)
+                is StringVector -> vector[row] = reader.getString(index)
+            }
+        }
+    }
+
+    private inline fun <reified V : Vector> register(
+        index: Int,
+        factory: () -> V,
+    ): V {
+        require(index >= 0) { "Invalid column index" }
+
+        if (index >= vectors.size) {
+            vectors = vectors.copyOf(maxOf(index + 1, vectors.size * 2))
+        }
+
+        val vector = factory()
+        val existing = vectors[index]
+        if (existing != null) {
+            require(existing is V && existing.sameKind(vector)) { "Column $index is already registered with another type" }
+            return existing
+        }
+
+        vectors[index] = vector
+        return vector
+    }
+
+    /**
+     * A column of values in a [TableBatch].
+     */
+    public sealed class Vector(capacity: Int) {
+        /**
+         * The null flags of the rows in the batch.
+         */
+        @JvmField
+        protected val nulls: BooleanArray = BooleanArray(capacity)
+
+        /**
+         * Determine whether the value at [row] is `null`.
+         */
+        public fun isNull(row: Int): Boolean = nulls[row]
+
+        /**
+         * Mark the value at [row] as `null`.
+         */
+        internal abstract fun setNull(row: Int)
+
+        /**
+         * Determine whether [other] stores the same kind of values as this vector.
+         */
+        internal open fun sameKind(other: Vector): Boolean = javaClass == other.javaClass
+    }
+
+    /**
+     * A [Vector] of integer values.
+     */
+    public class IntVector internal constructor(capacity: Int) : Vector(capacity) {
+        /**
+         * The values of the rows in the batch. Values of `null` rows are `0`.
+         */
+        @JvmField
+        public val values: IntArray = IntArray(capacity)
+
+        public operator fun get(row: Int): Int = values[row]
+
+        internal operator fun set(
+            row: Int,
+            value: Int,
+        ) {
+            values[row] = value
+            nulls[row] = false
+        }
+
+        override fun setNull(row: Int) {
+            values[row] = 0
+            nulls[row] = true
+        }
+    }
+
+    /**
+     * A [Vector] of long values, which may also represent instants (epoch milliseconds) or durations (milliseconds).
+     */
+    public class LongVector internal constructor(capacity: Int, public val kind: Kind) : Vector(capacity) {
+        /**
+         * The values of the rows in the batch. Values of `null` rows are `0`.
+         */
+        @JvmField
+        public val values: LongArray = LongArray(capacity)
+
+        public operator fun get(row: Int): Long = values[row]
+
+        internal operator fun set(
+            row: Int,
+            value: Long,
+        ) {
+            values[row] = value
+            nulls[row] = false
+        }
+
+        override fun setNull(row: Int) {
+            values[row] = 0
+            nulls[row] = true
+        }
+
+        override fun sameKind(other: Vector): Boolean = other is LongVector && other.kind == kind
+
+        /**
+         * The interpretation of the values in a [LongVector].
+         */
+        public enum class Kind {
+            LONG,
+            INSTANT,
+            DURATION,
+        }
+    }
+
+    /**
+     * A [Vector] of double values.
+     */
+    public class DoubleVector internal constructor(capacity: Int) : Vector(capacity) {
+        /**
+         * The values of the rows in the batch. Values of `null` rows are `0.0`.
+         */
+        @JvmField
+        public val values: DoubleArray = DoubleArray(capacity)
+
+        public operator fun get(row: Int): Double = values[row]
+
+        internal operator fun set(
+            row: Int,
+            value: Double,
+        ) {
+            values[row] = value
+            nulls[row] = false
+        }
+
+        override fun setNull(row: Int) {
+            values[row] = 0.0
+            nulls[row] = true
+        }
+    }
+
+    /**
+     * A dictionary-encoded [Vector] of strings.
+     *
+     * Every distinct string is assigned a stable integer code in order of first appearance. The dictionary is retained
+     * across batches, so codes can be used as array indices by the consumer for the lifetime of the batch.
+     */
+    public class StringVector internal constructor(capacity: Int) : Vector(capacity) {
+        /**
+         * The dictionary codes of the rows in the batch. Codes of `null` rows are `-1`.
+         */
+        @JvmField
+        public val codes: IntArray = IntArray(capacity)
+
+        /**
+         * The distinct strings encountered so far, indexed by their code.
+         */
+        private val dictionary = StringTable()
+
+        /**
+         * Lookup table from numeric values to their codes.
+         */
+        private val longCodes = HashMap<Long, Int>()
+
+        /**
+         * The [StringTable] of the reader that filled this vector most recently and the mapping from its ids to codes
+         * of this vector (`-1` if not yet mapped).
+         */
+        private var source: StringTable? = null
+        private var sourceCodes = IntArray(0)
+
+        /**
+         * The number of distinct strings in the dictionary.
+         */
+        public val dictionarySize: Int
+            get() = dictionary.size
+
+        /**
+         * Obtain the string at [row] or `null` if the value is `null`.
+         */
+        public operator fun get(row: Int): String? {
+            val code = codes[row]
+            return if (code < 0) null else dictionary[code]
+        }
+
+        /**
+         * Obtain the string in the dictionary with the specified [code].
+         */
+        public fun lookup(code: Int): String = dictionary[code]
+
+        internal operator fun set(
+            row: Int,
+            value: String?,
+        ) {
+            if (value == null) {
+                setNull(row)
+                return
+            }
+
+            codes[row] = dictionary.intern(value)
+            nulls[row] = false
+        }
+
+        /**
+         * Set the value at [row] to the string with the specified [id] in [table], or `null` if [id] is negative.
+         *
+         * Ids are translated through an array, so that strings are only hashed the first time they are encountered.
+         */
+        internal fun set(
+            row: Int,
+            id: Int,
+            table: StringTable,
+        ) {
+            if (id < 0) {
+                setNull(row)
+                return
+            }
+
+            if (table !== source) {
+                source = table
+                sourceCodes = IntArray(0)
+            }
+
+            var mapping = sourceCodes
+            if (id >= mapping.size) {
+                val oldSize = mapping.size
+                mapping = mapping.copyOf(maxOf(id + 1, oldSize * 2))
+                mapping.fill(-1, oldSize)
+                sourceCodes = mapping
+            }
+
+            var code = mapping[id]
+            if (code < 0) {
+                code = dictionary.intern(table[id])
+                mapping[id] = code
+            }
+
+            codes[row] = code
+            nulls[row] = false
+        }
+
+        /**
+         * Set the value at [row] to the decimal representation of [value] without formatting it if it is already known.
+         */
+        internal fun setLong(
+            row: Int,
+            value: Long,
+        ) {
+            codes[row] = longCodes.getOrPut(value) { dictionary.intern(value.toString()) }
+            nulls[row] = false
+        }
+
+        override fun setNull(row: Int) {
+            codes[row] = -1
+            nulls[row] = true
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.trace
+
+/**
+ * A predicate on the rows of a [Table] that may be pushed down into a [TableReader].
+ *
+ * Predicates are advisory: a reader may use them to skip rows that cannot match (for instance, by skipping entire row
+ * groups based on their statistics), but may also return rows that do not satisfy the predicate. Consumers that need
+ * exact results must therefore still evaluate the predicate on the returned rows. A reader never drops rows that
+ * satisfy the predicate.
+ */
+public sealed class TablePredicate {
+    /**
+     * The names of the columns referenced by this predicate.
+     */
+    public abstract val columns: Set<String>
+
+    /**
+     * A comparison between the value of [column] and a constant [value].
+     *
+     * @property column The name of the column to compare.
+     * @property op The comparison operator, with the column on the left-hand side.
+     * @property value The value to compare with, which is a [String], [Int], [Long], [Float], [Double],
+     * [java.time.Instant] or [java.time.Duration].
+     */
+    public data class Compare(val column: String, val op: Op, val value: Any) : TablePredicate() {
+        override val columns: Set<String>
+            get() = setOf(column)
+    }
+
+    /**
+     * A predicate that is satisfied if all of its [operands] are satisfied.
+     */
+    public data class And(val operands: List<TablePredicate>) : TablePredicate() {
+        override val columns: Set<String>
+            get() = operands.flatMapTo(mutableSetOf()) { it.columns }
+    }
+
+    /**
+     * A predicate that is satisfied if any of its [operands] is satisfied.
+     */
+    public data class Or(val operands: List<TablePredicate>) : TablePredicate() {
+        override val columns: Set<String>
+            get() = operands.flatMapTo(mutableSetOf()) { it.columns }
+    }
+
+    /**
+     * A comparison operator.
+     */
+    public enum class Op {
+        EQ,
+        NE,
+        LT,
+        LE,
+        GT,
+        GE,
+        ;
+
+        /**
+         * The operator that is obtained by swapping the operands of the comparison.
+         */
+        public fun flip(): Op =
+            when (this) {
+                EQ -> EQ
+                NE -> NE
+                LT -> GT
+                LE -> GE
+                GT -> LT
+                GE -> LE
+            }
+    }
+}
@@ -37,6 +37,28 @@ public interface TableReader : AutoCloseable {
      */
     public fun nextRow(): Boolean
 
+    /**
+     * Clear [batch] and fill it with the next rows of the stream, up to the capacity of the batch.
+     *
+     * Only the columns for which a vector is registered in [batch] are read. Mixing this method with [nextRow] is
+     * allowed, but the per-column getters are undefined after a call to this method.
+     *
+     * The default implementation reads the rows one by one through the per-column getters. Readers that can decode
+     * columns directly into the vectors of the batch should override this method.
+     *
+     * @param batch The batch to fill.
+     * @return `true` if the batch contains at least one row, `false` if there are no more rows.
+     */
+    public fun nextBatch(batch: TableBatch): Boolean {
+        batch.clear()
+
+        while (!batch.isFull && nextRow()) {
+            batch.appendFrom(this)
+        }
+
+        return batch.size > 0
+    }
+
     /**
      * Resolve the index of the column by its [name].
      *
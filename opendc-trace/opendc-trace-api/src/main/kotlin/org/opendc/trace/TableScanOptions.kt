@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.trace
+
+/**
+ * Options for scanning the rows of a [Table] with a [TableReader].
+ *
+ * The options are advisory: formats that cannot read a table concurrently ignore them and read the table sequentially.
+ *
+ * @property parallelism The number of threads used to decode the table. With a value of `1`, the table is decoded on
+ * the calling thread.
+ * @property ordered A flag to indicate that rows must be returned in the order in which they appear in the table. If
+ * `false`, rows of different parts of the table may interleave, which is useful for aggregations that do not depend
+ * on the order of the rows.
+ */
+public data class TableScanOptions(
+    val parallelism: Int = 1,
+    val ordered: Boolean = true,
+) {
+    init {
+        require(parallelism > 0) { "Parallelism must be positive" }
+    }
+}
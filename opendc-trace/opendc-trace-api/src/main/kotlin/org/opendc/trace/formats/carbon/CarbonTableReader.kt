@@ -22,10 +22,13 @@
 
 package org.opendc.trace.formats.carbon
 
+import org.opendc.trace.TableBatch
 import org.opendc.trace.TableReader
 import org.opendc.trace.conv.CARBON_INTENSITY_TIMESTAMP
 import org.opendc.trace.conv.CARBON_INTENSITY_VALUE
 import org.opendc.trace.formats.carbon.parquet.CarbonIntensityFragment
+import org.opendc.trace.formats.carbon.parquet.CarbonIntensityReadSupport
+import org.opendc.trace.formats.carbon.parquet.CarbonIntensitySink
 import org.opendc.trace.util.parquet.LocalParquetReader
 import java.time.Duration
 import java.time.Instant
@@ -34,7 +37,10 @@ import java.util.UUID
 /**
  * A [TableReader] implementation for the WTF format.
  */
-internal class CarbonTableReader(private val reader: LocalParquetReader<CarbonIntensityFragment>) : TableReader {
+internal class CarbonTableReader(
+    private val reader: LocalParquetReader<CarbonIntensityFragment>,
+    private val readSupport: CarbonIntensityReadSupport,
+) : TableReader {
     /**
      * The current record.
      */
@@ -52,6 +58,36 @@ internal class CarbonTableReader(private val reader: LocalParquetReader<CarbonIn
         }
     }
 
+    override fun nextBatch(batch: TableBatch): Boolean {
+        if (reader.isParallel) {
+            // Records are materialized on the worker threads of the reader, so they cannot be diverted to the sink
+            return super.nextBatch(batch)
+        }
+
+        batch.clear()
+
+        val timestamps = batch.typed<TableBatch.LongVector>(colTimestamp)
+        val intensities = batch.typed<TableBatch.DoubleVector>(colCarbonIntensity)
+
+        readSupport.sink =
+            CarbonIntensitySink { timestamp, carbonIntensity ->
+                val row = batch.appendRow()
+                timestamps?.set(row, timestamp)
+                intensities?.set(row, carbonIntensity)
+            }
+
+        try {
+            record = null
+            while (!batch.isFull && reader.read() != null) {
+                // Rows are appended to the batch by the sink
+            }
+        } finally {
+            readSupport.sink = null
+        }
+
+        return batch.size > 0
+    }
+
     private val colTimestamp = 0
     private val colCarbonIntensity = 1
 
@@ -24,7 +24,9 @@ package org.opendc.trace.formats.carbon
 
 import org.opendc.trace.TableColumn
 import org.opendc.trace.TableColumnType
+import org.opendc.trace.TablePredicate
 import org.opendc.trace.TableReader
+import org.opendc.trace.TableScanOptions
 import org.opendc.trace.TableWriter
 import org.opendc.trace.conv.CARBON_INTENSITY_TIMESTAMP
 import org.opendc.trace.conv.CARBON_INTENSITY_VALUE
@@ -33,6 +35,9 @@ import org.opendc.trace.formats.carbon.parquet.CarbonIntensityReadSupport
 import org.opendc.trace.spi.TableDetails
 import org.opendc.trace.spi.TraceFormat
 import org.opendc.trace.util.parquet.LocalParquetReader
+import org.opendc.trace.util.parquetFilter
+import org.opendc.trace.util.toParquetOptions
+import org.opendc.trace.util.withColumnsOf
 import java.nio.file.Path
 
 /**
@@ -67,11 +72,29 @@ public class CarbonTraceFormat : TraceFormat {
         path: Path,
         table: String,
         projection: List<String>?,
+    ): TableReader = newReader(path, table, projection, null, null)
+
+    override fun newReader(
+        path: Path,
+        table: String,
+        projection: List<String>?,
+        predicate: TablePredicate?,
+    ): TableReader = newReader(path, table, projection, predicate, null)
+
+    override fun newReader(
+        path: Path,
+        table: String,
+        projection: List<String>?,
+        predicate: TablePredicate?,
+        options: TableScanOptions?,
     ): TableReader {
         return when (table) {
             TABLE_CARBON_INTENSITIES -> {
-                val reader = LocalParquetReader(path, CarbonIntensityReadSupport(projection))
-                CarbonTableReader(reader)
+                val readSupport = CarbonIntensityReadSupport(projection.withColumnsOf(predicate))
+                val filter = parquetFilter(predicate, readSupport.filterFields)
+                val reader =
+                    LocalParquetReader(path, readSupport, filter = filter, options = options.toParquetOptions())
+                CarbonTableReader(reader, readSupport)
             }
             else -> throw IllegalArgumentException("Table $table not supported")
         }
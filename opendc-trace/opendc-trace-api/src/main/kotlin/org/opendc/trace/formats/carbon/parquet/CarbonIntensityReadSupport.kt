@@ -39,6 +39,11 @@ import org.opendc.trace.conv.CARBON_INTENSITY_VALUE
  * @param projection The projection of the table to read.
  */
 internal class CarbonIntensityReadSupport(private val projection: List<String>?) : ReadSupport<CarbonIntensityFragment>() {
+    /**
+     * The sink to which records are diverted instead of being materialized, or `null` to materialize records.
+     */
+    var sink: CarbonIntensitySink? = null
+
     /**
      * Mapping of table columns to their Parquet column names.
      */
@@ -48,6 +53,11 @@ internal class CarbonIntensityReadSupport(private val projection: List<String>?)
             CARBON_INTENSITY_VALUE to "carbon_intensity",
         )
 
+    /**
+     * Mapping from table columns to the Parquet fields that may store them, used for pushing down predicates.
+     */
+    val filterFields: Map<String, List<String>> = colMap.mapValues { listOf(it.value) }
+
     override fun init(context: InitContext): ReadContext {
         val projectedSchema =
             if (projection != null) {
@@ -72,7 +82,7 @@ internal class CarbonIntensityReadSupport(private val projection: List<String>?)
         keyValueMetaData: Map<String, String>,
         fileSchema: MessageType,
         readContext: ReadContext,
-    ): RecordMaterializer<CarbonIntensityFragment> = CarbonIntensityRecordMaterializer(readContext.requestedSchema)
+    ): RecordMaterializer<CarbonIntensityFragment> = CarbonIntensityRecordMaterializer(readContext.requestedSchema, this)
 
     companion object {
         /**
@@ -32,11 +32,14 @@ import java.time.Instant
 /**
  * A [RecordMaterializer] for [Task] records.
  */
-internal class CarbonIntensityRecordMaterializer(schema: MessageType) : RecordMaterializer<CarbonIntensityFragment>() {
+internal class CarbonIntensityRecordMaterializer(
+    schema: MessageType,
+    private val readSupport: CarbonIntensityReadSupport,
+) : RecordMaterializer<CarbonIntensityFragment>() {
     /**
      * State of current record being read.
      */
-    private var localTimestamp: Instant = Instant.MIN
+    private var localTimestamp: Long = Long.MIN_VALUE
     private var localCarbonIntensity: Double = 0.0
 
     /**
@@ -53,7 +56,7 @@ internal class CarbonIntensityRecordMaterializer(schema: MessageType) : RecordMa
                         "timestamp" ->
                             object : PrimitiveConverter() {
                                 override fun addLong(value: Long) {
-                                    localTimestamp = Instant.ofEpochMilli(value)
+                                    localTimestamp = value
                                 }
                             }
                         "carbon_intensity" ->
@@ -67,7 +70,7 @@ internal class CarbonIntensityRecordMaterializer(schema: MessageType) : RecordMa
                 }
 
             override fun start() {
-                localTimestamp = Instant.MIN
+                localTimestamp = Long.MIN_VALUE
                 localCarbonIntensity = 0.0
             }
 
@@ -76,11 +79,42 @@ internal class CarbonIntensityRecordMaterializer(schema: MessageType) : RecordMa
             override fun getConverter(fieldIndex: Int): Converter = converters[fieldIndex]
         }
 
-    override fun getCurrentRecord(): CarbonIntensityFragment =
-        CarbonIntensityFragment(
-            localTimestamp,
+    override fun getCurrentRecord(): CarbonIntensityFragment {
+        val sink = readSupport.sink
+        if (sink != null) {
+            sink.accept(localTimestamp, localCarbonIntensity)
+            return PLACEHOLDER
+        }
+
+        return CarbonIntensityFragment(
+            if (localTimestamp == Long.MIN_VALUE) Instant.MIN else Instant.ofEpochMilli(localTimestamp),
             localCarbonIntensity,
         )
+    }
 
     override fun getRootConverter(): GroupConverter = root
+
+    private companion object {
+        /**
+         * The record returned while records are diverted to a [CarbonIntensitySink].
+         */
+        val PLACEHOLDER = CarbonIntensityFragment(Instant.MIN, 0.0)
+    }
+}
+
+/**
+ * A consumer of the raw column values of [CarbonIntensityFragment] records, which allows readers to decode records
+ * without materializing them.
+ */
+internal fun interface CarbonIntensitySink {
+    /**
+     * Accept the column values of the current record.
+     *
+     * @param timestamp The timestamp in milliseconds since the epoch, or [Long.MIN_VALUE] if absent.
+     * @param carbonIntensity The carbon intensity at [timestamp].
+     */
+    fun accept(
+        timestamp: Long,
+        carbonIntensity: Double,
+    )
 }
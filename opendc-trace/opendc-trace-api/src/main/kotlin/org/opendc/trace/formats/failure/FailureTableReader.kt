@@ -22,11 +22,14 @@
 
 package org.opendc.trace.formats.failure
 
+import org.opendc.trace.TableBatch
 import org.opendc.trace.TableReader
 import org.opendc.trace.conv.FAILURE_DURATION
 import org.opendc.trace.conv.FAILURE_INTENSITY
 import org.opendc.trace.conv.FAILURE_INTERVAL
 import org.opendc.trace.formats.failure.parquet.FailureFragment
+import org.opendc.trace.formats.failure.parquet.FailureReadSupport
+import org.opendc.trace.formats.failure.parquet.FailureSink
 import org.opendc.trace.util.parquet.LocalParquetReader
 import java.time.Duration
 import java.time.Instant
@@ -35,7 +38,10 @@ import java.util.UUID
 /**
  * A [TableReader] implementation for the WTF format.
  */
-internal class FailureTableReader(private val reader: LocalParquetReader<FailureFragment>) : TableReader {
+internal class FailureTableReader(
+    private val reader: LocalParquetReader<FailureFragment>,
+    private val readSupport: FailureReadSupport,
+) : TableReader {
     /**
      * The current record.
      */
@@ -53,6 +59,38 @@ internal class FailureTableReader(private val reader: LocalParquetReader<Failure
         }
     }
 
+    override fun nextBatch(batch: TableBatch): Boolean {
+        if (reader.isParallel) {
+            // Records are materialized on the worker threads of the reader, so they cannot be diverted to the sink
+            return super.nextBatch(batch)
+        }
+
+        batch.clear()
+
+        val intervals = batch.typed<TableBatch.LongVector>(colFailureInterval)
+        val durations = batch.typed<TableBatch.LongVector>(colFailureDuration)
+        val intensities = batch.typed<TableBatch.DoubleVector>(colFailureIntensity)
+
+        readSupport.sink =
+            FailureSink { interval, duration, intensity ->
+                val row = batch.appendRow()
+                intervals?.set(row, interval)
+                durations?.set(row, duration)
+                intensities?.set(row, intensity)
+            }
+
+        try {
+            record = null
+            while (!batch.isFull && reader.read() != null) {
+                // Rows are appended to the batch by the sink
+            }
+        } finally {
+            readSupport.sink = null
+        }
+
+        return batch.size > 0
+    }
+
     private val colFailureInterval = 0
     private val colFailureDuration = 1
     private val colFailureIntensity = 2
@@ -24,7 +24,9 @@ package org.opendc.trace.formats.failure
 
 import org.opendc.trace.TableColumn
 import org.opendc.trace.TableColumnType
+import org.opendc.trace.TablePredicate
 import org.opendc.trace.TableReader
+import org.opendc.trace.TableScanOptions
 import org.opendc.trace.TableWriter
 import org.opendc.trace.conv.FAILURE_DURATION
 import org.opendc.trace.conv.FAILURE_INTENSITY
@@ -34,6 +36,9 @@ import org.opendc.trace.formats.failure.parquet.FailureReadSupport
 import org.opendc.trace.spi.TableDetails
 import org.opendc.trace.spi.TraceFormat
 import org.opendc.trace.util.parquet.LocalParquetReader
+import org.opendc.trace.util.parquetFilter
+import org.opendc.trace.util.toParquetOptions
+import org.opendc.trace.util.withColumnsOf
 import java.nio.file.Path
 
 /**
@@ -69,11 +74,29 @@ public class FailureTraceFormat : TraceFormat {
         path: Path,
         table: String,
         projection: List<String>?,
+    ): TableReader = newReader(path, table, projection, null, null)
+
+    override fun newReader(
+        path: Path,
+        table: String,
+        projection: List<String>?,
+        predicate: TablePredicate?,
+    ): TableReader = newReader(path, table, projection, predicate, null)
+
+    override fun newReader(
+        path: Path,
+        table: String,
+        projection: List<String>?,
+        predicate: TablePredicate?,
+        options: TableScanOptions?,
     ): TableReader {
         return when (table) {
             TABLE_FAILURES -> {
-                val reader = LocalParquetReader(path, FailureReadSupport(projection))
-                FailureTableReader(reader)
+                val readSupport = FailureReadSupport(projection.withColumnsOf(predicate))
+                val filter = parquetFilter(predicate, readSupport.filterFields)
+                val reader =
+                    LocalParquetReader(path, readSupport, filter = filter, options = options.toParquetOptions())
+                FailureTableReader(reader, readSupport)
             }
             else -> throw IllegalArgumentException("Table $table not supported")
         }
@@ -39,16 +39,26 @@ import org.opendc.trace.conv.FAILURE_INTERVAL
  * @param projection The projection of the table to read.
  */
 internal class FailureReadSupport(private val projection: List<String>?) : ReadSupport<FailureFragment>() {
+    /**
+     * The sink to which records are diverted instead of being materialized, or `null` to materialize records.
+     */
+    var sink: FailureSink? = null
+
     /**
      * Mapping of table columns to their Parquet column names.
      */
     private val colMap =
         mapOf(
-            FAILURE_INTERVAL to "interval",
-            FAILURE_DURATION to "duration",
-            FAILURE_INTENSITY to "intensity",
+            FAILURE_INTERVAL to "failure_interval",
+            FAILURE_DURATION to "failure_duration",
+            FAILURE_INTENSITY to "failure_intensity",
         )
 
+    /**
+     * Mapping from table columns to the Parquet fields that may store them, used for pushing down predicates.
+     */
+    val filterFields: Map<String, List<String>> = colMap.mapValues { listOf(it.value) }
+
     override fun init(context: InitContext): ReadContext {
         val projectedSchema =
             if (projection != null) {
@@ -73,7 +83,7 @@ internal class FailureReadSupport(private val projection: List<String>?) : ReadS
         keyValueMetaData: Map<String, String>,
         fileSchema: MessageType,
         readContext: ReadContext,
-    ): RecordMaterializer<FailureFragment> = FailureRecordMaterializer(readContext.requestedSchema)
+    ): RecordMaterializer<FailureFragment> = FailureRecordMaterializer(readContext.requestedSchema, this)
 
     companion object {
         /**
@@ -31,7 +31,10 @@ import org.apache.parquet.schema.MessageType
 /**
  * A [RecordMaterializer] for [Task] records.
  */
-internal class FailureRecordMaterializer(schema: MessageType) : RecordMaterializer<FailureFragment>() {
+internal class FailureRecordMaterializer(
+    schema: MessageType,
+    private val readSupport: FailureReadSupport,
+) : RecordMaterializer<FailureFragment>() {
     /**
      * State of current record being read.
      */
@@ -83,12 +86,45 @@ internal class FailureRecordMaterializer(schema: MessageType) : RecordMaterializ
             override fun getConverter(fieldIndex: Int): Converter = converters[fieldIndex]
         }
 
-    override fun getCurrentRecord(): FailureFragment =
-        FailureFragment(
+    override fun getCurrentRecord(): FailureFragment {
+        val sink = readSupport.sink
+        if (sink != null) {
+            sink.accept(localFailureInterval, localFailureDuration, localFailureIntensity)
+            return PLACEHOLDER
+        }
+
+        return FailureFragment(
             localFailureInterval,
             localFailureDuration,
             localFailureIntensity,
         )
+    }
 
     override fun getRootConverter(): GroupConverter = root
+
+    private companion object {
+        /**
+         * The record returned while records are diverted to a [FailureSink].
+         */
+        val PLACEHOLDER = FailureFragment(0L, 0L, 0.0)
+    }
+}
+
+/**
+ * A consumer of the raw column values of [FailureFragment] records, which allows readers to decode records without
+ * materializing them.
+ */
+internal fun interface FailureSink {
+    /**
+     * Accept the column values of the current record.
+     *
+     * @param failureInterval The interval between failures.
+     * @param failureDuration The duration of the failure.
+     * @param failureIntensity The fraction of hosts affected by the failure.
+     */
+    fun accept(
+        failureInterval: Long,
+        failureDuration: Long,
+        failureIntensity: Double,
+    )
 }
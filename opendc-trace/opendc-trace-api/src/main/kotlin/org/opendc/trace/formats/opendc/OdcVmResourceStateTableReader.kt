@@ -22,6 +22,7 @@
 
 package org.opendc.trace.formats.opendc
 
+import org.opendc.trace.TableBatch
 import org.opendc.trace.TableReader
 import org.opendc.trace.conv.resourceCpuCount
 import org.opendc.trace.conv.resourceID
@@ -29,6 +30,8 @@ import org.opendc.trace.conv.resourceStateCpuUsage
 import org.opendc.trace.conv.resourceStateDuration
 import org.opendc.trace.conv.resourceStateTimestamp
 import org.opendc.trace.formats.opendc.parquet.ResourceState
+import org.opendc.trace.formats.opendc.parquet.ResourceStateReadSupport
+import org.opendc.trace.formats.opendc.parquet.ResourceStateSink
 import org.opendc.trace.util.parquet.LocalParquetReader
 import java.time.Duration
 import java.time.Instant
@@ -37,7 +40,10 @@ import java.util.UUID
 /**
  * A [TableReader] implementation for the OpenDC virtual machine trace format.
  */
-internal class OdcVmResourceStateTableReader(private val reader: LocalParquetReader<ResourceState>) : TableReader {
+internal class OdcVmResourceStateTableReader(
+    private val reader: LocalParquetReader<ResourceState>,
+    private val readSupport: ResourceStateReadSupport,
+) : TableReader {
     /**
      * The current record.
      */
@@ -55,6 +61,42 @@ internal class OdcVmResourceStateTableReader(private val reader: LocalParquetRea
         }
     }
 
+    override fun nextBatch(batch: TableBatch): Boolean {
+        if (reader.isParallel) {
+            // Records are materialized on the worker threads of the reader, so they cannot be diverted to the sink
+            return super.nextBatch(batch)
+        }
+
+        batch.clear()
+
+        val ids = batch.typed<TableBatch.StringVector>(colID)
+        val timestamps = batch.typed<TableBatch.LongVector>(colTimestamp)
+        val durations = batch.typed<TableBatch.LongVector>(colDuration)
+        val cpuCounts = batch.typed<TableBatch.IntVector>(colCpuCount)
+        val cpuUsages = batch.typed<TableBatch.DoubleVector>(colCpuUsage)
+
+        readSupport.sink =
+            ResourceStateSink { id, timestamp, duration, cpuCount, cpuUsage ->
+                val row = batch.appendRow()
+                ids?.set(row, id, readSupport.ids)
+                timestamps?.set(row, timestamp)
+                durations?.set(row, duration)
+                cpuCounts?.set(row, cpuCount)
+                cpuUsages?.set(row, cpuUsage)
+            }
+
+        try {
+            record = null
+            while (!batch.isFull && reader.read() != null) {
+                // Rows are appended to the batch by the sink
+            }
+        } finally {
+            readSupport.sink = null
+        }
+
+        return batch.size > 0
+    }
+
     private val colID = 0
     private val colTimestamp = 1
     private val colDuration = 2
@@ -22,6 +22,7 @@
 
 package org.opendc.trace.formats.opendc
 
+import org.opendc.trace.TableBatch
 import org.opendc.trace.TableReader
 import org.opendc.trace.conv.resourceCpuCapacity
 import org.opendc.trace.conv.resourceCpuCount
@@ -30,6 +31,8 @@ import org.opendc.trace.conv.resourceID
 import org.opendc.trace.conv.resourceMemCapacity
 import org.opendc.trace.conv.resourceSubmissionTime
 import org.opendc.trace.formats.opendc.parquet.Resource
+import org.opendc.trace.formats.opendc.parquet.ResourceReadSupport
+import org.opendc.trace.formats.opendc.parquet.ResourceSink
 import org.opendc.trace.util.parquet.LocalParquetReader
 import java.time.Duration
 import java.time.Instant
@@ -38,7 +41,10 @@ import java.util.UUID
 /**
  * A [TableReader] implementation for the "resources table" in the OpenDC virtual machine trace format.
  */
-internal class OdcVmResourceTableReader(private val reader: LocalParquetReader<Resource>) : TableReader {
+internal class OdcVmResourceTableReader(
+    private val reader: LocalParquetReader<Resource>,
+    private val readSupport: ResourceReadSupport,
+) : TableReader {
     /**
      * The current record.
      */
@@ -56,6 +62,44 @@ internal class OdcVmResourceTableReader(private val reader: LocalParquetReader<R
         }
     }
 
+    override fun nextBatch(batch: TableBatch): Boolean {
+        if (reader.isParallel) {
+            // Records are materialized on the worker threads of the reader, so they cannot be diverted to the sink
+            return super.nextBatch(batch)
+        }
+
+        batch.clear()
+
+        val ids = batch.typed<TableBatch.StringVector>(colID)
+        val submissionTimes = batch.typed<TableBatch.LongVector>(colSubmissionTime)
+        val durations = batch.typed<TableBatch.LongVector>(colDurationTime)
+        val cpuCounts = batch.typed<TableBatch.IntVector>(colCpuCount)
+        val cpuCapacities = batch.typed<TableBatch.DoubleVector>(colCpuCapacity)
+        val memCapacities = batch.typed<TableBatch.DoubleVector>(colMemCapacity)
+
+        readSupport.sink =
+            ResourceSink { id, submissionTime, duration, cpuCount, cpuCapacity, memCapacity ->
+                val row = batch.appendRow()
+                ids?.set(row, id, readSupport.ids)
+                submissionTimes?.set(row, submissionTime)
+                durations?.set(row, duration)
+                cpuCounts?.set(row, cpuCount)
+                cpuCapacities?.set(row, cpuCapacity)
+                memCapacities?.set(row, memCapacity)
+            }
+
+        try {
+            record = null
+            while (!batch.isFull && reader.read() != null) {
+                // Rows are appended to the batch by the sink
+            }
+        } finally {
+            readSupport.sink = null
+        }
+
+        return batch.size > 0
+    }
+
     private val colID = 0
     private val colSubmissionTime = 1
     private val colDurationTime = 2
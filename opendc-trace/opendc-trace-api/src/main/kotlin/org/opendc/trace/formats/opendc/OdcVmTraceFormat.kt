@@ -29,7 +29,9 @@ import org.apache.parquet.hadoop.ParquetFileWriter
 import org.apache.parquet.hadoop.metadata.CompressionCodecName
 import org.opendc.trace.TableColumn
 import org.opendc.trace.TableColumnType
+import org.opendc.trace.TablePredicate
 import org.opendc.trace.TableReader
+import org.opendc.trace.TableScanOptions
 import org.opendc.trace.TableWriter
 import org.opendc.trace.conv.INTERFERENCE_GROUP_MEMBERS
 import org.opendc.trace.conv.INTERFERENCE_GROUP_SCORE
@@ -54,6 +56,9 @@ import org.opendc.trace.spi.TableDetails
 import org.opendc.trace.spi.TraceFormat
 import org.opendc.trace.util.parquet.LocalParquetReader
 import org.opendc.trace.util.parquet.LocalParquetWriter
+import org.opendc.trace.util.parquetFilter
+import org.opendc.trace.util.toParquetOptions
+import org.opendc.trace.util.withColumnsOf
 import java.nio.file.Files
 import java.nio.file.Path
 import kotlin.io.path.exists
@@ -128,15 +133,46 @@ public class OdcVmTraceFormat : TraceFormat {
         path: Path,
         table: String,
         projection: List<String>?,
+    ): TableReader = newReader(path, table, projection, null, null)
+
+    override fun newReader(
+        path: Path,
+        table: String,
+        projection: List<String>?,
+        predicate: TablePredicate?,
+    ): TableReader = newReader(path, table, projection, predicate, null)
+
+    override fun newReader(
+        path: Path,
+        table: String,
+        projection: List<String>?,
+        predicate: TablePredicate?,
+        options: TableScanOptions?,
     ): TableReader {
         return when (table) {
             TABLE_RESOURCES -> {
-                val reader = LocalParquetReader(path.resolve("tasks.parquet"), ResourceReadSupport(projection))
-                OdcVmResourceTableReader(reader)
+                val readSupport = ResourceReadSupport(projection.withColumnsOf(predicate))
+                val filter = parquetFilter(predicate, readSupport.filterFields)
+                val reader =
+                    LocalParquetReader(
+                        path.resolve("tasks.parquet"),
+                        readSupport,
+                        filter = filter,
+                        options = options.toParquetOptions(),
+                    )
+                OdcVmResourceTableReader(reader, readSupport)
             }
             TABLE_RESOURCE_STATES -> {
-                val reader = LocalParquetReader(path.resolve("fragments.parquet"), ResourceStateReadSupport(projection))
-                OdcVmResourceStateTableReader(reader)
+                val readSupport = ResourceStateReadSupport(projection.withColumnsOf(predicate))
+                val filter = parquetFilter(predicate, readSupport.filterFields)
+                val reader =
+                    LocalParquetReader(
+                        path.resolve("fragments.parquet"),
+                        readSupport,
+                        filter = filter,
+                        options = options.toParquetOptions(),
+                    )
+                OdcVmResourceStateTableReader(reader, readSupport)
             }
             TABLE_INTERFERENCE_GROUPS -> {
                 val modelPath = path.resolve("interference-model.json")
@@ -37,11 +37,23 @@ import org.opendc.trace.conv.resourceDuration
 import org.opendc.trace.conv.resourceID
 import org.opendc.trace.conv.resourceMemCapacity
 import org.opendc.trace.conv.resourceSubmissionTime
+import org.opendc.trace.util.parquet.StringTable
 
 /**
  * A [ReadSupport] instance for [Resource] objects.
  */
 internal class ResourceReadSupport(private val projection: List<String>?) : ReadSupport<Resource>() {
+    /**
+     * The table in which the identifiers of the resources are interned. It is shared by all files of the table, so
+     * equal identifiers map to equal ids.
+     */
+    val ids = StringTable()
+
+    /**
+     * The sink to which records are diverted instead of being materialized, or `null` to materialize records.
+     */
+    var sink: ResourceSink? = null
+
     /**
      * Mapping from field names to [TableColumn]s.
      */
@@ -58,6 +70,11 @@ internal class ResourceReadSupport(private val projection: List<String>?) : Read
             "mem_capacity" to resourceMemCapacity,
         )
 
+    /**
+     * Mapping from table columns to the Parquet fields that may store them, used for pushing down predicates.
+     */
+    val filterFields: Map<String, List<String>> = fieldMap.entries.groupBy({ it.value }, { it.key })
+
     override fun init(context: InitContext): ReadContext {
         val projectedSchema =
             if (projection != null) {
@@ -85,7 +102,7 @@ internal class ResourceReadSupport(private val projection: List<String>?) : Read
         keyValueMetaData: Map<String, String>,
         fileSchema: MessageType,
         readContext: ReadContext,
-    ): RecordMaterializer<Resource> = ResourceRecordMaterializer(readContext.requestedSchema)
+    ): RecordMaterializer<Resource> = ResourceRecordMaterializer(readContext.requestedSchema, this)
 
     companion object {
         /**
@@ -22,23 +22,33 @@
 
 package org.opendc.trace.formats.opendc.parquet
 
-import org.apache.parquet.io.api.Binary
 import org.apache.parquet.io.api.Converter
 import org.apache.parquet.io.api.GroupConverter
 import org.apache.parquet.io.api.PrimitiveConverter
 import org.apache.parquet.io.api.RecordMaterializer
 import org.apache.parquet.schema.MessageType
+import org.opendc.trace.util.parquet.StringIdConverter
 import java.time.Instant
 
 /**
  * A [RecordMaterializer] for [Resource] records.
+ *
+ * @param schema The requested schema of the records.
+ * @param readSupport The [ResourceReadSupport] that may divert records to a [ResourceSink].
  */
-internal class ResourceRecordMaterializer(schema: MessageType) : RecordMaterializer<Resource>() {
+internal class ResourceRecordMaterializer(
+    schema: MessageType,
+    private val readSupport: ResourceReadSupport,
+) : RecordMaterializer<Resource>() {
+    /**
+     * The converter for the identifiers of the resources, which interns them in [ResourceReadSupport.ids].
+     */
+    private val idConverter = StringIdConverter(readSupport.ids)
+
     /**
      * State of current record being read.
      */
-    private var localId = ""
-    private var localSubmissionTime = Instant.MIN
+    private var localSubmissionTime = Long.MIN_VALUE
     private var localDuration = 0L
     private var localCpuCount = 0
     private var localCpuCapacity = 0.0
@@ -55,16 +65,11 @@ internal class ResourceRecordMaterializer(schema: MessageType) : RecordMateriali
             private val converters =
                 schema.fields.map { type ->
                     when (type.name) {
-                        "id" ->
-                            object : PrimitiveConverter() {
-                                override fun addBinary(value: Binary) {
-                                    localId = value.toStringUsingUTF8()
-                                }
-                            }
+                        "id" -> idConverter
                         "submission_time", "submissionTime" ->
                             object : PrimitiveConverter() {
                                 override fun addLong(value: Long) {
-                                    localSubmissionTime = Instant.ofEpochMilli(value)
+                                    localSubmissionTime = value
                                 }
                             }
                         "duration" ->
@@ -100,8 +105,8 @@ internal class ResourceRecordMaterializer(schema: MessageType) : RecordMateriali
                 }
 
             override fun start() {
-                localId = ""
-                localSubmissionTime = Instant.MIN
+                idConverter.reset()
+                localSubmissionTime = Long.MIN_VALUE
                 localDuration = 0L
                 localCpuCount = 0
                 localCpuCapacity = 0.0
@@ -113,15 +118,54 @@ internal class ResourceRecordMaterializer(schema: MessageType) : RecordMateriali
             override fun getConverter(fieldIndex: Int): Converter = converters[fieldIndex]
         }
 
-    override fun getCurrentRecord(): Resource =
-        Resource(
-            localId,
-            localSubmissionTime,
+    override fun getCurrentRecord(): Resource {
+        val sink = readSupport.sink
+        if (sink != null) {
+            sink.accept(idConverter.id, localSubmissionTime, localDuration, localCpuCount, localCpuCapacity, localMemCapacity)
+            return PLACEHOLDER
+        }
+
+        return Resource(
+            idConverter.id.let { if (it < 0) "" else readSupport.ids[it] },
+            if (localSubmissionTime == Long.MIN_VALUE) Instant.MIN else Instant.ofEpochMilli(localSubmissionTime),
             localDuration,
             localCpuCount,
             localCpuCapacity,
             localMemCapacity,
         )
+    }
 
     override fun getRootConverter(): GroupConverter = root
+
+    private companion object {
+        /**
+         * The record returned while records are diverted to a [ResourceSink].
+         */
+        val PLACEHOLDER = Resource("", Instant.MIN, 0L, 0, 0.0, 0.0)
+    }
+}
+
+/**
+ * A consumer of the raw column values of [Resource] records, which allows readers to decode records without
+ * materializing them.
+ */
+internal fun interface ResourceSink {
+    /**
+     * Accept the column values of the current record.
+     *
+     * @param id The id of the resource identifier in [ResourceReadSupport.ids], or `-1` if absent.
+     * @param submissionTime The submission time in milliseconds since the epoch, or [Long.MIN_VALUE] if absent.
+     * @param duration The duration of the resource in milliseconds.
+     * @param cpuCount The number of CPUs of the resource.
+     * @param cpuCapacity The CPU capacity of the resource in MHz.
+     * @param memCapacity The memory capacity of the resource.
+     */
+    fun accept(
+        id: Int,
+        submissionTime: Long,
+        duration: Long,
+        cpuCount: Int,
+        cpuCapacity: Double,
+        memCapacity: Double,
+    )
 }
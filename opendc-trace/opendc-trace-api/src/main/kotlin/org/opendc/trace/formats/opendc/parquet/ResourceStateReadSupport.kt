@@ -36,11 +36,23 @@ import org.opendc.trace.conv.resourceID
 import org.opendc.trace.conv.resourceStateCpuUsage
 import org.opendc.trace.conv.resourceStateDuration
 import org.opendc.trace.conv.resourceStateTimestamp
+import org.opendc.trace.util.parquet.StringTable
 
 /**
  * A [ReadSupport] instance for [ResourceState] objects.
  */
 internal class ResourceStateReadSupport(private val projection: List<String>?) : ReadSupport<ResourceState>() {
+    /**
+     * The table in which the identifiers of the resources are interned. It is shared by all files of the table, so
+     * equal identifiers map to equal ids.
+     */
+    val ids = StringTable()
+
+    /**
+     * The sink to which records are diverted instead of being materialized, or `null` to materialize records.
+     */
+    var sink: ResourceStateSink? = null
+
     /**
      * Mapping from field names to [TableColumn]s.
      */
@@ -56,6 +68,11 @@ internal class ResourceStateReadSupport(private val projection: List<String>?) :
             "cpu_usage" to resourceStateCpuUsage,
         )
 
+    /**
+     * Mapping from table columns to the Parquet fields that may store them, used for pushing down predicates.
+     */
+    val filterFields: Map<String, List<String>> = fieldMap.entries.groupBy({ it.value }, { it.key })
+
     override fun init(context: InitContext): ReadContext {
         val projectedSchema =
             if (projection != null) {
@@ -83,7 +100,7 @@ internal class ResourceStateReadSupport(private val projection: List<String>?) :
         keyValueMetaData: Map<String, String>,
         fileSchema: MessageType,
         readContext: ReadContext,
-    ): RecordMaterializer<ResourceState> = ResourceStateRecordMaterializer(readContext.requestedSchema)
+    ): RecordMaterializer<ResourceState> = ResourceStateRecordMaterializer(readContext.requestedSchema, this)
 
     companion object {
         /**
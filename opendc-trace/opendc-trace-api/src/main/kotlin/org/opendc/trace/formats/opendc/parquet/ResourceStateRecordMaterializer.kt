@@ -22,25 +22,35 @@
 
 package org.opendc.trace.formats.opendc.parquet
 
-import org.apache.parquet.io.api.Binary
 import org.apache.parquet.io.api.Converter
 import org.apache.parquet.io.api.GroupConverter
 import org.apache.parquet.io.api.PrimitiveConverter
 import org.apache.parquet.io.api.RecordMaterializer
 import org.apache.parquet.schema.MessageType
+import org.opendc.trace.util.parquet.StringIdConverter
 import java.time.Duration
 import java.time.Instant
 
 /**
  * A [RecordMaterializer] for [ResourceState] records.
+ *
+ * @param schema The requested schema of the records.
+ * @param readSupport The [ResourceStateReadSupport] that may divert records to a [ResourceStateSink].
  */
-internal class ResourceStateRecordMaterializer(schema: MessageType) : RecordMaterializer<ResourceState>() {
+internal class ResourceStateRecordMaterializer(
+    schema: MessageType,
+    private val readSupport: ResourceStateReadSupport,
+) : RecordMaterializer<ResourceState>() {
+    /**
+     * The converter for the identifiers of the resources, which interns them in [ResourceStateReadSupport.ids].
+     */
+    private val idConverter = StringIdConverter(readSupport.ids)
+
     /**
      * State of current record being read.
      */
-    private var localId = ""
-    private var localTimestamp = Instant.MIN
-    private var localDuration = Duration.ZERO
+    private var localTimestamp = Long.MIN_VALUE
+    private var localDuration = 0L
     private var localCpuCount = 0
     private var localCpuUsage = 0.0
 
@@ -55,22 +65,17 @@ internal class ResourceStateRecordMaterializer(schema: MessageType) : RecordMate
             private val converters =
                 schema.fields.map { type ->
                     when (type.name) {
-                        "id" ->
-                            object : PrimitiveConverter() {
-                                override fun addBinary(value: Binary) {
-                                    localId = value.toStringUsingUTF8()
-                                }
-                            }
+                        "id" -> idConverter
                         "timestamp", "time" ->
                             object : PrimitiveConverter() {
                                 override fun addLong(value: Long) {
-                                    localTimestamp = Instant.ofEpochMilli(value)
+                                    localTimestamp = value
                                 }
                             }
                         "duration" ->
                             object : PrimitiveConverter() {
                                 override fun addLong(value: Long) {
-                                    localDuration = Duration.ofMillis(value)
+                                    localDuration = value
                                 }
                             }
                         "cpu_count", "cores" ->
@@ -96,9 +101,9 @@ internal class ResourceStateRecordMaterializer(schema: MessageType) : RecordMate
                 }
 
             override fun start() {
-                localId = ""
-                localTimestamp = Instant.MIN
-                localDuration = Duration.ZERO
+                idConverter.reset()
+                localTimestamp = Long.MIN_VALUE
+                localDuration = 0L
                 localCpuCount = 0
                 localCpuUsage = 0.0
             }
@@ -108,7 +113,52 @@ internal class ResourceStateRecordMaterializer(schema: MessageType) : RecordMate
             override fun getConverter(fieldIndex: Int): Converter = converters[fieldIndex]
         }
 
-    override fun getCurrentRecord(): ResourceState = ResourceState(localId, localTimestamp, localDuration, localCpuCount, localCpuUsage)
+    override fun getCurrentRecord(): ResourceState {
+        val sink = readSupport.sink
+        if (sink != null) {
+            sink.accept(idConverter.id, localTimestamp, localDuration, localCpuCount, localCpuUsage)
+            return PLACEHOLDER
+        }
+
+        return ResourceState(
+            idConverter.id.let { if (it < 0) "" else readSupport.ids[it] },
+            if (localTimestamp == Long.MIN_VALUE) Instant.MIN else Instant.ofEpochMilli(localTimestamp),
+            Duration.ofMillis(localDuration),
+            localCpuCount,
+            localCpuUsage,
+        )
+    }
 
     override fun getRootConverter(): GroupConverter = root
+
+    private companion object {
+        /**
+         * The record returned while records are diverted to a [ResourceStateSink]. Parquet skips `null` records, so we
+         * cannot use `null` for this purpose.
+         */
+        val PLACEHOLDER = ResourceState("", Instant.MIN, Duration.ZERO, 0, 0.0)
+    }
+}
+
+/**
+ * A consumer of the raw column values of [ResourceState] records, which allows readers to decode records without
+ * materializing them.
+ */
+internal fun interface ResourceStateSink {
+    /**
+     * Accept the column values of the current record.
+     *
+     * @param id The id of the resource identifier in [ResourceStateReadSupport.ids], or `-1` if absent.
+     * @param timestamp The timestamp of the sample in milliseconds since the epoch, or [Long.MIN_VALUE] if absent.
+     * @param duration The duration of the sample in milliseconds.
+     * @param cpuCount The number of CPUs of the resource.
+     * @param cpuUsage The CPU usage of the resource in MHz.
+     */
+    fun accept(
+        id: Int,
+        timestamp: Long,
+        duration: Long,
+        cpuCount: Int,
+        cpuUsage: Double,
+    )
 }
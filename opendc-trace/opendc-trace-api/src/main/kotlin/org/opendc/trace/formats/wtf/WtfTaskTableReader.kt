@@ -22,6 +22,7 @@
 
 package org.opendc.trace.wtf
 
+import org.opendc.trace.TableBatch
 import org.opendc.trace.TableColumnType
 import org.opendc.trace.TableReader
 import org.opendc.trace.conv.TASK_CHILDREN
@@ -37,6 +38,8 @@ import org.opendc.trace.conv.TASK_WORKFLOW_ID
 import org.opendc.trace.util.convertTo
 import org.opendc.trace.util.parquet.LocalParquetReader
 import org.opendc.trace.wtf.parquet.Task
+import org.opendc.trace.wtf.parquet.TaskReadSupport
+import org.opendc.trace.wtf.parquet.TaskSink
 import java.time.Duration
 import java.time.Instant
 import java.util.UUID
@@ -44,7 +47,10 @@ import java.util.UUID
 /**
  * A [TableReader] implementation for the WTF format.
  */
-internal class WtfTaskTableReader(private val reader: LocalParquetReader<Task>) : TableReader {
+internal class WtfTaskTableReader(
+    private val reader: LocalParquetReader<Task>,
+    private val readSupport: TaskReadSupport,
+) : TableReader {
     /**
      * The current record.
      */
@@ -62,6 +68,62 @@ internal class WtfTaskTableReader(private val reader: LocalParquetReader<Task>)
         }
     }
 
+    override fun nextBatch(batch: TableBatch): Boolean {
+        if (reader.isParallel) {
+            // Records are materialized on the worker threads of the reader, so they cannot be diverted to the sink
+            return super.nextBatch(batch)
+        }
+
+        batch.clear()
+
+        val ids = batch.typed<TableBatch.StringVector>(colID)
+        val workflowIds = batch.typed<TableBatch.StringVector>(colWorkflowID)
+        val submitTimes = batch.typed<TableBatch.LongVector>(colSubmitTime)
+        val waitTimes = batch.typed<TableBatch.LongVector>(colWaitTime)
+        val runtimes = batch.typed<TableBatch.LongVector>(colRuntime)
+        val requestedCpus = batch.typed<TableBatch.IntVector>(colReqNcpus)
+        val groupIds = batch.typed<TableBatch.IntVector>(colGroupID)
+        val userIds = batch.typed<TableBatch.IntVector>(colUserID)
+
+        readSupport.sink =
+            TaskSink { id, workflowId, submitTime, waitTime, runtime, reqNcpus, groupId, userId ->
+                val row = batch.appendRow()
+                ids?.setId(row, id)
+                workflowIds?.setId(row, workflowId)
+                submitTimes?.set(row, submitTime)
+                waitTimes?.set(row, waitTime)
+                runtimes?.set(row, runtime)
+                requestedCpus?.set(row, reqNcpus)
+                groupIds?.set(row, groupId)
+                userIds?.set(row, userId)
+            }
+
+        try {
+            record = null
+            while (!batch.isFull && reader.read() != null) {
+                // Rows are appended to the batch by the sink
+            }
+        } finally {
+            readSupport.sink = null
+        }
+
+        return batch.size > 0
+    }
+
+    /**
+     * Store the numeric identifier [id] at [row], mapping absent identifiers to the empty string like [getString].
+     */
+    private fun TableBatch.StringVector.setId(
+        row: Int,
+        id: Long,
+    ) {
+        if (id == Long.MIN_VALUE) {
+            set(row, "")
+        } else {
+            setLong(row, id)
+        }
+    }
+
     private val colID = 0
     private val colWorkflowID = 1
     private val colSubmitTime = 2
@@ -24,7 +24,9 @@ package org.opendc.trace.wtf
 
 import org.opendc.trace.TableColumn
 import org.opendc.trace.TableColumnType
+import org.opendc.trace.TablePredicate
 import org.opendc.trace.TableReader
+import org.opendc.trace.TableScanOptions
 import org.opendc.trace.TableWriter
 import org.opendc.trace.conv.TABLE_TASKS
 import org.opendc.trace.conv.TASK_CHILDREN
@@ -40,6 +42,9 @@ import org.opendc.trace.conv.TASK_WORKFLOW_ID
 import org.opendc.trace.spi.TableDetails
 import org.opendc.trace.spi.TraceFormat
 import org.opendc.trace.util.parquet.LocalParquetReader
+import org.opendc.trace.util.parquetFilter
+import org.opendc.trace.util.toParquetOptions
+import org.opendc.trace.util.withColumnsOf
 import org.opendc.trace.wtf.parquet.TaskReadSupport
 import java.nio.file.Path
 
@@ -83,11 +88,35 @@ public class WtfTraceFormat : TraceFormat {
         path: Path,
         table: String,
         projection: List<String>?,
+    ): TableReader = newReader(path, table, projection, null, null)
+
+    override fun newReader(
+        path: Path,
+        table: String,
+        projection: List<String>?,
+        predicate: TablePredicate?,
+    ): TableReader = newReader(path, table, projection, predicate, null)
+
+    override fun newReader(
+        path: Path,
+        table: String,
+        projection: List<String>?,
+        predicate: TablePredicate?,
+        options: TableScanOptions?,
     ): TableReader {
         return when (table) {
             TABLE_TASKS -> {
-                val reader = LocalParquetReader(path.resolve("tasks/schema-1.0"), TaskReadSupport(projection), strictTyping = false)
-                WtfTaskTableReader(reader)
+                val readSupport = TaskReadSupport(projection.withColumnsOf(predicate))
+                val filter = parquetFilter(predicate, readSupport.filterFields)
+                val reader =
+                    LocalParquetReader(
+                        path.resolve("tasks/schema-1.0"),
+                        readSupport,
+                        strictTyping = false,
+                        filter = filter,
+                        options = options.toParquetOptions(),
+                    )
+                WtfTaskTableReader(reader, readSupport)
             }
             else -> throw IllegalArgumentException("Table $table not supported")
         }
@@ -48,6 +48,11 @@ import org.opendc.trace.conv.TASK_WORKFLOW_ID
  * @param projection The projection of the table to read.
  */
 internal class TaskReadSupport(private val projection: List<String>?) : ReadSupport<Task>() {
+    /**
+     * The sink to which records are diverted instead of being materialized, or `null` to materialize records.
+     */
+    var sink: TaskSink? = null
+
     /**
      * Mapping of table columns to their Parquet column names.
      */
@@ -65,6 +70,13 @@ internal class TaskReadSupport(private val projection: List<String>?) : ReadSupp
             TASK_USER_ID to "user_id",
         )
 
+    /**
+     * Mapping from table columns to the Parquet fields that may store them, used for pushing down predicates. The
+     * requested CPUs are rounded and the relations are sets, so predicates on those columns cannot be pushed down.
+     */
+    val filterFields: Map<String, List<String>> =
+        (colMap - setOf(TASK_REQ_NCPUS, TASK_PARENTS, TASK_CHILDREN)).mapValues { listOf(it.value) }
+
     override fun init(context: InitContext): ReadContext {
         val projectedSchema =
             if (projection != null) {
@@ -89,7 +101,7 @@ internal class TaskReadSupport(private val projection: List<String>?) : ReadSupp
         keyValueMetaData: Map<String, String>,
         fileSchema: MessageType,
         readContext: ReadContext,
-    ): RecordMaterializer<Task> = TaskRecordMaterializer(readContext.requestedSchema)
+    ): RecordMaterializer<Task> = TaskRecordMaterializer(readContext.requestedSchema, this)
 
     companion object {
         /**
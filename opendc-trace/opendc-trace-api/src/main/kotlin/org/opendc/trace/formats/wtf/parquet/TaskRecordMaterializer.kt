@@ -35,15 +35,18 @@ import kotlin.math.roundToLong
 /**
  * A [RecordMaterializer] for [Task] records.
  */
-internal class TaskRecordMaterializer(schema: MessageType) : RecordMaterializer<Task>() {
+internal class TaskRecordMaterializer(
+    schema: MessageType,
+    private val readSupport: TaskReadSupport,
+) : RecordMaterializer<Task>() {
     /**
      * State of current record being read.
      */
-    private var localID = ""
-    private var localWorkflowID = ""
-    private var localSubmitTime = Instant.MIN
-    private var localWaitTime = Duration.ZERO
-    private var localRuntime = Duration.ZERO
+    private var localID = Long.MIN_VALUE
+    private var localWorkflowID = Long.MIN_VALUE
+    private var localSubmitTime = Long.MIN_VALUE
+    private var localWaitTime = 0L
+    private var localRuntime = 0L
     private var localRequestedCpus = 0
     private var localGroupId = 0
     private var localUserId = 0
@@ -64,31 +67,31 @@ internal class TaskRecordMaterializer(schema: MessageType) : RecordMaterializer<
                         "id" ->
                             object : PrimitiveConverter() {
                                 override fun addLong(value: Long) {
-                                    localID = value.toString()
+                                    localID = value
                                 }
                             }
                         "workflow_id" ->
                             object : PrimitiveConverter() {
                                 override fun addLong(value: Long) {
-                                    localWorkflowID = value.toString()
+                                    localWorkflowID = value
                                 }
                             }
                         "ts_submit" ->
                             object : PrimitiveConverter() {
                                 override fun addLong(value: Long) {
-                                    localSubmitTime = Instant.ofEpochMilli(value)
+                                    localSubmitTime = value
                                 }
                             }
                         "wait_time" ->
                             object : PrimitiveConverter() {
                                 override fun addLong(value: Long) {
-                                    localWaitTime = Duration.ofMillis(value)
+                                    localWaitTime = value
                                 }
                             }
                         "runtime" ->
                             object : PrimitiveConverter() {
                                 override fun addLong(value: Long) {
-                                    localRuntime = Duration.ofMillis(value)
+                                    localRuntime = value
                                 }
                             }
                         "resource_amount_requested" ->
@@ -116,11 +119,11 @@ internal class TaskRecordMaterializer(schema: MessageType) : RecordMaterializer<
                 }
 
             override fun start() {
-                localID = ""
-                localWorkflowID = ""
-                localSubmitTime = Instant.MIN
-                localWaitTime = Duration.ZERO
-                localRuntime = Duration.ZERO
+                localID = Long.MIN_VALUE
+                localWorkflowID = Long.MIN_VALUE
+                localSubmitTime = Long.MIN_VALUE
+                localWaitTime = 0L
+                localRuntime = 0L
                 localRequestedCpus = 0
                 localGroupId = 0
                 localUserId = 0
@@ -133,22 +136,45 @@ internal class TaskRecordMaterializer(schema: MessageType) : RecordMaterializer<
             override fun getConverter(fieldIndex: Int): Converter = converters[fieldIndex]
         }
 
-    override fun getCurrentRecord(): Task =
-        Task(
-            localID,
-            localWorkflowID,
-            localSubmitTime,
-            localWaitTime,
-            localRuntime,
+    override fun getCurrentRecord(): Task {
+        val sink = readSupport.sink
+        if (sink != null) {
+            sink.accept(
+                localID,
+                localWorkflowID,
+                localSubmitTime,
+                localWaitTime,
+                localRuntime,
+                localRequestedCpus,
+                localGroupId,
+                localUserId,
+            )
+            return PLACEHOLDER
+        }
+
+        return Task(
+            if (localID == Long.MIN_VALUE) "" else localID.toString(),
+            if (localWorkflowID == Long.MIN_VALUE) "" else localWorkflowID.toString(),
+            if (localSubmitTime == Long.MIN_VALUE) Instant.MIN else Instant.ofEpochMilli(localSubmitTime),
+            Duration.ofMillis(localWaitTime),
+            Duration.ofMillis(localRuntime),
             localRequestedCpus,
             localGroupId,
             localUserId,
             localParents.toSet(),
             localChildren.toSet(),
         )
+    }
 
     override fun getRootConverter(): GroupConverter = root
 
+    private companion object {
+        /**
+         * The record returned while records are diverted to a [TaskSink].
+         */
+        val PLACEHOLDER = Task("", "", Instant.MIN, Duration.ZERO, Duration.ZERO, 0, 0, 0, emptySet(), emptySet())
+    }
+
     /**
      * Helper class to convert parent and child relations and add them to [relations].
      */
@@ -186,3 +212,24 @@ internal class TaskRecordMaterializer(schema: MessageType) : RecordMaterializer<
         override fun end() {}
     }
 }
+
+/**
+ * A consumer of the raw scalar column values of [Task] records, which allows readers to decode records without
+ * materializing them. The parent and child relations of tasks are not passed to the sink.
+ */
+internal fun interface TaskSink {
+    /**
+     * Accept the column values of the current record. Absent identifiers and submission times are passed as
+     * [Long.MIN_VALUE].
+     */
+    fun accept(
+        id: Long,
+        workflowId: Long,
+        submitTime: Long,
+        waitTime: Long,
+        runtime: Long,
+        requestedCpus: Int,
+        groupId: Int,
+        userId: Int,
+    )
+}
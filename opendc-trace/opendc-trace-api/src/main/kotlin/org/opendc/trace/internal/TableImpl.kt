@@ -24,7 +24,9 @@ package org.opendc.trace.internal
 
 import org.opendc.trace.Table
 import org.opendc.trace.TableColumn
+import org.opendc.trace.TablePredicate
 import org.opendc.trace.TableReader
+import org.opendc.trace.TableScanOptions
 import org.opendc.trace.TableWriter
 import java.util.Objects
 
@@ -44,6 +46,21 @@ internal class TableImpl(val trace: TraceImpl, override val name: String) : Tabl
         return trace.format.newReader(trace.path, name, projection)
     }
 
+    override fun newReader(
+        projection: List<String>?,
+        predicate: TablePredicate?,
+    ): TableReader {
+        return trace.format.newReader(trace.path, name, projection, predicate)
+    }
+
+    override fun newReader(
+        projection: List<String>?,
+        predicate: TablePredicate?,
+        options: TableScanOptions?,
+    ): TableReader {
+        return trace.format.newReader(trace.path, name, projection, predicate, options)
+    }
+
     override fun newWriter(): TableWriter = trace.format.newWriter(trace.path, name)
 
     override fun toString(): String = "Table[name=$name]"
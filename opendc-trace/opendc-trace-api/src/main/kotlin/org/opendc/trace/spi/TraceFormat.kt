@@ -22,7 +22,9 @@
 
 package org.opendc.trace.spi
 
+import org.opendc.trace.TablePredicate
 import org.opendc.trace.TableReader
+import org.opendc.trace.TableScanOptions
 import org.opendc.trace.TableWriter
 import org.opendc.trace.azure.AzureTraceFormat
 import org.opendc.trace.bitbrains.BitbrainsTraceFormat
@@ -90,6 +92,48 @@ public interface TraceFormat {
         projection: List<String>?,
     ): TableReader
 
+    /**
+     * Open a [TableReader] for the specified [table], pushing down [predicate] into the reader.
+     *
+     * The predicate is advisory (see [TablePredicate]). By default, it is ignored and all rows are returned.
+     *
+     * @param path The path to the trace to open.
+     * @param table The name of the table to open a [TableReader] for.
+     * @param projection The name of the columns to project or `null` if no projection is performed.
+     * @param predicate The predicate to push down into the reader or `null` to read all rows.
+     * @throws IllegalArgumentException If [table] does not exist.
+     * @return A [TableReader] instance for the table.
+     */
+    public fun newReader(
+        path: Path,
+        table: String,
+        projection: List<String>?,
+        predicate: TablePredicate?,
+    ): TableReader = newReader(path, table, projection)
+
+    /**
+     * Open a [TableReader] for the specified [table], pushing down [predicate] into the reader and scanning the table
+     * according to [options].
+     *
+     * The options are advisory (see [TableScanOptions]). By default, they are ignored and the table is read
+     * sequentially.
+     *
+     * @param path The path to the trace to open.
+     * @param table The name of the table to open a [TableReader] for.
+     * @param projection The name of the columns to project or `null` if no projection is performed.
+     * @param predicate The predicate to push down into the reader or `null` to read all rows.
+     * @param options The options for scanning the table or `null` to use the defaults of the format.
+     * @throws IllegalArgumentException If [table] does not exist.
+     * @return A [TableReader] instance for the table.
+     */
+    public fun newReader(
+        path: Path,
+        table: String,
+        projection: List<String>?,
+        predicate: TablePredicate?,
+        options: TableScanOptions?,
+    ): TableReader = newReader(path, table, projection, predicate)
+
     /**
      * Open a [TableWriter] for the specified [table].
      *
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+@file:JvmName("ParquetPredicateConversions")
+
+package org.opendc.trace.util
+
+import org.apache.parquet.filter2.predicate.FilterApi
+import org.apache.parquet.filter2.predicate.FilterPredicate
+import org.apache.parquet.filter2.predicate.Operators
+import org.apache.parquet.io.api.Binary
+import org.apache.parquet.schema.MessageType
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName
+import org.apache.parquet.schema.Type
+import org.opendc.trace.TablePredicate
+import java.time.Duration
+import java.time.Instant
+
+/**
+ * Convert this predicate into a Parquet [FilterPredicate] for a file with the specified [schema].
+ *
+ * Since table predicates are advisory, parts of the predicate that cannot be expressed exactly in terms of the
+ * columns of the file are dropped where this only widens the filter (e.g., an operand of a conjunction), and cause the
+ * whole predicate to be dropped otherwise.
+ *
+ * @param schema The schema of the Parquet file.
+ * @param fields A mapping from table columns to the names of the Parquet fields that may store them, in order of
+ * preference.
+ * @return The [FilterPredicate] or `null` if the predicate cannot be pushed down.
+ */
+internal fun TablePredicate.toParquetFilter(
+    schema: MessageType,
+    fields: Map<String, List<String>>,
+): FilterPredicate? {
+    return when (this) {
+        is TablePredicate.Compare -> {
+            val field = fields[column]?.firstOrNull { schema.containsField(it) } ?: return null
+            val type = schema.getType(field)
+            if (!type.isPrimitive || type.isRepetition(Type.Repetition.REPEATED)) {
+                return null
+            }
+            toParquetFilter(field, type.asPrimitiveType().primitiveTypeName)
+        }
+        is TablePredicate.And -> {
+            operands
+                .mapNotNull { it.toParquetFilter(schema, fields) }
+                .reduceOrNull { acc, p -> FilterApi.and(acc, p) }
+        }
+        is TablePredicate.Or -> {
+            val filters = operands.map { it.toParquetFilter(schema, fields) ?: return null }
+            filters.reduceOrNull { acc, p -> FilterApi.or(acc, p) }
+        }
+    }
+}
+
+/**
+ * Convert a comparison on the Parquet [field] of the specified [type] into a [FilterPredicate].
+ */
+private fun TablePredicate.Compare.toParquetFilter(
+    field: String,
+    type: PrimitiveTypeName,
+): FilterPredicate? {
+    val value = value
+
+    // Numeric identifiers (e.g., in the WTF format) are exposed as strings. Only equality is preserved by this
+    // conversion, and only for the canonical representation of the number.
+    if (value is String && type != PrimitiveTypeName.BINARY) {
+        if (op != TablePredicate.Op.EQ && op != TablePredicate.Op.NE) {
+            return null
+        }
+        val number = value.toLongOrNull()?.takeIf { it.toString() == value } ?: return null
+        return copy(value = number).toParquetFilter(field, type)
+    }
+
+    return when (type) {
+        PrimitiveTypeName.INT32 -> {
+            val v = exactLong(value)?.takeIf { it.toInt().toLong() == it }
+            compare(FilterApi.intColumn(field), op, v?.toInt())
+        }
+        PrimitiveTypeName.INT64 -> compare(FilterApi.longColumn(field), op, exactLong(value))
+        PrimitiveTypeName.DOUBLE -> compare(FilterApi.doubleColumn(field), op, exactDouble(value))
+        PrimitiveTypeName.FLOAT -> {
+            val v = exactDouble(value)?.takeIf { it.toFloat().toDouble() == it }
+            compare(FilterApi.floatColumn(field), op, v?.toFloat())
+        }
+        PrimitiveTypeName.BINARY -> compare(FilterApi.binaryColumn(field), op, (value as? String)?.let { Binary.fromString(it) })
+        else -> null
+    }
+}
+
+/**
+ * Construct a [FilterPredicate] that compares [column] with [value] using [op], or `null` if [value] is `null`.
+ */
+private fun <T : Comparable<T>, C> compare(
+    column: C,
+    op: TablePredicate.Op,
+    value: T?,
+): FilterPredicate? where C : Operators.Column<T>, C : Operators.SupportsLtGt {
+    if (value == null) {
+        return null
+    }
+
+    return when (op) {
+        TablePredicate.Op.EQ -> FilterApi.eq(column, value)
+        TablePredicate.Op.NE -> FilterApi.notEq(column, value)
+        TablePredicate.Op.LT -> FilterApi.lt(column, value)
+        TablePredicate.Op.LE -> FilterApi.ltEq(column, value)
+        TablePredicate.Op.GT -> FilterApi.gt(column, value)
+        TablePredicate.Op.GE -> FilterApi.gtEq(column, value)
+    }
+}
+
+/**
+ * Convert [value] into a [Long] (milliseconds for instants and durations) if this is possible without loss.
+ */
+private fun exactLong(value: Any): Long? {
+    return when (value) {
+        is Int -> value.toLong()
+        is Long -> value
+        is Instant -> value.toEpochMilli()
+        is Duration -> value.toMillis()
+        is Double -> value.toLong().takeIf { it.toDouble() == value }
+        is Float -> value.toLong().takeIf { it.toFloat() == value }
+        else -> null
+    }
+}
+
+/**
+ * Convert [value] into a [Double] if this is possible without loss.
+ */
+private fun exactDouble(value: Any): Double? {
+    return when (value) {
+        is Int -> value.toDouble()
+        is Long -> value.toDouble().takeIf { it.toLong() == value }
+        is Double -> value
+        is Float -> value.toDouble()
+        else -> null
+    }
+}
+
+/**
+ * Construct a function that converts [predicate] into a Parquet filter for the schema of each file of a dataset, as
+ * accepted by [org.opendc.trace.util.parquet.LocalParquetReader], or `null` if [predicate] is `null`.
+ */
+internal fun parquetFilter(
+    predicate: TablePredicate?,
+    fields: Map<String, List<String>>,
+): ((MessageType) -> FilterPredicate?)? {
+    if (predicate == null) {
+        return null
+    }
+
+    return { schema -> predicate.toParquetFilter(schema, fields) }
+}
+
+/**
+ * Extend the projection with the columns referenced by [predicate]. Parquet evaluates record filters only on the
+ * projected columns and treats other columns as `null`, so the projection must cover the predicate.
+ */
+internal fun List<String>?.withColumnsOf(predicate: TablePredicate?): List<String>? {
+    if (this == null || predicate == null) {
+        return this
+    }
+
+    return (this + predicate.columns).distinct()
+}
@@ -36,8 +36,10 @@ import org.junit.jupiter.api.assertDoesNotThrow
 import org.junit.jupiter.api.assertThrows
 import org.junit.jupiter.params.ParameterizedTest
 import org.junit.jupiter.params.provider.ValueSource
+import org.opendc.trace.TableBatch
 import org.opendc.trace.TableColumn
 import org.opendc.trace.TableReader
+import org.opendc.trace.TableScanOptions
 import org.opendc.trace.TableWriter
 import org.opendc.trace.conv.INTERFERENCE_GROUP_MEMBERS
 import org.opendc.trace.conv.INTERFERENCE_GROUP_SCORE
@@ -51,6 +53,7 @@ import org.opendc.trace.conv.resourceDuration
 import org.opendc.trace.conv.resourceID
 import org.opendc.trace.conv.resourceMemCapacity
 import org.opendc.trace.conv.resourceStateCpuUsage
+import org.opendc.trace.conv.resourceStateDuration
 import org.opendc.trace.conv.resourceStateTimestamp
 import org.opendc.trace.conv.resourceSubmissionTime
 import org.opendc.trace.formats.opendc.OdcVmTraceFormat
@@ -157,6 +160,90 @@ internal class OdcVmTraceFormatTest {
         reader.close()
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = ["trace-v2.0", "trace-v2.1"])
+    fun testResourceStatesBatch(name: String) {
+        val path = Paths.get("src/test/resources/opendc/$name")
+        val columns = listOf(resourceID, resourceStateTimestamp, resourceStateDuration, resourceCpuCount, resourceStateCpuUsage)
+
+        val expected = mutableListOf<List<Any?>>()
+        val rowReader = format.newReader(path, TABLE_RESOURCE_STATES, columns)
+        while (rowReader.nextRow()) {
+            // Traces without timestamps report Instant.MIN per row and the raw Long.MIN_VALUE per batch
+            val timestamp = rowReader.getInstant(resourceStateTimestamp)!!
+            expected.add(
+                listOf(
+                    rowReader.getString(resourceID),
+                    if (timestamp == Instant.MIN) Long.MIN_VALUE else timestamp.toEpochMilli(),
+                    rowReader.getDuration(resourceStateDuration)!!.toMillis(),
+                    rowReader.getInt(resourceCpuCount),
+                    rowReader.getDouble(resourceStateCpuUsage),
+                ),
+            )
+        }
+        rowReader.close()
+
+        val actual = mutableListOf<List<Any?>>()
+        val reader = format.newReader(path, TABLE_RESOURCE_STATES, columns)
+        val batch = TableBatch(7)
+        val ids = batch.strings(reader.resolve(resourceID))
+        val timestamps = batch.instants(reader.resolve(resourceStateTimestamp))
+        val durations = batch.durations(reader.resolve(resourceStateDuration))
+        val cpuCounts = batch.ints(reader.resolve(resourceCpuCount))
+        val cpuUsages = batch.doubles(reader.resolve(resourceStateCpuUsage))
+
+        while (reader.nextBatch(batch)) {
+            for (row in 0 until batch.size) {
+                actual.add(listOf(ids[row], timestamps[row], durations[row], cpuCounts[row], cpuUsages[row]))
+            }
+        }
+        reader.close()
+
+        assertAll(
+            { assertTrue(expected.isNotEmpty()) },
+            { assertEquals(expected, actual) },
+            { assertEquals(expected.map { it[0] }.distinct().size, ids.dictionarySize) },
+        )
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = [true, false])
+    fun testResourceStatesParallel(ordered: Boolean) {
+        val path = Paths.get("src/test/resources/opendc/trace-v2.1")
+        val columns = listOf(resourceID, resourceStateTimestamp, resourceStateCpuUsage)
+
+        fun read(options: TableScanOptions?): List<List<Any?>> {
+            val rows = mutableListOf<List<Any?>>()
+            format.newReader(path, TABLE_RESOURCE_STATES, columns, null, options).use { reader ->
+                while (reader.nextRow()) {
+                    rows.add(
+                        listOf(
+                            reader.getString(resourceID),
+                            reader.getInstant(resourceStateTimestamp),
+                            reader.getDouble(resourceStateCpuUsage),
+                        ),
+                    )
+                }
+            }
+            return rows
+        }
+
+        val expected = read(null)
+        val actual = read(TableScanOptions(parallelism = 2, ordered = ordered))
+
+        // An unordered scan returns the same rows, but may interleave the rows of different row groups
+        assertAll(
+            { assertTrue(expected.isNotEmpty()) },
+            {
+                if (ordered) {
+                    assertEquals(expected, actual)
+                } else {
+                    assertEquals(expected.groupingBy { it }.eachCount(), actual.groupingBy { it }.eachCount())
+                }
+            },
+        )
+    }
+
     @Test
     fun testResourceStatesWrite() {
         val path = Files.createTempDirectory("opendc")
@@ -38,13 +38,20 @@ import org.apache.calcite.rel.core.TableModify
 import org.apache.calcite.rel.logical.LogicalTableModify
 import org.apache.calcite.rel.type.RelDataType
 import org.apache.calcite.rel.type.RelDataTypeFactory
+import org.apache.calcite.rex.RexBuilder
+import org.apache.calcite.rex.RexCall
+import org.apache.calcite.rex.RexInputRef
+import org.apache.calcite.rex.RexLiteral
 import org.apache.calcite.rex.RexNode
+import org.apache.calcite.rex.RexUtil
 import org.apache.calcite.schema.ModifiableTable
 import org.apache.calcite.schema.ProjectableFilterableTable
 import org.apache.calcite.schema.SchemaPlus
 import org.apache.calcite.schema.impl.AbstractTableQueryable
+import org.apache.calcite.sql.SqlKind
 import org.apache.calcite.sql.type.SqlTypeName
 import org.opendc.trace.TableColumnType
+import org.opendc.trace.TablePredicate
 import java.nio.ByteBuffer
 import java.time.Duration
 import java.time.Instant
@@ -76,15 +83,89 @@ internal class TraceTable(private val table: org.opendc.trace.Table) :
         filters: MutableList<RexNode>,
         projects: IntArray?,
     ): Enumerable<Array<Any?>> {
-        // Filters are currently not supported by the OpenDC trace API. By keeping the filters in the list, Calcite
-        // assumes that they are declined and will perform the filters itself.
+        // Filters are pushed down into the reader, but predicates of the OpenDC trace API are advisory. By keeping the
+        // filters in the list, Calcite assumes that they are declined and will still evaluate them on the rows that
+        // the reader returns.
+        val rexBuilder = RexBuilder(root.typeFactory)
+        val predicates = filters.mapNotNull { toPredicate(RexUtil.expandSearch(rexBuilder, null, it)) }
+        val predicate =
+            when (predicates.size) {
+                0 -> null
+                1 -> predicates[0]
+                else -> TablePredicate.And(predicates)
+            }
 
         val projection = projects?.map { table.columns[it] }
         val cancelFlag = DataContext.Variable.CANCEL_FLAG.get<AtomicBoolean>(root)
         return object : AbstractEnumerable<Array<Any?>>() {
-            override fun enumerator(): Enumerator<Array<Any?>> =
-                TraceReaderEnumerator(table.newReader(projection?.map { it.name }), projection ?: table.columns, cancelFlag)
+            override fun enumerator(): Enumerator<Array<Any?>> {
+                val names = projection?.map { it.name }
+                val reader = if (predicate != null) table.newReader(names, predicate) else table.newReader(names)
+                return TraceReaderEnumerator(reader, projection ?: table.columns, cancelFlag)
+            }
+        }
+    }
+
+    /**
+     * Convert the Calcite filter [node] into a [TablePredicate], or `null` if the filter cannot be pushed down.
+     */
+    private fun toPredicate(node: RexNode): TablePredicate? {
+        if (node !is RexCall) {
+            return null
         }
+
+        return when (node.kind) {
+            SqlKind.AND -> {
+                val operands = node.operands.mapNotNull { toPredicate(it) }
+                if (operands.isEmpty()) null else TablePredicate.And(operands)
+            }
+            SqlKind.OR -> {
+                val operands = node.operands.map { toPredicate(it) ?: return null }
+                TablePredicate.Or(operands)
+            }
+            SqlKind.EQUALS -> toCompare(node, TablePredicate.Op.EQ)
+            SqlKind.NOT_EQUALS -> toCompare(node, TablePredicate.Op.NE)
+            SqlKind.LESS_THAN -> toCompare(node, TablePredicate.Op.LT)
+            SqlKind.LESS_THAN_OR_EQUAL -> toCompare(node, TablePredicate.Op.LE)
+            SqlKind.GREATER_THAN -> toCompare(node, TablePredicate.Op.GT)
+            SqlKind.GREATER_THAN_OR_EQUAL -> toCompare(node, TablePredicate.Op.GE)
+            else -> null
+        }
+    }
+
+    /**
+     * Convert a comparison between a column and a literal into a [TablePredicate.Compare].
+     */
+    private fun toCompare(
+        call: RexCall,
+        op: TablePredicate.Op,
+    ): TablePredicate? {
+        val (lhs, rhs) = call.operands
+        return when {
+            lhs is RexInputRef && rhs is RexLiteral -> toCompare(lhs, op, rhs)
+            lhs is RexLiteral && rhs is RexInputRef -> toCompare(rhs, op.flip(), lhs)
+            else -> null
+        }
+    }
+
+    private fun toCompare(
+        ref: RexInputRef,
+        op: TablePredicate.Op,
+        literal: RexLiteral,
+    ): TablePredicate? {
+        val column = table.columns.getOrNull(ref.index) ?: return null
+        val value: Any =
+            when (column.type) {
+                is TableColumnType.Int -> literal.getValueAs(Int::class.javaObjectType)
+                is TableColumnType.Long -> literal.getValueAs(Long::class.javaObjectType)
+                is TableColumnType.Float, is TableColumnType.Double -> literal.getValueAs(Double::class.javaObjectType)
+                is TableColumnType.String -> literal.getValueAs(String::class.java)
+                is TableColumnType.Instant -> literal.getValueAs(Long::class.javaObjectType)?.let { Instant.ofEpochMilli(it) }
+                is TableColumnType.Duration -> literal.getValueAs(Long::class.javaObjectType)?.let { Duration.ofMillis(it) }
+                else -> null
+            } ?: return null
+
+        return TablePredicate.Compare(column.name, op, value)
     }
 
     override fun insert(rows: Enumerable<Array<Any?>>): Long {
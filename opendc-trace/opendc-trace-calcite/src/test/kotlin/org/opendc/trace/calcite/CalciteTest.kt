@@ -24,6 +24,9 @@ package org.opendc.trace.calcite
 
 import io.mockk.every
 import io.mockk.mockk
+import io.mockk.slot
+import io.mockk.spyk
+import io.mockk.verify
 import org.apache.calcite.jdbc.CalciteConnection
 import org.junit.jupiter.api.Assertions.assertAll
 import org.junit.jupiter.api.Assertions.assertArrayEquals
@@ -33,9 +36,11 @@ import org.junit.jupiter.api.Assertions.assertTrue
 import org.junit.jupiter.api.Test
 import org.opendc.trace.TableColumn
 import org.opendc.trace.TableColumnType
+import org.opendc.trace.TablePredicate
 import org.opendc.trace.TableReader
 import org.opendc.trace.Trace
 import org.opendc.trace.conv.TABLE_RESOURCES
+import org.opendc.trace.conv.TABLE_RESOURCE_STATES
 import java.nio.file.Files
 import java.nio.file.Paths
 import java.sql.DriverManager
@@ -114,6 +119,36 @@ class CalciteTest {
         }
     }
 
+    @Test
+    fun testFilterPushdown() {
+        val table = spyk(odcTrace.getTable(TABLE_RESOURCE_STATES)!!)
+        val trace = mockk<Trace>()
+        every { trace.tables } returns listOf(TABLE_RESOURCE_STATES)
+        every { trace.getTable(TABLE_RESOURCE_STATES) } returns table
+
+        runQuery(trace, "SELECT id, cpu_usage FROM trace.resource_states WHERE id = '1023' AND cpu_usage > 0") { rs ->
+            var count = 0
+            while (rs.next()) {
+                assertEquals("1023", rs.getString("id"))
+                assertTrue(rs.getDouble("cpu_usage") > 0)
+                count++
+            }
+            assertTrue(count > 0)
+        }
+
+        val predicate = slot<TablePredicate>()
+        verify { table.newReader(any(), capture(predicate)) }
+        assertEquals(
+            TablePredicate.And(
+                listOf(
+                    TablePredicate.Compare("id", TablePredicate.Op.EQ, "1023"),
+                    TablePredicate.Compare("cpu_usage", TablePredicate.Op.GT, 0.0),
+                ),
+            ),
+            predicate.captured,
+        )
+    }
+
 //    @Test
     fun testInsert() {
         val tmp = Files.createTempDirectory("opendc")
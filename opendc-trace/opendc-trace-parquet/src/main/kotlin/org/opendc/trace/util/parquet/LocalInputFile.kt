@@ -33,8 +33,13 @@ import java.nio.file.StandardOpenOption
 
 /**
  * An [InputFile] on the local filesystem.
+ *
+ * The file is accessed through a single [FileChannel] that is closed together with the stream returned by [newStream],
+ * so every reader of the file needs its own [LocalInputFile].
+ *
+ * @property path The path to the file.
  */
-public class LocalInputFile(private val path: Path) : InputFile {
+public class LocalInputFile(internal val path: Path) : InputFile {
     /**
      * The [FileChannel] used for accessing the input path.
      */
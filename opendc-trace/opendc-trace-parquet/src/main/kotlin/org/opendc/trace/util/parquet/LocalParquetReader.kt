@@ -22,28 +22,46 @@
 
 package org.opendc.trace.util.parquet
 
+import org.apache.parquet.filter2.compat.FilterCompat
+import org.apache.parquet.filter2.predicate.FilterPredicate
+import org.apache.parquet.hadoop.ParquetFileReader
 import org.apache.parquet.hadoop.ParquetReader
 import org.apache.parquet.hadoop.api.ReadSupport
 import org.apache.parquet.io.InputFile
+import org.apache.parquet.schema.MessageType
 import java.io.File
 import java.io.IOException
 import java.nio.file.Files
 import java.nio.file.Path
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.BlockingQueue
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
 import kotlin.io.path.isDirectory
 
 /**
  * A helper class to read Parquet files from the filesystem.
  *
- * This class wraps a [ParquetReader] in order to support reading partitioned Parquet datasets.
+ * This class wraps a [ParquetReader] in order to support reading partitioned Parquet datasets. Depending on the
+ * [options], the files and row groups of the dataset are either read one after another on the calling thread, or
+ * decoded concurrently on a pool of worker threads. In the latter case, [readSupport] must support concurrent calls to
+ * [ReadSupport.prepareForRead] and its record materializers must return a new record for every row.
  *
  * @param path The path to the Parquet file or directory to read.
  * @param readSupport Helper class to perform conversion from Parquet to [T].
  * @param strictTyping A flag to disable strict typing of primitive types.
+ * @param options The options for scanning the dataset.
+ * @param filter A function that constructs a [FilterPredicate] for the schema of every file in the dataset, or `null`
+ * if all records should be read. Parquet uses the predicate to skip row groups and pages based on their statistics and
+ * to skip non-matching records. If the function returns `null` for a file, all records of that file are read.
  */
 public class LocalParquetReader<out T>(
     path: Path,
     private val readSupport: ReadSupport<T>,
     private val strictTyping: Boolean = true,
+    options: ParquetScanOptions = ParquetScanOptions.DEFAULT,
+    private val filter: ((MessageType) -> FilterPredicate?)? = null,
 ) : AutoCloseable {
     /**
      * The input files to process.
@@ -64,6 +82,18 @@ public class LocalParquetReader<out T>(
      */
     private var reader: ParquetReader<T>? = null
 
+    /**
+     * The scanner that decodes the dataset on worker threads, or `null` if the dataset is read on the calling thread.
+     */
+    private val scanner: ParallelScanner? =
+        if (options.parallelism > 1) ParallelScanner(options.parallelism, options.ordered) else null
+
+    /**
+     * A flag to indicate that records are decoded on worker threads.
+     */
+    public val isParallel: Boolean
+        get() = scanner != null
+
     /**
      * Construct a [LocalParquetReader] for the specified [file].
      */
@@ -73,6 +103,11 @@ public class LocalParquetReader<out T>(
      * Read a single entry in the Parquet file.
      */
     public fun read(): T? {
+        val scanner = scanner
+        if (scanner != null) {
+            return scanner.read()
+        }
+
         return try {
             val next = reader?.read()
             if (next != null) {
@@ -95,6 +130,7 @@ public class LocalParquetReader<out T>(
      * Close the Parquet reader.
      */
     override fun close() {
+        scanner?.close()
         reader?.close()
     }
 
@@ -120,11 +156,263 @@ public class LocalParquetReader<out T>(
     /**
      * Construct a [ParquetReader] for the specified [input] with a custom [ReadSupport].
      */
-    private fun createReader(input: InputFile): ParquetReader<T> {
-        return object : ParquetReader.Builder<T>(input) {
-            override fun getReadSupport(): ReadSupport<@UnsafeVariance T> = this@LocalParquetReader.readSupport
+    private fun createReader(input: LocalInputFile): ParquetReader<T> {
+        val predicate =
+            filter?.let { filter ->
+                // Closing the footer reader closes its input, so the footer is read through a separate input
+                val schema = ParquetFileReader.open(LocalInputFile(input.path)).use { it.footer.fileMetaData.schema }
+                filter(schema)
+            }
+        return builder(input, predicate).build()
+    }
+
+    /**
+     * Construct a [ParquetReader.Builder] for the specified [input] with a custom [ReadSupport].
+     */
+    private fun builder(
+        input: InputFile,
+        predicate: FilterPredicate?,
+    ): ParquetReader.Builder<T> {
+        val builder =
+            object : ParquetReader.Builder<T>(input) {
+                override fun getReadSupport(): ReadSupport<@UnsafeVariance T> = this@LocalParquetReader.readSupport
+            }
+                .set("parquet.strict.typing", strictTyping.toString())
+
+        if (predicate != null) {
+            builder.withFilter(FilterCompat.get(predicate))
         }
-            .set("parquet.strict.typing", strictTyping.toString())
-            .build()
+
+        return builder
+    }
+
+    /**
+     * A contiguous part of the dataset that is decoded by a single worker, which corresponds to a row group of a file.
+     * Every split opens its own [LocalInputFile], since the position of a file channel cannot be shared between workers.
+     */
+    private class Split(val path: Path, val start: Long, val end: Long, val predicate: FilterPredicate?)
+
+    /**
+     * A scanner that decodes the [Split]s of the dataset concurrently.
+     *
+     * At most [parallelism] splits are in flight at any time. Every split delivers its records in chunks through a
+     * bounded queue, which limits the amount of memory used by records that have been decoded but not yet consumed. In
+     * ordered mode, every split has its own queue, and the queues are drained in the order of the splits. In unordered
+     * mode, all splits share a single queue.
+     */
+    private inner class ParallelScanner(private val parallelism: Int, private val ordered: Boolean) {
+        /**
+         * The worker threads on which the splits are decoded.
+         */
+        private val executor: ExecutorService =
+            Executors.newFixedThreadPool(parallelism) { r ->
+                Thread(r, "opendc-parquet-scan-${THREAD_ID.incrementAndGet()}").apply { isDaemon = true }
+            }
+
+        /**
+         * The splits that have not yet been submitted.
+         */
+        private val pendingSplits = ArrayDeque<Split>()
+
+        /**
+         * The queues of the submitted splits, in order of submission. In unordered mode, this contains the shared queue.
+         */
+        private val queues = ArrayDeque<BlockingQueue<Chunk>>()
+
+        /**
+         * The queue shared by all splits in unordered mode.
+         */
+        private val sharedQueue: BlockingQueue<Chunk>? = if (ordered) null else ArrayBlockingQueue(parallelism * QUEUE_CAPACITY)
+
+        /**
+         * The number of submitted splits that have not yet been fully consumed.
+         */
+        private var activeSplits = 0
+
+        /**
+         * The chunk that is currently being consumed.
+         */
+        private var current: List<Any?> = emptyList()
+        private var position = 0
+
+        private var isClosed = false
+
+        fun read(): T? {
+            while (true) {
+                if (position < current.size) {
+                    @Suppress("UNCHECKED_CAST")
+                    return current[position++] as T
+                }
+
+                if (!nextChunk()) {
+                    return null
+                }
+            }
+        }
+
+        fun close() {
+            if (isClosed) {
+                return
+            }
+
+            isClosed = true
+            executor.shutdownNow()
+        }
+
+        /**
+         * Advance to the next chunk of records.
+         *
+         * @return `true` if a chunk is available, `false` if all records have been consumed.
+         */
+        private fun nextChunk(): Boolean {
+            if (isClosed) {
+                return false
+            }
+
+            fillWindow()
+
+            while (activeSplits > 0) {
+                val queue = if (ordered) queues.first() else sharedQueue!!
+                val chunk =
+                    try {
+                        queue.take()
+                    } catch (e: InterruptedException) {
+                        close()
+                        throw IOException(e)
+                    }
+
+                when (chunk) {
+                    is Chunk.Records -> {
+                        current = chunk.records
+                        position = 0
+                        return true
+                    }
+                    is Chunk.End -> {
+                        if (ordered) {
+                            queues.removeFirst()
+                        }
+                        activeSplits--
+                        fillWindow()
+                    }
+                    is Chunk.Failure -> {
+                        close()
+                        throw chunk.cause
+                    }
+                }
+            }
+
+            close()
+            return false
+        }
+
+        /**
+         * Submit splits until [parallelism] splits are in flight or no splits remain.
+         */
+        private fun fillWindow() {
+            while (activeSplits < parallelism) {
+                if (pendingSplits.isEmpty() && !discoverSplits()) {
+                    break
+                }
+
+                val split = pendingSplits.removeFirst()
+                val queue = sharedQueue ?: ArrayBlockingQueue<Chunk>(QUEUE_CAPACITY).also { queues.addLast(it) }
+
+                activeSplits++
+                executor.execute { decode(split, queue) }
+            }
+        }
+
+        /**
+         * Read the footer of the next file and add its row groups to the pending splits.
+         *
+         * @return `true` if any splits were added, `false` if there are no more files.
+         */
+        private fun discoverSplits(): Boolean {
+            while (filesIterator.hasNext()) {
+                val input = filesIterator.next()
+                val footer = ParquetFileReader.open(input).use { it.footer }
+                val predicate = filter?.invoke(footer.fileMetaData.schema)
+
+                for (block in footer.blocks) {
+                    val start = block.startingPos
+                    pendingSplits.addLast(Split(input.path, start, start + block.compressedSize, predicate))
+                }
+
+                if (pendingSplits.isNotEmpty()) {
+                    return true
+                }
+            }
+
+            return false
+        }
+
+        /**
+         * Decode the records of [split] into [queue]. This method runs on a worker thread.
+         */
+        private fun decode(
+            split: Split,
+            queue: BlockingQueue<Chunk>,
+        ) {
+            try {
+                builder(LocalInputFile(split.path), split.predicate)
+                    .withFileRange(split.start, split.end)
+                    .build()
+                    .use { reader ->
+                        var records = ArrayList<Any?>(CHUNK_SIZE)
+
+                        while (true) {
+                            val record = reader.read() ?: break
+                            records.add(record)
+
+                            if (records.size == CHUNK_SIZE) {
+                                queue.put(Chunk.Records(records))
+                                records = ArrayList(CHUNK_SIZE)
+                            }
+                        }
+
+                        if (records.isNotEmpty()) {
+                            queue.put(Chunk.Records(records))
+                        }
+                    }
+
+                queue.put(Chunk.End)
+            } catch (e: InterruptedException) {
+                // The reader was closed
+            } catch (e: Throwable) {
+                try {
+                    queue.put(Chunk.Failure(e))
+                } catch (ignored: InterruptedException) {
+                    // The reader was closed
+                }
+            }
+        }
+    }
+
+    /**
+     * A message from a worker to the consumer of a [ParallelScanner].
+     */
+    private sealed class Chunk {
+        class Records(val records: List<Any?>) : Chunk()
+
+        object End : Chunk()
+
+        class Failure(val cause: Throwable) : Chunk()
+    }
+
+    private companion object {
+        /**
+         * The number of records per chunk handed from a worker to the consumer.
+         */
+        const val CHUNK_SIZE = 1024
+
+        /**
+         * The number of chunks that may be buffered per split.
+         */
+        const val QUEUE_CAPACITY = 4
+
+        /**
+         * The counter used to name the worker threads.
+         */
+        val THREAD_ID = AtomicInteger()
     }
 }
@@ -23,81 +23,150 @@
 package org.opendc.trace.util.parquet
 
 import mu.KotlinLogging
+import org.apache.hadoop.conf.Configuration
 import org.apache.parquet.column.ParquetProperties
 import org.apache.parquet.hadoop.ParquetFileWriter
 import org.apache.parquet.hadoop.ParquetWriter
 import org.apache.parquet.hadoop.api.WriteSupport
 import org.apache.parquet.hadoop.metadata.CompressionCodecName
 import java.io.File
-import java.util.concurrent.ArrayBlockingQueue
-import java.util.concurrent.BlockingQueue
+import java.time.Duration
+import java.util.concurrent.Exchanger
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
 import kotlin.concurrent.thread
 
 /**
  * A writer that writes data in Parquet format.
  *
+ * Records are handed to the writer thread in [Batch]es through a double-buffered exchange: while the writer thread
+ * writes one batch, the caller fills the other. [exchange] only blocks when the caller fills a batch faster than the
+ * writer thread can write the previous one, and the time spent blocking is reported as [blockedTime].
+ *
  * @param path The path to the file to write the data to.
  * @param writeSupport The [WriteSupport] implementation for converting the records to Parquet format.
+ * @param config The configuration of the Parquet file to write.
  */
 public abstract class ParquetDataWriter<in T>(
-    path: File,
+    private val path: File,
     private val writeSupport: WriteSupport<T>,
-    bufferSize: Int = 4096,
+    private val config: ParquetWriterConfig = ParquetWriterConfig(),
 ) : AutoCloseable {
+    /**
+     * A batch of records that is handed to the writer thread as a whole.
+     */
+    public interface Batch<out T> {
+        /**
+         * The number of records in the batch.
+         */
+        public val size: Int
+
+        /**
+         * Obtain the record at the specified [index] of the batch. The returned record is only valid until the
+         * next invocation of this method, which allows batches to expose their rows through a single view.
+         */
+        public fun row(index: Int): T
+
+        /**
+         * Clear the batch after it has been written, so that it can be filled again.
+         */
+        public fun clear()
+    }
+
     /**
      * The logging instance to use.
      */
     private val logger = KotlinLogging.logger {}
 
     /**
-     * The queue of records to process.
+     * The exchange point of the batches between the caller and the writer thread.
      */
-    private val queue: BlockingQueue<T> = ArrayBlockingQueue(bufferSize)
+    private val exchanger = Exchanger<Batch<T>?>()
 
     /**
      * An exception to be propagated to the actual writer.
      */
+    @Volatile
     private var exception: Throwable? = null
 
+    /**
+     * A flag to indicate that the writer has been closed.
+     */
+    private var isClosed = false
+
+    /**
+     * The time in nanoseconds the caller was blocked on the writer thread.
+     */
+    private var blockedNanos = 0L
+
+    /**
+     * The number of records written by the writer thread.
+     */
+    @Volatile
+    public var rowsWritten: Long = 0
+        private set
+
+    /**
+     * The number of batches written by the writer thread.
+     */
+    @Volatile
+    public var batchesWritten: Long = 0
+        private set
+
+    /**
+     * The time the caller was blocked waiting for the writer thread to finish writing a batch, including the
+     * last batch on [close].
+     */
+    public val blockedTime: Duration
+        get() = Duration.ofNanos(blockedNanos)
+
     /**
      * The thread that is responsible for writing the Parquet records.
      */
     private val writerThread =
         thread(start = false, name = this.toString()) {
-            val writer =
-                let {
-                    val builder =
-                        LocalParquetWriter.builder(path.toPath(), writeSupport)
-                            .withWriterVersion(ParquetProperties.WriterVersion.PARQUET_2_0)
-                            .withCompressionCodec(CompressionCodecName.ZSTD)
-                            .withWriteMode(ParquetFileWriter.Mode.OVERWRITE)
-                    buildWriter(builder)
-                }
-
-            val queue = queue
-            val buf = mutableListOf<T>()
-            var shouldStop = false
+            val exchanger = exchanger
+            var spare: Batch<T>? = null
 
             try {
-                while (!shouldStop) {
-                    try {
-                        writer.write(queue.take())
-                    } catch (e: InterruptedException) {
-                        shouldStop = true
-                    }
+                val builder =
+                    LocalParquetWriter.builder(path.toPath(), writeSupport)
+                        .withWriterVersion(ParquetProperties.WriterVersion.PARQUET_2_0)
+                        .withCompressionCodec(config.codec)
+                        .withRowGroupSize(config.rowGroupSize)
+                        .withPageSize(config.pageSize)
+                        .withWriteMode(ParquetFileWriter.Mode.OVERWRITE)
+
+                val level = config.compressionLevel
+                if (level != null && config.codec == CompressionCodecName.ZSTD) {
+                    val conf = Configuration()
+                    conf.setInt(ZSTD_LEVEL, level)
+                    builder.withConf(conf)
+                }
+
+                // Closing the writer flushes the last row group, so a failure to close is a failure to write
+                buildWriter(builder).use { writer ->
+                    while (true) {
+                        val batch = checkNotNull(exchanger.exchange(spare))
+                        if (batch === EndOfStream) {
+                            break
+                        }
 
-                    if (queue.drainTo(buf) > 0) {
-                        for (data in buf) {
-                            writer.write(data)
+                        val size = batch.size
+                        for (i in 0 until size) {
+                            writer.write(batch.row(i))
                         }
-                        buf.clear()
+
+                        rowsWritten += size
+                        batchesWritten++
+
+                        batch.clear()
+                        spare = batch
                     }
                 }
             } catch (e: Throwable) {
                 logger.error(e) { "Failure in Parquet data writer" }
                 exception = e
-            } finally {
-                writer.close()
             }
         }
 
@@ -109,23 +178,96 @@ public abstract class ParquetDataWriter<in T>(
     }
 
     /**
-     * Write the specified metrics to the database.
+     * Hand the filled [batch] to the writer thread in exchange for the batch it has written previously, which is
+     * cleared for reuse. Blocks while the writer thread is still writing the previous batch.
+     *
+     * @return The empty batch to fill next, or `null` if the writer thread did not own a batch yet.
+     * @throws IllegalStateException if the writer thread failed or has terminated.
      */
-    public fun write(data: T) {
+    protected fun exchange(batch: Batch<@UnsafeVariance T>): Batch<@UnsafeVariance T>? {
+        checkException()
+
+        val start = System.nanoTime()
+        try {
+            while (true) {
+                try {
+                    return exchanger.exchange(batch, 100, TimeUnit.MILLISECONDS)
+                } catch (e: TimeoutException) {
+                    checkTerminated()
+                }
+            }
+        } finally {
+            blockedNanos += System.nanoTime() - start
+        }
+    }
+
+    /**
+     * Signal the writer to stop after the pending batch has been written.
+     *
+     * @throws IllegalStateException if the writer thread failed.
+     */
+    override fun close() {
+        if (isClosed) {
+            return
+        }
+        isClosed = true
+
+        val start = System.nanoTime()
+        while (writerThread.isAlive) {
+            try {
+                exchanger.exchange(EndOfStream, 100, TimeUnit.MILLISECONDS)
+                break
+            } catch (e: TimeoutException) {
+                // The writer thread is still busy with the pending batch
+            }
+        }
+        writerThread.join()
+        blockedNanos += System.nanoTime() - start
+
+        logger.info {
+            "Wrote $rowsWritten rows in $batchesWritten batches to $path " +
+                "(blocked on writer for ${blockedTime.toMillis()} ms)"
+        }
+
+        checkException()
+    }
+
+    /**
+     * Throw the failure of the writer thread, if any.
+     */
+    protected fun checkException() {
         val exception = exception
         if (exception != null) {
             throw IllegalStateException("Writer thread failed", exception)
         }
+    }
 
-        queue.put(data)
+    /**
+     * Throw if the writer thread has terminated, since no batch can be exchanged with it anymore.
+     */
+    private fun checkTerminated() {
+        if (!writerThread.isAlive) {
+            checkException()
+            throw IllegalStateException("Writer thread has terminated")
+        }
     }
 
     /**
-     * Signal the writer to stop.
+     * Marker batch that signals the writer thread to stop.
      */
-    override fun close() {
-        writerThread.interrupt()
-        writerThread.join()
+    private object EndOfStream : Batch<Nothing> {
+        override val size: Int = 0
+
+        override fun row(index: Int): Nothing = throw IndexOutOfBoundsException()
+
+        override fun clear() {}
+    }
+
+    private companion object {
+        /**
+         * The configuration key of the ZSTD compression level.
+         */
+        const val ZSTD_LEVEL = "parquet.compression.codec.zstd.level"
     }
 
     init {
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.trace.util.parquet
+
+/**
+ * Options for scanning Parquet datasets with a [LocalParquetReader].
+ *
+ * The defaults can be overridden through the `opendc.trace.parquet.parallelism` and `opendc.trace.parquet.ordered`
+ * system properties. The trace formats that are backed by Parquet also accept the options of a single reader through
+ * `org.opendc.trace.TableScanOptions`.
+ *
+ * @property parallelism The number of threads used to decode the dataset. With a value of `1`, the dataset is decoded
+ * on the calling thread. Otherwise, the files and row groups of the dataset are decoded concurrently on a pool of
+ * worker threads.
+ * @property ordered A flag to indicate that records must be returned in the order in which they appear in the dataset.
+ * If `false`, records of different row groups may interleave, which is useful for aggregations that do not depend
+ * on the order of the records. Records of a single row group are always returned in order.
+ */
+public data class ParquetScanOptions(
+    val parallelism: Int = 1,
+    val ordered: Boolean = true,
+) {
+    init {
+        require(parallelism > 0) { "Parallelism must be positive" }
+    }
+
+    public companion object {
+        /**
+         * The default scan options.
+         */
+        @JvmField
+        public val DEFAULT: ParquetScanOptions =
+            ParquetScanOptions(
+                parallelism = System.getProperty("opendc.trace.parquet.parallelism")?.toIntOrNull()?.coerceAtLeast(1) ?: 1,
+                ordered = System.getProperty("opendc.trace.parquet.ordered")?.toBooleanStrictOrNull() ?: true,
+            )
+    }
+}
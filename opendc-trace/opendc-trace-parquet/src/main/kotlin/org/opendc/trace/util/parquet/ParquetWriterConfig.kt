@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.trace.util.parquet
+
+import org.apache.parquet.hadoop.ParquetWriter
+import org.apache.parquet.hadoop.metadata.CompressionCodecName
+
+/**
+ * The configuration of the Parquet files written by a [ParquetDataWriter].
+ *
+ * @property rowGroupSize The target size of a row group in bytes.
+ * @property pageSize The target size of a page in bytes.
+ * @property codec The compression codec to use, e.g., [CompressionCodecName.ZSTD] for small files or
+ * [CompressionCodecName.SNAPPY] for faster writes.
+ * @property compressionLevel The compression level of [CompressionCodecName.ZSTD], or `null` to use the default level.
+ */
+public data class ParquetWriterConfig(
+    val rowGroupSize: Long = ParquetWriter.DEFAULT_BLOCK_SIZE.toLong(),
+    val pageSize: Int = ParquetWriter.DEFAULT_PAGE_SIZE,
+    val codec: CompressionCodecName = CompressionCodecName.ZSTD,
+    val compressionLevel: Int? = null,
+) {
+    init {
+        require(rowGroupSize > 0) { "Row group size must be positive" }
+        require(pageSize > 0) { "Page size must be positive" }
+    }
+}
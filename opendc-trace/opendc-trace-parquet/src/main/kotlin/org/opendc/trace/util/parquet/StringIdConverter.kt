@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.trace.util.parquet
+
+import org.apache.parquet.column.Dictionary
+import org.apache.parquet.io.api.Binary
+import org.apache.parquet.io.api.PrimitiveConverter
+
+/**
+ * A [PrimitiveConverter] for UTF-8 string columns that converts values into ids of a shared [StringTable].
+ *
+ * For dictionary-encoded column chunks, the entries of the dictionary page are interned once when the chunk is opened,
+ * after which every value is translated to its id by a single array lookup. Plain-encoded values are interned by their
+ * binary representation. In neither case is a [String] allocated per value.
+ *
+ * @param table The table in which the strings are interned.
+ */
+public class StringIdConverter(public val table: StringTable) : PrimitiveConverter() {
+    /**
+     * The id of the last value read by this converter, or `-1` if no value was read since the last [reset].
+     */
+    public var id: Int = -1
+        private set
+
+    /**
+     * Mapping from the ids of the current dictionary page to ids in [table].
+     */
+    private var dictionaryIds = IntArray(0)
+
+    /**
+     * Clear the value of the converter, typically at the start of a record.
+     */
+    public fun reset() {
+        id = -1
+    }
+
+    override fun hasDictionarySupport(): Boolean = true
+
+    override fun setDictionary(dictionary: Dictionary) {
+        val ids = IntArray(dictionary.maxId + 1)
+        for (i in ids.indices) {
+            ids[i] = table.intern(dictionary.decodeToBinary(i))
+        }
+        dictionaryIds = ids
+    }
+
+    override fun addValueFromDictionary(dictionaryId: Int) {
+        id = dictionaryIds[dictionaryId]
+    }
+
+    override fun addBinary(value: Binary) {
+        id = table.intern(value)
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.trace.util.parquet
+
+import org.apache.parquet.io.api.Binary
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * A table of distinct strings, each identified by a stable integer id.
+ *
+ * Ids are assigned densely in order of first appearance, so they can be used directly as array indices. A table is
+ * typically shared by all files and row groups read by a single reader, in which case equal strings map to equal ids
+ * regardless of the file or dictionary page they originate from.
+ *
+ * This class is thread-safe, so a table can be shared by the workers of a parallel scan. Looking up known values does
+ * not lock.
+ */
+public class StringTable {
+    /**
+     * The strings in the table, indexed by their id. The array is replaced when it grows, but never shrinks.
+     */
+    @Volatile
+    private var strings = arrayOfNulls<String>(16)
+
+    /**
+     * Lookup tables from values to their ids.
+     */
+    private val stringIds = ConcurrentHashMap<String, Int>()
+    private val binaryIds = ConcurrentHashMap<Binary, Int>()
+
+    /**
+     * The number of distinct strings in the table.
+     */
+    @Volatile
+    public var size: Int = 0
+        private set
+
+    /**
+     * Obtain the string with the specified [id].
+     */
+    public operator fun get(id: Int): String {
+        require(id in 0 until size) { "Unknown id $id" }
+        return strings[id]!!
+    }
+
+    /**
+     * Obtain the id of [value], adding it to the table if necessary.
+     */
+    public fun intern(value: String): Int {
+        val existing = stringIds[value]
+        if (existing != null) {
+            return existing
+        }
+
+        synchronized(this) {
+            val id = stringIds[value]
+            if (id != null) {
+                return id
+            }
+
+            val newId = size
+            var strings = strings
+            if (newId == strings.size) {
+                strings = strings.copyOf(newId * 2)
+            }
+            strings[newId] = value
+            this.strings = strings
+            size = newId + 1
+
+            // Publish the id only after the string is stored
+            stringIds[value] = newId
+            return newId
+        }
+    }
+
+    /**
+     * Obtain the id of the UTF-8 encoded string [value], adding it to the table if necessary. The value is only decoded
+     * the first time it is encountered.
+     */
+    public fun intern(value: Binary): Int {
+        val existing = binaryIds[value]
+        if (existing != null) {
+            return existing
+        }
+
+        val id = intern(value.toStringUsingUTF8())
+        // The caller may reuse the underlying buffer, so we need to copy the key
+        binaryIds.putIfAbsent(value.copy(), id)
+        return id
+    }
+}
@@ -0,0 +1,455 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.trace.util.parquet.exporter
+
+import org.apache.parquet.io.api.Binary
+import org.apache.parquet.io.api.RecordConsumer
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.BINARY
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.BOOLEAN
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.DOUBLE
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.FLOAT
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.INT32
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.INT64
+import org.opendc.trace.util.parquet.ParquetDataWriter
+
+/**
+ * A reusable batch of [T] records that stores the values of each [ExportColumn] in a primitive array.
+ *
+ * Rows are appended directly from the live [Exportable]s (see [append]), so that recording a row does not
+ * allocate. The batch is handed to the writer thread as a whole, which writes the rows through a single
+ * view of the batch (see [row]) and [clear]s it for reuse.
+ *
+ * @param[columns] The columns of the batch, in the order of the schema.
+ * @param[capacity] The maximum number of rows in the batch.
+ */
+public class ColumnBatch<T : Exportable> internal constructor(
+    columns: List<ExportColumn<T>>,
+    public val capacity: Int,
+) : ParquetDataWriter.Batch<ColumnBatch<T>> {
+    init {
+        require(capacity > 0) { "Batch capacity must be positive" }
+    }
+
+    /**
+     * The column vectors of this batch.
+     */
+    private val vectors: Array<ColumnVector<T>> =
+        Array(columns.size) { idx -> vectorOf(columns[idx], idx, capacity) }
+
+    /**
+     * The row that is written by [writeRow].
+     */
+    private var cursor = 0
+
+    override var size: Int = 0
+        private set
+
+    /**
+     * A flag to indicate that no more rows fit in this batch.
+     */
+    public val isFull: Boolean
+        get() = size == capacity
+
+    /**
+     * Append the current values of [record] as a new row.
+     */
+    internal fun append(record: T) {
+        val row = size
+        check(row < capacity) { "Batch is full" }
+
+        for (vector in vectors) {
+            vector.read(record, row)
+        }
+        size = row + 1
+    }
+
+    override fun row(index: Int): ColumnBatch<T> {
+        if (index < 0 || index >= size) {
+            throw IndexOutOfBoundsException("Row $index out of bounds for batch of size $size")
+        }
+        cursor = index
+        return this
+    }
+
+    /**
+     * Write the row selected by [row] as a single message to [consumer].
+     */
+    internal fun writeRow(consumer: RecordConsumer) {
+        val row = cursor
+        consumer.startMessage()
+        for (vector in vectors) {
+            vector.write(row, consumer)
+        }
+        consumer.endMessage()
+    }
+
+    override fun clear() {
+        for (vector in vectors) {
+            vector.clear(size)
+        }
+        size = 0
+        cursor = 0
+    }
+
+    private companion object {
+        /**
+         * Construct the [ColumnVector] for [column], verifying that its values can be written to the field.
+         */
+        fun <T : Exportable> vectorOf(
+            column: ExportColumn<T>,
+            index: Int,
+            capacity: Int,
+        ): ColumnVector<T> {
+            val type = column.primitiveTypeName
+            val accessor = column.accessor
+
+            fun unsupported(): Nothing =
+                throw IllegalArgumentException(
+                    "parquet primitive type name '$type' of $column cannot be exported from ${accessor::class.simpleName}",
+                )
+
+            return when (accessor) {
+                is ColumnAccessor.OfInt ->
+                    when (type) {
+                        INT32, INT64 -> IntVector(column, index, capacity, accessor.getter)
+                        else -> unsupported()
+                    }
+                is ColumnAccessor.OfLong ->
+                    when (type) {
+                        INT64 -> LongVector(column, index, capacity, accessor.getter)
+                        else -> unsupported()
+                    }
+                is ColumnAccessor.OfDouble ->
+                    when (type) {
+                        DOUBLE, FLOAT -> DoubleVector(column, index, capacity, accessor.getter)
+                        else -> unsupported()
+                    }
+                is ColumnAccessor.OfBoolean ->
+                    when (type) {
+                        BOOLEAN -> BooleanVector(column, index, capacity, accessor.getter)
+                        else -> unsupported()
+                    }
+                is ColumnAccessor.OfInstant ->
+                    when (type) {
+                        INT64 -> InstantVector(column, index, capacity, accessor.getter)
+                        else -> unsupported()
+                    }
+                is ColumnAccessor.OfString ->
+                    when (type) {
+                        BINARY -> StringVector(column, index, capacity, accessor.getter)
+                        else -> unsupported()
+                    }
+                is ColumnAccessor.Boxed ->
+                    when (type) {
+                        INT32, INT64, DOUBLE, BINARY, FLOAT, BOOLEAN -> BoxedVector(column, index, capacity, accessor.getValue)
+                        else -> unsupported()
+                    }
+            }
+        }
+    }
+}
+
+/**
+ * The values of a single [ExportColumn] in a [ColumnBatch].
+ */
+private abstract class ColumnVector<in T>(column: ExportColumn<*>, private val index: Int) {
+    private val name = column.name
+
+    /**
+     * The primitive type of the field.
+     */
+    protected val type: PrimitiveTypeName = column.primitiveTypeName
+
+    /**
+     * Read the value of the column from [record] into [row].
+     */
+    abstract fun read(
+        record: T,
+        row: Int,
+    )
+
+    /**
+     * Determine whether the value at [row] is absent.
+     */
+    open fun isNull(row: Int): Boolean = false
+
+    /**
+     * Add the value at [row] to the current field of [consumer].
+     */
+    abstract fun add(
+        row: Int,
+        consumer: RecordConsumer,
+    )
+
+    /**
+     * Release the references held by the first [size] rows.
+     */
+    open fun clear(size: Int) {}
+
+    /**
+     * Write the value at [row] as a field of the current message of [consumer].
+     */
+    fun write(
+        row: Int,
+        consumer: RecordConsumer,
+    ) {
+        if (isNull(row)) {
+            return // Maybe add explicit check for optional fields
+        }
+
+        consumer.startField(name, index)
+        add(row, consumer)
+        consumer.endField(name, index)
+    }
+}
+
+private class IntVector<in T>(
+    column: ExportColumn<*>,
+    index: Int,
+    capacity: Int,
+    private val getter: IntGetter<T>,
+) : ColumnVector<T>(column, index) {
+    private val values = IntArray(capacity)
+
+    override fun read(
+        record: T,
+        row: Int,
+    ) {
+        values[row] = getter.get(record)
+    }
+
+    override fun add(
+        row: Int,
+        consumer: RecordConsumer,
+    ) {
+        if (type == INT64) {
+            consumer.addLong(values[row].toLong())
+        } else {
+            consumer.addInteger(values[row])
+        }
+    }
+}
+
+private class LongVector<in T>(
+    column: ExportColumn<*>,
+    index: Int,
+    capacity: Int,
+    private val getter: LongGetter<T>,
+) : ColumnVector<T>(column, index) {
+    private val values = LongArray(capacity)
+
+    override fun read(
+        record: T,
+        row: Int,
+    ) {
+        values[row] = getter.get(record)
+    }
+
+    override fun add(
+        row: Int,
+        consumer: RecordConsumer,
+    ) {
+        consumer.addLong(values[row])
+    }
+}
+
+private class DoubleVector<in T>(
+    column: ExportColumn<*>,
+    index: Int,
+    capacity: Int,
+    private val getter: DoubleGetter<T>,
+) : ColumnVector<T>(column, index) {
+    private val values = DoubleArray(capacity)
+
+    override fun read(
+        record: T,
+        row: Int,
+    ) {
+        values[row] = getter.get(record)
+    }
+
+    override fun add(
+        row: Int,
+        consumer: RecordConsumer,
+    ) {
+        if (type == FLOAT) {
+            consumer.addFloat(values[row].toFloat())
+        } else {
+            consumer.addDouble(values[row])
+        }
+    }
+}
+
+private class BooleanVector<in T>(
+    column: ExportColumn<*>,
+    index: Int,
+    capacity: Int,
+    private val getter: BooleanGetter<T>,
+) : ColumnVector<T>(column, index) {
+    private val values = BooleanArray(capacity)
+
+    override fun read(
+        record: T,
+        row: Int,
+    ) {
+        values[row] = getter.get(record)
+    }
+
+    override fun add(
+        row: Int,
+        consumer: RecordConsumer,
+    ) {
+        consumer.addBoolean(values[row])
+    }
+}
+
+private class InstantVector<in T>(
+    column: ExportColumn<*>,
+    index: Int,
+    capacity: Int,
+    private val getter: InstantGetter<T>,
+) : ColumnVector<T>(column, index) {
+    private val values = LongArray(capacity)
+    private val nulls = BooleanArray(capacity)
+
+    override fun read(
+        record: T,
+        row: Int,
+    ) {
+        val value = getter.get(record)
+        if (value != null) {
+            values[row] = value.toEpochMilli()
+            nulls[row] = false
+        } else {
+            nulls[row] = true
+        }
+    }
+
+    override fun isNull(row: Int): Boolean = nulls[row]
+
+    override fun add(
+        row: Int,
+        consumer: RecordConsumer,
+    ) {
+        consumer.addLong(values[row])
+    }
+}
+
+private class StringVector<in T>(
+    column: ExportColumn<*>,
+    index: Int,
+    capacity: Int,
+    private val getter: StringGetter<T>,
+) : ColumnVector<T>(column, index) {
+    private val values = arrayOfNulls<String>(capacity)
+
+    /**
+     * The encoded strings, which are mostly identifiers that repeat every export interval.
+     * Only accessed by the writer thread.
+     */
+    private val encoded = HashMap<String, Binary>()
+
+    override fun read(
+        record: T,
+        row: Int,
+    ) {
+        values[row] = getter.get(record)
+    }
+
+    override fun isNull(row: Int): Boolean = values[row] == null
+
+    override fun add(
+        row: Int,
+        consumer: RecordConsumer,
+    ) {
+        val value = values[row]!!
+        var binary = encoded[value]
+        if (binary == null) {
+            if (encoded.size >= MAX_ENCODED) {
+                encoded.clear()
+            }
+            binary = Binary.fromString(value)
+            encoded[value] = binary
+        }
+        consumer.addBinary(binary)
+    }
+
+    override fun clear(size: Int) {
+        values.fill(null, 0, size)
+    }
+
+    private companion object {
+        /**
+         * The maximum number of encoded strings to cache per column.
+         */
+        const val MAX_ENCODED = 1 shl 16
+    }
+}
+
+/**
+ * Vector for columns defined through a generic getter, whose values are boxed.
+ */
+private class BoxedVector<in T>(
+    private val column: ExportColumn<*>,
+    index: Int,
+    capacity: Int,
+    private val getValue: (T) -> Any?,
+) : ColumnVector<T>(column, index) {
+    private val values = arrayOfNulls<Any>(capacity)
+
+    override fun read(
+        record: T,
+        row: Int,
+    ) {
+        values[row] = getValue(record)
+    }
+
+    override fun isNull(row: Int): Boolean = values[row] == null
+
+    override fun add(
+        row: Int,
+        consumer: RecordConsumer,
+    ) {
+        val value = values[row]!!
+        try {
+            when (type) {
+                INT32 -> consumer.addInteger((value as Number).toInt())
+                INT64 -> consumer.addLong((value as Number).toLong())
+                DOUBLE -> consumer.addDouble((value as Number).toDouble())
+                FLOAT -> consumer.addFloat((value as Number).toFloat())
+                BINARY -> consumer.addBinary(value as Binary)
+                BOOLEAN -> consumer.addBoolean(value as Boolean)
+                else -> throw IllegalStateException("parquet primitive type name '$type' is not supported")
+            }
+        } catch (e: ClassCastException) {
+            throw TypeCastException(
+                "attempt to add value of type ${value::class} to export field $column which requires a different type",
+            )
+        }
+    }
+
+    override fun clear(size: Int) {
+        values.fill(null, 0, size)
+    }
+}
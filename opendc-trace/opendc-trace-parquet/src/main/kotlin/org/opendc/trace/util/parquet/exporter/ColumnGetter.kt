@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.trace.util.parquet.exporter
+
+import java.time.Instant
+
+/**
+ * Reads an [Int] value of an [ExportColumn] from a record without boxing.
+ */
+public fun interface IntGetter<in T> {
+    public fun get(record: T): Int
+}
+
+/**
+ * Reads a [Long] value of an [ExportColumn] from a record without boxing.
+ */
+public fun interface LongGetter<in T> {
+    public fun get(record: T): Long
+}
+
+/**
+ * Reads a [Double] value of an [ExportColumn] from a record without boxing.
+ * The value is narrowed when the column is stored as a `FLOAT`.
+ */
+public fun interface DoubleGetter<in T> {
+    public fun get(record: T): Double
+}
+
+/**
+ * Reads a [Boolean] value of an [ExportColumn] from a record without boxing.
+ */
+public fun interface BooleanGetter<in T> {
+    public fun get(record: T): Boolean
+}
+
+/**
+ * Reads an (optional) [Instant] of an [ExportColumn] from a record, stored as epoch milliseconds.
+ */
+public fun interface InstantGetter<in T> {
+    public fun get(record: T): Instant?
+}
+
+/**
+ * Reads an (optional) [String] of an [ExportColumn] from a record, stored as UTF-8 binary.
+ */
+public fun interface StringGetter<in T> {
+    public fun get(record: T): String?
+}
+
+/**
+ * The way in which the value of an [ExportColumn] is obtained from a record.
+ */
+@PublishedApi
+internal sealed interface ColumnAccessor<in T> {
+    class OfInt<in T>(val getter: IntGetter<T>) : ColumnAccessor<T>
+
+    class OfLong<in T>(val getter: LongGetter<T>) : ColumnAccessor<T>
+
+    class OfDouble<in T>(val getter: DoubleGetter<T>) : ColumnAccessor<T>
+
+    class OfBoolean<in T>(val getter: BooleanGetter<T>) : ColumnAccessor<T>
+
+    class OfInstant<in T>(val getter: InstantGetter<T>) : ColumnAccessor<T>
+
+    class OfString<in T>(val getter: StringGetter<T>) : ColumnAccessor<T>
+
+    /**
+     * Columns defined through a generic getter, whose values are boxed.
+     */
+    class Boxed<in T>(val getValue: (T) -> Any?) : ColumnAccessor<T>
+}
+
+@PublishedApi
+internal fun <T> accessorOf(getter: IntGetter<T>): ColumnAccessor<T> = ColumnAccessor.OfInt(getter)
+
+@PublishedApi
+internal fun <T> accessorOf(getter: LongGetter<T>): ColumnAccessor<T> = ColumnAccessor.OfLong(getter)
+
+@PublishedApi
+internal fun <T> accessorOf(getter: DoubleGetter<T>): ColumnAccessor<T> = ColumnAccessor.OfDouble(getter)
+
+@PublishedApi
+internal fun <T> accessorOf(getter: BooleanGetter<T>): ColumnAccessor<T> = ColumnAccessor.OfBoolean(getter)
+
+@PublishedApi
+internal fun <T> accessorOf(getter: InstantGetter<T>): ColumnAccessor<T> = ColumnAccessor.OfInstant(getter)
+
+@PublishedApi
+internal fun <T> accessorOf(getter: StringGetter<T>): ColumnAccessor<T> = ColumnAccessor.OfString(getter)
+
+@PublishedApi
+internal fun <T> accessorOf(getValue: (T) -> Any?): ColumnAccessor<T> = ColumnAccessor.Boxed(getValue)
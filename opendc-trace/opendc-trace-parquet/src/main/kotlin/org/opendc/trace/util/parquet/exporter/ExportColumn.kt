@@ -43,11 +43,15 @@ import kotlin.reflect.KClass
  * ```kotlin
  * class Foo: Exportable<Foo> {
  * ...
- * val MY_FIELD = ExportColumn<Foo>(
+ * val MY_FIELD = ExportColumn.ofDouble<Foo>(
  *      field = Types.required(PrimitiveType.PrimitiveTypeName.DOUBLE).named("my_field_name")
- * ) { exportable: Foo -> addDouble(exportable.getMyValue()) }
+ * ) { exportable: Foo -> exportable.getMyValue() }
  * ```
  *
+ * Columns built with the typed factories ([ofInt], [ofLong], [ofDouble], [ofBoolean], [ofInstant], [ofString])
+ * are copied into the column batches of the [Exporter] without boxing. Columns built with [invoke] return
+ * [Any] and are boxed for every row.
+ *
  * @param[field]
  * The apache parquet field, it includes information such as:
  * - Required (not)
@@ -55,9 +59,10 @@ import kotlin.reflect.KClass
  * - [PrimitiveType] (e.g. [INT32], [DOUBLE] etc.)
  * - [LogicalTypeAnnotation] (e.g. TIMESTAMP, etc.)
  *
- * @param[getValue]
+ * @param[accessor]
  * Retrieves the value to be exported from the [Exportable] of [T] passed as param.
- * The value returned needs to match the expected [PrimitiveType] defined in the field.
+ * The value returned needs to match the expected [PrimitiveType] defined in the field,
+ * which is verified when the [Exporter] is created.
  *
  * A second type parameter could have been added to the class to enforce the correct type at compile time,
  * however it would have added too much complexity to the interface. `ExportColumn<Exportable>` -> `ExportColumn<Exportable, *>`
@@ -76,7 +81,7 @@ public class ExportColumn<T : Exportable>
         public val field: Type,
         @PublishedApi internal val regex: Regex,
         @PublishedApi internal val exportableClass: KClass<T>,
-        internal val getValue: (T) -> Any?,
+        internal val accessor: ColumnAccessor<T>,
     ) {
         /**
          * The name of the column (e.g. "timestamp").
@@ -104,16 +109,114 @@ public class ExportColumn<T : Exportable>
              */
             public inline operator fun <reified T : Exportable> invoke(
                 field: Type,
-                regex: Regex = Regex("\\s*(?:${field.name}|${field.name.replace('_', ' ')})\\s*", RegexOption.IGNORE_CASE),
+                regex: Regex = defaultRegex(field),
                 noinline getValue: (T) -> Any?,
             ): ExportColumn<T> =
                 ExportColumn(
                     field = field,
-                    getValue = getValue,
+                    accessor = accessorOf(getValue),
                     exportableClass = T::class,
                     regex = regex,
                 )
 
+            /**
+             * Reified constructor for columns whose values are read as [Int] without boxing.
+             */
+            public inline fun <reified T : Exportable> ofInt(
+                field: Type,
+                regex: Regex = defaultRegex(field),
+                getter: IntGetter<T>,
+            ): ExportColumn<T> =
+                ExportColumn(
+                    field = field,
+                    accessor = accessorOf(getter),
+                    exportableClass = T::class,
+                    regex = regex,
+                )
+
+            /**
+             * Reified constructor for columns whose values are read as [Long] without boxing.
+             */
+            public inline fun <reified T : Exportable> ofLong(
+                field: Type,
+                regex: Regex = defaultRegex(field),
+                getter: LongGetter<T>,
+            ): ExportColumn<T> =
+                ExportColumn(
+                    field = field,
+                    accessor = accessorOf(getter),
+                    exportableClass = T::class,
+                    regex = regex,
+                )
+
+            /**
+             * Reified constructor for columns whose values are read as [Double] without boxing.
+             */
+            public inline fun <reified T : Exportable> ofDouble(
+                field: Type,
+                regex: Regex = defaultRegex(field),
+                getter: DoubleGetter<T>,
+            ): ExportColumn<T> =
+                ExportColumn(
+                    field = field,
+                    accessor = accessorOf(getter),
+                    exportableClass = T::class,
+                    regex = regex,
+                )
+
+            /**
+             * Reified constructor for columns whose values are read as [Boolean] without boxing.
+             */
+            public inline fun <reified T : Exportable> ofBoolean(
+                field: Type,
+                regex: Regex = defaultRegex(field),
+                getter: BooleanGetter<T>,
+            ): ExportColumn<T> =
+                ExportColumn(
+                    field = field,
+                    accessor = accessorOf(getter),
+                    exportableClass = T::class,
+                    regex = regex,
+                )
+
+            /**
+             * Reified constructor for columns whose values are read as epoch milliseconds of an [java.time.Instant] without boxing.
+             */
+            public inline fun <reified T : Exportable> ofInstant(
+                field: Type,
+                regex: Regex = defaultRegex(field),
+                getter: InstantGetter<T>,
+            ): ExportColumn<T> =
+                ExportColumn(
+                    field = field,
+                    accessor = accessorOf(getter),
+                    exportableClass = T::class,
+                    regex = regex,
+                )
+
+            /**
+             * Reified constructor for columns whose values are read as [String] without boxing.
+             */
+            public inline fun <reified T : Exportable> ofString(
+                field: Type,
+                regex: Regex = defaultRegex(field),
+                getter: StringGetter<T>,
+            ): ExportColumn<T> =
+                ExportColumn(
+                    field = field,
+                    accessor = accessorOf(getter),
+                    exportableClass = T::class,
+                    regex = regex,
+                )
+
+            /**
+             * The default pattern of a column, matching the column name with either underscores
+             * or blank spaces between words in a case-insensitive manner.
+             */
+            @PublishedApi
+            internal fun defaultRegex(field: Type): Regex =
+                Regex("\\s*(?:${field.name}|${field.name.replace('_', ' ')})\\s*", RegexOption.IGNORE_CASE)
+
             /**
              * All the columns that have been instantiated. They are added in `init` block.
              * Keep in mind that in order to deserialize to a column, that column needs to be loaded by the jvm.
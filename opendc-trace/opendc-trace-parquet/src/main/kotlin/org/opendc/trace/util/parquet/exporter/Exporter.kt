@@ -26,44 +26,86 @@ import org.apache.hadoop.conf.Configuration
 import org.apache.parquet.hadoop.api.WriteSupport
 import org.apache.parquet.io.api.RecordConsumer
 import org.apache.parquet.schema.MessageType
-import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.BINARY
-import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.BOOLEAN
-import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.DOUBLE
-import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.FLOAT
-import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.INT32
-import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.INT64
 import org.apache.parquet.schema.Types
 import org.opendc.trace.util.parquet.ParquetDataWriter
+import org.opendc.trace.util.parquet.ParquetWriterConfig
 import java.io.File
 
+/**
+ * A [ParquetDataWriter] that exports the [columns] of [Exportable]s of [T].
+ *
+ * The values of each written [Exportable] are copied into a reusable [ColumnBatch], so that the
+ * [Exportable] can be reused by the caller as soon as [write] returns. Full batches are exchanged with
+ * the writer thread as a whole, such that only two batches exist per exporter.
+ *
+ * @param[outputFile]   the output file where the [Exportable]s will be written.
+ * @param[columns]      the columns that will be included in the output parquet file.
+ * @param[schemaName]   the name of the schema of the output parquet file.
+ * @param[bufferSize]   the number of rows in a single batch.
+ * @param[config]       the configuration of the output parquet file.
+ */
 public class Exporter<T : Exportable>
     @PublishedApi
     internal constructor(
         outputFile: File,
-        writeSupp: WriteSupport<T>,
-        bufferSize: Int,
-    ) : ParquetDataWriter<T>(
+        private val columns: List<ExportColumn<T>>,
+        schemaName: String,
+        private val bufferSize: Int,
+        config: ParquetWriterConfig,
+    ) : ParquetDataWriter<ColumnBatch<T>>(
             path = outputFile,
-            writeSupport = writeSupp,
-            bufferSize = bufferSize,
+            writeSupport = writeSuppFor(columns, schemaName),
+            config = config,
         ) {
+        /**
+         * The batch that is currently being filled.
+         */
+        private var current: ColumnBatch<T> = ColumnBatch(columns, bufferSize)
+
+        /**
+         * Copy the values of [record] into the current batch.
+         */
+        public fun write(record: T) {
+            val batch = current
+            batch.append(record)
+
+            if (batch.isFull) {
+                @Suppress("UNCHECKED_CAST")
+                current = exchange(batch) as ColumnBatch<T>? ?: ColumnBatch(columns, bufferSize)
+            }
+        }
+
+        override fun close() {
+            val batch = current
+            if (batch.size > 0) {
+                exchange(batch)
+            }
+
+            super.close()
+        }
+
         public companion object {
             /**
              * Reified constructor that allows to use the runtime [Class.getSimpleName] name of [T] as the schema name.
              * @param[outputFile]   the output file where the [Exportable]s will be written.
              * @param[columns]       the columns that will be included in the output parquet file.
              * @param[schemaName]   the name of the schema of the output parquet file.
+             * @param[bufferSize]   the number of rows in a single batch.
+             * @param[config]       the configuration of the output parquet file.
              */
             public inline operator fun <reified T : Exportable> invoke(
                 outputFile: File,
                 vararg columns: ExportColumn<T> = emptyArray(),
                 schemaName: String? = null,
                 bufferSize: Int = 4096,
+                config: ParquetWriterConfig = ParquetWriterConfig(),
             ): Exporter<T> =
                 Exporter(
                     outputFile = outputFile,
-                    writeSupp = writeSuppFor(columns.toSet(), schemaName = schemaName ?: T::class.simpleName ?: "unknown"),
+                    columns = columns.distinct(),
+                    schemaName = schemaName ?: T::class.simpleName ?: "unknown",
                     bufferSize = bufferSize,
+                    config = config,
                 )
 
             /**
@@ -71,28 +113,32 @@ public class Exporter<T : Exportable>
              * @param[outputFile]   the output file where the [Exportable]s will be written.
              * @param[columns]       the columns that will be included in the output parquet file.
              * @param[schemaName]   the name of the schema of the output parquet file.
+             * @param[bufferSize]   the number of rows in a single batch.
+             * @param[config]       the configuration of the output parquet file.
              */
             public inline operator fun <reified T : Exportable> invoke(
                 outputFile: File,
                 columns: Collection<ExportColumn<T>> = emptySet(),
                 schemaName: String? = null,
                 bufferSize: Int = 4096,
+                config: ParquetWriterConfig = ParquetWriterConfig(),
             ): Exporter<T> =
                 Exporter(
                     outputFile = outputFile,
-                    writeSupp = writeSuppFor(columns.toSet(), schemaName = schemaName ?: T::class.simpleName ?: "unknown"),
+                    columns = columns.distinct(),
+                    schemaName = schemaName ?: T::class.simpleName ?: "unknown",
                     bufferSize = bufferSize,
+                    config = config,
                 )
 
             /**
-             * @return an anonymous [WriteSupport] for [T] with only the columns included in [columns].
+             * @return a [WriteSupport] that writes the selected row of a [ColumnBatch] with the columns in [columns].
              */
-            @PublishedApi
-            internal fun <T : Exportable> writeSuppFor(
-                columns: Set<ExportColumn<T>>,
+            private fun <T : Exportable> writeSuppFor(
+                columns: List<ExportColumn<T>>,
                 schemaName: String,
-            ): WriteSupport<T> =
-                object : WriteSupport<T>() {
+            ): WriteSupport<ColumnBatch<T>> =
+                object : WriteSupport<ColumnBatch<T>>() {
                     private lateinit var cons: RecordConsumer
 
                     private val schema: MessageType =
@@ -107,40 +153,9 @@ public class Exporter<T : Exportable>
                         cons = recordConsumer
                     }
 
-                    override fun write(record: T) =
-                        with(cons) {
-                            startMessage()
-
-                            columns.forEachIndexed { idx, column ->
-                                fun <T> Any.castedOrThrow(): T {
-                                    @Suppress("UNCHECKED_CAST")
-                                    return (this as? T) ?: throw TypeCastException(
-                                        "attempt to add value of type ${this::class} to export " +
-                                            "field $column which requires a different type",
-                                    )
-                                }
-                                val valueToAdd: Any =
-                                    column.getValue(
-                                        record,
-                                    ) ?: return@forEachIndexed // Maybe add explicit check for optional fields
-
-                                startField(column.name, idx)
-                                when (column.primitiveTypeName) {
-                                    INT32 -> addInteger(valueToAdd.castedOrThrow())
-                                    INT64 -> addLong(valueToAdd.castedOrThrow())
-                                    DOUBLE -> addDouble(valueToAdd.castedOrThrow())
-                                    BINARY -> addBinary(valueToAdd.castedOrThrow())
-                                    FLOAT -> addFloat(valueToAdd.castedOrThrow())
-                                    BOOLEAN -> addBoolean(valueToAdd.castedOrThrow())
-                                    else -> throw RuntimeException(
-                                        "parquet primitive type name '${column.primitiveTypeName} is not supported",
-                                    )
-                                }
-                                endField(column.name, idx)
-                            }
-
-                            cons.endMessage()
-                        }
+                    override fun write(record: ColumnBatch<T>) {
+                        record.writeRow(cons)
+                    }
                 }
         }
     }
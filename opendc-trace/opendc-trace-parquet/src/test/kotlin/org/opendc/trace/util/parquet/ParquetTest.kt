@@ -23,23 +23,30 @@
 package org.opendc.trace.util.parquet
 
 import org.apache.hadoop.conf.Configuration
+import org.apache.parquet.hadoop.ParquetFileReader
 import org.apache.parquet.hadoop.ParquetFileWriter
 import org.apache.parquet.hadoop.api.ReadSupport
 import org.apache.parquet.hadoop.api.WriteSupport
+import org.apache.parquet.io.api.Binary
 import org.apache.parquet.io.api.Converter
 import org.apache.parquet.io.api.GroupConverter
 import org.apache.parquet.io.api.PrimitiveConverter
 import org.apache.parquet.io.api.RecordConsumer
 import org.apache.parquet.io.api.RecordMaterializer
+import org.apache.parquet.schema.LogicalTypeAnnotation
 import org.apache.parquet.schema.MessageType
 import org.apache.parquet.schema.PrimitiveType
 import org.apache.parquet.schema.Type
 import org.apache.parquet.schema.Types
 import org.junit.jupiter.api.AfterEach
 import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertInstanceOf
+import org.junit.jupiter.api.Assertions.assertTrue
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
 import org.junit.jupiter.api.assertThrows
+import java.io.File
+import java.io.IOException
 import java.nio.file.FileAlreadyExistsException
 import java.nio.file.Files
 import java.nio.file.NoSuchFileException
@@ -147,6 +154,211 @@ internal class ParquetTest {
         assertEquals(n, counter)
     }
 
+    /**
+     * Test whether a parallel scan returns the records of all row groups in order.
+     */
+    @Test
+    fun testParallelOrdered() {
+        val n = writeRowGroups()
+
+        val reader = LocalParquetReader(path, readSupport, options = ParquetScanOptions(parallelism = 4))
+        val actual = mutableListOf<Int>()
+        reader.use {
+            while (true) {
+                actual.add(it.read() ?: break)
+            }
+        }
+
+        assertEquals(List(n) { it }, actual)
+    }
+
+    /**
+     * Test whether an unordered parallel scan returns the records of all row groups.
+     */
+    @Test
+    fun testParallelUnordered() {
+        val n = writeRowGroups()
+
+        val reader = LocalParquetReader(path, readSupport, options = ParquetScanOptions(parallelism = 4, ordered = false))
+        val actual = mutableListOf<Int>()
+        reader.use {
+            while (true) {
+                actual.add(it.read() ?: break)
+            }
+        }
+
+        assertEquals(List(n) { it }, actual.sorted())
+    }
+
+    /**
+     * Write a file with many small row groups and return the number of records.
+     */
+    private fun writeRowGroups(): Int {
+        val n = 100_000
+        val writer =
+            LocalParquetWriter.builder(path, writeSupport)
+                .withWriteMode(ParquetFileWriter.Mode.OVERWRITE)
+                .withRowGroupSize(16 * 1024L)
+                .build()
+
+        writer.use {
+            repeat(n) { i -> it.write(i) }
+        }
+
+        val rowGroups = ParquetFileReader.open(LocalInputFile(path)).use { it.footer.blocks.size }
+        assertTrue(rowGroups > 1) { "Expected multiple row groups, got $rowGroups" }
+        return n
+    }
+
+    /**
+     * Test whether string columns are interned into stable ids, both for dictionary-encoded and plain-encoded chunks.
+     */
+    @Test
+    fun testStringIds() {
+        val stringSchema =
+            Types.buildMessage()
+                .addField(
+                    Types.primitive(PrimitiveType.PrimitiveTypeName.BINARY, Type.Repetition.REQUIRED)
+                        .`as`(LogicalTypeAnnotation.stringType())
+                        .named("field"),
+                )
+                .named("test")
+        val values = List(1000) { "vm${it % 7}" }
+
+        for (dictionary in listOf(true, false)) {
+            val writer =
+                LocalParquetWriter.builder(
+                    path,
+                    object : WriteSupport<String>() {
+                        lateinit var recordConsumer: RecordConsumer
+
+                        override fun init(configuration: Configuration): WriteContext = WriteContext(stringSchema, emptyMap())
+
+                        override fun prepareForWrite(recordConsumer: RecordConsumer) {
+                            this.recordConsumer = recordConsumer
+                        }
+
+                        override fun write(record: String) {
+                            val consumer = recordConsumer
+                            consumer.startMessage()
+                            consumer.startField("field", 0)
+                            consumer.addBinary(Binary.fromString(record))
+                            consumer.endField("field", 0)
+                            consumer.endMessage()
+                        }
+                    },
+                )
+                    .withWriteMode(ParquetFileWriter.Mode.OVERWRITE)
+                    .withDictionaryEncoding(dictionary)
+                    .build()
+
+            writer.use { values.forEach(it::write) }
+
+            val table = StringTable()
+            val converter = StringIdConverter(table)
+            val reader =
+                LocalParquetReader(
+                    path,
+                    object : ReadSupport<Int>() {
+                        @Suppress("OVERRIDE_DEPRECATION")
+                        override fun init(
+                            configuration: Configuration,
+                            keyValueMetaData: Map<String, String>,
+                            fileSchema: MessageType,
+                        ): ReadContext = ReadContext(fileSchema)
+
+                        override fun prepareForRead(
+                            configuration: Configuration,
+                            keyValueMetaData: Map<String, String>,
+                            fileSchema: MessageType,
+                            readContext: ReadContext,
+                        ): RecordMaterializer<Int> = StringIdRecordMaterializer(converter)
+                    },
+                )
+
+            val actual = mutableListOf<String>()
+            reader.use {
+                while (true) {
+                    val id = it.read() ?: break
+                    actual.add(table[id])
+                }
+            }
+
+            assertEquals(values, actual)
+            assertEquals(7, table.size)
+        }
+    }
+
+    /**
+     * Test whether the records handed to a [ParquetDataWriter] in batches are written in order.
+     */
+    @Test
+    fun testDataWriterRoundTrip() {
+        val n = 10_000
+        val writer = IntDataWriter(path.toFile(), writeSupport, batchSize = 128)
+        writer.use {
+            repeat(n) { i -> it.write(i) }
+        }
+
+        assertEquals(n.toLong(), writer.rowsWritten)
+        assertEquals((n + 127) / 128L, writer.batchesWritten)
+
+        val reader = LocalParquetReader(path, readSupport)
+        val actual = mutableListOf<Int>()
+        reader.use {
+            while (true) {
+                actual.add(it.read() ?: break)
+            }
+        }
+
+        assertEquals(List(n) { it }, actual)
+    }
+
+    /**
+     * Test whether a failure of the writer thread is propagated to the caller.
+     */
+    @Test
+    fun testDataWriterFailure() {
+        val failingWriteSupport =
+            object : WriteSupport<Int>() {
+                override fun init(configuration: Configuration): WriteContext = writeSupport.init(configuration)
+
+                override fun prepareForWrite(recordConsumer: RecordConsumer) = writeSupport.prepareForWrite(recordConsumer)
+
+                override fun write(record: Int) {
+                    check(record != 42) { "Injected failure" }
+                    writeSupport.write(record)
+                }
+            }
+
+        val writer = IntDataWriter(path.toFile(), failingWriteSupport, batchSize = 16)
+        val e =
+            assertThrows<IllegalStateException> {
+                writer.use {
+                    repeat(1000) { i -> it.write(i) }
+                }
+            }
+
+        assertEquals("Injected failure", e.cause?.message)
+    }
+
+    /**
+     * Test whether a failure to open the output file fails the writes instead of blocking them.
+     */
+    @Test
+    fun testDataWriterOpenFailure() {
+        // The parent of the output file is a regular file, so the writer thread cannot create it
+        val writer = IntDataWriter(path.resolve("test.parquet").toFile(), writeSupport, batchSize = 16)
+        val e =
+            assertThrows<IllegalStateException> {
+                writer.use {
+                    repeat(1000) { i -> it.write(i) }
+                }
+            }
+
+        assertInstanceOf(IOException::class.java, e.cause)
+    }
+
     /**
      * Test if overwriting fails if not specified.
      */
@@ -168,6 +380,47 @@ internal class ParquetTest {
         }
     }
 
+    /**
+     * A [ParquetDataWriter] that hands the integers to the writer thread in batches of [batchSize].
+     */
+    private class IntDataWriter(
+        path: File,
+        writeSupport: WriteSupport<Int>,
+        private val batchSize: Int,
+    ) : ParquetDataWriter<Int>(path, writeSupport) {
+        private var current = IntBatch(batchSize)
+
+        fun write(value: Int) {
+            val batch = current
+            batch.values[batch.size++] = value
+
+            if (batch.size == batchSize) {
+                current = exchange(batch) as IntBatch? ?: IntBatch(batchSize)
+            }
+        }
+
+        override fun close() {
+            val batch = current
+            if (batch.size > 0) {
+                exchange(batch)
+            }
+
+            super.close()
+        }
+    }
+
+    private class IntBatch(capacity: Int) : ParquetDataWriter.Batch<Int> {
+        val values = IntArray(capacity)
+
+        override var size: Int = 0
+
+        override fun row(index: Int): Int = values[index]
+
+        override fun clear() {
+            size = 0
+        }
+    }
+
     private class TestRecordMaterializer : RecordMaterializer<Int>() {
         private var current: Int = 0
         private val fieldConverter =
@@ -192,4 +445,24 @@ internal class ParquetTest {
 
         override fun getRootConverter(): GroupConverter = root
     }
+
+    private class StringIdRecordMaterializer(private val converter: StringIdConverter) : RecordMaterializer<Int>() {
+        private val root =
+            object : GroupConverter() {
+                override fun getConverter(fieldIndex: Int): Converter {
+                    require(fieldIndex == 0)
+                    return converter
+                }
+
+                override fun start() {
+                    converter.reset()
+                }
+
+                override fun end() {}
+            }
+
+        override fun getCurrentRecord(): Int = converter.id
+
+        override fun getRootConverter(): GroupConverter = root
+    }
 }
@@ -0,0 +1,638 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.opendc.trace.tools
+
+import mu.KotlinLogging
+import org.opendc.trace.Trace
+import org.opendc.trace.conv.TABLE_RESOURCE_STATES
+import org.opendc.trace.conv.resourceCpuCount
+import org.opendc.trace.conv.resourceID
+import org.opendc.trace.conv.resourceStateCpuUsage
+import org.opendc.trace.conv.resourceStateDuration
+import org.opendc.trace.conv.resourceStateTimestamp
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.BlockingQueue
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorCompletionService
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+import kotlin.math.abs
+import kotlin.math.max
+import kotlin.math.min
+
+/**
+ * A streaming pipeline that converts the resource states of a workload trace in a single pass.
+ *
+ * The pipeline consists of three stages that run concurrently:
+ * 1. A reader stage that scans the input trace and feeds normalized samples into the pipeline through a
+ *    [SampleCollector].
+ * 2. An aggregation stage of [parallelism] workers. The virtual machines are partitioned across the workers by their
+ *    identifier, so that each worker aggregates the metadata and cascades the samples of its own virtual machines.
+ * 3. A writer stage that writes the cascaded samples into the resource states table of the trace in [outputs] that
+ *    the virtual machine is assigned to.
+ *
+ * The stages exchange rows in fixed-size chunks over bounded queues, so the memory usage of the pipeline does not
+ * depend on the size of the trace. Samples of a single virtual machine must be fed in chronological order.
+ *
+ * The reader stage passes every chunk of samples to all workers, which each process the samples of their own virtual
+ * machines. For every chunk of samples, a worker passes a single chunk of fragments to each writer, in which the
+ * fragments are ordered by the sample that completed them. A writer merges the chunks of all workers in this order,
+ * and finally writes the last fragment of each virtual machine in order of first appearance. The rows of a table are
+ * therefore written in the same order regardless of the [parallelism] and the scheduling of the stages.
+ *
+ * Note that, unlike the previous sequential converter, the resource states are not grouped per virtual machine in the
+ * output: the fragments of a single virtual machine are written in chronological order, but the fragments of
+ * different virtual machines are interleaved in the order of the input. Consumers must therefore not rely on the rows
+ * of a virtual machine being contiguous.
+ *
+ * @param outputs The traces to write the resource states to. Each virtual machine is assigned to a single trace.
+ * @param parallelism The number of aggregation workers.
+ * @param sampleInterval The interval at which the samples were taken.
+ * @param sampleCascadeDiff The difference in CPU usage below which consecutive samples are cascaded.
+ */
+internal class ConversionPipeline(
+    private val outputs: List<Trace>,
+    private val parallelism: Int,
+    sampleInterval: Duration,
+    private val sampleCascadeDiff: Double,
+) {
+    init {
+        require(outputs.isNotEmpty()) { "At least one output is required" }
+        require(parallelism > 0) { "Parallelism must be positive" }
+    }
+
+    /**
+     * The logger instance for the pipeline.
+     */
+    private val logger = KotlinLogging.logger {}
+
+    /**
+     * The interval at which the samples were taken in milliseconds.
+     */
+    private val sampleInterval = sampleInterval.toMillis()
+
+    /**
+     * Determine the index of the output that the virtual machine with the specified [id] is written to.
+     */
+    fun partitionOf(id: String): Int = Math.floorMod(id.hashCode(), outputs.size)
+
+    /**
+     * Run the pipeline.
+     *
+     * @param source The reader stage, which is invoked on a separate thread and should feed all samples of the input
+     * trace into the specified [SampleCollector].
+     * @return The result of the conversion.
+     */
+    fun run(source: (SampleCollector) -> Unit): Result {
+        val workerQueues = List(parallelism) { ArrayBlockingQueue<SampleChunk>(QUEUE_CAPACITY) }
+        // A separate queue for each worker and output, so that a writer can merge the output of the workers in order
+        val writerQueues =
+            List(parallelism) { List(outputs.size) { ArrayBlockingQueue<FragmentChunk>(QUEUE_CAPACITY) } }
+        val fragments = AtomicLong()
+        val collector = SampleCollector(workerQueues, fragments)
+        val workers = List(parallelism) { Worker(it, workerQueues[it], writerQueues[it]) }
+
+        val threadId = AtomicInteger()
+        val executor =
+            Executors.newFixedThreadPool(1 + parallelism + outputs.size) { r ->
+                Thread(r, "opendc-trace-convert-${threadId.getAndIncrement()}").apply { isDaemon = true }
+            }
+        val completion = ExecutorCompletionService<Unit>(executor)
+        val start = System.nanoTime()
+
+        try {
+            completion.submit {
+                source(collector)
+                collector.finish()
+            }
+
+            for (worker in workers) {
+                completion.submit { worker.run() }
+            }
+
+            for ((partition, trace) in outputs.withIndex()) {
+                val queues = writerQueues.map { it[partition] }
+                completion.submit { write(trace, partition, queues, workers, fragments) }
+            }
+
+            // Wait for all stages to complete and abort the pipeline as soon as one of the stages fails
+            repeat(1 + parallelism + outputs.size) {
+                try {
+                    completion.take().get()
+                } catch (e: ExecutionException) {
+                    throw e.cause ?: e
+                }
+            }
+        } finally {
+            executor.shutdownNow()
+        }
+
+        val elapsed = (System.nanoTime() - start) / 1e9
+        val samples = collector.samples
+        logger.info {
+            "Converted $samples samples into ${fragments.get()} rows in %.1f s (%.0f samples/s)"
+                .format(elapsed, samples / elapsed)
+        }
+
+        val vms = workers.flatMap { it.vms }.sortedBy { it.index }
+        return Result(vms, fragments.get())
+    }
+
+    /**
+     * The writer stage of the pipeline for the output [trace] with index [partition].
+     *
+     * @param queues The queues through which each of the [workers] passes its fragments for this output.
+     */
+    private fun write(
+        trace: Trace,
+        partition: Int,
+        queues: List<BlockingQueue<FragmentChunk>>,
+        workers: List<Worker>,
+        count: AtomicLong,
+    ) {
+        checkNotNull(trace.getTable(TABLE_RESOURCE_STATES)).newWriter().use { writer ->
+            val idCol = writer.resolve(resourceID)
+            val timestampCol = writer.resolve(resourceStateTimestamp)
+            val durationCol = writer.resolve(resourceStateDuration)
+            val cpuCountCol = writer.resolve(resourceCpuCount)
+            val cpuUsageCol = writer.resolve(resourceStateCpuUsage)
+
+            fun writeRow(
+                vm: Vm,
+                timestamp: Long,
+                duration: Long,
+                cpuCount: Int,
+                cpuUsage: Double,
+            ) {
+                writer.startRow()
+                writer.setString(idCol, vm.id)
+                writer.setInstant(timestampCol, Instant.ofEpochMilli(timestamp))
+                writer.setDuration(durationCol, Duration.ofMillis(duration))
+                writer.setInt(cpuCountCol, cpuCount)
+                writer.setDouble(cpuUsageCol, cpuUsage)
+                writer.endRow()
+            }
+
+            val chunks = arrayOfNulls<FragmentChunk>(queues.size)
+            val positions = IntArray(queues.size)
+            var rows = 0L
+
+            while (true) {
+                // Every worker passes a single chunk for each chunk of samples, and all workers end at the same time
+                for ((worker, queue) in queues.withIndex()) {
+                    chunks[worker] = queue.take()
+                }
+                if (chunks[0] === FragmentChunk.END) {
+                    break
+                }
+
+                // Merge the chunks of the workers in the order of the samples that completed the fragments
+                positions.fill(0)
+                while (true) {
+                    var next = -1
+                    var nextSample = Int.MAX_VALUE
+                    for (worker in chunks.indices) {
+                        val chunk = chunks[worker]!!
+                        val position = positions[worker]
+                        if (position < chunk.size && chunk.samples[position] < nextSample) {
+                            next = worker
+                            nextSample = chunk.samples[position]
+                        }
+                    }
+
+                    if (next < 0) {
+                        break
+                    }
+
+                    val chunk = chunks[next]!!
+                    val row = positions[next]++
+                    writeRow(
+                        chunk.vms[row]!!,
+                        chunk.timestamps[row],
+                        chunk.durations[row],
+                        chunk.cpuCounts[row],
+                        chunk.cpuUsages[row],
+                    )
+                    rows++
+                }
+
+                count.addAndGet(rows)
+                rows = 0
+            }
+
+            // The workers have completed, so the last fragment of each virtual machine can be read from its state
+            val vms =
+                workers
+                    .flatMap { it.vms }
+                    .filter { it.partition == partition && it.isActive }
+                    .sortedBy { it.index }
+            for (vm in vms) {
+                writeRow(vm, vm.runTimestamp, vm.runDuration, vm.runCpuCount, vm.runCpuUsage)
+            }
+            count.addAndGet(vms.size.toLong())
+        }
+    }
+
+    /**
+     * The result of a conversion.
+     *
+     * @property vms The virtual machines for which samples were collected, in order of first appearance.
+     * @property fragments The number of rows written to the resource states tables.
+     */
+    class Result(val vms: List<Vm>, val fragments: Long)
+
+    /**
+     * A virtual machine in the trace.
+     *
+     * An instance is created by the reader stage when the virtual machine is first encountered. Afterwards, it is only
+     * accessed by the worker that the virtual machine is assigned to, until the worker completes.
+     *
+     * @property id The identifier of the virtual machine.
+     * @property index The order in which the virtual machine was first encountered.
+     * @property partition The index of the output to which the virtual machine is written.
+     */
+    class Vm internal constructor(val id: String, val index: Int, val partition: Int, internal val worker: Int) {
+        /**
+         * The timestamp of the first sample in milliseconds since the epoch.
+         */
+        var startTime: Long = Long.MAX_VALUE
+            private set
+
+        /**
+         * The timestamp of the last sample in milliseconds since the epoch.
+         */
+        var stopTime: Long = Long.MIN_VALUE
+            private set
+
+        /**
+         * The maximum number of CPUs over all samples.
+         */
+        var cpuCount: Int = 0
+            private set
+
+        /**
+         * The maximum CPU capacity over all samples.
+         */
+        var cpuCapacity: Double = 0.0
+            private set
+
+        /**
+         * The maximum memory capacity over all samples.
+         */
+        var memCapacity: Double = 0.0
+            private set
+
+        /**
+         * The sample that is currently being cascaded.
+         */
+        internal var isActive = false
+        internal var runTimestamp = 0L
+        internal var runDuration = 0L
+        internal var runCpuCount = 0
+        internal var runCpuUsage = 0.0
+
+        internal fun aggregate(
+            timestamp: Long,
+            cpuCount: Int,
+            cpuCapacity: Double,
+            memCapacity: Double,
+        ) {
+            startTime = min(startTime, timestamp)
+            stopTime = max(stopTime, timestamp)
+            this.cpuCount = max(this.cpuCount, cpuCount)
+            this.cpuCapacity = max(this.cpuCapacity, cpuCapacity)
+            this.memCapacity = max(this.memCapacity, memCapacity)
+        }
+    }
+
+    /**
+     * The entry point of the reader stage into the pipeline.
+     */
+    inner class SampleCollector internal constructor(
+        private val queues: List<BlockingQueue<SampleChunk>>,
+        private val fragments: AtomicLong,
+    ) {
+        /**
+         * The chunk that is currently being filled, which is passed to all workers.
+         */
+        private var chunk = SampleChunk(CHUNK_SIZE)
+
+        /**
+         * The number of virtual machines encountered so far.
+         */
+        private var vmCount = 0
+
+        /**
+         * The number of samples collected so far.
+         */
+        var samples: Long = 0L
+            private set
+
+        /**
+         * The progress reporting state.
+         */
+        private var lastReport = System.nanoTime()
+        private var lastSamples = 0L
+
+        /**
+         * Register a new virtual machine with the specified [id] in the pipeline.
+         *
+         * This method should be called at most once per virtual machine, before its first sample is collected.
+         */
+        fun register(id: String): Vm {
+            val hash = id.hashCode()
+            return Vm(id, vmCount++, Math.floorMod(hash, outputs.size), Math.floorMod(hash, parallelism))
+        }
+
+        /**
+         * Feed a sample of virtual machine [vm] into the pipeline.
+         *
+         * @param vm The virtual machine to which the sample belongs.
+         * @param timestamp The timestamp of the sample in milliseconds since the epoch.
+         * @param cpuCount The number of CPUs of the virtual machine.
+         * @param cpuUsage The CPU usage of the virtual machine in MHz.
+         * @param cpuCapacity The CPU capacity of the virtual machine in MHz.
+         * @param memCapacity The memory capacity of the virtual machine.
+         */
+        fun collect(
+            vm: Vm,
+            timestamp: Long,
+            cpuCount: Int,
+            cpuUsage: Double,
+            cpuCapacity: Double,
+            memCapacity: Double,
+        ) {
+            val row = chunk.size++
+
+            chunk.vms[row] = vm
+            chunk.timestamps[row] = timestamp
+            chunk.cpuCounts[row] = cpuCount
+            chunk.cpuUsages[row] = cpuUsage
+            chunk.cpuCapacities[row] = cpuCapacity
+            chunk.memCapacities[row] = memCapacity
+            samples++
+
+            if (chunk.size == CHUNK_SIZE) {
+                for (queue in queues) {
+                    queue.put(chunk)
+                }
+                chunk = SampleChunk(CHUNK_SIZE)
+                reportProgress()
+            }
+        }
+
+        /**
+         * Flush the remaining samples and signal the end of the input to the workers.
+         */
+        internal fun finish() {
+            for (queue in queues) {
+                if (chunk.size > 0) {
+                    queue.put(chunk)
+                }
+                queue.put(SampleChunk.END)
+            }
+        }
+
+        /**
+         * Log the progress of the conversion if the last report is long enough ago.
+         */
+        private fun reportProgress() {
+            val now = System.nanoTime()
+            val elapsed = (now - lastReport) / 1e9
+            if (elapsed < PROGRESS_INTERVAL) {
+                return
+            }
+
+            val samples = samples
+            val throughput = (samples - lastSamples) / elapsed
+            logger.info {
+                val rate = "%.0f".format(throughput)
+                "Read $samples samples of $vmCount VMs ($rate samples/s), wrote ${fragments.get()} rows"
+            }
+            lastReport = now
+            lastSamples = samples
+        }
+    }
+
+    /**
+     * A worker of the aggregation stage.
+     */
+    private inner class Worker(
+        private val index: Int,
+        private val queue: BlockingQueue<SampleChunk>,
+        private val writerQueues: List<BlockingQueue<FragmentChunk>>,
+    ) {
+        /**
+         * The virtual machines assigned to this worker.
+         */
+        val vms = ArrayList<Vm>()
+
+        /**
+         * The chunks that are currently being filled for each output.
+         */
+        private val chunks = Array(writerQueues.size) { FragmentChunk(CHUNK_SIZE) }
+
+        fun run() {
+            while (true) {
+                val chunk = queue.take()
+                if (chunk === SampleChunk.END) {
+                    break
+                }
+
+                for (row in 0 until chunk.size) {
+                    val vm = chunk.vms[row]!!
+                    if (vm.worker != index) {
+                        continue
+                    }
+
+                    process(
+                        vm,
+                        row,
+                        chunk.timestamps[row],
+                        chunk.cpuCounts[row],
+                        chunk.cpuUsages[row],
+                        chunk.cpuCapacities[row],
+                        chunk.memCapacities[row],
+                    )
+                }
+
+                // Pass a chunk to every writer, even if it is empty, so that the writers can merge the chunks in order
+                for ((partition, fragments) in chunks.withIndex()) {
+                    if (fragments.size > 0) {
+                        writerQueues[partition].put(fragments)
+                        chunks[partition] = FragmentChunk(CHUNK_SIZE)
+                    } else {
+                        writerQueues[partition].put(FragmentChunk.EMPTY)
+                    }
+                }
+            }
+
+            // The writers write the last fragment of each virtual machine once all workers have completed
+            for (writerQueue in writerQueues) {
+                writerQueue.put(FragmentChunk.END)
+            }
+        }
+
+        private fun process(
+            vm: Vm,
+            sample: Int,
+            timestamp: Long,
+            cpuCount: Int,
+            cpuUsage: Double,
+            cpuCapacity: Double,
+            memCapacity: Double,
+        ) {
+            // Keep track of the VMs of this worker on their first sample
+            if (vm.startTime == Long.MAX_VALUE) {
+                vms.add(vm)
+            }
+
+            vm.aggregate(timestamp, cpuCount, cpuCapacity, memCapacity)
+
+            // Check whether the sample can be cascaded with the current sample of the VM:
+            // (1) The CPU usage is almost identical (lower than `sampleCascadeDiff`)
+            // (2) The CPU count of both samples is identical
+            // (3) The interval between both samples is not higher than `sampleInterval`
+            if (vm.isActive) {
+                val shouldCascade =
+                    abs(cpuUsage - vm.runCpuUsage) < sampleCascadeDiff &&
+                        cpuCount == vm.runCpuCount &&
+                        (timestamp - vm.runTimestamp) <= sampleInterval
+
+                if (shouldCascade) {
+                    vm.runDuration += timestamp - vm.runTimestamp
+                    vm.runTimestamp = timestamp
+                    return
+                }
+
+                emit(vm, sample)
+            }
+
+            vm.isActive = true
+            vm.runTimestamp = timestamp
+            vm.runDuration = sampleInterval
+            vm.runCpuCount = cpuCount
+            vm.runCpuUsage = cpuUsage
+        }
+
+        /**
+         * Emit the current sample of [vm] to the writer stage, which was completed by the [sample] at the specified row
+         * of the current chunk of samples.
+         *
+         * A chunk of samples completes at most one fragment per sample, so the chunks of fragments cannot overflow.
+         */
+        private fun emit(
+            vm: Vm,
+            sample: Int,
+        ) {
+            vm.isActive = false
+
+            val chunk = chunks[vm.partition]
+            val row = chunk.size++
+
+            chunk.vms[row] = vm
+            chunk.samples[row] = sample
+            chunk.timestamps[row] = vm.runTimestamp
+            chunk.durations[row] = vm.runDuration
+            chunk.cpuCounts[row] = vm.runCpuCount
+            chunk.cpuUsages[row] = vm.runCpuUsage
+        }
+    }
+
+    /**
+     * A chunk of samples passed from the reader stage to a worker.
+     */
+    class SampleChunk internal constructor(capacity: Int) {
+        @JvmField var size = 0
+
+        @JvmField val vms = arrayOfNulls<Vm>(capacity)
+
+        @JvmField val timestamps = LongArray(capacity)
+
+        @JvmField val cpuCounts = IntArray(capacity)
+
+        @JvmField val cpuUsages = DoubleArray(capacity)
+
+        @JvmField val cpuCapacities = DoubleArray(capacity)
+
+        @JvmField val memCapacities = DoubleArray(capacity)
+
+        companion object {
+            /**
+             * The marker for the end of the input.
+             */
+            @JvmField val END = SampleChunk(0)
+        }
+    }
+
+    /**
+     * A chunk of cascaded samples passed from a worker to a writer.
+     */
+    private class FragmentChunk(capacity: Int) {
+        @JvmField var size = 0
+
+        @JvmField val vms = arrayOfNulls<Vm>(capacity)
+
+        @JvmField val samples = IntArray(capacity)
+
+        @JvmField val timestamps = LongArray(capacity)
+
+        @JvmField val durations = LongArray(capacity)
+
+        @JvmField val cpuCounts = IntArray(capacity)
+
+        @JvmField val cpuUsages = DoubleArray(capacity)
+
+        companion object {
+            /**
+             * The chunk passed for a chunk of samples that did not complete any fragments for the output.
+             */
+            @JvmField val EMPTY = FragmentChunk(0)
+
+            /**
+             * The marker for the end of the output of a worker.
+             */
+            @JvmField val END = FragmentChunk(0)
+        }
+    }
+
+    private companion object {
+        /**
+         * The number of rows in a chunk exchanged between the stages of the pipeline.
+         */
+        const val CHUNK_SIZE = 4096
+
+        /**
+         * The number of chunks that may be queued for a single worker, or from a single worker to a writer.
+         */
+        const val QUEUE_CAPACITY = 8
+
+        /**
+         * The minimum interval between progress reports in seconds.
+         */
+        const val PROGRESS_INTERVAL = 10.0
+    }
+}
@@ -34,10 +34,11 @@ import com.github.ajalt.clikt.parameters.options.option
 import com.github.ajalt.clikt.parameters.options.required
 import com.github.ajalt.clikt.parameters.types.double
 import com.github.ajalt.clikt.parameters.types.file
+import com.github.ajalt.clikt.parameters.types.int
 import com.github.ajalt.clikt.parameters.types.long
 import com.github.ajalt.clikt.parameters.types.restrictTo
 import mu.KotlinLogging
-import org.opendc.trace.TableWriter
+import org.opendc.trace.TableBatch
 import org.opendc.trace.Trace
 import org.opendc.trace.conv.TABLE_RESOURCES
 import org.opendc.trace.conv.TABLE_RESOURCE_STATES
@@ -48,17 +49,14 @@ import org.opendc.trace.conv.resourceID
 import org.opendc.trace.conv.resourceMemCapacity
 import org.opendc.trace.conv.resourceStateCpuUsage
 import org.opendc.trace.conv.resourceStateCpuUsagePct
-import org.opendc.trace.conv.resourceStateDuration
 import org.opendc.trace.conv.resourceStateMemUsage
 import org.opendc.trace.conv.resourceStateTimestamp
 import org.opendc.trace.conv.resourceSubmissionTime
 import java.io.File
 import java.time.Duration
 import java.time.Instant
-import java.util.Random
-import kotlin.math.abs
+import java.util.SplittableRandom
 import kotlin.math.max
-import kotlin.math.min
 
 /**
  * A [CliktCommand] that can convert between workload trace formats.
@@ -94,6 +92,22 @@ internal class ConvertCommand : CliktCommand(name = "convert", help = "Convert b
     private val outputFormat by option("--output-format", help = "format of output trace")
         .default("opendc-vm")
 
+    /**
+     * The number of workers that aggregate the resource states.
+     */
+    private val parallelism by option("-p", "--parallelism", help = "number of workers to convert the trace with")
+        .int()
+        .restrictTo(min = 1)
+        .default(Runtime.getRuntime().availableProcessors())
+
+    /**
+     * The number of partitions to write the output trace in.
+     */
+    private val partitions by option("--partitions", help = "number of partitions to split the output trace into")
+        .int()
+        .restrictTo(min = 1)
+        .default(1)
+
     /**
      * The sampling options.
      */
@@ -119,26 +133,48 @@ internal class ConvertCommand : CliktCommand(name = "convert", help = "Convert b
         }
 
         val inputTrace = Trace.open(input, format = inputFormat)
-        val outputTrace = Trace.create(output, format = outputFormat)
+
+        // With multiple partitions, every partition is a separate trace that contains a disjoint set of VMs
+        val outputTraces =
+            if (partitions == 1) {
+                listOf(Trace.create(output, format = outputFormat))
+            } else {
+                List(partitions) { Trace.create(File(output, "part-%05d".format(it)), format = outputFormat) }
+            }
+
+        logger.info { "Building resource states table ($parallelism workers, ${outputTraces.size} partitions)" }
+
+        val pipeline =
+            ConversionPipeline(outputTraces, parallelism, converter.sampleInterval, converter.sampleCascadeDiff)
+        val result = pipeline.run { converter.readSamples(inputTrace, samplingOptions, it) }
 
         logger.info { "Building resources table" }
 
-        val metaWriter = outputTrace.getTable(TABLE_RESOURCES)!!.newWriter()
+        val resources = converter.convertResources(result.vms)
+        val writers = outputTraces.map { checkNotNull(it.getTable(TABLE_RESOURCES)).newWriter() }
 
-        val selectedVms = metaWriter.use { converter.convertResources(inputTrace, it, samplingOptions) }
+        try {
+            for (resource in resources) {
+                val writer = writers[pipeline.partitionOf(resource.id)]
+                writer.startRow()
+                writer.setString(resourceID, resource.id)
+                writer.setInstant(resourceSubmissionTime, resource.startTime)
+                writer.setLong(resourceDuration, Duration.between(resource.startTime, resource.stopTime).toMillis())
+                writer.setInt(resourceCpuCount, resource.cpuCount)
+                writer.setDouble(resourceCpuCapacity, resource.cpuCapacity)
+                writer.setDouble(resourceMemCapacity, resource.memCapacity)
+                writer.endRow()
+            }
+        } finally {
+            writers.forEach { it.close() }
+        }
 
-        if (selectedVms.isEmpty()) {
+        if (resources.isEmpty()) {
             logger.warn { "No VMs selected" }
             return
         }
 
-        logger.info { "Wrote ${selectedVms.size} rows" }
-        logger.info { "Building resource states table" }
-
-        val writer = outputTrace.getTable(TABLE_RESOURCE_STATES)!!.newWriter()
-
-        val statesCount = writer.use { converter.convertResourceStates(inputTrace, it, selectedVms) }
-        logger.info { "Wrote $statesCount rows" }
+        logger.info { "Wrote ${resources.size} rows" }
     }
 
     /**
@@ -159,6 +195,17 @@ internal class ConvertCommand : CliktCommand(name = "convert", help = "Convert b
         val seed by option("--sampling-seed", help = "seed for sampling the workload")
             .long()
             .default(0)
+
+        /**
+         * Determine whether the VM with the specified [id] is part of the sample.
+         *
+         * The decision only depends on the seed and the identifier of the VM, so that it does not depend on the order
+         * in which the VMs are encountered. As a consequence, the same seed selects a different sample than the
+         * sequential converter did before.
+         */
+        fun isSelected(id: String): Boolean {
+            return SplittableRandom(seed xor id.hashCode().toLong()).nextDouble() <= fraction
+        }
     }
 
     /**
@@ -166,32 +213,35 @@ internal class ConvertCommand : CliktCommand(name = "convert", help = "Convert b
      */
     private sealed class TraceConverter(name: String) : OptionGroup(name) {
         /**
-         * Convert the resources table for the trace.
+         * The interval at which the samples where taken.
+         */
+        val sampleInterval: Duration = Duration.ofMinutes(5)
+
+        /**
+         * The difference in CPU usage for the algorithm to cascade samples.
+         */
+        val sampleCascadeDiff = 0.1
+
+        /**
+         * Read the resource states of the trace into the conversion pipeline.
          *
          * @param trace The trace to convert.
-         * @param writer The table writer for the target format.
          * @param samplingOptions The sampling options to use.
-         * @return The map of resources that have been selected.
+         * @param collector The collector to feed the samples of the selected resources into.
          */
-        abstract fun convertResources(
+        abstract fun readSamples(
             trace: Trace,
-            writer: TableWriter,
             samplingOptions: SamplingOptions?,
-        ): Map<String, Resource>
+            collector: ConversionPipeline.SampleCollector,
+        )
 
         /**
-         * Convert the resource states table for the trace.
+         * Convert the resources table for the trace.
          *
-         * @param trace The trace to convert.
-         * @param writer The table writer for the target format.
-         * @param selected The set of virtual machines that have been selected.
-         * @return The number of rows written.
+         * @param vms The VMs for which samples have been collected by the conversion pipeline.
+         * @return The resources that have been selected.
          */
-        abstract fun convertResourceStates(
-            trace: Trace,
-            writer: TableWriter,
-            selected: Map<String, Resource>,
-        ): Int
+        abstract fun convertResources(vms: List<ConversionPipeline.Vm>): List<Resource>
 
         /**
          * A resource in the resource table.
@@ -204,6 +254,13 @@ internal class ConvertCommand : CliktCommand(name = "convert", help = "Convert b
             val cpuCapacity: Double,
             val memCapacity: Double,
         )
+
+        companion object {
+            /**
+             * The number of rows to read from the input trace at once.
+             */
+            const val BATCH_SIZE = 4096
+        }
     }
 
     /**
@@ -215,157 +272,67 @@ internal class ConvertCommand : CliktCommand(name = "convert", help = "Convert b
          */
         private val logger = KotlinLogging.logger {}
 
-        /**
-         * The interval at which the samples where taken.
-         */
-        private val sampleInterval = Duration.ofMinutes(5)
-
-        /**
-         * The difference in CPU usage for the algorithm to cascade samples.
-         */
-        private val sampleCascadeDiff = 0.1
-
-        override fun convertResources(
+        override fun readSamples(
             trace: Trace,
-            writer: TableWriter,
             samplingOptions: SamplingOptions?,
-        ): Map<String, Resource> {
-            val random = samplingOptions?.let { Random(it.seed) }
-            val samplingFraction = samplingOptions?.fraction ?: 1.0
-            val reader = checkNotNull(trace.getTable(TABLE_RESOURCE_STATES)).newReader()
-
-            var hasNextRow = reader.nextRow()
-            val selectedVms = mutableMapOf<String, Resource>()
-
-            val idCol = reader.resolve(resourceID)
-            val timestampCol = reader.resolve(resourceStateTimestamp)
-            val cpuCountCol = reader.resolve(resourceCpuCount)
-            val cpuCapacityCol = reader.resolve(resourceCpuCapacity)
-            val memCapacityCol = reader.resolve(resourceMemCapacity)
-            val memUsageCol = reader.resolve(resourceStateMemUsage)
-
-            while (hasNextRow) {
-                var id: String
-                var cpuCount = 0
-                var cpuCapacity = 0.0
-                var memCapacity = 0.0
-                var memUsage = 0.0
-                var startTime = Long.MAX_VALUE
-                var stopTime = Long.MIN_VALUE
-
-                do {
-                    id = reader.getString(idCol)!!
-
-                    val timestamp = reader.getInstant(timestampCol)!!.toEpochMilli()
-                    startTime = min(startTime, timestamp)
-                    stopTime = max(stopTime, timestamp)
-
-                    cpuCount = max(cpuCount, reader.getInt(cpuCountCol))
-                    cpuCapacity = max(cpuCapacity, reader.getDouble(cpuCapacityCol))
-                    memCapacity = max(memCapacity, reader.getDouble(memCapacityCol))
-                    if (memUsageCol > 0) {
-                        memUsage = max(memUsage, reader.getDouble(memUsageCol))
+            collector: ConversionPipeline.SampleCollector,
+        ) {
+            checkNotNull(trace.getTable(TABLE_RESOURCE_STATES)).newReader().use { reader ->
+                val batch = TableBatch(BATCH_SIZE)
+                val ids = batch.strings(reader.resolve(resourceID))
+                val timestamps = batch.instants(reader.resolve(resourceStateTimestamp))
+                val cpuCounts = batch.ints(reader.resolve(resourceCpuCount))
+                val cpuCapacities = batch.doubles(reader.resolve(resourceCpuCapacity))
+                val cpuUsages = batch.doubles(reader.resolve(resourceStateCpuUsage))
+                val memCapacities = batch.doubles(reader.resolve(resourceMemCapacity))
+                val memUsageCol = reader.resolve(resourceStateMemUsage)
+                val memUsages = if (memUsageCol >= 0) batch.doubles(memUsageCol) else null
+
+                // The selected VMs indexed by the dictionary code of their identifier
+                val vms = ArrayList<ConversionPipeline.Vm?>()
+
+                while (reader.nextBatch(batch)) {
+                    for (row in 0 until batch.size) {
+                        val code = ids.codes[row]
+                        if (code < 0) {
+                            continue
+                        }
+
+                        while (code >= vms.size) {
+                            val id = ids.lookup(vms.size)
+
+                            // Sample only a fraction of the VMs
+                            if (samplingOptions == null || samplingOptions.isSelected(id)) {
+                                logger.debug { "Selecting VM $id" }
+                                vms.add(collector.register(id))
+                            } else {
+                                vms.add(null)
+                            }
+                        }
+
+                        val vm = vms[code] ?: continue
+                        val memCapacity = max(memCapacities[row], memUsages?.get(row) ?: 0.0)
+
+                        collector.collect(
+                            vm,
+                            timestamps[row],
+                            cpuCounts[row],
+                            cpuUsages[row],
+                            cpuCapacities[row],
+                            memCapacity,
+                        )
                     }
-
-                    hasNextRow = reader.nextRow()
-                } while (hasNextRow && id == reader.getString(resourceID))
-
-                // Sample only a fraction of the VMs
-                if (random != null && random.nextDouble() > samplingFraction) {
-                    continue
-                }
-
-                logger.info { "Selecting VM $id" }
-
-                val startInstant = Instant.ofEpochMilli(startTime) - sampleInterval // Offset by sample interval
-                val stopInstant = Instant.ofEpochMilli(stopTime)
-
-                selectedVms.computeIfAbsent(id) {
-                    Resource(it, startInstant, stopInstant, cpuCount, cpuCapacity, max(memCapacity, memUsage))
                 }
-
-                writer.startRow()
-                writer.setString(resourceID, id)
-                writer.setInstant(resourceSubmissionTime, startInstant)
-                writer.setInstant(resourceDuration, stopInstant)
-                writer.setInt(resourceCpuCount, cpuCount)
-                writer.setDouble(resourceCpuCapacity, cpuCapacity)
-                writer.setDouble(resourceMemCapacity, max(memCapacity, memUsage))
-                writer.endRow()
             }
-
-            return selectedVms
         }
 
-        override fun convertResourceStates(
-            trace: Trace,
-            writer: TableWriter,
-            selected: Map<String, Resource>,
-        ): Int {
-            val reader = checkNotNull(trace.getTable(TABLE_RESOURCE_STATES)).newReader()
-            val sampleInterval = sampleInterval.toMillis()
-
-            val idCol = reader.resolve(resourceID)
-            val timestampCol = reader.resolve(resourceStateTimestamp)
-            val cpuCountCol = reader.resolve(resourceCpuCount)
-            val cpuUsageCol = reader.resolve(resourceStateCpuUsage)
-
-            var hasNextRow = reader.nextRow()
-            var count = 0
-
-            while (hasNextRow) {
-                val id = reader.getString(idCol)!!
-                val resource = selected[id]
-                if (resource == null) {
-                    hasNextRow = reader.nextRow()
-                    continue
-                }
-
-                val cpuCount = reader.getInt(cpuCountCol)
-                val cpuUsage = reader.getDouble(cpuUsageCol)
-
-                val startTimestamp = reader.getInstant(timestampCol)!!.toEpochMilli()
-                var timestamp: Long = startTimestamp
-                var duration: Long = sampleInterval
-
-                // Attempt to cascade further samples into one if they share the same CPU usage
-                while (reader.nextRow().also { hasNextRow = it }) {
-                    val shouldCascade =
-                        id == reader.getString(idCol) &&
-                            abs(cpuUsage - reader.getDouble(cpuUsageCol)) < sampleCascadeDiff &&
-                            cpuCount == reader.getInt(cpuCountCol)
-
-                    // Check whether the next sample can be cascaded with the current sample:
-                    // (1) The VM identifier of both samples matches
-                    // (2) The CPU usage is almost identical (lower than `SAMPLE_CASCADE_DIFF`
-                    // (3) The CPU count of both samples is identical
-                    if (!shouldCascade) {
-                        break
-                    }
-
-                    val nextTimestamp = reader.getInstant(timestampCol)!!.toEpochMilli()
-
-                    // Check whether the interval between both samples is not higher than `SAMPLE_INTERVAL`
-                    if ((nextTimestamp - timestamp) > sampleInterval) {
-                        break
-                    }
-
-                    duration += nextTimestamp - timestamp
-                    timestamp = nextTimestamp
-                }
-
-                writer.startRow()
-                writer.setString(resourceID, id)
-                writer.setInstant(resourceStateTimestamp, Instant.ofEpochMilli(timestamp))
-                writer.setDuration(resourceStateDuration, Duration.ofMillis(duration))
-                writer.setInt(resourceCpuCount, cpuCount)
-                writer.setDouble(resourceStateCpuUsage, cpuUsage)
-                writer.endRow()
+        override fun convertResources(vms: List<ConversionPipeline.Vm>): List<Resource> {
+            return vms.map { vm ->
+                val startInstant = Instant.ofEpochMilli(vm.startTime) - sampleInterval // Offset by sample interval
+                val stopInstant = Instant.ofEpochMilli(vm.stopTime)
 
-                count++
+                Resource(vm.id, startInstant, stopInstant, vm.cpuCount, vm.cpuCapacity, vm.memCapacity)
             }
-
-            return count
         }
     }
 
@@ -384,138 +351,97 @@ internal class ConvertCommand : CliktCommand(name = "convert", help = "Convert b
         private val cpuCapacity = 2500.0
 
         /**
-         * The interval at which the samples where taken.
+         * The resources that have been selected from the resources table of the trace.
          */
-        private val sampleInterval = Duration.ofMinutes(5)
+        private val selectedVms = LinkedHashMap<String, Resource>()
 
-        /**
-         * The difference in CPU usage for the algorithm to cascade samples.
-         */
-        private val sampleCascadeDiff = 0.1
-
-        override fun convertResources(
+        override fun readSamples(
             trace: Trace,
-            writer: TableWriter,
             samplingOptions: SamplingOptions?,
-        ): Map<String, Resource> {
-            val random = samplingOptions?.let { Random(it.seed) }
-            val samplingFraction = samplingOptions?.fraction ?: 1.0
-            val reader = checkNotNull(trace.getTable(TABLE_RESOURCES)).newReader()
-
-            val idCol = reader.resolve(resourceID)
-            val startTimeCol = reader.resolve(resourceSubmissionTime)
-            val stopTimeCol = reader.resolve(resourceDuration)
-            val cpuCountCol = reader.resolve(resourceCpuCount)
-            val memCapacityCol = reader.resolve(resourceMemCapacity)
-
-            val selectedVms = mutableMapOf<String, Resource>()
-
-            while (reader.nextRow()) {
-                // Sample only a fraction of the VMs
-                if (random != null && random.nextDouble() > samplingFraction) {
-                    continue
-                }
-
-                val id = reader.getString(idCol)!!
-                val startTime = reader.getInstant(startTimeCol)!!.toEpochMilli()
-                val stopTime = reader.getInstant(stopTimeCol)!!.toEpochMilli()
-                val cpuCount = reader.getInt(cpuCountCol)
-                val memCapacity = reader.getDouble(memCapacityCol)
-
-                logger.info { "Selecting VM $id" }
-
-                val startInstant = Instant.ofEpochMilli(startTime)
-                val stopInstant = Instant.ofEpochMilli(stopTime)
-                val cpuCapacity = cpuCount * cpuCapacity
-
-                selectedVms.computeIfAbsent(id) {
-                    Resource(it, startInstant, stopInstant, cpuCount, cpuCapacity, memCapacity)
+            collector: ConversionPipeline.SampleCollector,
+        ) {
+            readResources(trace, samplingOptions)
+
+            checkNotNull(trace.getTable(TABLE_RESOURCE_STATES)).newReader().use { reader ->
+                val batch = TableBatch(BATCH_SIZE)
+                val ids = batch.strings(reader.resolve(resourceID))
+                val timestamps = batch.instants(reader.resolve(resourceStateTimestamp))
+                val cpuUsages = batch.doubles(reader.resolve(resourceStateCpuUsagePct))
+
+                // The selected VMs and their resources indexed by the dictionary code of their identifier
+                val vms = ArrayList<ConversionPipeline.Vm?>()
+                val resources = ArrayList<Resource?>()
+
+                while (reader.nextBatch(batch)) {
+                    for (row in 0 until batch.size) {
+                        val code = ids.codes[row]
+                        if (code < 0) {
+                            continue
+                        }
+
+                        while (code >= vms.size) {
+                            val id = ids.lookup(vms.size)
+                            val resource = selectedVms[id]
+
+                            vms.add(resource?.let { collector.register(id) })
+                            resources.add(resource)
+                        }
+
+                        val vm = vms[code] ?: continue
+                        val resource = resources[code]!!
+                        val cpuUsage = cpuUsages[row] * resource.cpuCapacity // MHz
+
+                        collector.collect(
+                            vm,
+                            timestamps[row],
+                            resource.cpuCount,
+                            cpuUsage,
+                            resource.cpuCapacity,
+                            resource.memCapacity,
+                        )
+                    }
                 }
-
-                writer.startRow()
-                writer.setString(resourceID, id)
-                writer.setInstant(resourceSubmissionTime, startInstant)
-                writer.setInstant(resourceDuration, stopInstant)
-                writer.setInt(resourceCpuCount, cpuCount)
-                writer.setDouble(resourceCpuCapacity, cpuCapacity)
-                writer.setDouble(resourceMemCapacity, memCapacity)
-                writer.endRow()
             }
-
-            return selectedVms
         }
 
-        override fun convertResourceStates(
-            trace: Trace,
-            writer: TableWriter,
-            selected: Map<String, Resource>,
-        ): Int {
-            val reader = checkNotNull(trace.getTable(TABLE_RESOURCE_STATES)).newReader()
-            val states = HashMap<String, State>()
-            val sampleInterval = sampleInterval.toMillis()
-
-            val idCol = reader.resolve(resourceID)
-            val timestampCol = reader.resolve(resourceStateTimestamp)
-            val cpuUsageCol = reader.resolve(resourceStateCpuUsagePct)
-
-            var count = 0
-
-            while (reader.nextRow()) {
-                val id = reader.getString(idCol)!!
-                val resource = selected[id] ?: continue
-
-                val cpuUsage = reader.getDouble(cpuUsageCol) * resource.cpuCapacity // MHz
-                val state = states.computeIfAbsent(id) { State(resource, cpuUsage, sampleInterval) }
-                val timestamp = reader.getInstant(timestampCol)!!.toEpochMilli()
-                val delta = (timestamp - state.time)
-
-                // Check whether the next sample can be cascaded with the current sample:
-                // (1) The CPU usage is almost identical (lower than `SAMPLE_CASCADE_DIFF`)
-                // (2) The interval between both samples is not higher than `SAMPLE_INTERVAL`
-                if (abs(cpuUsage - state.cpuUsage) <= sampleCascadeDiff && delta <= sampleInterval) {
-                    state.time = timestamp
-                    state.duration += delta
-                    continue
-                }
-
-                state.write(writer)
-                // Reset the state fields
-                state.time = timestamp
-                state.duration = sampleInterval
-                // Count write
-                count++
-            }
-
-            for ((_, state) in states) {
-                state.write(writer)
-                count++
-            }
-
-            return count
-        }
+        override fun convertResources(vms: List<ConversionPipeline.Vm>): List<Resource> = selectedVms.values.toList()
 
-        private class State(
-            @JvmField val resource: Resource,
-            @JvmField var cpuUsage: Double,
-            @JvmField var duration: Long,
+        /**
+         * Read the resources table of the trace and select the VMs to convert.
+         */
+        private fun readResources(
+            trace: Trace,
+            samplingOptions: SamplingOptions?,
         ) {
-            @JvmField var time: Long = resource.startTime.toEpochMilli()
-            private var lastWrite: Long = Long.MIN_VALUE
-
-            fun write(writer: TableWriter) {
-                // Check whether this timestamp was already written
-                if (lastWrite == time) {
-                    return
+            checkNotNull(trace.getTable(TABLE_RESOURCES)).newReader().use { reader ->
+                val batch = TableBatch(BATCH_SIZE)
+                val ids = batch.strings(reader.resolve(resourceID))
+                val startTimes = batch.instants(reader.resolve(resourceSubmissionTime))
+                val stopTimes = batch.instants(reader.resolve(resourceDuration))
+                val cpuCounts = batch.ints(reader.resolve(resourceCpuCount))
+                val memCapacities = batch.doubles(reader.resolve(resourceMemCapacity))
+
+                while (reader.nextBatch(batch)) {
+                    for (row in 0 until batch.size) {
+                        val id = ids[row] ?: continue
+
+                        // Sample only a fraction of the VMs
+                        if (samplingOptions != null && !samplingOptions.isSelected(id)) {
+                            continue
+                        }
+
+                        logger.debug { "Selecting VM $id" }
+
+                        val cpuCount = cpuCounts[row]
+                        val startInstant = Instant.ofEpochMilli(startTimes[row])
+                        val stopInstant = Instant.ofEpochMilli(stopTimes[row])
+                        val cpuCapacity = cpuCount * cpuCapacity
+
+                        selectedVms.computeIfAbsent(id) {
+                            Resource(it, startInstant, stopInstant, cpuCount, cpuCapacity, memCapacities[row])
+                        }
+                    }
                 }
-                lastWrite = time
-
-                writer.startRow()
-                writer.setString(resourceID, resource.id)
-                writer.setInstant(resourceStateTimestamp, Instant.ofEpochMilli(time))
-                writer.setDuration(resourceStateDuration, Duration.ofMillis(duration))
-                writer.setDouble(resourceStateCpuUsage, cpuUsage)
-                writer.setInt(resourceCpuCount, resource.cpuCount)
-                writer.endRow()
             }
         }
     }
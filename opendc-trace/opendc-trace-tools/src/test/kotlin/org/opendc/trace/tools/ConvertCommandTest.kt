@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2024 AtLarge Research
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.opendc.trace.tools
+
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.opendc.trace.Trace
+import org.opendc.trace.conv.TABLE_RESOURCES
+import org.opendc.trace.conv.TABLE_RESOURCE_STATES
+import org.opendc.trace.conv.resourceCpuCount
+import org.opendc.trace.conv.resourceDuration
+import org.opendc.trace.conv.resourceID
+import org.opendc.trace.conv.resourceStateCpuUsage
+import org.opendc.trace.conv.resourceStateDuration
+import org.opendc.trace.conv.resourceStateTimestamp
+import org.opendc.trace.conv.resourceSubmissionTime
+import java.io.File
+import java.nio.file.Files
+import java.time.Instant
+import java.util.SplittableRandom
+
+/**
+ * Test suite for the [ConvertCommand] and its [ConversionPipeline].
+ */
+class ConvertCommandTest {
+    private lateinit var output: File
+
+    @BeforeEach
+    fun setUp() {
+        output = Files.createTempDirectory("convert").toFile()
+    }
+
+    @AfterEach
+    fun tearDown() {
+        output.deleteRecursively()
+    }
+
+    @Test
+    fun testConvert() {
+        val trace = convert("run", "-p", "1")
+
+        assertEquals(EXPECTED_FRAGMENTS, readFragments(trace))
+        assertEquals(EXPECTED_RESOURCES, readResources(trace))
+    }
+
+    @Test
+    fun testParallelism() {
+        val trace = convert("run", "-p", "4")
+
+        assertEquals(EXPECTED_FRAGMENTS, readFragments(trace))
+        assertEquals(EXPECTED_RESOURCES, readResources(trace))
+    }
+
+    @Test
+    fun testOrder() {
+        val first = convert("first", "-p", "1")
+        val second = convert("second", "-p", "4")
+        val third = convert("third", "-p", "4")
+
+        // The rows are written in the same order regardless of the parallelism and the scheduling of the workers
+        val expected = readRows(first)
+        assertEquals(expected, readRows(second))
+        assertEquals(expected, readRows(third))
+    }
+
+    @Test
+    fun testPartitions() {
+        val dir = convert("run", "-p", "2", "--partitions", "3")
+        val partitions = List(3) { File(dir, "part-%05d".format(it)) }
+
+        val fragments = partitions.map { readFragments(it) }
+        val resources = partitions.map { readResources(it) }
+
+        // Every VM is written to exactly one partition, together with its fragments
+        for ((partFragments, partResources) in fragments.zip(resources)) {
+            assertEquals(partResources.keys, partFragments.keys)
+        }
+        assertEquals(EXPECTED_RESOURCES.size, resources.sumOf { it.size })
+        assertEquals(EXPECTED_FRAGMENTS, fragments.reduce { acc, it -> acc + it })
+        assertEquals(EXPECTED_RESOURCES, resources.reduce { acc, it -> acc + it })
+    }
+
+    @Test
+    fun testSampling() {
+        val seed = 42L
+        val fraction = 0.5
+        val first = convert("first", "-p", "1", "--sampling-fraction", "$fraction", "--sampling-seed", "$seed")
+        val second = convert("second", "-p", "3", "--sampling-fraction", "$fraction", "--sampling-seed", "$seed")
+
+        // The selection of a VM only depends on the seed and its identifier
+        val expected =
+            EXPECTED_RESOURCES.keys.filter {
+                SplittableRandom(seed xor it.hashCode().toLong()).nextDouble() <= fraction
+            }
+        assertTrue(expected.isNotEmpty() && expected.size < EXPECTED_RESOURCES.size, "Fixture should be sampled")
+
+        for (trace in listOf(first, second)) {
+            assertEquals(EXPECTED_FRAGMENTS.filterKeys { it in expected }, readFragments(trace))
+            assertEquals(EXPECTED_RESOURCES.filterKeys { it in expected }, readResources(trace))
+        }
+    }
+
+    /**
+     * Convert the fixture into the directory [name] with the specified [options].
+     */
+    private fun convert(
+        name: String,
+        vararg options: String,
+    ): File {
+        val dir = File(output, name)
+        ConvertCommand().parse(listOf("-O", dir.path, "-f", "bitbrains", *options, "src/test/resources/bitbrains"))
+        return dir
+    }
+
+    /**
+     * Read the fragments of every VM in the trace at [dir].
+     *
+     * The fragments of different VMs may be interleaved in the table, but the fragments of a single VM must be in
+     * chronological order.
+     */
+    private fun readFragments(dir: File): Map<String, List<Fragment>> =
+        readRows(dir).groupBy({ it.first }, { it.second })
+
+    /**
+     * Read the rows of the resource states table in the trace at [dir] in order.
+     */
+    private fun readRows(dir: File): List<Pair<String, Fragment>> {
+        val result = mutableListOf<Pair<String, Fragment>>()
+        val table = checkNotNull(Trace.open(dir, "opendc-vm").getTable(TABLE_RESOURCE_STATES))
+
+        table.newReader().use { reader ->
+            val idCol = reader.resolve(resourceID)
+            val timestampCol = reader.resolve(resourceStateTimestamp)
+            val durationCol = reader.resolve(resourceStateDuration)
+            val cpuCountCol = reader.resolve(resourceCpuCount)
+            val cpuUsageCol = reader.resolve(resourceStateCpuUsage)
+
+            while (reader.nextRow()) {
+                val fragment =
+                    Fragment(
+                        reader.getInstant(timestampCol)!!.toEpochMilli() - START,
+                        reader.getDuration(durationCol)!!.toMillis(),
+                        reader.getInt(cpuCountCol),
+                        reader.getDouble(cpuUsageCol),
+                    )
+                result.add(reader.getString(idCol)!! to fragment)
+            }
+        }
+
+        return result
+    }
+
+    /**
+     * Read the resources in the trace at [dir].
+     */
+    private fun readResources(dir: File): Map<String, Resource> {
+        val result = mutableMapOf<String, Resource>()
+        val table = checkNotNull(Trace.open(dir, "opendc-vm").getTable(TABLE_RESOURCES))
+
+        table.newReader().use { reader ->
+            val idCol = reader.resolve(resourceID)
+            val startCol = reader.resolve(resourceSubmissionTime)
+            val durationCol = reader.resolve(resourceDuration)
+            val cpuCountCol = reader.resolve(resourceCpuCount)
+
+            while (reader.nextRow()) {
+                val startTime = reader.getInstant(startCol)!!.toEpochMilli() - START
+                result[reader.getString(idCol)!!] =
+                    Resource(startTime, startTime + reader.getLong(durationCol), reader.getInt(cpuCountCol))
+            }
+        }
+
+        return result
+    }
+
+    /**
+     * A fragment of a VM, with its timestamp relative to [START].
+     */
+    private data class Fragment(val timestamp: Long, val duration: Long, val cpuCount: Int, val cpuUsage: Double)
+
+    /**
+     * A resource, with its start and stop time relative to [START].
+     */
+    private data class Resource(val startTime: Long, val stopTime: Long, val cpuCount: Int)
+
+    private companion object {
+        /**
+         * The timestamp of the first sample in the fixture.
+         */
+        val START = Instant.ofEpochSecond(1376314800).toEpochMilli()
+
+        /**
+         * The fragments of the fixture, where samples at most five minutes apart with (almost) the same CPU usage
+         * are cascaded into a single fragment that is stamped with the time of its last sample.
+         */
+        val EXPECTED_FRAGMENTS =
+            mapOf(
+                "a" to listOf(Fragment(300_000, 600_000, 2, 10.0), Fragment(900_000, 600_000, 2, 50.0)),
+                "b" to listOf(Fragment(300_000, 600_000, 1, 20.0), Fragment(1_200_000, 300_000, 1, 20.0)),
+                "c" to listOf(Fragment(600_000, 600_000, 4, 30.0)),
+                "d" to listOf(Fragment(300_000, 600_000, 1, 40.0)),
+                "e" to listOf(Fragment(600_000, 300_000, 2, 60.0), Fragment(900_000, 300_000, 2, 70.0)),
+                "f" to listOf(Fragment(0, 300_000, 1, 80.0)),
+            )
+
+        /**
+         * The resources of the fixture, which start five minutes before their first sample.
+         */
+        val EXPECTED_RESOURCES =
+            mapOf(
+                "a" to Resource(-300_000, 900_000, 2),
+                "b" to Resource(-300_000, 1_200_000, 1),
+                "c" to Resource(0, 600_000, 4),
+                "d" to Resource(-300_000, 300_000, 1),
+                "e" to Resource(300_000, 900_000, 2),
+                "f" to Resource(-300_000, 0, 1),
+            )
+    }
+}
@@ -33,6 +33,8 @@ import kotlin.math.roundToLong
  * A [ComputeMonitor] that tracks the aggregate metrics for each repeat.
  */
 internal class WebComputeMonitor : ComputeMonitor {
+    override val readsInPlace: Boolean = true
+
     override fun record(reader: HostTableReader) {
         val slices = reader.downtime / sliceLength
 